@@ -0,0 +1,141 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.handler.ActivityEndEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.vehicles.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dispatches a mix of link and activity events to a number of events handlers, as <code>EventsManagerImpl</code>
+ * does during the mobsim.  The result is given per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EventsManagerBenchmark {
+
+	static final int NUMBER_OF_EVENTS = 100000;
+
+	@Param({"1", "10"})
+	private int numberOfHandlers;
+
+	private EventsManager events;
+	private Event[] eventArray;
+
+	@Setup
+	public void setup() {
+		this.events = EventsUtils.createEventsManager();
+		for (int i = 0; i < this.numberOfHandlers; i++) {
+			this.events.addHandler(new CountingHandler());
+		}
+		this.eventArray = createEvents(NUMBER_OF_EVENTS).toArray(new Event[0]);
+		this.events.initProcessing();
+	}
+
+	/**
+	 * Creates link events of vehicles driving over random links, with an activity end event before and an activity
+	 * start event after every 20 links.
+	 */
+	static List<Event> createEvents(final int numberOfEvents) {
+		Random random = new Random(SyntheticScenario.SEED);
+		List<Event> events = new ArrayList<>(numberOfEvents);
+		double time = 6 * 3600;
+		while (events.size() < numberOfEvents) {
+			Id<Person> personId = Id.create(random.nextInt(10000), Person.class);
+			Id<Vehicle> vehicleId = Id.create(personId, Vehicle.class);
+			Id<Link> linkId = Id.create(random.nextInt(10000), Link.class);
+			events.add(new ActivityEndEvent(time, personId, linkId, null, "h"));
+			for (int i = 0; i < 20; i++) {
+				events.add(new LinkLeaveEvent(time, vehicleId, linkId));
+				linkId = Id.create(random.nextInt(10000), Link.class);
+				events.add(new LinkEnterEvent(time, vehicleId, linkId));
+				time += 0.1;
+			}
+			events.add(new ActivityStartEvent(time, personId, linkId, null, "w"));
+		}
+		return events;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_EVENTS)
+	public void processEvents() {
+		for (Event event : this.eventArray) {
+			this.events.processEvent(event);
+		}
+	}
+
+	private static class CountingHandler implements LinkEnterEventHandler, LinkLeaveEventHandler, ActivityEndEventHandler {
+		private int count = 0;
+
+		@Override
+		public void handleEvent(final LinkEnterEvent event) {
+			this.count++;
+		}
+
+		@Override
+		public void handleEvent(final LinkLeaveEvent event) {
+			this.count++;
+		}
+
+		@Override
+		public void handleEvent(final ActivityEndEvent event) {
+			this.count++;
+		}
+
+		@Override
+		public void reset(final int iteration) {
+			this.count = 0;
+		}
+	}
+
+}
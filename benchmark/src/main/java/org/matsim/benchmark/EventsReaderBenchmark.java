@@ -0,0 +1,83 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsReaderXMLv1;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.algorithms.EventWriterXML;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses an events file in memory with {@link EventsReaderXMLv1}.  The result is given per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EventsReaderBenchmark {
+
+	private static final int NUMBER_OF_EVENTS = EventsManagerBenchmark.NUMBER_OF_EVENTS;
+
+	private byte[] eventsXml;
+	private int count = 0;
+
+	@Setup
+	public void setup() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		EventWriterXML writer = new EventWriterXML(out);
+		for (Event event : EventsManagerBenchmark.createEvents(NUMBER_OF_EVENTS)) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+		this.eventsXml = out.toByteArray();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_EVENTS)
+	public int readEvents() {
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler((BasicEventHandler) event -> this.count++);
+		events.initProcessing();
+		new EventsReaderXMLv1(events).parse(new ByteArrayInputStream(this.eventsXml));
+		events.finishProcessing();
+		return this.count;
+	}
+
+}
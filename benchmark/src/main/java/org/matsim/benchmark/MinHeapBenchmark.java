@@ -0,0 +1,133 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+import org.matsim.core.router.FastDijkstraFactory;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.priorityqueue.MinHeapType;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the heaps of the fast routers, see {@link MinHeapType}, by calculating least cost paths between random
+ * nodes with free speed travel times. The network is either the Berlin network of the examples, a grid network, or
+ * read from the file given as network parameter, e.g. <code>-p network=path/to/network.xml.gz</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MinHeapBenchmark {
+
+	private static final int NUMBER_OF_QUERIES = 1000;
+
+	@Param({"BinaryMinHeap", "FourAryMinHeap", "PairingMinHeap", "RadixMinHeap"})
+	private MinHeapType minHeapType;
+
+	@Param({"FastDijkstra", "FastAStarLandmarks"})
+	private String algorithm;
+
+	@Param({"berlin", "grid"})
+	private String network;
+
+	private LeastCostPathCalculator router;
+	private Node[] fromNodes;
+	private Node[] toNodes;
+	private int query = 0;
+
+	@Setup
+	public void setup() {
+		Network network = loadNetwork(this.network);
+		FreespeedTravelTimeAndDisutility travelTime = new FreespeedTravelTimeAndDisutility(ConfigUtils.createConfig().planCalcScore());
+		switch (this.algorithm) {
+			case "FastDijkstra":
+				FastDijkstraFactory dijkstraFactory = new FastDijkstraFactory();
+				dijkstraFactory.setMinHeapType(this.minHeapType);
+				this.router = dijkstraFactory.createPathCalculator(network, travelTime, travelTime);
+				break;
+			case "FastAStarLandmarks":
+				FastAStarLandmarksFactory landmarksFactory = new FastAStarLandmarksFactory(1);
+				landmarksFactory.setMinHeapType(this.minHeapType);
+				this.router = landmarksFactory.createPathCalculator(network, travelTime, travelTime);
+				break;
+			default:
+				throw new IllegalArgumentException(this.algorithm + " is unknown!");
+		}
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Random random = new Random(SyntheticScenario.SEED);
+		this.fromNodes = new Node[NUMBER_OF_QUERIES];
+		this.toNodes = new Node[NUMBER_OF_QUERIES];
+		for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+			this.fromNodes[i] = nodes.get(random.nextInt(nodes.size()));
+			this.toNodes[i] = nodes.get(random.nextInt(nodes.size()));
+		}
+	}
+
+	private static Network loadNetwork(final String name) {
+		switch (name) {
+			case "grid":
+				return SyntheticScenario.createScenario(100, 0).getNetwork();
+			case "berlin":
+				Network berlin = NetworkUtils.createNetwork();
+				new MatsimNetworkReader(berlin).parse(IOUtils.newUrl(ExamplesUtils.getTestScenarioURL("berlin"), "network.xml.gz"));
+				return berlin;
+			default:
+				Network network = NetworkUtils.createNetwork();
+				new MatsimNetworkReader(network).readFile(name);
+				return network;
+		}
+	}
+
+	@Benchmark
+	public Path calcLeastCostPath() {
+		int i = this.query;
+		this.query = (i + 1) % NUMBER_OF_QUERIES;
+		return this.router.calcLeastCostPath(this.fromNodes[i], this.toNodes[i], 8 * 3600, null, null);
+	}
+
+}
@@ -0,0 +1,82 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.config.Config;
+import org.matsim.core.population.io.PopulationReader;
+import org.matsim.core.population.io.PopulationWriter;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads a synthetic population in the population_v6 format from memory, so the result does not depend on the disk.
+ * With more than one thread, the persons are parsed in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PopulationReaderBenchmark {
+
+	@Param({"20000"})
+	private int numberOfPersons;
+
+	@Param({"1", "4"})
+	private int numberOfThreads;
+
+	private byte[] populationXml;
+
+	@Setup
+	public void setup() {
+		Scenario scenario = SyntheticScenario.createScenario(30, this.numberOfPersons);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new PopulationWriter(scenario.getPopulation()).write(out);
+		this.populationXml = out.toByteArray();
+	}
+
+	@Benchmark
+	public Population readPopulation() {
+		Config config = SyntheticScenario.createConfig();
+		config.global().setNumberOfThreads(this.numberOfThreads);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		new PopulationReader(scenario).parse(new ByteArrayInputStream(this.populationXml));
+		return scenario.getPopulation();
+	}
+
+}
@@ -0,0 +1,74 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs the QSim on a synthetic scenario, without any events handler.  The run time is dominated by the network
+ * simulation, i.e. moving the vehicles through the links (<code>QueueWithBuffer.doSimStep</code>) and over the nodes
+ * (<code>QNodeImpl.moveNode</code>).  These are not benchmarked in isolation, since they only make sense with a
+ * fully wired QSim.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QSimBenchmark {
+
+	@Param({"30"})
+	private int gridSize;
+
+	@Param({"10000", "50000"})
+	private int numberOfPersons;
+
+	private Scenario scenario;
+
+	@Setup
+	public void setup() {
+		this.scenario = SyntheticScenario.createScenario(this.gridSize, this.numberOfPersons);
+	}
+
+	@Benchmark
+	public void simulate() {
+		EventsManager events = EventsUtils.createEventsManager();
+		new QSimBuilder(this.scenario.getConfig()).useDefaults().build(this.scenario, events).run();
+	}
+
+}
@@ -0,0 +1,116 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.AStarLandmarksFactory;
+import org.matsim.core.router.ContractionHierarchiesFactory;
+import org.matsim.core.router.DijkstraFactory;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+import org.matsim.core.router.FastDijkstraFactory;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Calculates least cost paths between random nodes of a grid network with free speed travel times.
+ * The preprocessing of the routers is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RouterBenchmark {
+
+	private static final int NUMBER_OF_QUERIES = 1000;
+
+	@Param({"FastAStarLandmarks", "AStarLandmarks", "FastDijkstra", "Dijkstra", "ContractionHierarchies"})
+	private String algorithm;
+
+	@Param({"100"})
+	private int gridSize;
+
+	private LeastCostPathCalculator router;
+	private Node[] fromNodes;
+	private Node[] toNodes;
+	private int query = 0;
+
+	@Setup
+	public void setup() {
+		Scenario scenario = SyntheticScenario.createScenario(this.gridSize, 0);
+		FreespeedTravelTimeAndDisutility travelTime = new FreespeedTravelTimeAndDisutility(scenario.getConfig().planCalcScore());
+		this.router = createFactory(this.algorithm).createPathCalculator(scenario.getNetwork(), travelTime, travelTime);
+
+		List<Node> nodes = new ArrayList<>(scenario.getNetwork().getNodes().values());
+		Random random = new Random(SyntheticScenario.SEED);
+		this.fromNodes = new Node[NUMBER_OF_QUERIES];
+		this.toNodes = new Node[NUMBER_OF_QUERIES];
+		for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+			this.fromNodes[i] = nodes.get(random.nextInt(nodes.size()));
+			this.toNodes[i] = nodes.get(random.nextInt(nodes.size()));
+		}
+	}
+
+	private static LeastCostPathCalculatorFactory createFactory(final String algorithm) {
+		switch (algorithm) {
+			case "FastAStarLandmarks":
+				return new FastAStarLandmarksFactory(1);
+			case "AStarLandmarks":
+				return new AStarLandmarksFactory(1);
+			case "FastDijkstra":
+				return new FastDijkstraFactory();
+			case "Dijkstra":
+				return new DijkstraFactory();
+			case "ContractionHierarchies":
+				return new ContractionHierarchiesFactory(900, 30 * 3600);
+			default:
+				throw new IllegalArgumentException(algorithm + " is unknown!");
+		}
+	}
+
+	@Benchmark
+	public Path calcLeastCostPath() {
+		int i = this.query;
+		this.query = (i + 1) % NUMBER_OF_QUERIES;
+		return this.router.calcLeastCostPath(this.fromNodes[i], this.toNodes[i], 8 * 3600, null, null);
+	}
+
+}
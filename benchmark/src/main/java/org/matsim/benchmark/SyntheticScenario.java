@@ -0,0 +1,159 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.router.DijkstraFactory;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.scenario.ScenarioUtils;
+
+/**
+ * Creates scenarios of arbitrary size for the micro benchmarks: a square grid network and a population of
+ * home-work-home commuters with routed car legs. The scenarios only depend on the size and the random seed, so
+ * benchmark results are comparable between commits.
+ */
+final class SyntheticScenario {
+
+	static final long SEED = 4711;
+
+	private SyntheticScenario() {
+	}
+
+	static Config createConfig() {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setStartTime(0);
+		config.qsim().setEndTime(30 * 3600);
+		config.global().setNumberOfThreads(1);
+		return config;
+	}
+
+	/**
+	 * @param gridSize the number of nodes per row and column, the network has <code>4 * gridSize * (gridSize - 1)</code> links
+	 * @param numberOfPersons the number of persons with one home-work-home plan each, 0 for no population
+	 */
+	static Scenario createScenario(final int gridSize, final int numberOfPersons) {
+		Scenario scenario = ScenarioUtils.createScenario(createConfig());
+		createGridNetwork(scenario.getNetwork(), gridSize);
+		if (numberOfPersons > 0) {
+			createPopulation(scenario, numberOfPersons);
+		}
+		return scenario;
+	}
+
+	static void createGridNetwork(final Network network, final int gridSize) {
+		network.setCapacityPeriod(3600.0);
+		Node[][] nodes = new Node[gridSize][gridSize];
+		for (int x = 0; x < gridSize; x++) {
+			for (int y = 0; y < gridSize; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.create(x + "_" + y, Node.class), new Coord(x * 500, y * 500));
+			}
+		}
+		for (int x = 0; x < gridSize; x++) {
+			for (int y = 0; y < gridSize; y++) {
+				if (x + 1 < gridSize) {
+					addLink(network, nodes[x][y], nodes[x + 1][y]);
+					addLink(network, nodes[x + 1][y], nodes[x][y]);
+				}
+				if (y + 1 < gridSize) {
+					addLink(network, nodes[x][y], nodes[x][y + 1]);
+					addLink(network, nodes[x][y + 1], nodes[x][y]);
+				}
+			}
+		}
+	}
+
+	private static void addLink(final Network network, final Node from, final Node to) {
+		Id<Link> id = Id.create(from.getId() + "-" + to.getId(), Link.class);
+		NetworkUtils.createAndAddLink(network, id, from, to, 500.0, 13.89, 1800.0, 1.0);
+	}
+
+	static void createPopulation(final Scenario scenario, final int numberOfPersons) {
+		Network network = scenario.getNetwork();
+		Population population = scenario.getPopulation();
+		PopulationFactory factory = population.getFactory();
+		FreespeedTravelTimeAndDisutility travelTime = new FreespeedTravelTimeAndDisutility(scenario.getConfig().planCalcScore());
+		LeastCostPathCalculator router = new DijkstraFactory().createPathCalculator(network, travelTime, travelTime);
+		List<Link> links = new ArrayList<>(network.getLinks().values());
+		Random random = new Random(SEED);
+
+		for (int i = 0; i < numberOfPersons; i++) {
+			Person person = factory.createPerson(Id.create(i, Person.class));
+			Plan plan = factory.createPlan();
+			Link home = links.get(random.nextInt(links.size()));
+			Link work = links.get(random.nextInt(links.size()));
+			// departures spread over the morning and afternoon peak
+			double departure = 6 * 3600 + random.nextInt(3 * 3600);
+			double workEnd = departure + 8 * 3600 + random.nextInt(2 * 3600);
+
+			Activity homeMorning = factory.createActivityFromLinkId("h", home.getId());
+			homeMorning.setEndTime(departure);
+			plan.addActivity(homeMorning);
+			plan.addLeg(createLeg(factory, router, home, work, departure));
+			Activity workActivity = factory.createActivityFromLinkId("w", work.getId());
+			workActivity.setEndTime(workEnd);
+			plan.addActivity(workActivity);
+			plan.addLeg(createLeg(factory, router, work, home, workEnd));
+			plan.addActivity(factory.createActivityFromLinkId("h", home.getId()));
+
+			person.addPlan(plan);
+			population.addPerson(person);
+		}
+	}
+
+	private static Leg createLeg(final PopulationFactory factory, final LeastCostPathCalculator router, final Link from, final Link to,
+			final double departure) {
+		Leg leg = factory.createLeg(TransportMode.car);
+		List<Id<Link>> linkIds = new ArrayList<>();
+		linkIds.add(from.getId());
+		if (from != to) {
+			Path path = router.calcLeastCostPath(from.getToNode(), to.getFromNode(), departure, null, null);
+			for (Link link : path.links) {
+				linkIds.add(link.getId());
+			}
+		}
+		linkIds.add(to.getId());
+		leg.setRoute(RouteUtils.createNetworkRoute(linkIds, null));
+		leg.setDepartureTime(departure);
+		return leg;
+	}
+
+}
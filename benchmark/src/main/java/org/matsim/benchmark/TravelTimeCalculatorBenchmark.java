@@ -0,0 +1,108 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.trafficmonitoring.TravelTimeCalculator;
+import org.matsim.vehicles.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Feeds link enter and leave events of vehicles driving over random links into a {@link TravelTimeCalculator}.
+ * The result is given per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TravelTimeCalculatorBenchmark {
+
+	private static final int NUMBER_OF_EVENTS = 100000;
+
+	@Param({"TravelTimeCalculatorArray", "TravelTimeCalculatorOffHeap"})
+	private String travelTimeCalculatorType;
+
+	@Param({"50"})
+	private int gridSize;
+
+	private TravelTimeCalculator calculator;
+	private Event[] events;
+
+	@Setup
+	public void setup() {
+		Scenario scenario = SyntheticScenario.createScenario(this.gridSize, 0);
+		scenario.getConfig().travelTimeCalculator().setTravelTimeCalculatorType(this.travelTimeCalculatorType);
+		TravelTimeCalculator.Builder builder = new TravelTimeCalculator.Builder(scenario.getNetwork());
+		builder.configure(scenario.getConfig().travelTimeCalculator());
+		this.calculator = builder.build();
+
+		List<Link> links = new ArrayList<>(scenario.getNetwork().getLinks().values());
+		Random random = new Random(SyntheticScenario.SEED);
+		List<Event> eventList = new ArrayList<>(NUMBER_OF_EVENTS);
+		while (eventList.size() < NUMBER_OF_EVENTS) {
+			Id<Vehicle> vehicleId = Id.create(random.nextInt(10000), Vehicle.class);
+			double time = random.nextInt(24 * 3600);
+			for (int i = 0; i < 10; i++) {
+				Id<Link> linkId = links.get(random.nextInt(links.size())).getId();
+				eventList.add(new LinkEnterEvent(time, vehicleId, linkId));
+				time += 36 + random.nextInt(100);
+				eventList.add(new LinkLeaveEvent(time, vehicleId, linkId));
+			}
+		}
+		this.events = eventList.toArray(new Event[0]);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_EVENTS)
+	public void handleEvents() {
+		for (Event event : this.events) {
+			if (event instanceof LinkEnterEvent) {
+				this.calculator.handleEvent((LinkEnterEvent) event);
+			} else {
+				this.calculator.handleEvent((LinkLeaveEvent) event);
+			}
+		}
+	}
+
+}
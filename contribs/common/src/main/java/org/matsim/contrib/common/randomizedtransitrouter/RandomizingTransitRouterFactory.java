@@ -18,37 +18,55 @@ package org.matsim.contrib.common.randomizedtransitrouter;/* *******************
  *                                                                         *
  * *********************************************************************** */
 
+import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.pt.router.*;
 import org.matsim.pt.transitSchedule.api.TransitSchedule;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
+import javax.inject.Singleton;
 
 
 /**
+ * The router network and the prepared schedule are shared by all routers until the schedule changes, like in
+ * {@link TransitRouterImplFactory}.
+ *
  * @author dgrether
  *
  */
+@Singleton
 public class RandomizingTransitRouterFactory implements Provider<TransitRouter> {
 
 	private TransitRouterConfig trConfig;
 	private TransitSchedule schedule;
 	private TransitRouterNetwork routerNetwork;
+	private PreparedTransitSchedule preparedTransitSchedule;
 
     @Inject
-	RandomizingTransitRouterFactory(Config config, TransitSchedule schedule) {
+	RandomizingTransitRouterFactory(Config config, TransitSchedule schedule, EventsManager events) {
 		this.trConfig = new TransitRouterConfig(config);
 		this.schedule = schedule;
-		this.routerNetwork = TransitRouterNetwork.createFromSchedule(schedule, trConfig.getBeelineWalkConnectionDistance());
+		events.addHandler((TransitScheduleChangedEventHandler) event -> reset());
+	}
+
+	private synchronized void reset() {
+		this.routerNetwork = null;
+		this.preparedTransitSchedule = null;
 	}
 	
 	@Override
-	public TransitRouter get() {
+	public synchronized TransitRouter get() {
+		if (this.routerNetwork == null) {
+			this.routerNetwork = TransitRouterNetwork.createFromSchedule(schedule, trConfig.getBeelineWalkConnectionDistance());
+		}
+		if (this.preparedTransitSchedule == null) {
+			this.preparedTransitSchedule = new PreparedTransitSchedule(schedule);
+		}
 		RandomizingTransitRouterTravelTimeAndDisutility ttCalculator = new RandomizingTransitRouterTravelTimeAndDisutility(trConfig);
 		ttCalculator.setDataCollection(RandomizingTransitRouterTravelTimeAndDisutility.DataCollection.randomizedParameters, true) ;
 		ttCalculator.setDataCollection(RandomizingTransitRouterTravelTimeAndDisutility.DataCollection.additionalInformation, false) ;
-		return new TransitRouterImpl(trConfig, new PreparedTransitSchedule(schedule), routerNetwork, ttCalculator, ttCalculator);
+		return new TransitRouterImpl(trConfig, preparedTransitSchedule, routerNetwork, ttCalculator, ttCalculator);
 	}
 
 }
@@ -21,11 +21,14 @@ package org.matsim.contrib.eventsBasedPTRouter;
 
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.eventsBasedPTRouter.waitTimes.WaitTime;
+import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.controler.MatsimServices;
 import org.matsim.pt.router.PreparedTransitSchedule;
 import org.matsim.pt.router.TransitRouter;
 import org.matsim.pt.router.TransitRouterConfig;
+import org.matsim.pt.router.TransitScheduleChangedEventHandler;
 
+import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
@@ -39,7 +42,8 @@ import javax.inject.Singleton;
 public class TransitRouterEventsWLFactory implements Provider<TransitRouter> {
 
 	private final TransitRouterConfig config;
-	private final TransitRouterNetworkWW routerNetwork;
+	private TransitRouterNetworkWW routerNetwork;
+	private PreparedTransitSchedule preparedTransitSchedule;
 	private final Network network;
 	private MatsimServices controler;
 	private final WaitTime waitTime;
@@ -51,11 +55,30 @@ public class TransitRouterEventsWLFactory implements Provider<TransitRouter> {
         this.network = controler.getScenario().getNetwork();
 		this.controler = controler;
 		this.waitTime = waitTime;
-		routerNetwork = TransitRouterNetworkWW.createFromSchedule(network, controler.getScenario().getTransitSchedule(), this.config.getBeelineWalkConnectionDistance());
 	}
+
+	/*
+	 * Also called if this factory is bound as an instance, as the injector injects the members of provider instances.
+	 */
+	@Inject
+	void setEventsManager(final EventsManager events) {
+		events.addHandler((TransitScheduleChangedEventHandler) event -> reset());
+	}
+
+	private synchronized void reset() {
+		this.routerNetwork = null;
+		this.preparedTransitSchedule = null;
+	}
+
 	@Override
-	public TransitRouter get() {
-		return new TransitRouterVariableImpl(config, new TransitRouterNetworkTravelTimeAndDisutilityWW(config, network, routerNetwork, controler.getLinkTravelTimes(), waitTime, controler.getConfig().travelTimeCalculator(), controler.getConfig().qsim(), new PreparedTransitSchedule(controler.getScenario().getTransitSchedule())), routerNetwork);
+	public synchronized TransitRouter get() {
+		if (this.routerNetwork == null) {
+			this.routerNetwork = TransitRouterNetworkWW.createFromSchedule(network, controler.getScenario().getTransitSchedule(), this.config.getBeelineWalkConnectionDistance());
+		}
+		if (this.preparedTransitSchedule == null) {
+			this.preparedTransitSchedule = new PreparedTransitSchedule(controler.getScenario().getTransitSchedule());
+		}
+		return new TransitRouterVariableImpl(config, new TransitRouterNetworkTravelTimeAndDisutilityWW(config, network, routerNetwork, controler.getLinkTravelTimes(), waitTime, controler.getConfig().travelTimeCalculator(), controler.getConfig().qsim(), this.preparedTransitSchedule), routerNetwork);
 	}
 
 }
@@ -23,9 +23,11 @@ import com.google.inject.Inject;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.contrib.eventsBasedPTRouter.stopStopTimes.StopStopTime;
 import org.matsim.contrib.eventsBasedPTRouter.waitTimes.WaitTime;
+import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.pt.router.PreparedTransitSchedule;
 import org.matsim.pt.router.TransitRouter;
 import org.matsim.pt.router.TransitRouterConfig;
+import org.matsim.pt.router.TransitScheduleChangedEventHandler;
 
 import javax.inject.Provider;
 import javax.inject.Singleton;
@@ -39,7 +41,8 @@ import javax.inject.Singleton;
 public class TransitRouterEventsWSFactory implements Provider<TransitRouter> {
 
 	private final TransitRouterConfig config;
-	private final TransitRouterNetworkWW routerNetwork;
+	private TransitRouterNetworkWW routerNetwork;
+	private PreparedTransitSchedule preparedTransitSchedule;
 	private final Scenario scenario;
 	private WaitTime waitTime;
 
@@ -58,14 +61,33 @@ public class TransitRouterEventsWSFactory implements Provider<TransitRouter> {
 		this.config = new TransitRouterConfig(scenario.getConfig().planCalcScore(),
 				scenario.getConfig().plansCalcRoute(), scenario.getConfig().transitRouter(),
 				scenario.getConfig().vspExperimental());
-		routerNetwork = TransitRouterNetworkWW.createFromSchedule(scenario.getNetwork(), scenario.getTransitSchedule(), this.config.getBeelineWalkConnectionDistance());
 		this.scenario = scenario;
 		this.waitTime = waitTime;
 		this.stopStopTime = stopStopTime;
 	}
+
+	/*
+	 * Also called if this factory is bound as an instance, as the injector injects the members of provider instances.
+	 */
+	@Inject
+	void setEventsManager(final EventsManager events) {
+		events.addHandler((TransitScheduleChangedEventHandler) event -> reset());
+	}
+
+	private synchronized void reset() {
+		this.routerNetwork = null;
+		this.preparedTransitSchedule = null;
+	}
+
 	@Override
-	public TransitRouter get() {
-		return new TransitRouterVariableImpl(config, new TransitRouterNetworkTravelTimeAndDisutilityWS(config, routerNetwork, waitTime, stopStopTime, scenario.getConfig().travelTimeCalculator(), scenario.getConfig().qsim(), new PreparedTransitSchedule(scenario.getTransitSchedule())), routerNetwork);
+	public synchronized TransitRouter get() {
+		if (this.routerNetwork == null) {
+			this.routerNetwork = TransitRouterNetworkWW.createFromSchedule(scenario.getNetwork(), scenario.getTransitSchedule(), this.config.getBeelineWalkConnectionDistance());
+		}
+		if (this.preparedTransitSchedule == null) {
+			this.preparedTransitSchedule = new PreparedTransitSchedule(scenario.getTransitSchedule());
+		}
+		return new TransitRouterVariableImpl(config, new TransitRouterNetworkTravelTimeAndDisutilityWS(config, routerNetwork, waitTime, stopStopTime, scenario.getConfig().travelTimeCalculator(), scenario.getConfig().qsim(), this.preparedTransitSchedule), routerNetwork);
 	}
 
 }
@@ -23,10 +23,13 @@ import org.matsim.api.core.v01.Scenario;
 import org.matsim.contrib.eventsBasedPTRouter.stopStopTimes.StopStopTime;
 import org.matsim.contrib.eventsBasedPTRouter.vehicleOccupancy.VehicleOccupancy;
 import org.matsim.contrib.eventsBasedPTRouter.waitTimes.WaitTime;
+import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.pt.router.PreparedTransitSchedule;
 import org.matsim.pt.router.TransitRouter;
 import org.matsim.pt.router.TransitRouterConfig;
+import org.matsim.pt.router.TransitScheduleChangedEventHandler;
 
+import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
@@ -39,7 +42,8 @@ import javax.inject.Singleton;
 public class TransitRouterEventsWSVFactory implements Provider<TransitRouter> {
 
 	private final TransitRouterConfig config;
-	private final TransitRouterNetworkWW routerNetwork;
+	private TransitRouterNetworkWW routerNetwork;
+	private PreparedTransitSchedule preparedTransitSchedule;
 	private final Scenario scenario;
 	private final WaitTime waitTime;
 	private final StopStopTime stopStopTime;
@@ -49,15 +53,34 @@ public class TransitRouterEventsWSVFactory implements Provider<TransitRouter> {
 		this.config = new TransitRouterConfig(scenario.getConfig().planCalcScore(),
 				scenario.getConfig().plansCalcRoute(), scenario.getConfig().transitRouter(),
 				scenario.getConfig().vspExperimental());
-		routerNetwork = TransitRouterNetworkWW.createFromSchedule(scenario.getNetwork(), scenario.getTransitSchedule(), this.config.getBeelineWalkConnectionDistance());
 		this.scenario = scenario;
 		this.waitTime = waitTime;
 		this.stopStopTime = stopStopTime;
 		this.vehicleOccupancy = vehicleOccupancy;
 	}
+
+	/*
+	 * Also called if this factory is bound as an instance, as the injector injects the members of provider instances.
+	 */
+	@Inject
+	void setEventsManager(final EventsManager events) {
+		events.addHandler((TransitScheduleChangedEventHandler) event -> reset());
+	}
+
+	private synchronized void reset() {
+		this.routerNetwork = null;
+		this.preparedTransitSchedule = null;
+	}
+
 	@Override
-	public TransitRouter get() {
-		return new TransitRouterVariableImpl(config, new TransitRouterNetworkTravelTimeAndDisutilityWSV(config, routerNetwork, waitTime, stopStopTime, vehicleOccupancy, scenario.getConfig().travelTimeCalculator(), scenario.getConfig().qsim(), new PreparedTransitSchedule(scenario.getTransitSchedule())), routerNetwork);
+	public synchronized TransitRouter get() {
+		if (this.routerNetwork == null) {
+			this.routerNetwork = TransitRouterNetworkWW.createFromSchedule(scenario.getNetwork(), scenario.getTransitSchedule(), this.config.getBeelineWalkConnectionDistance());
+		}
+		if (this.preparedTransitSchedule == null) {
+			this.preparedTransitSchedule = new PreparedTransitSchedule(scenario.getTransitSchedule());
+		}
+		return new TransitRouterVariableImpl(config, new TransitRouterNetworkTravelTimeAndDisutilityWSV(config, routerNetwork, waitTime, stopStopTime, vehicleOccupancy, scenario.getConfig().travelTimeCalculator(), scenario.getConfig().qsim(), this.preparedTransitSchedule), routerNetwork);
 	}
 
 }
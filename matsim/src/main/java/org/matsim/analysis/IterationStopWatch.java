@@ -63,6 +63,9 @@ public final class IterationStopWatch {
 	/** A list of identifiers used to enumerate operations. */
 	private final List<String> operations;
 
+	/** A list of identifiers used to enumerate counts. */
+	private final List<String> counts;
+
 	/** A cache for easy access to the current object in <code>iterations</code>. */
 	private Map<String, Long> currentIterationValues;
 
@@ -85,6 +88,7 @@ public final class IterationStopWatch {
 		this.iterations = new LinkedHashMap<Integer, Map<String, Long>>();
 		this.identifiers = new LinkedList<String>();
 		this.operations = new LinkedList<String>();
+		this.counts = new LinkedList<String>();
 		this.currentIterationValues = null;
 		this.children = new LinkedHashMap<Integer, Map<String, List<String>>>();
 	}
@@ -100,6 +104,7 @@ public final class IterationStopWatch {
 		this.iterations.clear();
 		this.identifiers.clear();
 		this.operations.clear();
+		this.counts.clear();
 		this.currentMeasuredOperations.clear();
 		this.currentIterationChildren.clear();
 		this.children.clear();
@@ -183,6 +188,21 @@ public final class IterationStopWatch {
 		this.currentIterationValues.put(identifier, Long.valueOf(System.currentTimeMillis()));
 	}
 
+	/**
+	 * Remembers a number for the current iteration, e.g. how often some cache was used. The numbers are written
+	 * after the durations of the operations, but not into the graph.
+	 *
+	 * @param identifier The name of the number.
+	 * @param count The number.
+	 */
+	public void count(final String identifier, final long count) {
+		String ident = "COUNT " + identifier;
+		if (!this.counts.contains(identifier)) {
+			this.counts.add(identifier);
+		}
+		this.currentIterationValues.put(ident, Long.valueOf(count));
+	}
+
 	/**
 	 * Writes the gathered data tab-separated into a text file.
 	 *
@@ -204,6 +224,13 @@ public final class IterationStopWatch {
 				writer.write('\t');
 				writer.write(identifier);
 			}
+			if (!this.counts.isEmpty()) {
+				writer.write('\t');
+				for (String identifier : this.counts) {
+					writer.write('\t');
+					writer.write(identifier);
+				}
+			}
 			writer.newLine();
 
 			// print data
@@ -230,6 +257,17 @@ public final class IterationStopWatch {
 						writer.write(Time.writeTime(diff));
 					}
 				}
+				// counts
+				if (!this.counts.isEmpty()) {
+					writer.write('\t');
+					for (String identifier : this.counts) {
+						Long count = data.get("COUNT " + identifier);
+						writer.write('\t');
+						if (count != null) {
+							writer.write(count.toString());
+						}
+					}
+				}
 
 				// finish
 				writer.newLine();
@@ -28,8 +28,12 @@ import org.matsim.core.controler.events.IterationEndsEvent;
 import org.matsim.core.controler.events.IterationStartsEvent;
 import org.matsim.core.controler.listener.IterationEndsListener;
 import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.utils.io.AsyncOutputService;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Integrates the {@link org.matsim.analysis.LegHistogram} into the
@@ -43,22 +47,33 @@ final class LegHistogramListener implements IterationEndsListener, IterationStar
 	@Inject private LegHistogram histogram;
 	@Inject private ControlerConfigGroup controlerConfigGroup;
 	@Inject private OutputDirectoryHierarchy controlerIO;
+	@Inject private AsyncOutputService outputService;
+
+	private final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>();
 
 	static private final Logger log = Logger.getLogger(LegHistogramListener.class);
 
 	@Override
 	public void notifyIterationStarts(final IterationStartsEvent event) {
+		// the histogram of the last iteration may still be written in the background
+		for (CompletableFuture<Void> write : this.pendingWrites) {
+			write.join();
+		}
+		this.pendingWrites.clear();
 		this.histogram.reset(event.getIteration());
 	}
 
 	@Override
 	public void notifyIterationEnds(final IterationEndsEvent event) {
-		this.histogram.write(controlerIO.getIterationFilename(event.getIteration(), "legHistogram.txt"));
+		String filename = controlerIO.getIterationFilename(event.getIteration(), "legHistogram.txt");
+		this.pendingWrites.add(this.outputService.submit(filename, () -> this.histogram.write(filename)));
 		this.printStats();
 		if (controlerConfigGroup.isCreateGraphs()) {
-			LegHistogramChart.writeGraphic(this.histogram, controlerIO.getIterationFilename(event.getIteration(), "legHistogram_all.png"));
+			String allFilename = controlerIO.getIterationFilename(event.getIteration(), "legHistogram_all.png");
+			this.pendingWrites.add(this.outputService.submit(allFilename, () -> LegHistogramChart.writeGraphic(this.histogram, allFilename)));
 			for (String legMode : this.histogram.getLegModes()) {
-				LegHistogramChart.writeGraphic(this.histogram, controlerIO.getIterationFilename(event.getIteration(), "legHistogram_" + legMode + ".png"), legMode);
+				String modeFilename = controlerIO.getIterationFilename(event.getIteration(), "legHistogram_" + legMode + ".png");
+				this.pendingWrites.add(this.outputService.submit(modeFilename, () -> LegHistogramChart.writeGraphic(this.histogram, modeFilename, legMode)));
 			}
 		}
 
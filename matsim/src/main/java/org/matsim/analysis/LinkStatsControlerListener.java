@@ -29,10 +29,12 @@ import org.matsim.core.controler.events.IterationStartsEvent;
 import org.matsim.core.controler.listener.IterationEndsListener;
 import org.matsim.core.controler.listener.IterationStartsListener;
 import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.utils.io.AsyncOutputService;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author mrieser
@@ -45,8 +47,10 @@ final class LinkStatsControlerListener implements IterationEndsListener, Iterati
 	@Inject private VolumesAnalyzer volumes;
 	@Inject private OutputDirectoryHierarchy controlerIO;
 	@Inject private Map<String, TravelTime> travelTime;
+	@Inject private AsyncOutputService outputService;
     private int iterationsUsed = 0;
 	private boolean doReset = false;
+	private CompletableFuture<Void> pendingWrite = CompletableFuture.completedFuture(null);
 
     @Override
 	public void notifyIterationEnds(IterationEndsEvent event) {
@@ -58,7 +62,8 @@ final class LinkStatsControlerListener implements IterationEndsListener, Iterati
 		}
 
 		if (createLinkStatsInIteration(iteration)) {
-			linkStats.writeFile(this.controlerIO.getIterationFilename(iteration, Controler.FILENAME_LINKSTATS));
+			String filename = this.controlerIO.getIterationFilename(iteration, Controler.FILENAME_LINKSTATS);
+			this.pendingWrite = this.outputService.submit(filename, () -> linkStats.writeFile(filename));
 			this.doReset = true;
 		}
 	}
@@ -66,6 +71,8 @@ final class LinkStatsControlerListener implements IterationEndsListener, Iterati
 	@Override
 	public void notifyIterationStarts(IterationStartsEvent event) {
 		if (this.doReset) {
+			// the link stats may still be written in the background
+			this.pendingWrite.join();
 			// resetting at the beginning of an iteration, to allow others to use the data until the very end of the previous iteration
 			this.linkStats.reset();
 			this.doReset = false;
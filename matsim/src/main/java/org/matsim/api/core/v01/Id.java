@@ -20,6 +20,7 @@
 
 package org.matsim.api.core.v01;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -41,6 +42,7 @@ import org.matsim.vehicles.Vehicle;
 public abstract class Id<T> implements Comparable<Id<T>> {
 
 	private final static Map<Class<?>, Map<String, Id<?>>> cache = new ConcurrentHashMap<Class<?>, Map<String, Id<?>>>();
+	private final static Map<Class<?>, IdIndex> cacheIndex = new ConcurrentHashMap<Class<?>, IdIndex>();
 	
 	
 	public static <T> Id<T> create(final long key, final Class<T> type) {
@@ -55,24 +57,79 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	}
 	
 	/**
-	 * This method supports a cache where ids are stored and re-used per type.   
+	 * This method supports a cache where ids are stored and re-used per type.
+	 * Every newly created id gets a dense index per type, see {@link #index()}.
 	 */
 	public static <T> Id<T> create(final String key, final Class<T> type) {
+		Gbl.assertNotNull(key);
+		Map<String, Id<?>> map = cache.get(type);
+		if (map != null) {
+			Id<?> id = map.get(key);
+			if (id != null) {
+				return (Id<T>) id;
+			}
+		}
+		return createSynchronized(key, type);
+	}
+
+	/**
+	 * Creating new ids must be serialized, otherwise two threads could assign the same index.
+	 * Lookups of existing ids do not need the lock, see {@link #create(String, Class)}.
+	 */
+	private static synchronized <T> Id<T> createSynchronized(final String key, final Class<T> type) {
 		Map<String, Id<?>> map = cache.get(type);
 		if (map == null) {
 			map = new ConcurrentHashMap<String, Id<?>>();
 			cache.put(type, map);
 		}
-		Gbl.assertNotNull(key);
 		Id<?> id = map.get(key);
 		if (id == null) {
-			id = new IdImpl<T>(key);
+			IdIndex index = cacheIndex.get(type);
+			if (index == null) {
+				index = new IdIndex();
+				cacheIndex.put(type, index);
+			}
+			id = new IdImpl<T>(key, index.size);
+			index.add(id);
 			map.put(key, id);
 		}
-		
 		return (Id<T>) id;
 	}
-	
+
+	/**
+	 * @return the id with the given index for the given type, or <code>null</code> if no such id was created yet.
+	 */
+	public static <T> Id<T> get(final int index, final Class<T> type) {
+		IdIndex ids = cacheIndex.get(type);
+		if (ids == null) {
+			return null;
+		}
+		// read the size first, the array is at least as large
+		int size = ids.size;
+		if (index < 0 || index >= size) {
+			return null;
+		}
+		return (Id<T>) ids.ids[index];
+	}
+
+	/**
+	 * @return the number of ids created so far for the given type. All indices of ids of this type
+	 * are in the range <code>[0, getNumberOfIds(type))</code>.
+	 */
+	public static int getNumberOfIds(final Class<?> type) {
+		IdIndex ids = cacheIndex.get(type);
+		if (ids == null) {
+			return 0;
+		}
+		return ids.size;
+	}
+
+	/**
+	 * @return a dense, non-negative index which is unique among all ids of the same type. Indices are assigned
+	 * in order of creation, starting at 0. This allows to store data per id in simple arrays, see {@link IdMap} and {@link IdSet}.
+	 */
+	public abstract int index();
+
 	/**
 	 * @return <code>0</code> when the two objects being compared are the same objects, other values according to their ids being compared to each other.
 	 * 
@@ -101,6 +158,26 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	}
 
 	
+	/**
+	 * The ids of one type by their index. Ids are only added while holding the lock in
+	 * {@link #createSynchronized(String, Class)}, but can be read without locking: the array is replaced
+	 * before the (volatile) size is increased.
+	 */
+	private static final class IdIndex {
+		private volatile Id<?>[] ids = new Id<?>[16];
+		private volatile int size = 0;
+
+		void add(final Id<?> id) {
+			Id<?>[] array = this.ids;
+			if (this.size == array.length) {
+				array = Arrays.copyOf(array, array.length * 2);
+			}
+			array[this.size] = id;
+			this.ids = array;
+			this.size++;
+		}
+	}
+
 	/**
 	 * The default implementation to be used for Ids.
 	 * Have this as a separate class instead of integrated into the Id class
@@ -113,9 +190,16 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	private static class IdImpl<T> extends Id<T> {
 
 		private final String id; 
+		private final int index;
 		
-		/*package*/ IdImpl(final String id) {
+		/*package*/ IdImpl(final String id, final int index) {
 			this.id = id;
+			this.index = index;
+		}
+
+		@Override
+		public int index() {
+			return this.index;
 		}
 
 		@Override
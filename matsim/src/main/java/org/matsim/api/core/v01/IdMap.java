@@ -0,0 +1,356 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map from {@link Id}s to values, backed by a simple array indexed by {@link Id#index()}.
+ * Lookups are plain array accesses, no hashing is involved. The array grows to the
+ * largest index stored in the map, so this map is best suited for cases where most ids
+ * of a type are stored, e.g. data per link or per person.
+ *
+ * <code>null</code> values are not supported: putting <code>null</code> is the same as removing the key.
+ * The iteration order is the order of the id indices, i.e. the order in which the ids were created.
+ *
+ * @param <T> the type of the ids used as keys
+ * @param <V> the type of the values
+ */
+public class IdMap<T, V> implements Map<Id<T>, V> {
+
+	private final Class<T> idClass;
+	private Object[] data;
+	private int size = 0;
+	private int modCount = 0;
+
+	public IdMap(final Class<T> idClass) {
+		this(idClass, Math.max(Id.getNumberOfIds(idClass), 16));
+	}
+
+	public IdMap(final Class<T> idClass, final int initialCapacity) {
+		this.idClass = idClass;
+		this.data = new Object[initialCapacity];
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return get(key) != null;
+	}
+
+	public boolean containsKey(final int index) {
+		return get(index) != null;
+	}
+
+	@Override
+	public boolean containsValue(final Object value) {
+		if (value == null) {
+			return false;
+		}
+		for (Object v : this.data) {
+			if (value.equals(v)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public V get(final Object key) {
+		return get(indexOf(key));
+	}
+
+	/**
+	 * Ids do not know their type, but ids are unique per type and index. So the key is an id of this
+	 * map's type exactly if it is the id registered for its index, otherwise its index belongs to another id.
+	 *
+	 * @return the index of the key if it is an id of this map's type, -1 otherwise
+	 */
+	private int indexOf(final Object key) {
+		if (key instanceof Id) {
+			int index = ((Id<?>) key).index();
+			if (Id.get(index, this.idClass) == key) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(final int index) {
+		if (index < 0 || index >= this.data.length) {
+			return null;
+		}
+		return (V) this.data[index];
+	}
+
+	@Override
+	public V put(final Id<T> key, final V value) {
+		return put(key.index(), value);
+	}
+
+	@SuppressWarnings("unchecked")
+	public V put(final int index, final V value) {
+		if (value == null) {
+			return remove(index);
+		}
+		if (index >= this.data.length) {
+			this.data = Arrays.copyOf(this.data, Math.max(index + 1, this.data.length + (this.data.length >> 1)));
+		}
+		V old = (V) this.data[index];
+		this.data[index] = value;
+		if (old == null) {
+			this.size++;
+			this.modCount++;
+		}
+		return old;
+	}
+
+	@Override
+	public V remove(final Object key) {
+		return remove(indexOf(key));
+	}
+
+	@SuppressWarnings("unchecked")
+	public V remove(final int index) {
+		if (index < 0 || index >= this.data.length) {
+			return null;
+		}
+		V old = (V) this.data[index];
+		if (old != null) {
+			this.data[index] = null;
+			this.size--;
+			this.modCount++;
+		}
+		return old;
+	}
+
+	@Override
+	public void putAll(final Map<? extends Id<T>, ? extends V> m) {
+		for (Map.Entry<? extends Id<T>, ? extends V> e : m.entrySet()) {
+			put(e.getKey(), e.getValue());
+		}
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(this.data, null);
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public Set<Id<T>> keySet() {
+		return new AbstractSet<Id<T>>() {
+			@Override
+			public Iterator<Id<T>> iterator() {
+				return new IdMapIterator<Id<T>>() {
+					@Override
+					Id<T> element(final int index) {
+						return Id.get(index, IdMap.this.idClass);
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return IdMap.this.size;
+			}
+
+			@Override
+			public boolean contains(final Object o) {
+				return containsKey(o);
+			}
+		};
+	}
+
+	@Override
+	public Collection<V> values() {
+		return new AbstractCollection<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new IdMapIterator<V>() {
+					@SuppressWarnings("unchecked")
+					@Override
+					V element(final int index) {
+						return (V) IdMap.this.data[index];
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return IdMap.this.size;
+			}
+		};
+	}
+
+	@Override
+	public Set<Map.Entry<Id<T>, V>> entrySet() {
+		return new AbstractSet<Map.Entry<Id<T>, V>>() {
+			@Override
+			public Iterator<Map.Entry<Id<T>, V>> iterator() {
+				return new IdMapIterator<Map.Entry<Id<T>, V>>() {
+					@Override
+					Map.Entry<Id<T>, V> element(final int index) {
+						return new IdEntry(index);
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return IdMap.this.size;
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof Map)) {
+			return false;
+		}
+		Map<?, ?> m = (Map<?, ?>) o;
+		if (m.size() != this.size) {
+			return false;
+		}
+		for (Map.Entry<Id<T>, V> e : entrySet()) {
+			if (!e.getValue().equals(m.get(e.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 0;
+		for (Map.Entry<Id<T>, V> e : entrySet()) {
+			h += e.hashCode();
+		}
+		return h;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("{");
+		boolean first = true;
+		for (Map.Entry<Id<T>, V> e : entrySet()) {
+			if (!first) {
+				sb.append(", ");
+			}
+			sb.append(e.getKey()).append('=').append(e.getValue());
+			first = false;
+		}
+		return sb.append('}').toString();
+	}
+
+	private class IdEntry extends AbstractMap.SimpleEntry<Id<T>, V> {
+		private static final long serialVersionUID = 1L;
+		private final int index;
+
+		@SuppressWarnings("unchecked")
+		IdEntry(final int index) {
+			super(Id.get(index, IdMap.this.idClass), (V) IdMap.this.data[index]);
+			this.index = index;
+		}
+
+		@Override
+		public V setValue(final V value) {
+			if (value == null) {
+				throw new IllegalArgumentException("null values are not supported.");
+			}
+			IdMap.this.data[this.index] = value;
+			return super.setValue(value);
+		}
+	}
+
+	private abstract class IdMapIterator<E> implements Iterator<E> {
+		private int expectedModCount = IdMap.this.modCount;
+		private int nextIndex = -1;
+		private int currentIndex = -1;
+
+		IdMapIterator() {
+			advance();
+		}
+
+		private void advance() {
+			Object[] data = IdMap.this.data;
+			do {
+				this.nextIndex++;
+			} while (this.nextIndex < data.length && data[this.nextIndex] == null);
+		}
+
+		abstract E element(int index);
+
+		@Override
+		public boolean hasNext() {
+			return this.nextIndex < IdMap.this.data.length;
+		}
+
+		@Override
+		public E next() {
+			if (this.expectedModCount != IdMap.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.currentIndex = this.nextIndex;
+			advance();
+			return element(this.currentIndex);
+		}
+
+		@Override
+		public void remove() {
+			if (this.currentIndex < 0) {
+				throw new IllegalStateException();
+			}
+			if (this.expectedModCount != IdMap.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			IdMap.this.remove(this.currentIndex);
+			this.currentIndex = -1;
+			this.expectedModCount = IdMap.this.modCount;
+		}
+	}
+
+}
@@ -24,6 +24,7 @@ import org.apache.log4j.Logger;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ReflectiveConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy.OverwriteFileSetting;
+import org.matsim.core.router.priorityqueue.MinHeapType;
 import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.misc.StringUtils;
 
@@ -37,9 +38,9 @@ import java.util.Set;
 public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final Logger log = Logger.getLogger( ControlerConfigGroup.class );
 
-	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, FastDijkstra, FastAStarLandmarks}
+	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, FastDijkstra, FastAStarLandmarks, ContractionHierarchies}
 
-	public enum EventsFileFormat {xml}
+	public enum EventsFileFormat {xml, binary}
 
 	public static final String GROUP_NAME = "controler";
 
@@ -47,12 +48,20 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final String FIRST_ITERATION = "firstIteration";
 	private static final String LAST_ITERATION = "lastIteration";
 	private static final String ROUTINGALGORITHM_TYPE = "routingAlgorithmType";
+	private static final String ROUTING_MIN_HEAP_TYPE = "routingMinHeapType";
+	private static final String LANDMARKS_TIME_SLICE_SIZE = "landmarksTimeSliceSize";
+	private static final String LANDMARKS_TIME_HORIZON = "landmarksTimeHorizon";
+	private static final String ROUTE_CACHE_SIZE = "routeCacheSize";
+	private static final String ROUTE_CACHE_TIME_BIN_SIZE = "routeCacheTimeBinSize";
 	private static final String RUNID = "runId";
 	private static final String LINKTOLINK_ROUTING_ENABLED = "enableLinkToLinkRouting";
 	/*package*/ static final String EVENTS_FILE_FORMAT = "eventsFileFormat";
 	private static final String SNAPSHOT_FORMAT = "snapshotFormat";
 	private static final String WRITE_EVENTS_INTERVAL = "writeEventsInterval";
 	private static final String WRITE_PLANS_INTERVAL = "writePlansInterval";
+	private static final String WRITE_PLANS_ASYNCHRONOUSLY = "writePlansAsynchronously";
+	private static final String WRITE_PLANS_NUMBER_OF_THREADS = "writePlansNumberOfThreads";
+	private static final String NUMBER_OF_OUTPUT_THREADS = "numberOfOutputThreads";
 	private static final String OVERWRITE_FILE = "overwriteFiles";
 	private static final String CREATE_GRAPHS = "createGraphs";
 	private static final String DUMP_DATA_AT_END = "dumpDataAtEnd";
@@ -67,6 +76,11 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private int firstIteration = 0;
 	private int lastIteration = 1000;
 	private RoutingAlgorithmType routingAlgorithmType = RoutingAlgorithmType.AStarLandmarks;
+	private MinHeapType routingMinHeapType = MinHeapType.BinaryMinHeap;
+	private double landmarksTimeSliceSize = 0.0;
+	private double landmarksTimeHorizon = Double.POSITIVE_INFINITY;
+	private int routeCacheSize = 0;
+	private double routeCacheTimeBinSize = 900.0;
 
 	private boolean linkToLinkRoutingEnabled = false;
 
@@ -76,6 +90,9 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 
 	private int writeEventsInterval=10;
 	private int writePlansInterval=10;
+	private boolean writePlansAsynchronously = false;
+	private int writePlansNumberOfThreads = 1;
+	private int numberOfOutputThreads = 0;
 	private Set<String> snapshotFormat = Collections.emptySet();
 	private String mobsim = MobsimType.qsim.toString();
 	private int writeSnapshotsInterval = 1;
@@ -91,14 +108,47 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	public final Map<String, String> getComments() {
 		Map<String,String> map = super.getComments();
 		map.put(ROUTINGALGORITHM_TYPE, "The type of routing (least cost path) algorithm used, may have the values: " + RoutingAlgorithmType.Dijkstra + ", " + 
-				RoutingAlgorithmType.FastDijkstra + ", " + RoutingAlgorithmType.AStarLandmarks + " or "  + RoutingAlgorithmType.FastAStarLandmarks);
+				RoutingAlgorithmType.FastDijkstra + ", " + RoutingAlgorithmType.AStarLandmarks + ", "  + RoutingAlgorithmType.FastAStarLandmarks + " or " +
+				RoutingAlgorithmType.ContractionHierarchies + ". " + RoutingAlgorithmType.ContractionHierarchies + " requires the routingRandomness to be 0.");
+		map.put(ROUTING_MIN_HEAP_TYPE, "Default=" + MinHeapType.BinaryMinHeap + ". Only used with " + RoutingAlgorithmType.FastDijkstra + " and "
+				+ RoutingAlgorithmType.FastAStarLandmarks + ". The priority queue of the pending nodes, may have the values: "
+				+ MinHeapType.BinaryMinHeap + " (fanout 6), " + MinHeapType.FourAryMinHeap + ", " + MinHeapType.PairingMinHeap + " or "
+				+ MinHeapType.RadixMinHeap + ". " + MinHeapType.RadixMinHeap + " is fast when the costs of the polled nodes never decrease, "
+				+ "which is the case for both routers with the default settings. All of them find the same paths.");
+		map.put(LANDMARKS_TIME_SLICE_SIZE, "Only used with " + RoutingAlgorithmType.AStarLandmarks + " and " + RoutingAlgorithmType.FastAStarLandmarks + ". "
+				+ "If larger than 0, the distances to and from the landmarks are computed again in every iteration from the current travel disutilities, "
+				+ "separately for time slices of the given length in seconds. Otherwise, they are computed once from the minimum travel disutilities. "
+				+ "The tighter bounds let the router explore fewer nodes when the network is congested, but every time slice needs memory for "
+				+ "2 * 16 * numberOfNodes doubles. Requires the routingRandomness to be 0.");
+		map.put(LANDMARKS_TIME_HORIZON, "Only used if " + LANDMARKS_TIME_SLICE_SIZE + " is larger than 0. The landmark distances of a time slice are "
+				+ "computed from the lowest travel disutilities from the start of the time slice until the end of the time slice plus this horizon, "
+				+ "in seconds. Only Infinity guarantees least-cost paths, but then the travel disutilities at the end of the day, which are mostly "
+				+ "the ones at free speed, limit the estimates. With a finite horizon, routes taking longer than the horizon may not be the least-cost ones.");
+		map.put(ROUTE_CACHE_SIZE, "Default=0. If larger than 0, the network routers share a cache of this many least-cost paths, keyed by mode, "
+				+ "start and end node, departure time bin and vehicle type, so agents with the same origin and destination in the same time bin re-use the path. "
+				+ "The least recently used paths are evicted first. The cache is emptied before every mobsim and not used during it. "
+				+ "Requires the routingRandomness to be 0. Only paths for the default travel disutilities are cached, "
+				+ "as other travel disutilities might differ by person.");
+		map.put(ROUTE_CACHE_TIME_BIN_SIZE, "Only used if " + ROUTE_CACHE_SIZE + " is larger than 0. The size of the departure time bins "
+				+ "of the route cache, in seconds. The path, including its travel time, is the one of the first departure in the bin.");
 		map.put(RUNID, "An identifier for the current run which is used as prefix for output files and mentioned in output xml files etc.");
-		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: xml."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
+		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: xml, binary. "
+				+ "Binary events files are much faster to read, but can only be read by MATSim."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
 				"Multiple values can be specified separated by commas (',').");
 		map.put(WRITE_EVENTS_INTERVAL, "iterationNumber % writeEventsInterval == 0 defines in which iterations events are written " +
 				"to a file. `0' disables events writing completely.");
 		map.put(WRITE_PLANS_INTERVAL, "iterationNumber % writePlansInterval == 0 defines (hopefully) in which iterations plans are " +
 				"written to a file. `0' disables plans writing completely.  Some plans in early iterations are always written");
+		map.put(WRITE_PLANS_ASYNCHRONOUSLY, "Default=false. If enabled, the plans are written in the background while the mobsim runs, "
+				+ "and the controler only waits for it to finish after the mobsim. The plans must then not be modified during the mobsim, "
+				+ "e.g. by within-day replanning.");
+		map.put(WRITE_PLANS_NUMBER_OF_THREADS, "Default=1. The number of threads which format and compress the persons when the plans "
+				+ "are written in the v6 format. With more than 1 thread, compressed plans files consist of several gzip members or "
+				+ "lz4 block sequences, which MATSim reads as usual.");
+		map.put(NUMBER_OF_OUTPUT_THREADS, "Default=0. If larger than 0, the xml events files, link stats, leg histograms and counts comparisons "
+				+ "are formatted, compressed and written by this many background threads, and the controler only waits for them if they fall "
+				+ "behind: at most 4 files or parts of the events file per thread are pending. All output is complete after the shutdown. "
+				+ "Compressed events files then consist of several gzip members or lz4 block sequences, which MATSim reads as usual.");
 		map.put(LINKTOLINK_ROUTING_ENABLED, "Default=false. If enabled, the router takes travel times needed for turning moves into account."
 		        + " Cannot be used if the (Fast)AStarLandmarks routing or TravelTimeCalculator.separateModes is enabled.");
 		map.put(FIRST_ITERATION, "Default=0; "); // TODO: add description
@@ -164,6 +214,56 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 		this.routingAlgorithmType = type;
 	}
 
+	@StringGetter( ROUTING_MIN_HEAP_TYPE )
+	public MinHeapType getRoutingMinHeapType() {
+		return this.routingMinHeapType;
+	}
+
+	@StringSetter( ROUTING_MIN_HEAP_TYPE )
+	public void setRoutingMinHeapType(final MinHeapType routingMinHeapType) {
+		this.routingMinHeapType = routingMinHeapType;
+	}
+
+	@StringGetter( LANDMARKS_TIME_SLICE_SIZE )
+	public double getLandmarksTimeSliceSize() {
+		return this.landmarksTimeSliceSize;
+	}
+
+	@StringSetter( LANDMARKS_TIME_SLICE_SIZE )
+	public void setLandmarksTimeSliceSize(final double landmarksTimeSliceSize) {
+		this.landmarksTimeSliceSize = landmarksTimeSliceSize;
+	}
+
+	@StringGetter( LANDMARKS_TIME_HORIZON )
+	public double getLandmarksTimeHorizon() {
+		return this.landmarksTimeHorizon;
+	}
+
+	@StringSetter( LANDMARKS_TIME_HORIZON )
+	public void setLandmarksTimeHorizon(final double landmarksTimeHorizon) {
+		this.landmarksTimeHorizon = landmarksTimeHorizon;
+	}
+
+	@StringGetter( ROUTE_CACHE_SIZE )
+	public int getRouteCacheSize() {
+		return this.routeCacheSize;
+	}
+
+	@StringSetter( ROUTE_CACHE_SIZE )
+	public void setRouteCacheSize(final int routeCacheSize) {
+		this.routeCacheSize = routeCacheSize;
+	}
+
+	@StringGetter( ROUTE_CACHE_TIME_BIN_SIZE )
+	public double getRouteCacheTimeBinSize() {
+		return this.routeCacheTimeBinSize;
+	}
+
+	@StringSetter( ROUTE_CACHE_TIME_BIN_SIZE )
+	public void setRouteCacheTimeBinSize(final double routeCacheTimeBinSize) {
+		this.routeCacheTimeBinSize = routeCacheTimeBinSize;
+	}
+
 	@StringGetter( RUNID )
 	public String getRunId() {
 		return this.runId;
@@ -292,7 +392,37 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	public void setWritePlansInterval(final int writePlansInterval) {
 		this.writePlansInterval = writePlansInterval;
 	}
+
+	@StringGetter( WRITE_PLANS_ASYNCHRONOUSLY )
+	public boolean getWritePlansAsynchronously() {
+		return this.writePlansAsynchronously;
+	}
+
+	@StringSetter( WRITE_PLANS_ASYNCHRONOUSLY )
+	public void setWritePlansAsynchronously(final boolean writePlansAsynchronously) {
+		this.writePlansAsynchronously = writePlansAsynchronously;
+	}
 	
+	@StringGetter( WRITE_PLANS_NUMBER_OF_THREADS )
+	public int getWritePlansNumberOfThreads() {
+		return this.writePlansNumberOfThreads;
+	}
+
+	@StringSetter( WRITE_PLANS_NUMBER_OF_THREADS )
+	public void setWritePlansNumberOfThreads(final int writePlansNumberOfThreads) {
+		this.writePlansNumberOfThreads = writePlansNumberOfThreads;
+	}
+
+	@StringGetter( NUMBER_OF_OUTPUT_THREADS )
+	public int getNumberOfOutputThreads() {
+		return this.numberOfOutputThreads;
+	}
+
+	@StringSetter( NUMBER_OF_OUTPUT_THREADS )
+	public void setNumberOfOutputThreads(final int numberOfOutputThreads) {
+		this.numberOfOutputThreads = numberOfOutputThreads;
+	}
+
 	@StringGetter( WRITE_SNAPSHOTS_INTERVAL )
 	public int getWriteSnapshotsInterval() {
 		return writeSnapshotsInterval;
@@ -42,11 +42,15 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 	private static final String RANDOM_SEED = "randomSeed";
 	private static final String NUMBER_OF_THREADS = "numberOfThreads";
 	private static final String COORDINATE_SYSTEM = "coordinateSystem";
+	private static final String REPLANNING_SCHEDULING = "replanningScheduling";
+
+	public enum ReplanningScheduling { roundRobin, dynamic }
 
 	private long randomSeed = 4711L;
 	@PositiveOrZero
 	private int numberOfThreads = 2;
 	private String coordinateSystem = "Atlantis" ;
+	private ReplanningScheduling replanningScheduling = ReplanningScheduling.roundRobin ;
 	// see https://matsim.atlassian.net/browse/MATSIM-898
 
 	@Override
@@ -55,6 +59,10 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		map.put(NUMBER_OF_THREADS, "\"global\" number of threads.  "
 				+ "This number is used, e.g., for replanning, but NOT in the mobsim.  "
 				+ "This can typically be set to as many cores as you have available, or possibly even slightly more.") ;
+		map.put(REPLANNING_SCHEDULING, "How plans are distributed to the threads of multi-threaded replanning modules.  "
+				+ ReplanningScheduling.roundRobin + ": every thread gets the same number of plans before the threads start; reproducible.  "
+				+ ReplanningScheduling.dynamic + ": idle threads fetch the next few plans, so no thread waits for the slowest one; faster "
+				+ "if the plans take very different time to handle, but not reproducible if the modules use random numbers.") ;
 		return map ;
 	}
 
@@ -88,6 +96,15 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		this.coordinateSystem = coordinateSystem;
 	}
 
+	@StringGetter( REPLANNING_SCHEDULING )
+	public ReplanningScheduling getReplanningScheduling() {
+		return this.replanningScheduling;
+	}
+	@StringSetter( REPLANNING_SCHEDULING )
+	public void setReplanningScheduling(final ReplanningScheduling replanningScheduling) {
+		this.replanningScheduling = replanningScheduling;
+	}
+
 	private static final String INSITING_ON_DEPRECATED_CONFIG_VERSION = "insistingOnDeprecatedConfigVersion" ;
 	@StringGetter( INSITING_ON_DEPRECATED_CONFIG_VERSION )
 	public final boolean isInsistingOnDeprecatedConfigVersion() { return this.insistingOnDeprecatedConfigVersion ; }
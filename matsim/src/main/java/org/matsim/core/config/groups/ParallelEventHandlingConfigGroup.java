@@ -44,6 +44,9 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 	
 	private final static String ONE_THREAD_PER_HANDLER = "oneThreadPerHandler"; 
 	private Boolean oneThreadPerHandler = false;
+
+	private final static String NUMBER_OF_THREADS_FOR_SCORING = "numberOfThreadsForScoring";
+	private int numberOfThreadsForScoring = 0;
 	
 	private boolean locked = false;
 
@@ -60,6 +63,8 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 				+ "before the next time step is simulated. E.g. neccessary when within-day replanning is used.");
 		comments.put(ONE_THREAD_PER_HANDLER, "If enabled, each event handler is assigned to its own thread. Note that enabling this feature disabled the " + NUMBER_OF_THREADS + " option! "
 				+ "This feature is still experimental!");
+		comments.put(NUMBER_OF_THREADS_FOR_SCORING, "Number of threads computing the scores during the mobsim. The persons are partitioned over these threads, which "
+				+ "allows the events handling to continue while the scoring functions are busy. 0 means that the scores are computed by the events handling thread.");
 		return comments;
 	}
 
@@ -127,6 +132,20 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 		}
 	}
 	
+	@StringGetter( NUMBER_OF_THREADS_FOR_SCORING )
+	public int getNumberOfThreadsForScoring() {
+		return this.numberOfThreadsForScoring;
+	}
+
+	@StringSetter( NUMBER_OF_THREADS_FOR_SCORING )
+	public void setNumberOfThreadsForScoring(int numberOfThreadsForScoring) {
+		if ( !this.locked ) {
+			this.numberOfThreadsForScoring = numberOfThreadsForScoring;
+		} else {
+			throw new RuntimeException("it is too late in the control flow to modify this parameter");
+		}
+	}
+
 	public void makeLocked() {
 		this.locked = true;
 	}
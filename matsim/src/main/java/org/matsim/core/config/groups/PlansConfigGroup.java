@@ -34,20 +34,25 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 	public abstract static class NetworkRouteType {
 		public static final String LinkNetworkRoute = "LinkNetworkRoute";
 		public static final String CompressedNetworkRoute = "CompressedNetworkRoute";
+		public static final String PackedNetworkRoute = "PackedNetworkRoute";
 	}
 
+	public enum PlanStorage { objects, compact }
+
 	public enum ActivityDurationInterpretation { minOfDurationAndEndTime, tryEndTimeThenDuration, @Deprecated endTimeOnly }
 	private static final String INPUT_FILE = "inputPlansFile";
 	private static final String INPUT_PERSON_ATTRIBUTES_FILE = "inputPersonAttributesFile";
 	private static final String NETWORK_ROUTE_TYPE = "networkRouteType";
 	private static final String SUBPOPULATION_ATTRIBUTE = "subpopulationAttributeName";
 	private static final String INPUT_CRS = "inputCRS";
+	private static final String PLAN_STORAGE = "planStorage";
 
 	private String inputFile = null;
 	private String networkRouteType = NetworkRouteType.LinkNetworkRoute;
 	private String inputPersonAttributeFile = null;
 	private String subpopulationAttributeName = "subpopulation";
 	private String inputCRS = null;
+	private PlanStorage planStorage = PlanStorage.objects;
 	
 	//--
 	
@@ -67,7 +72,10 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 				NETWORK_ROUTE_TYPE,
 				"Defines how routes are stored in memory. Currently supported: " +
 				NetworkRouteType.LinkNetworkRoute + ", " +
-				NetworkRouteType.CompressedNetworkRoute + ".");
+				NetworkRouteType.CompressedNetworkRoute + ", " +
+				NetworkRouteType.PackedNetworkRoute + ". " +
+				NetworkRouteType.PackedNetworkRoute + " stores the links as delta-encoded link indices and needs " +
+				"the least memory for long routes.");
 //		comments.put(
 //				INPUT_PERSON_ATTRIBUTES_FILE,
 //				"Path to a file containing person attributes (required file format: ObjectAttributes).");
@@ -91,6 +99,12 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
 
+		comments.put( PLAN_STORAGE, "Defines how the activities and legs of plans are stored in memory. " + PlanStorage.objects
+				+ ": one object per activity and leg (default). " + PlanStorage.compact + ": in columns of arrays shared by all plans, "
+				+ "which needs considerably less memory for large populations. Network routes are then always stored as "
+				+ NetworkRouteType.PackedNetworkRoute + ". Plan elements of compact plans become invalid "
+				+ "when they are removed from their plan, and must be compared with equals() instead of ==." );
+
 		return comments;
 	}
 
@@ -181,6 +195,16 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 	}
 
 
+	@StringGetter( PLAN_STORAGE )
+	public PlanStorage getPlanStorage() {
+		return this.planStorage;
+	}
+
+	@StringSetter( PLAN_STORAGE )
+	public void setPlanStorage(final PlanStorage planStorage) {
+		this.planStorage = planStorage;
+	}
+
 	@StringGetter( INPUT_CRS )
 	public String getInputCRS() {
 		return inputCRS;
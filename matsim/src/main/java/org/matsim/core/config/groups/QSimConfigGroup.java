@@ -274,6 +274,13 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 				+ "flows are updated only if an agent wants to enter the link or an agent is added to buffer. "
 				+ "Default is true.") ;
 		map.put(USE_LANES, "Set this parameter to true if lanes should be used, false if not.");
+		map.put(USING_LINK_WAKE_UP_CALENDAR, "If true, active links on which no vehicle can leave before a known future time step "
+				+ "are not simulated until that time step (or until a vehicle enters them), instead of being simulated in every time step. "
+				+ "Only has an effect with fast capacity update and without kinematic waves, seepage or lanes. Default is false.");
+		map.put(NETWORK_PARTITIONING, "How the nodes of the network are distributed over the threads of the netsim engine. "
+				+ NetworkPartitioning.roundRobin + " (default) assigns them one by one; " + NetworkPartitioning.loadBalanced
+				+ " splits the network into spatially coherent partitions of equal load, where the load is observed in the "
+				+ "previous iterations. Only relevant if numberOfThreads > 1.");
 		{	
 			StringBuilder stb = new StringBuilder() ;
 			for ( VehiclesSource src : VehiclesSource.values() ) {
@@ -534,6 +541,31 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		this.usingThreadpool = val ;
 	}
 
+	// ---
+	private static final String NETWORK_PARTITIONING = "networkPartitioning";
+	public enum NetworkPartitioning { roundRobin, loadBalanced }
+	private NetworkPartitioning networkPartitioning = NetworkPartitioning.roundRobin;
+	@StringGetter(NETWORK_PARTITIONING)
+	public NetworkPartitioning getNetworkPartitioning() {
+		return this.networkPartitioning;
+	}
+	@StringSetter(NETWORK_PARTITIONING)
+	public void setNetworkPartitioning(NetworkPartitioning networkPartitioning) {
+		this.networkPartitioning = networkPartitioning;
+	}
+
+	// ---
+	private static final String USING_LINK_WAKE_UP_CALENDAR = "usingLinkWakeUpCalendar";
+	private boolean usingLinkWakeUpCalendar = false;
+	@StringGetter(USING_LINK_WAKE_UP_CALENDAR)
+	public boolean isUsingLinkWakeUpCalendar() {
+		return this.usingLinkWakeUpCalendar;
+	}
+	@StringSetter(USING_LINK_WAKE_UP_CALENDAR)
+	public void setUsingLinkWakeUpCalendar(boolean usingLinkWakeUpCalendar) {
+		this.usingLinkWakeUpCalendar = usingLinkWakeUpCalendar;
+	}
+
 	private static final String USE_LANES="useLanes" ;
 	private boolean useLanes = false ;
 
@@ -42,13 +42,14 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 
 	public static final String GROUPNAME = "travelTimeCalculator";
 
-	public enum TravelTimeCalculatorType {TravelTimeCalculatorArray,TravelTimeCalculatorHashMap}
+	public enum TravelTimeCalculatorType {TravelTimeCalculatorArray,TravelTimeCalculatorHashMap,TravelTimeCalculatorOffHeap}
 
 	private static final String TRAVEL_TIME_CALCULATOR = "travelTimeCalculator";
 	private static final String TRAVEL_TIME_BIN_SIZE = "travelTimeBinSize";
 	private static final String TRAVEL_TIME_AGGREGATOR = "travelTimeAggregator";
 	private static final String TRAVEL_TIME_GETTER = "travelTimeGetter";
 	private static final String MAX_TIME = "maxTime";
+	private static final String TRAVEL_TIME_DATA_FILE = "travelTimeDataFile";
 
 	private static final String CALCULATE_LINK_TRAVELTIMES = "calculateLinkTravelTimes";
 	private static final String CALCULATE_LINKTOLINK_TRAVELTIMES = "calculateLinkToLinkTravelTimes";
@@ -56,12 +57,14 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	private static final String ANALYZEDMODES = "analyzedModes";
 	private static final String FILTERMODES = "filterModes";
 	private static final String SEPARATEMODES = "separateModes";
+	private static final String RECORD_IN_QSIM = "recordTravelTimesInQSim";
 
 	private TravelTimeCalculatorType travelTimeCalculator = TravelTimeCalculatorType.TravelTimeCalculatorArray;
 	private String travelTimeAggregator = "optimistic";
 	private String travelTimeGetter = "average";
 	private int traveltimeBinSize = 15 * 60; // use a default of 15min time-bins for analyzing the travel times
 	private int maxTime = 30 * 3600;
+	private String travelTimeDataFile = null;
 
 	private boolean calculateLinkTravelTimes = true;
 	private boolean calculateLinkToLinkTravelTimes = false;
@@ -69,6 +72,7 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	private Set<String> analyzedModes = new LinkedHashSet<>(  ) ;
 	private boolean filterModes = false;
 	private boolean separateModes = true;
+	private boolean recordTravelTimesInQSim = false;
 
 	public TravelTimeCalculatorConfigGroup() {
 		super(GROUPNAME);
@@ -91,6 +95,11 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 		map.put(FILTERMODES, "(only for backwards compatiblity; only used if " + SEPARATEMODES + "==false)  Only modes included in analyzedModes are included." ) ;
 		map.put(SEPARATEMODES, "(only for backwards compatibility) If false, link travel times are measured and aggregated over all vehicles using the link." ) ;
 		map.put( TRAVEL_TIME_CALCULATOR, "possible values: " + Arrays.stream( TravelTimeCalculatorType.values() ).map( type -> type.toString() + ' ' ).collect( Collectors.joining() ) );
+		map.put( TRAVEL_TIME_DATA_FILE, "(only used with " + TravelTimeCalculatorType.TravelTimeCalculatorOffHeap + ") If set, the travel time data " +
+				"is memory mapped to this file, such that other processes can read the travel times without copying them.  With " + SEPARATEMODES +
+				"==true, the mode is appended to the file name.  The file is overwritten." ) ;
+		map.put( RECORD_IN_QSIM, "If true, the link travel times are recorded directly by the threads of the QSim's network simulation " +
+				"and merged at the end of each time bin, instead of being computed from link enter and leave events.  Only works with the QSim." ) ;
 		return map;
 	}
 
@@ -155,6 +164,15 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 		return maxTime;
 	}
 	// ---
+	@StringSetter( TRAVEL_TIME_DATA_FILE )
+	public void setTravelTimeDataFile(String travelTimeDataFile) {
+		this.travelTimeDataFile = travelTimeDataFile;
+	}
+	@StringGetter( TRAVEL_TIME_DATA_FILE )
+	public String getTravelTimeDataFile() {
+		return travelTimeDataFile;
+	}
+	// ---
 	@StringGetter( CALCULATE_LINK_TRAVELTIMES )
 	public boolean isCalculateLinkTravelTimes() {
 		return this.calculateLinkTravelTimes;
@@ -213,5 +231,15 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	public void setSeparateModes(boolean separateModes) {
 		this.separateModes = separateModes;
 	}
+	// ---
+	@StringGetter(RECORD_IN_QSIM)
+	public boolean isRecordTravelTimesInQSim() {
+		return this.recordTravelTimesInQSim;
+	}
+
+	@StringSetter(RECORD_IN_QSIM)
+	public void setRecordTravelTimesInQSim(boolean recordTravelTimesInQSim) {
+		this.recordTravelTimesInQSim = recordTravelTimesInQSim;
+	}
 
 }
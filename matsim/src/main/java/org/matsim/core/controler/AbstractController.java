@@ -83,6 +83,7 @@ import org.matsim.core.gbl.MatsimRandom;
             @Override
             public void shutdown(boolean unexpected) {
                 controlerListenerManagerImpl.fireControlerShutdownEvent(unexpected);
+                flushOutput();
             }
         };
         MatsimRuntimeModifications.run(runnable);
@@ -91,6 +92,12 @@ import org.matsim.core.gbl.MatsimRandom;
 
     protected abstract void loadCoreListeners();
 
+    /**
+     * Called after all shutdown listeners, to wait for output which is still written in the background.
+     */
+    /*package*/ void flushOutput() {
+    }
+
     protected abstract void runMobSim();
 
     protected abstract void prepareForSim();
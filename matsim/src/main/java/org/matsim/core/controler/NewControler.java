@@ -29,6 +29,7 @@ import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.controler.corelisteners.*;
 import org.matsim.core.controler.listener.ControlerListener;
 import org.matsim.core.mobsim.framework.Mobsim;
+import org.matsim.core.utils.io.AsyncOutputService;
 
 import javax.inject.Inject;
 import java.util.Set;
@@ -51,6 +52,7 @@ class NewControler extends AbstractController implements ControlerI {
 	private final Set<ControlerListener> controlerListenersDeclaredByModules;
 	private final ControlerConfigGroup controlerConfigGroup;
 	private final OutputDirectoryHierarchy outputDirectoryHierarchy;
+	private final AsyncOutputService outputService;
 	
 	@Inject
 	NewControler(Config config, ControlerListenerManagerImpl controlerListenerManager, MatsimServices matsimServices,
@@ -59,7 +61,7 @@ class NewControler extends AbstractController implements ControlerI {
 			 PlansScoring plansScoring, TerminationCriterion terminationCriterion, DumpDataAtEnd dumpDataAtEnd,
 			 Set<ControlerListener> controlerListenersDeclaredByModules, ControlerConfigGroup controlerConfigGroup,
 			 OutputDirectoryHierarchy outputDirectoryHierarchy
-			, PrepareForMobsim prepareForMobsim
+			, PrepareForMobsim prepareForMobsim, AsyncOutputService outputService
  ) {
 		super(controlerListenerManager, stopWatch, matsimServices);
 		this.config = config;
@@ -76,6 +78,7 @@ class NewControler extends AbstractController implements ControlerI {
 		this.controlerListenersDeclaredByModules = controlerListenersDeclaredByModules;
 		this.controlerConfigGroup = controlerConfigGroup;
 		this.outputDirectoryHierarchy = outputDirectoryHierarchy;
+		this.outputService = outputService;
 	}
 
 	@Override
@@ -110,6 +113,11 @@ class NewControler extends AbstractController implements ControlerI {
 		}
 	}
 
+	@Override
+	final void flushOutput() {
+		this.outputService.flush();
+	}
+
 	@Override
 	protected final void prepareForSim() {
 		this.prepareForSim.run();
@@ -37,7 +37,9 @@ import org.matsim.core.controler.listener.BeforeMobsimListener;
 import org.matsim.core.controler.listener.IterationEndsListener;
 import org.matsim.core.controler.listener.ShutdownListener;
 import org.matsim.core.events.algorithms.EventWriter;
+import org.matsim.core.events.algorithms.EventWriterBinary;
 import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.core.utils.io.AsyncOutputService;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -58,19 +60,23 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 	
 	private OutputDirectoryHierarchy controlerIO ;
 
+	private final AsyncOutputService outputService;
+
 	private int writeMoreUntilIteration;
 
 	@Inject
 	EventsHandlingImpl(
 			final EventsManager eventsManager,
 			final ControlerConfigGroup config,
-			final OutputDirectoryHierarchy controlerIO) {
+			final OutputDirectoryHierarchy controlerIO,
+			final AsyncOutputService outputService) {
 		this.eventsManager = eventsManager;
 		this.writeEventsInterval = config.getWriteEventsInterval();
 		this.lastIteration = config.getLastIteration() ;
 		this.eventsFileFormats = config.getEventsFileFormats();
 		this.controlerIO = controlerIO;
 		this.writeMoreUntilIteration = config.getWriteEventsUntilIteration() ;
+		this.outputService = outputService;
 	}
 
 	@Override
@@ -86,7 +92,11 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 				switch (format) {
 				case xml:
 					this.eventWriters.add(new EventWriterXML(controlerIO.getIterationFilename(event.getIteration(), 
-							Controler.FILENAME_EVENTS_XML)));
+							Controler.FILENAME_EVENTS_XML), this.outputService));
+					break;
+				case binary:
+					this.eventWriters.add(new EventWriterBinary(controlerIO.getIterationFilename(event.getIteration(), 
+							Controler.FILENAME_EVENTS_BINARY)));
 					break;
 				default:
 					log.warn("Unknown events file format specified: " + format.toString() + ".");
@@ -20,6 +20,11 @@
 
 package org.matsim.core.controler.corelisteners;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.apache.log4j.Logger;
 import org.matsim.analysis.IterationStopWatch;
 import org.matsim.api.core.v01.network.Network;
@@ -29,8 +34,12 @@ import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.events.AfterMobsimEvent;
 import org.matsim.core.controler.events.BeforeMobsimEvent;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.AfterMobsimListener;
 import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.controler.listener.ShutdownListener;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -43,11 +52,15 @@ import org.matsim.core.utils.geometry.transformations.TransformationFactory;
  * ({@link ControlerConfigGroup#getWritePlansInterval()} as well as in the first
  * iteration, just in case someone might check that the replanning worked
  * correctly in the first iteration.
+ * <p></p>
+ * The plans are written with {@link ControlerConfigGroup#getWritePlansNumberOfThreads()} threads, by default one.
+ * If {@link ControlerConfigGroup#getWritePlansAsynchronously()} is set, they are written in the background while
+ * the mobsim runs, and the plans dump is waited for after the mobsim, before the plans are scored.
  *
  * @author mrieser
  */
 @Singleton
-final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
+final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener, AfterMobsimListener, ShutdownListener {
 
 	static final private Logger log = Logger.getLogger(PlansDumpingImpl.class);
 
@@ -60,10 +73,17 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 
 	private int writeMoreUntilIteration;
 
+	private final boolean writePlansAsynchronously;
+	private final int numberOfThreads;
+	private ExecutorService executor = null;
+	private Future<?> pendingDump = null;
+
 	@Inject
 	PlansDumpingImpl(ControlerConfigGroup config) {
 		this.writePlansInterval = config.getWritePlansInterval();
 		this.writeMoreUntilIteration = config.getWritePlansUntilIteration() ;
+		this.writePlansAsynchronously = config.getWritePlansAsynchronously();
+		this.numberOfThreads = config.getWritePlansNumberOfThreads();
 	}
 
 	@Override
@@ -72,27 +92,85 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 		final boolean regularWritePlans = writingPlansAtAll && (event.getIteration()>0 && event.getIteration() % writePlansInterval== 0);
 		final boolean earlyIteration = event.getIteration() <= writeMoreUntilIteration ;
 		if ( writingPlansAtAll && (regularWritePlans || earlyIteration) ) {
-			stopwatch.beginOperation("dump all plans");
-			log.info("dumping plans...");
-			final String inputCRS = config.plans().getInputCRS();
-			final String internalCRS = config.global().getCoordinateSystem();
-
-			if ( inputCRS == null ) {
-				new PopulationWriter(population, network).write(controlerIO.getIterationFilename(event.getIteration(), Controler.FILENAME_POPULATION));
+			final String filename = controlerIO.getIterationFilename(event.getIteration(), Controler.FILENAME_POPULATION);
+			if ( writePlansAsynchronously ) {
+				if ( executor == null ) {
+					executor = Executors.newSingleThreadExecutor(runnable -> {
+						Thread thread = new Thread(runnable, PlansDumpingImpl.class.getSimpleName());
+						thread.setDaemon(true);
+						return thread;
+					});
+				}
+				log.info("dumping plans in the background...");
+				pendingDump = executor.submit(() -> dumpPlans(filename));
 			}
 			else {
-				log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
+				stopwatch.beginOperation("dump all plans");
+				dumpPlans(filename);
+				stopwatch.endOperation("dump all plans");
+			}
+		}
+	}
 
-				final CoordinateTransformation transformation =
-						TransformationFactory.getCoordinateTransformation(
-								internalCRS,
-								inputCRS );
+	@Override
+	public void notifyAfterMobsim(final AfterMobsimEvent event) {
+		if ( pendingDump != null ) {
+			stopwatch.beginOperation("wait for plans dump");
+			waitForPendingDump();
+			stopwatch.endOperation("wait for plans dump");
+		}
+	}
 
-				new PopulationWriter(transformation, population, network).write(controlerIO.getIterationFilename(event.getIteration(), Controler.FILENAME_POPULATION));
+	@Override
+	public void notifyShutdown(final ShutdownEvent event) {
+		try {
+			waitForPendingDump();
+		} finally {
+			if ( executor != null ) {
+				executor.shutdownNow();
+				executor = null;
 			}
-			log.info("finished plans dump.");
-			stopwatch.endOperation("dump all plans");
 		}
 	}
 
+	private void waitForPendingDump() {
+		if ( pendingDump == null ) {
+			return;
+		}
+		try {
+			pendingDump.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("problem dumping plans", e.getCause());
+		} finally {
+			pendingDump = null;
+		}
+	}
+
+	private void dumpPlans(final String filename) {
+		log.info("dumping plans...");
+		final String inputCRS = config.plans().getInputCRS();
+		final String internalCRS = config.global().getCoordinateSystem();
+
+		final PopulationWriter writer;
+		if ( inputCRS == null ) {
+			writer = new PopulationWriter(population, network);
+		}
+		else {
+			log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
+
+			final CoordinateTransformation transformation =
+					TransformationFactory.getCoordinateTransformation(
+							internalCRS,
+							inputCRS );
+
+			writer = new PopulationWriter(transformation, population, network);
+		}
+		writer.setNumberOfThreads(numberOfThreads);
+		writer.write(filename);
+		log.info("finished plans dump.");
+	}
+
 }
@@ -20,9 +20,16 @@
 
 package org.matsim.core.events;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -73,10 +80,16 @@ import org.matsim.core.events.handler.EventHandler;
  * <li>add method public void handleEvent(MyEvent event) to it</li>
  * <li>ready to go, just implement the interface somewhere and add a
  * HandlerObject with a call to <code>Events.addHandler(HandlerObject)</code></li>
- * <li>(optional) add an appropriate line in callHandlerFast() for speeding
- * up execution!</li>
  * </ol>
  *
+ * For every event class, the handlers to call are collected once into a dispatch array (see {@link #getHandlersForClass(Class)}),
+ * which is only rebuilt when handlers are added or removed. Every handler is called through a {@link HandlerCaller}, which is
+ * either one of the predefined callers for the core events or generated once per handler method, so there is no reflection
+ * on the hot path, neither for core nor for custom events.
+ * <p></p>
+ * This class is not thread-safe. If events are produced by several threads, wrap it with
+ * {@link EventsUtils#getParallelFeedableInstance(EventsManager)}.
+ *
  * @author dstrippgen
  * @author mrieser
  */
@@ -84,34 +97,73 @@ public final class EventsManagerImpl implements EventsManager {
 
 	private static final Logger log = Logger.getLogger(EventsManagerImpl.class);
 
+	/**
+	 * Calls the <code>handleEvent</code> method of an event handler for one specific event class.
+	 */
+	@FunctionalInterface
+	private interface HandlerCaller {
+		void call(EventHandler handler, Event event);
+	}
+
+	/**
+	 * Callers for the handler interfaces of the core events, keyed by handler interface.
+	 */
+	private static final Map<Class<?>, HandlerCaller> CORE_CALLERS = new HashMap<>();
+	static {
+		CORE_CALLERS.put(LinkLeaveEventHandler.class, (h, ev) -> ((LinkLeaveEventHandler) h).handleEvent((LinkLeaveEvent) ev));
+		CORE_CALLERS.put(LinkEnterEventHandler.class, (h, ev) -> ((LinkEnterEventHandler) h).handleEvent((LinkEnterEvent) ev));
+		CORE_CALLERS.put(VehicleEntersTrafficEventHandler.class, (h, ev) -> ((VehicleEntersTrafficEventHandler) h).handleEvent((VehicleEntersTrafficEvent) ev));
+		CORE_CALLERS.put(PersonArrivalEventHandler.class, (h, ev) -> ((PersonArrivalEventHandler) h).handleEvent((PersonArrivalEvent) ev));
+		CORE_CALLERS.put(PersonDepartureEventHandler.class, (h, ev) -> ((PersonDepartureEventHandler) h).handleEvent((PersonDepartureEvent) ev));
+		CORE_CALLERS.put(ActivityEndEventHandler.class, (h, ev) -> ((ActivityEndEventHandler) h).handleEvent((ActivityEndEvent) ev));
+		CORE_CALLERS.put(ActivityStartEventHandler.class, (h, ev) -> ((ActivityStartEventHandler) h).handleEvent((ActivityStartEvent) ev));
+		CORE_CALLERS.put(TransitDriverStartsEventHandler.class, (h, ev) -> ((TransitDriverStartsEventHandler) h).handleEvent((TransitDriverStartsEvent) ev));
+		CORE_CALLERS.put(PersonStuckEventHandler.class, (h, ev) -> ((PersonStuckEventHandler) h).handleEvent((PersonStuckEvent) ev));
+		CORE_CALLERS.put(PersonMoneyEventHandler.class, (h, ev) -> ((PersonMoneyEventHandler) h).handleEvent((PersonMoneyEvent) ev));
+		CORE_CALLERS.put(AgentWaitingForPtEventHandler.class, (h, ev) -> ((AgentWaitingForPtEventHandler) h).handleEvent((AgentWaitingForPtEvent) ev));
+		CORE_CALLERS.put(PersonEntersVehicleEventHandler.class, (h, ev) -> ((PersonEntersVehicleEventHandler) h).handleEvent((PersonEntersVehicleEvent) ev));
+		CORE_CALLERS.put(PersonLeavesVehicleEventHandler.class, (h, ev) -> ((PersonLeavesVehicleEventHandler) h).handleEvent((PersonLeavesVehicleEvent) ev));
+		CORE_CALLERS.put(VehicleDepartsAtFacilityEventHandler.class, (h, ev) -> ((VehicleDepartsAtFacilityEventHandler) h).handleEvent((VehicleDepartsAtFacilityEvent) ev));
+		CORE_CALLERS.put(VehicleArrivesAtFacilityEventHandler.class, (h, ev) -> ((VehicleArrivesAtFacilityEventHandler) h).handleEvent((VehicleArrivesAtFacilityEvent) ev));
+		CORE_CALLERS.put(BasicEventHandler.class, (h, ev) -> ((BasicEventHandler) h).handleEvent(ev));
+	}
+
+	/**
+	 * Callers generated for all other handler methods. They do not depend on the events manager, so they can be shared.
+	 */
+	private static final Map<Method, HandlerCaller> GENERATED_CALLERS = new ConcurrentHashMap<>();
+
 	static private class HandlerData {
 
 		protected Class<?> eventklass;
-		protected ArrayList<EventHandler> handlerList = new ArrayList<EventHandler>(5);
-		protected Method method;
-		protected HandlerData(final Class<?> eventklass, final Method method) {
+		protected ArrayList<HandlerInfo> handlerList = new ArrayList<HandlerInfo>(5);
+		protected HandlerData(final Class<?> eventklass) {
 			this.eventklass = eventklass;
-			this.method = method;
 		}
 		protected void removeHandler(final EventHandler handler) {
-			this.handlerList.remove(handler);
+			this.handlerList.removeIf(info -> info.eventHandler == handler);
 		}
 	}
 
 	static private class HandlerInfo {
 		protected final Class<?> eventClass;
 		protected final EventHandler eventHandler;
-		protected final Method method;
+		protected final HandlerCaller caller;
 
-		protected HandlerInfo(final Class<?> eventClass, final EventHandler eventHandler, final Method method) {
+		protected HandlerInfo(final Class<?> eventClass, final EventHandler eventHandler, final HandlerCaller caller) {
 			this.eventClass = eventClass;
 			this.eventHandler = eventHandler;
-			this.method = method;
+			this.caller = caller;
 		}
 	}
 
 	private final List<HandlerData> handlerData = new ArrayList<HandlerData>();
 
+	/*
+	 * The dispatch table: the handlers to call per event class, filled lazily and cleared whenever handlers change.
+	 * Not a ClassValue: its values would be stored in the (long-lived) event classes and keep this manager and all
+	 * its handlers reachable.
+	 */
 	private final Map<Class<?>, HandlerInfo[]> cacheHandlers = new ConcurrentHashMap<Class<?>, HandlerInfo[]>(15);
 
 	private long counter = 0;
@@ -172,7 +224,8 @@ public final class EventsManagerImpl implements EventsManager {
 		this.nextCounterMsg = 1;
 		Set<EventHandler> resetHandlers = new HashSet<EventHandler>();
 		for (HandlerData handlerdata : this.handlerData) {
-			for (EventHandler handler : handlerdata.handlerList) {
+			for (HandlerInfo info : handlerdata.handlerList) {
+				EventHandler handler = info.eventHandler;
 				if (!resetHandlers.contains(handler)) {
 					log.info("  " + handler.getClass().getName());
 					handler.reset(iteration);
@@ -207,10 +260,10 @@ public final class EventsManagerImpl implements EventsManager {
 					log.info("    > " + eventClass.getName());
 					HandlerData dat = findHandler(eventClass);
 					if (dat == null) {
-						dat = new HandlerData(eventClass, method);
+						dat = new HandlerData(eventClass);
 						this.handlerData.add(dat);
 					}
-					dat.handlerList.add(handler);
+					dat.handlerList.add(new HandlerInfo(eventClass, handler, getCaller(method)));
 				}
 			}
 		}
@@ -218,36 +271,27 @@ public final class EventsManagerImpl implements EventsManager {
 
 	private void computeEvent(final Event event) {
 		for (HandlerInfo info : getHandlersForClass(event.getClass())) {
-			synchronized(info.eventHandler) {
-				if (callHandlerFast(info.eventClass, event, info.eventHandler)) {
-					continue;
-				}
-				try {
-					info.method.invoke(info.eventHandler, event);
-				} catch (IllegalArgumentException | IllegalAccessException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
-				} catch (InvocationTargetException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e.getCause());
-				}
-			}
+			info.caller.call(info.eventHandler, event);
 		}
 	}
 
 	private HandlerInfo[] getHandlersForClass(final Class<?> eventClass) {
-		Class<?> klass = eventClass;
 		HandlerInfo[] cache = this.cacheHandlers.get(eventClass);
-		if (cache != null) {
-			return cache;
+		if (cache == null) {
+			cache = collectHandlersForClass(eventClass);
+			this.cacheHandlers.put(eventClass, cache);
 		}
+		return cache;
+	}
 
+	private HandlerInfo[] collectHandlersForClass(final Class<?> eventClass) {
+		Class<?> klass = eventClass;
 		ArrayList<HandlerInfo> info = new ArrayList<HandlerInfo>();
 		// first search in class-hierarchy
 		while (klass != Object.class) {
 			HandlerData dat = findHandler(klass);
 			if (dat != null) {
-				for(EventHandler handler: dat.handlerList) {
-					info.add(new HandlerInfo(klass, handler, dat.method));
-				}
+				info.addAll(dat.handlerList);
 			}
 			klass = klass.getSuperclass();
 		}
@@ -255,15 +299,11 @@ public final class EventsManagerImpl implements EventsManager {
 		for (Class<?> intfc : getAllInterfaces(eventClass)) {
 			HandlerData dat = findHandler(intfc);
 			if (dat != null) {
-				for(EventHandler handler: dat.handlerList) {
-					info.add(new HandlerInfo(intfc, handler, dat.method));
-				}
+				info.addAll(dat.handlerList);
 			}
 		}
 
-		cache = info.toArray(new HandlerInfo[info.size()]);
-		this.cacheHandlers.put(eventClass, cache);
-		return cache;
+		return info.toArray(new HandlerInfo[info.size()]);
 	}
 
 	private Set<Class<?>> getAllInterfaces(final Class<?> klass) {
@@ -282,66 +322,96 @@ public final class EventsManagerImpl implements EventsManager {
 		return intfs;
 	}
 
-	// this method is purely for performance reasons and need not be implemented
-	private boolean callHandlerFast(final Class<?> klass, final Event ev, final EventHandler handler) {
-		if (klass == LinkLeaveEvent.class) {
-			((LinkLeaveEventHandler)handler).handleEvent((LinkLeaveEvent)ev);
-			return true;
-		} else if (klass == LinkEnterEvent.class) {
-			((LinkEnterEventHandler)handler).handleEvent((LinkEnterEvent)ev);
-			return true;
-		} else if (klass == VehicleEntersTrafficEvent.class) {
-			((VehicleEntersTrafficEventHandler)handler).handleEvent((VehicleEntersTrafficEvent)ev);
-			return true;
-		} else if (klass == PersonArrivalEvent.class) {
-			((PersonArrivalEventHandler)handler).handleEvent((PersonArrivalEvent)ev);
-			return true;
-		} else if (klass == PersonDepartureEvent.class) {
-			((PersonDepartureEventHandler)handler).handleEvent((PersonDepartureEvent)ev);
-			return true;
-		} else if (klass == ActivityEndEvent.class) {
-			((ActivityEndEventHandler)handler).handleEvent((ActivityEndEvent)ev);
-			return true;
-		} else if (klass == ActivityStartEvent.class) {
-			((ActivityStartEventHandler)handler).handleEvent((ActivityStartEvent)ev);
-			return true;
-		} else if (klass == TransitDriverStartsEvent.class) {
-			((TransitDriverStartsEventHandler) handler).handleEvent((TransitDriverStartsEvent) ev);
-			return true;
-		} else if (klass == PersonStuckEvent.class) {
-			((PersonStuckEventHandler)handler).handleEvent((PersonStuckEvent)ev);
-			return true;
-		} else if (klass == PersonMoneyEvent.class) {
-			((PersonMoneyEventHandler)handler).handleEvent((PersonMoneyEvent)ev);
-			return true;
-		} else if (klass == AgentWaitingForPtEvent.class) {
-			((AgentWaitingForPtEventHandler)handler).handleEvent((AgentWaitingForPtEvent)ev);
-			return true;
-		} else if (klass == PersonEntersVehicleEvent.class) {
-			((PersonEntersVehicleEventHandler)handler).handleEvent((PersonEntersVehicleEvent)ev);
-			return true;
-		} else if (klass == PersonLeavesVehicleEvent.class) {
-			((PersonLeavesVehicleEventHandler)handler).handleEvent((PersonLeavesVehicleEvent)ev);
-			return true;
-		} else if (klass == VehicleDepartsAtFacilityEvent.class) {
-			((VehicleDepartsAtFacilityEventHandler) handler).handleEvent((VehicleDepartsAtFacilityEvent) ev);
-			return true;
-		} else if (klass == VehicleArrivesAtFacilityEvent.class) {
-			((VehicleArrivesAtFacilityEventHandler) handler).handleEvent((VehicleArrivesAtFacilityEvent) ev);
-			return true;
-		} else if (klass == Event.class) {
-			((BasicEventHandler)handler).handleEvent(ev);
-			return true;
+	private static HandlerCaller getCaller(final Method method) {
+		HandlerCaller caller = CORE_CALLERS.get(method.getDeclaringClass());
+		if (caller != null) {
+			return caller;
+		}
+		return GENERATED_CALLERS.computeIfAbsent(method, EventsManagerImpl::generateCaller);
+	}
+
+	/*
+	 * Generates a caller for a handler method of a custom handler interface.  Where possible, this is a lambda spun by
+	 * the LambdaMetafactory, which the JIT can inline like a hand-written one.  For interfaces which are not accessible
+	 * from here, a method handle is used, and reflection only as a last resort.
+	 * As before, exceptions thrown by custom handlers are wrapped, so the handler can be identified in the stack trace.
+	 */
+	private static HandlerCaller generateCaller(final Method method) {
+		final Class<?> handlerClass = method.getDeclaringClass();
+		final Class<?> eventClass = method.getParameterTypes()[0];
+		final String errorMessage = "problem invoking EventHandler " + handlerClass.getCanonicalName() + " for event-class " + eventClass.getCanonicalName();
+
+		HandlerCaller caller = null;
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			if (isAccessible(handlerClass) && isAccessible(eventClass)) {
+				MethodHandle target = lookup.unreflect(method);
+				CallSite site = LambdaMetafactory.metafactory(lookup, "call",
+						MethodType.methodType(HandlerCaller.class),
+						MethodType.methodType(void.class, EventHandler.class, Event.class),
+						target,
+						MethodType.methodType(void.class, handlerClass, eventClass));
+				caller = (HandlerCaller) site.getTarget().invoke();
+			} else {
+				method.setAccessible(true);
+				final MethodHandle target = lookup.unreflect(method).asType(MethodType.methodType(void.class, EventHandler.class, Event.class));
+				caller = (handler, event) -> {
+					try {
+						target.invokeExact(handler, event);
+					} catch (RuntimeException | Error e) {
+						throw e;
+					} catch (Throwable e) {
+						throw new RuntimeException(e);
+					}
+				};
+			}
+		} catch (Throwable e) {
+			log.warn("could not generate a direct caller for " + method + ", falling back to reflection.", e);
+			caller = (handler, event) -> {
+				try {
+					method.invoke(handler, event);
+				} catch (IllegalAccessException e1) {
+					throw new RuntimeException(errorMessage, e1);
+				} catch (InvocationTargetException e1) {
+					throw new RuntimeException(errorMessage, e1.getCause());
+				}
+			};
+			return caller;
+		}
+
+		final HandlerCaller directCaller = caller;
+		return (handler, event) -> {
+			try {
+				directCaller.call(handler, event);
+			} catch (RuntimeException e) {
+				throw new RuntimeException(errorMessage, e);
+			}
+		};
+	}
+
+	/*
+	 * Spun lambda classes live in the package of this class, so they may only reference public types that can be
+	 * loaded through the class loader of this class.
+	 */
+	private static boolean isAccessible(final Class<?> klass) {
+		for (Class<?> c = klass; c != null; c = c.getEnclosingClass()) {
+			if (!Modifier.isPublic(c.getModifiers())) {
+				return false;
+			}
+		}
+		try {
+			return Class.forName(klass.getName(), false, EventsManagerImpl.class.getClassLoader()) == klass;
+		} catch (ClassNotFoundException e) {
+			return false;
 		}
-		return false;
 	}
 
 	public void printEventHandlers() {
 		log.info("currently registered event-handlers:");
 		for (HandlerData handlerType : this.handlerData) {
 			log.info("+ " + handlerType.eventklass.getName());
-			for (EventHandler handler : handlerType.handlerList) {
-				log.info("  - " + handler.getClass().getName());
+			for (HandlerInfo info : handlerType.handlerList) {
+				log.info("  - " + info.eventHandler.getClass().getName());
 			}
 		}
 	}
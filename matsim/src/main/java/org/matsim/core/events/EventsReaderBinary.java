@@ -0,0 +1,470 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.events.EventsReaderXMLv1.CustomEventMapper;
+import org.matsim.core.events.algorithms.EventWriterBinary;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.xml.sax.Attributes;
+
+/**
+ * Reads events written by {@link EventWriterBinary}.
+ * <p></p>
+ * The blocks of the file are decompressed and converted to events in parallel, the events are then passed
+ * to the events manager in their original order by the calling thread. When reading from a file, events can
+ * be restricted to a time window; blocks outside of the time window are skipped without decoding them.
+ * <p></p>
+ * The events are created exactly as by {@link EventsReaderXMLv1}, including custom event mappers, so both
+ * formats can be used interchangeably.
+ */
+public final class EventsReaderBinary implements MatsimReader {
+
+	private final static Logger log = Logger.getLogger(EventsReaderBinary.class);
+
+	private final EventsManager events;
+	private final int numberOfThreads;
+	private final Map<String, CustomEventMapper> customEventMappers = new LinkedHashMap<>();
+
+	public EventsReaderBinary(final EventsManager events) {
+		this(events, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * @param numberOfThreads the number of threads decoding blocks in parallel
+	 */
+	public EventsReaderBinary(final EventsManager events, final int numberOfThreads) {
+		this.events = events;
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	public void addCustomEventMapper(final String eventType, final CustomEventMapper mapper) {
+		this.customEventMappers.put(eventType, mapper);
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		readStream(IOUtils.getInputStream(filename));
+	}
+
+	@Override
+	public void readURL(final URL url) {
+		readStream(IOUtils.getInputStream(url));
+	}
+
+	public void readStream(final InputStream stream) {
+		readStream(stream, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Reads only the events with <code>fromTime &lt;= time &lt;= toTime</code>, reading sequentially through the stream.
+	 */
+	public void readStream(final InputStream stream, final double fromTime, final double toTime) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+			readHeader(in);
+			BlockProcessor processor = new BlockProcessor(fromTime, toTime);
+			try {
+				RawBlock block;
+				while ((block = readBlock(in, fromTime, toTime)) != null) {
+					if (block.data != null) {
+						processor.add(block);
+					}
+				}
+				processor.finish();
+			} finally {
+				processor.shutdown();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads only the events with <code>fromTime &lt;= time &lt;= toTime</code>, using the index at the end of the file
+	 * to jump to the blocks containing such events directly.
+	 */
+	public void readFile(final String filename, final double fromTime, final double toTime) {
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+			readHeader(file);
+			file.seek(file.length() - 16);
+			int numberOfBlocks = file.readInt();
+			long indexPosition = file.readLong();
+			if (file.readInt() != EventWriterBinary.MAGIC) {
+				throw new IllegalArgumentException("The file " + filename + " is not complete, there is no index at its end.");
+			}
+			long[] positions = new long[numberOfBlocks];
+			double[] minTimes = new double[numberOfBlocks];
+			double[] maxTimes = new double[numberOfBlocks];
+			file.seek(indexPosition);
+			for (int i = 0; i < numberOfBlocks; i++) {
+				positions[i] = file.readLong();
+				minTimes[i] = file.readDouble();
+				maxTimes[i] = file.readDouble();
+			}
+
+			BlockProcessor processor = new BlockProcessor(fromTime, toTime);
+			try {
+				for (int i = 0; i < numberOfBlocks; i++) {
+					if (maxTimes[i] >= fromTime && minTimes[i] <= toTime) {
+						file.seek(positions[i]);
+						processor.add(readBlock(file, fromTime, toTime));
+					}
+				}
+				processor.finish();
+			} finally {
+				processor.shutdown();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void readHeader(final DataInput in) throws IOException {
+		if (in.readInt() != EventWriterBinary.MAGIC) {
+			throw new IllegalArgumentException("Not a binary events file.");
+		}
+		int version = in.readInt();
+		if (version > EventWriterBinary.VERSION) {
+			throw new IllegalArgumentException("Binary events file has version " + version + ", but only versions up to "
+					+ EventWriterBinary.VERSION + " are supported.");
+		}
+	}
+
+	/**
+	 * @return the next block, without data if it is outside of the time window, or <code>null</code> at the end of the blocks.
+	 */
+	private static RawBlock readBlock(final DataInput in, final double fromTime, final double toTime) throws IOException {
+		int numberOfEvents;
+		try {
+			numberOfEvents = in.readInt();
+		} catch (EOFException e) {
+			log.warn("binary events file ends without end marker, it was probably not closed correctly.");
+			return null;
+		}
+		if (numberOfEvents == EventWriterBinary.END_OF_BLOCKS) {
+			return null;
+		}
+		RawBlock block = new RawBlock();
+		block.numberOfEvents = numberOfEvents;
+		double minTime = in.readDouble();
+		double maxTime = in.readDouble();
+		block.uncompressedSize = in.readInt();
+		int compressedSize = in.readInt();
+		if (maxTime < fromTime || minTime > toTime) {
+			int skipped = 0;
+			while (skipped < compressedSize) {
+				int s = in.skipBytes(compressedSize - skipped);
+				if (s <= 0) {
+					throw new EOFException();
+				}
+				skipped += s;
+			}
+		} else {
+			block.data = new byte[compressedSize];
+			in.readFully(block.data);
+		}
+		return block;
+	}
+
+	/**
+	 * Decodes blocks in parallel and passes their events on in the original order.
+	 */
+	private class BlockProcessor {
+		private final double fromTime;
+		private final double toTime;
+		private final ExecutorService executor;
+		private final Deque<Future<List<Event>>> pending = new ArrayDeque<>();
+
+		BlockProcessor(final double fromTime, final double toTime) {
+			this.fromTime = fromTime;
+			this.toTime = toTime;
+			this.executor = numberOfThreads > 1 ? Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+				Thread thread = new Thread(runnable, "EventsReaderBinary");
+				thread.setDaemon(true);
+				return thread;
+			}) : null;
+		}
+
+		void add(final RawBlock block) {
+			if (this.executor == null) {
+				processEvents(decodeBlock(block, this.fromTime, this.toTime));
+				return;
+			}
+			this.pending.add(this.executor.submit(() -> decodeBlock(block, this.fromTime, this.toTime)));
+			while (this.pending.size() > 2 * numberOfThreads) {
+				processEvents(get(this.pending.poll()));
+			}
+		}
+
+		void finish() {
+			while (!this.pending.isEmpty()) {
+				processEvents(get(this.pending.poll()));
+			}
+		}
+
+		void shutdown() {
+			if (this.executor != null) {
+				this.executor.shutdownNow();
+			}
+		}
+
+		private List<Event> get(final Future<List<Event>> future) {
+			try {
+				return future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new RuntimeException(e.getCause());
+			}
+		}
+
+		private void processEvents(final List<Event> events) {
+			for (Event event : events) {
+				EventsReaderBinary.this.events.processEvent(event);
+			}
+		}
+	}
+
+	private List<Event> decodeBlock(final RawBlock block, final double fromTime, final double toTime) {
+		byte[] data = new byte[block.uncompressedSize];
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(block.data);
+			int length = 0;
+			while (length < data.length && !inflater.finished()) {
+				int inflated = inflater.inflate(data, length, data.length - length);
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				length += inflated;
+			}
+			if (length != data.length) {
+				throw new UncheckedIOException(new IOException("corrupt block in binary events file."));
+			}
+		} catch (DataFormatException e) {
+			throw new UncheckedIOException(new IOException("corrupt block in binary events file.", e));
+		} finally {
+			inflater.end();
+		}
+
+		BlockDecoder decoder = new BlockDecoder(data, block.numberOfEvents);
+		List<Event> collected = new ArrayList<>(block.numberOfEvents);
+		EventsReaderXMLv1 reader = new EventsReaderXMLv1(collected::add);
+		for (Map.Entry<String, CustomEventMapper> e : this.customEventMappers.entrySet()) {
+			reader.addCustomEventMapper(e.getKey(), e.getValue());
+		}
+		for (int i = 0; i < block.numberOfEvents; i++) {
+			double time = decoder.times[i];
+			decoder.setEvent(i);
+			if (time >= fromTime && time <= toTime) {
+				reader.startEvent(time, decoder);
+			}
+		}
+		return collected;
+	}
+
+	private static class RawBlock {
+		int numberOfEvents;
+		int uncompressedSize;
+		byte[] data = null;
+	}
+
+	/**
+	 * Gives access to the columns of a decoded block, and to the attributes of one event of it
+	 * in the form expected by {@link EventsReaderXMLv1}.
+	 */
+	private static final class BlockDecoder implements Attributes {
+
+		private final byte[] data;
+		private int pos = 0;
+
+		private final String[] dictionary;
+		final double[] times;
+		private final int[] types;
+		private final int[] firstAttribute;
+		private final int[] keys;
+		private final int[] values;
+
+		private int event = -1;
+
+		BlockDecoder(final byte[] data, final int numberOfEvents) {
+			this.data = data;
+
+			int dictionarySize = readVarInt();
+			this.dictionary = new String[dictionarySize + 1];
+			for (int i = 1; i <= dictionarySize; i++) {
+				int length = readVarInt();
+				this.dictionary[i] = new String(data, this.pos, length, StandardCharsets.UTF_8);
+				this.pos += length;
+			}
+
+			this.times = new double[numberOfEvents];
+			for (int i = 0; i < numberOfEvents; i++) {
+				this.times[i] = Double.longBitsToDouble(readLong());
+			}
+			this.types = new int[numberOfEvents];
+			for (int i = 0; i < numberOfEvents; i++) {
+				this.types[i] = readVarInt();
+			}
+			this.firstAttribute = new int[numberOfEvents + 1];
+			for (int i = 0; i < numberOfEvents; i++) {
+				this.firstAttribute[i + 1] = this.firstAttribute[i] + readVarInt();
+			}
+			int numberOfAttributes = this.firstAttribute[numberOfEvents];
+			this.keys = new int[numberOfAttributes];
+			for (int i = 0; i < numberOfAttributes; i++) {
+				this.keys[i] = readVarInt();
+			}
+			this.values = new int[numberOfAttributes];
+			for (int i = 0; i < numberOfAttributes; i++) {
+				this.values[i] = readVarInt();
+			}
+		}
+
+		void setEvent(final int event) {
+			this.event = event;
+		}
+
+		private int readVarInt() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.data[this.pos++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			return value;
+		}
+
+		private long readLong() {
+			long value = 0;
+			for (int i = 0; i < 8; i++) {
+				value = (value << 8) | (this.data[this.pos++] & 0xFF);
+			}
+			return value;
+		}
+
+		@Override
+		public int getLength() {
+			return this.firstAttribute[this.event + 1] - this.firstAttribute[this.event];
+		}
+
+		@Override
+		public String getURI(final int index) {
+			return "";
+		}
+
+		@Override
+		public String getLocalName(final int index) {
+			return this.dictionary[this.keys[this.firstAttribute[this.event] + index]];
+		}
+
+		@Override
+		public String getQName(final int index) {
+			return getLocalName(index);
+		}
+
+		@Override
+		public String getType(final int index) {
+			return "CDATA";
+		}
+
+		@Override
+		public String getValue(final int index) {
+			return this.dictionary[this.values[this.firstAttribute[this.event] + index]];
+		}
+
+		@Override
+		public int getIndex(final String uri, final String localName) {
+			return getIndex(localName);
+		}
+
+		@Override
+		public int getIndex(final String qName) {
+			int first = this.firstAttribute[this.event];
+			int last = this.firstAttribute[this.event + 1];
+			for (int i = first; i < last; i++) {
+				if (qName.equals(this.dictionary[this.keys[i]])) {
+					return i - first;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public String getType(final String uri, final String localName) {
+			return getType(localName);
+		}
+
+		@Override
+		public String getType(final String qName) {
+			return getIndex(qName) < 0 ? null : "CDATA";
+		}
+
+		@Override
+		public String getValue(final String uri, final String localName) {
+			return getValue(localName);
+		}
+
+		@Override
+		public String getValue(final String qName) {
+			if (Event.ATTRIBUTE_TYPE.equals(qName)) {
+				return this.dictionary[this.types[this.event]];
+			}
+			if (Event.ATTRIBUTE_TIME.equals(qName)) {
+				return Double.toString(this.times[this.event]);
+			}
+			int index = getIndex(qName);
+			return index < 0 ? null : getValue(index);
+		}
+	}
+
+}
@@ -65,12 +65,24 @@ public final class EventsReaderXMLv1 extends MatsimXmlEventsParser {
 		T apply(GenericEvent event);
 	}
 
+	/**
+	 * Receives the events created by this reader.  Lets {@link EventsReaderBinary} collect the events of a block
+	 * without an events manager.
+	 */
+	/*package*/ interface EventSink {
+		void processEvent(Event event);
+	}
+
 	static public final String EVENT = "event";
 
-	private final EventsManager events;
+	private final EventSink events;
 	private final Map<String, CustomEventMapper> customEventMappers = new HashMap<>();
 
 	public EventsReaderXMLv1(final EventsManager events) {
+		this(events::processEvent);
+	}
+
+	/*package*/ EventsReaderXMLv1(final EventSink events) {
 		this.events = events;
 		this.setValidating(false);// events-files have no DTD, thus they cannot validate
 	}
@@ -101,7 +113,14 @@ public final class EventsReaderXMLv1 extends MatsimXmlEventsParser {
 	}
 
 	private void startEvent(final Attributes atts) {
-		double time = Double.parseDouble(atts.getValue("time"));
+		startEvent(Double.parseDouble(atts.getValue("time")), atts);
+	}
+
+	/**
+	 * Creates the event described by the attributes and passes it on.
+	 * Also used by {@link EventsReaderBinary}, which stores the time separately.
+	 */
+	/*package*/ void startEvent(final double time, final Attributes atts) {
 		String eventType = atts.getValue("type");
 
 		// === material related to wait2link below here ===
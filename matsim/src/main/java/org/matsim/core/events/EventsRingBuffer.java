@@ -0,0 +1,277 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.matsim.api.core.v01.events.Event;
+
+/**
+ * Bounded, preallocated ring buffer to hand events over from the mobsim to the events processing threads,
+ * in the style of a disruptor.
+ * <p></p>
+ * Every event gets a sequence number when it is published. All consumers read all events, each of them keeps
+ * track of the last sequence it has processed. Consumers take all events that are available at once and only
+ * report their progress after such a batch. Producers never overtake the slowest consumer, i.e. they wait for free
+ * slots if the ring buffer is full, which keeps the mobsim from running too far ahead of the event handlers.
+ * <p></p>
+ * Once all consumers have processed an event, its slot is cleared by the consumer which released it last, such that
+ * processed events do not stay reachable until their slot is overwritten. Only then the slot is handed back to the
+ * producers.
+ * <p></p>
+ * Sleeping consumers are not woken up for every event, but only once per {@value #SIGNAL_BATCH_SIZE} events
+ * and when {@link #awaitProcessed()} is called at the end of a time step.
+ * <p></p>
+ * Events may be published by several threads concurrently, but a consumer must never publish events itself, as
+ * it might wait for free slots that only it could free.
+ *
+ * @see SimStepParallelEventsManagerImpl
+ */
+final class EventsRingBuffer {
+
+	/*package*/ static final int SIGNAL_BATCH_SIZE = 256;
+	private static final int MAX_BATCH_SIZE = 4096;
+
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 100;
+	// upper bound for the time a thread sleeps in case a wake-up was missed
+	private static final long PARK_NANOS = 1000000;
+	// longs between the sequences of two consumers, so they are not on the same cache line
+	private static final int PADDING = 16;
+
+	private final Event[] entries;
+	private final int mask;
+	private final int indexShift;
+	/* for every slot, the round (sequence / size) of the event published there */
+	private final AtomicIntegerArray availableRounds;
+
+	private final AtomicLong claimSequence = new AtomicLong(-1);
+	/* the highest sequence processed by all consumers and cleared, i.e. all slots up to it can be reused */
+	private final AtomicLong freeSequence = new AtomicLong(-1);
+	private final AtomicBoolean clearing = new AtomicBoolean(false);
+	private volatile long cachedMinimumSequence = -1;
+
+	private final int numberOfConsumers;
+	private final AtomicLongArray consumerSequences;
+	private final AtomicReferenceArray<Thread> sleepingConsumers;
+	private final AtomicInteger numberOfSleepingConsumers = new AtomicInteger(0);
+
+	private volatile Thread awaitingThread = null;
+	private volatile boolean halted = false;
+
+	/**
+	 * @param size the number of slots, must be a power of two
+	 * @param numberOfConsumers the number of consumers reading from this buffer
+	 */
+	EventsRingBuffer(final int size, final int numberOfConsumers) {
+		if (size < 1 || Integer.bitCount(size) != 1) {
+			throw new IllegalArgumentException("the size of the ring buffer must be a power of 2, but is " + size);
+		}
+		this.entries = new Event[size];
+		this.mask = size - 1;
+		this.indexShift = Integer.numberOfTrailingZeros(size);
+		this.availableRounds = new AtomicIntegerArray(size);
+		for (int i = 0; i < size; i++) {
+			this.availableRounds.set(i, -1);
+		}
+		this.numberOfConsumers = numberOfConsumers;
+		this.consumerSequences = new AtomicLongArray(numberOfConsumers * PADDING);
+		for (int i = 0; i < numberOfConsumers; i++) {
+			this.consumerSequences.set(i * PADDING, -1);
+		}
+		this.sleepingConsumers = new AtomicReferenceArray<>(numberOfConsumers);
+	}
+
+	/**
+	 * Publishes an event, waiting for a free slot if necessary.
+	 *
+	 * @return <code>false</code> if the buffer was halted before the event could be published
+	 */
+	boolean publish(final Event event) {
+		final long sequence = this.claimSequence.incrementAndGet();
+		final long wrapPoint = sequence - this.entries.length;
+		if (wrapPoint > this.cachedMinimumSequence) {
+			long minimum;
+			int tries = 0;
+			while (wrapPoint > (minimum = this.freeSequence.get())) {
+				if (this.halted) {
+					return false;
+				}
+				tries = idle(tries);
+			}
+			this.cachedMinimumSequence = minimum;
+		}
+		final int index = (int) sequence & this.mask;
+		this.entries[index] = event;
+		this.availableRounds.lazySet(index, (int) (sequence >>> this.indexShift));
+		if ((sequence & (SIGNAL_BATCH_SIZE - 1)) == 0 && this.numberOfSleepingConsumers.get() > 0) {
+			signalConsumers();
+		}
+		return true;
+	}
+
+	/**
+	 * Waits until the event with sequence <code>next</code> is available.
+	 *
+	 * @return the highest sequence that can be processed in one batch starting at <code>next</code>,
+	 * 		or <code>-1</code> if the buffer was halted.
+	 */
+	long waitFor(final int consumer, final long next) {
+		int tries = 0;
+		while (!isAvailable(next)) {
+			if (this.halted) {
+				return -1;
+			}
+			if (tries < SPIN_TRIES + YIELD_TRIES) {
+				tries = idle(tries);
+			} else {
+				this.sleepingConsumers.set(consumer, Thread.currentThread());
+				this.numberOfSleepingConsumers.incrementAndGet();
+				if (!isAvailable(next) && !this.halted) {
+					LockSupport.parkNanos(this, PARK_NANOS);
+				}
+				this.numberOfSleepingConsumers.decrementAndGet();
+				this.sleepingConsumers.set(consumer, null);
+			}
+		}
+		final long limit = Math.min(this.claimSequence.get(), next + MAX_BATCH_SIZE - 1);
+		long highest = next;
+		while (highest < limit && isAvailable(highest + 1)) {
+			highest++;
+		}
+		return highest;
+	}
+
+	Event get(final long sequence) {
+		return this.entries[(int) sequence & this.mask];
+	}
+
+	/**
+	 * Reports that <code>consumer</code> has processed all events up to and including <code>sequence</code>.
+	 */
+	void release(final int consumer, final long sequence) {
+		// not lazySet: another consumer clearing slots must see it, see clearProcessed()
+		this.consumerSequences.set(consumer * PADDING, sequence);
+		clearProcessed();
+		Thread thread = this.awaitingThread;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Wakes up all consumers and waits until all of them have processed all events published so far, and their slots
+	 * are cleared.
+	 * Must only be called by one thread at a time.
+	 *
+	 * @return <code>false</code> if the buffer was halted before all events were processed
+	 */
+	boolean awaitProcessed() {
+		final long target = this.claimSequence.get();
+		this.awaitingThread = Thread.currentThread();
+		try {
+			signalConsumers();
+			int tries = 0;
+			while (this.freeSequence.get() < target) {
+				if (this.halted) {
+					return false;
+				}
+				if (tries < SPIN_TRIES + YIELD_TRIES) {
+					tries = idle(tries);
+				} else {
+					LockSupport.parkNanos(this, PARK_NANOS);
+				}
+			}
+			return true;
+		} finally {
+			this.awaitingThread = null;
+		}
+	}
+
+	/**
+	 * Stops all consumers and lets all waiting producers give up.
+	 */
+	void halt() {
+		this.halted = true;
+		signalConsumers();
+		Thread thread = this.awaitingThread;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * Clears the slots of all events which were processed by all consumers, and hands them back to the producers.
+	 * Only one consumer clears at a time; it checks again after it is done, so it also clears the events released by
+	 * the others in the meantime.
+	 */
+	private void clearProcessed() {
+		while (getMinimumConsumerSequence() > this.freeSequence.get() && this.clearing.compareAndSet(false, true)) {
+			try {
+				final long minimum = getMinimumConsumerSequence();
+				for (long sequence = this.freeSequence.get() + 1; sequence <= minimum; sequence++) {
+					this.entries[(int) sequence & this.mask] = null;
+				}
+				this.freeSequence.set(minimum);
+			} finally {
+				this.clearing.set(false);
+			}
+		}
+	}
+
+	private boolean isAvailable(final long sequence) {
+		return this.availableRounds.get((int) sequence & this.mask) == (int) (sequence >>> this.indexShift);
+	}
+
+	private long getMinimumConsumerSequence() {
+		long minimum = Long.MAX_VALUE;
+		for (int i = 0; i < this.numberOfConsumers; i++) {
+			minimum = Math.min(minimum, this.consumerSequences.get(i * PADDING));
+		}
+		return minimum;
+	}
+
+	private void signalConsumers() {
+		for (int i = 0; i < this.numberOfConsumers; i++) {
+			Thread thread = this.sleepingConsumers.get(i);
+			if (thread != null) {
+				LockSupport.unpark(thread);
+			}
+		}
+	}
+
+	private static int idle(final int tries) {
+		if (tries >= SPIN_TRIES + YIELD_TRIES) {
+			LockSupport.parkNanos(1000);
+			return tries;
+		}
+		if (tries >= SPIN_TRIES) {
+			Thread.yield();
+		}
+		return tries + 1;
+	}
+
+}
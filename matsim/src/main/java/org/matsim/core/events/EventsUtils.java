@@ -1,8 +1,13 @@
 package org.matsim.core.events;
 
+import java.util.Locale;
+
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.controler.Injector;
+import org.matsim.core.events.algorithms.EventWriter;
+import org.matsim.core.events.algorithms.EventWriterBinary;
+import org.matsim.core.events.algorithms.EventWriterXML;
 import org.matsim.utils.eventsfilecomparison.EventsFileComparator;
 
 public class EventsUtils {
@@ -40,6 +45,17 @@ public class EventsUtils {
     	new MatsimEventsReader(events).readFile(filename) ;
 	}
 
+	/**
+	 * Creates a writer for the format given by the ending of the filename: binary events for ".bin",
+	 * xml otherwise.  The writer still needs to be added as handler to the events manager.
+	 */
+	public static EventWriter createEventsWriter( String filename ) {
+		if ( filename.toLowerCase(Locale.ROOT).endsWith(".bin") ) {
+			return new EventWriterBinary(filename);
+		}
+		return new EventWriterXML(filename);
+	}
+
 	public static EventsFileComparator.Result compareEventsFiles( String filename1, String filename2 ) {
 		EventsFileComparator.Result result = EventsFileComparator.compare( filename1, filename2 );
 		return result ;
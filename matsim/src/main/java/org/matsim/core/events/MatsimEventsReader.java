@@ -20,6 +20,8 @@
 
 package org.matsim.core.events;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.LinkedHashMap;
@@ -31,7 +33,9 @@ import org.apache.log4j.Logger;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.internal.MatsimReader;
 import org.matsim.core.events.EventsReaderXMLv1.CustomEventMapper;
+import org.matsim.core.events.algorithms.EventWriterBinary;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.UncheckedIOException;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 
@@ -71,6 +75,8 @@ public final class MatsimEventsReader implements MatsimReader {
 		String lcFilename = filename.toLowerCase(Locale.ROOT);
 		if (lcFilename.endsWith(".xml") || lcFilename.endsWith(".xml.gz")) {
 			new XmlEventsReader(this.events, map ).readFile(filename );
+		} else if (lcFilename.endsWith(".bin")) {
+			createBinaryReader().readFile(filename);
 		} else if (lcFilename.endsWith(".txt") || lcFilename.endsWith(".txt.gz")) {
 			throw new RuntimeException("text events are no longer supported. Please use MATSim 0.6.1 or earlier to read text events.");
 		} else {
@@ -78,13 +84,47 @@ public final class MatsimEventsReader implements MatsimReader {
 		}
 	}
 
+	/**
+	 * Parses events from the stream, which may contain xml or binary events.
+	 */
 	public void readStream(final InputStream stream) {
-		new XmlEventsReader(this.events, map ).parse(stream );
+		InputStream in = stream.markSupported() ? stream : new BufferedInputStream(stream);
+		if (isBinary(in)) {
+			createBinaryReader().readStream(in);
+		} else {
+			new XmlEventsReader(this.events, map ).parse(in );
+		}
 	}
 
 	@Override
 	public void readURL( final URL url ) {
-		new XmlEventsReader( this.events, map ).readURL( url );
+		if (url.getFile().toLowerCase(Locale.ROOT).endsWith(".bin")) {
+			createBinaryReader().readURL(url);
+		} else {
+			new XmlEventsReader( this.events, map ).readURL( url );
+		}
+	}
+
+	private EventsReaderBinary createBinaryReader() {
+		EventsReaderBinary reader = new EventsReaderBinary(this.events);
+		for( Map.Entry<String, CustomEventMapper> entry : map.entrySet() ){
+			reader.addCustomEventMapper( entry.getKey(), entry.getValue() );
+		}
+		return reader;
+	}
+
+	private static boolean isBinary(final InputStream in) {
+		try {
+			in.mark(4);
+			int magic = 0;
+			for (int i = 0; i < 4; i++) {
+				magic = (magic << 8) | (in.read() & 0xFF);
+			}
+			in.reset();
+			return magic == EventWriterBinary.MAGIC;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 
 	private static class XmlEventsReader extends MatsimXmlParser {
@@ -29,14 +29,8 @@ import org.matsim.core.gbl.Gbl;
 
 import javax.inject.Inject;
 import java.lang.Thread.UncaughtExceptionHandler;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.BrokenBarrierException;
-import java.util.concurrent.CyclicBarrier;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -44,25 +38,35 @@ import java.util.concurrent.atomic.AtomicReference;
  * When a Time Step of the QSim ends, all Events that have been created
  * in that Time Step are processed before the simulation can go on.
  * This is necessary e.g. when using Within-day Replanning.
+ * <p></p>
+ * The events are handed over to the processing threads through an {@link EventsRingBuffer}.
+ * Every thread reads all events and passes them to its share of the event handlers. If the
+ * ring buffer is full, the simulation waits until the slowest thread has caught up.
  * 
  * @author cdobler
  */
 class SimStepParallelEventsManagerImpl implements EventsManager {
 
 	private final static Logger log = Logger.getLogger(SimStepParallelEventsManagerImpl.class);
-	
+
+	/*package*/ static final int DEFAULT_RING_BUFFER_SIZE = 65536;
+
 	private final int numOfThreads;
-	private CyclicBarrier simStepEndBarrier;
-	private CyclicBarrier iterationEndBarrier;
-    private ProcessEventsRunnable[] runnables;
+	private final int ringBufferSize;
 	private EventsManagerImpl[] eventsManagers;
 	private EventsManagerImpl delegate;
-	private ProcessedEventsChecker processedEventsChecker;
-	
-	private boolean parallelMode = false;
+	private EventsRingBuffer ringBuffer;
+	private ProcessEventsThread[] threads;
+
+	/*
+	 * Events created by event handlers while processing events. They are handed over
+	 * by the main thread at the end of the time step.
+	 */
+	private final Queue<Event> lateEvents = new ConcurrentLinkedQueue<>();
+
+	private volatile boolean parallelMode = false;
 	private int handlerCount = 0;
 	
-	private AtomicLong counter;
 	private AtomicReference<Throwable> hadException = new AtomicReference<>();
 
 	@Inject
@@ -75,17 +79,17 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 	}
 	
 	public SimStepParallelEventsManagerImpl(int numOfThreads) {
+		this(numOfThreads, DEFAULT_RING_BUFFER_SIZE);
+	}
+
+	/*package*/ SimStepParallelEventsManagerImpl(int numOfThreads, int ringBufferSize) {
 		this.numOfThreads = numOfThreads;
+		this.ringBufferSize = ringBufferSize;
 		log.info("number of threads=" + numOfThreads );
 		init();
 	}
 	
 	private void init() {
-		this.counter = new AtomicLong(0);
-		
-		this.simStepEndBarrier = new CyclicBarrier(this.numOfThreads + 1);
-		this.iterationEndBarrier = new CyclicBarrier(this.numOfThreads + 1);
-		
 		this.delegate = new EventsManagerImpl();
 
 		this.eventsManagers = new EventsManagerImpl[this.numOfThreads];
@@ -94,10 +98,21 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 
 	@Override
 	public void processEvent(final Event event) {
-		this.counter.incrementAndGet();
-		
 		if (parallelMode) {
-			runnables[0].processEvent(event);
+			Thread thread = Thread.currentThread();
+			if (thread instanceof ProcessEventsThread && ((ProcessEventsThread) thread).ringBuffer == this.ringBuffer) {
+				/*
+				 * An event handler created an additional event. The processing thread must not
+				 * wait for free space in the ring buffer, as it might have to wait for itself.
+				 */
+				this.lateEvents.add(event);
+			} else {
+				/*
+				 * If the ring buffer was halted, events processing has crashed. The exception
+				 * is thrown in finishProcessing().
+				 */
+				this.ringBuffer.publish(event);
+			}
 		} else delegate.processEvent(event);
 	}
 
@@ -119,7 +134,6 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 	@Override
 	public void resetHandlers(int iteration) {
 		delegate.resetHandlers(iteration);
-		counter.set(0);
 	}
 
 	@Override
@@ -127,45 +141,21 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 		delegate.initProcessing();
 		for (EventsManager eventsManager : this.eventsManagers) eventsManager.initProcessing();
 
-		Queue<Event>[] eventsQueuesArray = new Queue[this.numOfThreads];
-		List<Queue<Event>> eventsQueues = new ArrayList<Queue<Event>>();
-		for (int i = 0; i < numOfThreads; i++) {
-			Queue<Event> eventsQueue = new LinkedBlockingQueue<>();
-			eventsQueues.add(eventsQueue);
-			eventsQueuesArray[i] = eventsQueue;
-		}
-				
-		/*
-		 * Add a null entry to the list which will be set as nextEventsQueue in the last ProcessEventsThread. 
-		 */
-		eventsQueues.add(null);
-		
-		/*
-		 * Create a ProcessedEventsChecker that checks whether all Events of
-		 * a time step have been processed.
-		 */
-		processedEventsChecker = new ProcessedEventsChecker(this, eventsQueuesArray);
-		
-		/*
-		 *  Create a Barrier that the threads use to synchronize.
-		 */
-        CyclicBarrier waitForEmptyQueuesBarrier = new CyclicBarrier(this.numOfThreads, processedEventsChecker);
-		
+		this.ringBuffer = new EventsRingBuffer(this.ringBufferSize, this.numOfThreads);
+		this.lateEvents.clear();
+
 		hadException = new AtomicReference<>();
-        ExceptionHandler uncaughtExceptionHandler = new ExceptionHandler(hadException, waitForEmptyQueuesBarrier,
-                simStepEndBarrier, iterationEndBarrier);
-		
-		runnables = new ProcessEventsRunnable[numOfThreads];
+		ExceptionHandler uncaughtExceptionHandler = new ExceptionHandler(hadException, ringBuffer);
+
+		threads = new ProcessEventsThread[numOfThreads];
 		for (int i = 0; i < numOfThreads; i++) {
-			ProcessEventsRunnable processEventsRunnable = new ProcessEventsRunnable(eventsManagers[i], processedEventsChecker,
-                    waitForEmptyQueuesBarrier, simStepEndBarrier, iterationEndBarrier, eventsQueues.get(i), eventsQueues.get(i + 1));
-			runnables[i] = processEventsRunnable;
-			Thread thread = new Thread(processEventsRunnable);
+			ProcessEventsThread thread = new ProcessEventsThread(eventsManagers[i], ringBuffer, i);
+			threads[i] = thread;
 			thread.setDaemon(true);
 			thread.setUncaughtExceptionHandler(uncaughtExceptionHandler);
-			thread.setName(ProcessEventsRunnable.class.toString() + i);
+			thread.setName("Events-" + i);
 			thread.start();
-		}		
+		}
 		
 		/*
 		 * During the simulation Events are processed in
@@ -185,29 +175,32 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 		
 		/*
 		 * If an exception occurred, at least one of the events processing threads
-		 * has crashed. As a result, also all other events processing threads have
-		 * been stopped.
-		 * If not, it is waited until all threads have ended processing events.
+		 * has crashed and the ring buffer has been halted, which stops all other threads.
+		 * If not, it is waited until all threads have processed all events.
 		 */
-		Throwable throwable = this.hadException.get();
-		if (throwable == null) {
-			try {
-				this.processEvent(new LastEventOfIteration(Double.POSITIVE_INFINITY));
-				iterationEndBarrier.await();
-			} catch (InterruptedException | BrokenBarrierException e) {
-				this.hadException.set(e);
-			}
-        }
-		
-		delegate.finishProcessing();
-		for (EventsManager eventsManager : this.eventsManagers) eventsManager.finishProcessing();
-		
+		if (this.hadException.get() == null) {
+			processAllEvents();
+		}
+
 		/*
 		 * After the simulation Events are processed in
 		 * the Main Thread.
 		 */
 		this.parallelMode = false;
 
+		this.ringBuffer.halt();
+		for (Thread thread : this.threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				this.hadException.compareAndSet(null, e);
+			}
+		}
+		
+		delegate.finishProcessing();
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.finishProcessing();
+
+		Throwable throwable = this.hadException.get();
 		if (throwable != null) {
 			throw new RuntimeException("Exception while processing events. Cannot guarantee that all events have been fully processed.", throwable);
 		}
@@ -215,63 +208,67 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 
 	@Override
 	public void afterSimStep(double time) {
+		Gbl.assertNotNull( this.ringBuffer );
 		
 		/*
 		 * If an exception occurred, at least one of the events processing threads
-		 * has crashed. Therefore the remaining threads would get stuck at the
-		 * CyclicBarrier.
+		 * has crashed. Then, the events of this time step will never be processed.
 		 */
 		if (hadException.get() != null) {
 			return;
 		}
 		
-		try {
-			Gbl.assertNotNull( this.processedEventsChecker );
-			this.processedEventsChecker.setTime(time);
-			this.processEvent(new LastEventOfSimStep(time));
-			simStepEndBarrier.await();
-		} catch (InterruptedException | BrokenBarrierException e) {
-			throw new RuntimeException(e);
-		}
+		processAllEvents();
     }
+
+	/*
+	 * Waits until all events published so far have been processed by all threads.
+	 * Some EventHandlers might have created additional Events [1] in the meantime,
+	 * which are then handed over and processed as well, until no more events are
+	 * created.
+	 * 
+	 * [1] ... Such a behavior is NOT part of MATSim's default EventHandlers but it
+	 * still might occur.
+	 */
+	private void processAllEvents() {
+		do {
+			Event event;
+			while ((event = this.lateEvents.poll()) != null) {
+				this.ringBuffer.publish(event);
+			}
+			if (!this.ringBuffer.awaitProcessed()) {
+				return;
+			}
+		} while (!this.lateEvents.isEmpty());
+	}
 	
-	private static class ProcessEventsRunnable implements Runnable {
+	private static class ProcessEventsThread extends Thread {
 		
 		private final EventsManager eventsManager;
-		private final ProcessedEventsChecker processedEventsChecker;
-		private final CyclicBarrier waitForEmptyQueuesBarrier;
-		private final CyclicBarrier simStepEndBarrier;
-		private final CyclicBarrier iterationEndBarrier;
-		private final Queue<Event> eventsQueue;
-		private final Queue<Event> nextEventsQueue;
+		private final EventsRingBuffer ringBuffer;
+		private final int consumer;
 		private double lastEventTime = 0.0;
 
-		public ProcessEventsRunnable(EventsManager eventsManager, ProcessedEventsChecker processedEventsChecker, 
-				CyclicBarrier waitForEmptyQueuesBarrier,CyclicBarrier simStepEndBarrier,
-				CyclicBarrier iterationEndBarrier, Queue<Event> eventsQueue, Queue<Event> nextEventsQueue) {
+		public ProcessEventsThread(EventsManager eventsManager, EventsRingBuffer ringBuffer, int consumer) {
 			this.eventsManager = eventsManager;
-			this.processedEventsChecker = processedEventsChecker;
-			this.waitForEmptyQueuesBarrier = waitForEmptyQueuesBarrier;
-			this.simStepEndBarrier = simStepEndBarrier;
-			this.iterationEndBarrier = iterationEndBarrier;
-			this.eventsQueue = eventsQueue;
-			this.nextEventsQueue = nextEventsQueue;
+			this.ringBuffer = ringBuffer;
+			this.consumer = consumer;
 		}
 
 		@Override
 		public void run() {
-			try {
-				/*
-				 * If the Simulation has ended we may still have some
-				 * Events left to process. So we continue until the
-				 * eventsQueue is empty.
-				 * 
-				 * The loop is ended by a break command when a LastEventOfIteration
-				 * event is found.
-				 */
-				lastEventTime = 0.0;
-				while (true) {
-					Event event = ((LinkedBlockingQueue<Event>) eventsQueue).take();
+			/*
+			 * The loop is ended when the ring buffer is halted after all events
+			 * have been processed.
+			 */
+			long next = 0;
+			while (true) {
+				long available = this.ringBuffer.waitFor(this.consumer, next);
+				if (available < 0) {
+					break;
+				}
+				for (long sequence = next; sequence <= available; sequence++) {
+					Event event = this.ringBuffer.get(sequence);
 					
 					/*
 					 * Check whether the events are ordered chronologically.
@@ -282,119 +279,15 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 								"as a MobsimAfterSimStepListener?");
 					} else this.lastEventTime = event.getTime();
 					
-					if (event instanceof LastEventOfSimStep) {
-						/*
-						 * Send the event to the next events processing thread, if this is not the last thread.
-						 */
-						if (nextEventsQueue != null) {
-							nextEventsQueue.add(event);
-						}
-						
-						/*
-						 * At the moment, this thread's queue is empty. However, one of the other threads
-						 * could create additional events for this time step. Therefore we have to wait
-						 * until all threads reach this barrier. Afterwards we can check whether still
-						 * all queues are empty. If this is true, the threads reach the sim step end barrier.
-						 */
-						waitForEmptyQueuesBarrier.await();
-						if (!processedEventsChecker.allEventsProcessed()) continue;
-						
-						/*
-						 * All event queues are empty, therefore finish current time step by
-						 * reaching the sim step end barrier.
-						 */
-						simStepEndBarrier.await();
-						continue;
-					} 
-					else {
-						/*
-						 * Handing the event over to the next events processing thread.
-						 * 
-						 * This could be added to the next EventHandlers queue here or in 
-						 * the processEvent(...) method. Doing it here might be a bit faster
-						 * since it is not done in the main thread.
-						 */
-						if (nextEventsQueue != null) {
-							nextEventsQueue.add(event);
-						}
-						
-						/*
-						 * If it is the last Event of the iteration, break the while loop
-						 * and end the parallel events processing.
-						 * TODO: Check whether still some events could be left in the queues...
-						 */
-						if (event instanceof LastEventOfIteration) {
-							break;
-						}
-					}
-					eventsManager.processEvent(event);
+					this.eventsManager.processEvent(event);
 				}
-				iterationEndBarrier.await();
-			} catch (InterruptedException | BrokenBarrierException e) {
-				throw new RuntimeException(e);
+				this.ringBuffer.release(this.consumer, available);
+				next = available + 1;
 			}
             Gbl.printCurrentThreadCpuTime();
 		}
-
-		public void processEvent(Event event) {
-			this.eventsQueue.add(event);
-		}
-		
-	}	// ProcessEventsRunnable
-	
-	private static class ProcessedEventsChecker implements Runnable {
-
-		private final EventsManager evenentsManger;
-		private final Queue<Event>[] eventQueues;
-		private boolean allEventsProcessed;
-		private double time;
-		
-		public ProcessedEventsChecker(EventsManager evenentsManger, Queue<Event>[] eventQueues) {
-			this.evenentsManger = evenentsManger;
-			this.eventQueues = eventQueues;
-			
-			this.allEventsProcessed = true;
-		}
-
-		public void setTime(double time) {
-			this.time = time;
-		}
-		
-		public boolean allEventsProcessed() {
-			return this.allEventsProcessed;
-		}
-		
-		@Override
-		public void run() {
-			for (Queue<Event> eventsQueue : eventQueues) {
-				/*
-				 * Some EventHandlers might have created additional Events [1] which 
-				 * could be located in the list AFTER the LastEventOfSimStep, meaning 
-				 * that they would be processed while the simulation is already processing
-				 * the next time step. Therefore we check whether the eventsQueues are really
-				 * empty.
-				 * If at least one of the queues is not empty, this time steps
-				 * events processing has to go on. This is triggered by setting
-				 * allEventsProcessed to false. Additionally a last event of sim
-				 * step event is created. When all events processing threads
-				 * process that event, it is again checked whether there are
-				 * more events left.
-				 * 
-				 * [1] ... Such a behavior is NOT part of MATSim's default EventHandlers but it
-				 * still might occur.
-				 */
-				if (eventsQueue.size() > 0) {
-					allEventsProcessed = false;
-					evenentsManger.processEvent(new LastEventOfSimStep(time));
-					return;
-				}
-			}
-			
-			// otherwise
-			allEventsProcessed = true;
-		}
 		
-	}	// ProcessedEventsChecker
+	}	// ProcessEventsThread
 	
 	/**
 	 * @author mrieser
@@ -402,30 +295,23 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 	private static class ExceptionHandler implements UncaughtExceptionHandler {
 
 		private final AtomicReference<Throwable> hadException;
-		private final CyclicBarrier simStepEndBarrier;
-		private final CyclicBarrier iterationEndBarrier;
-		private final CyclicBarrier waitForEmptyQueuesBarrier;
+		private final EventsRingBuffer ringBuffer;
 
-		public ExceptionHandler(final AtomicReference<Throwable> hadException, CyclicBarrier waitForEmptyQueuesBarrier,
-				CyclicBarrier simStepEndBarrier, CyclicBarrier iterationEndBarrier) {
+		public ExceptionHandler(final AtomicReference<Throwable> hadException, EventsRingBuffer ringBuffer) {
 			this.hadException = hadException;
-			this.waitForEmptyQueuesBarrier = waitForEmptyQueuesBarrier;
-			this.simStepEndBarrier = simStepEndBarrier;
-			this.iterationEndBarrier = iterationEndBarrier;
+			this.ringBuffer = ringBuffer;
 		}
 
 		@Override
 		public void uncaughtException(Thread t, Throwable e) {
-			this.hadException.set(e);
+			this.hadException.compareAndSet(null, e);
 			log.error("Thread " + t.getName() + " died with exception while handling events.", e);
 
 			/*
-			 * By reseting the barriers, they will throw a BrokenBarrierException
-			 * which again will stop the events processing threads.
+			 * By halting the ring buffer, the other events processing threads are
+			 * stopped and nobody waits for the crashed thread anymore.
 			 */
-			this.simStepEndBarrier.reset();
-			this.iterationEndBarrier.reset();
-			this.waitForEmptyQueuesBarrier.reset();
+			this.ringBuffer.halt();
 		}
 
 	}
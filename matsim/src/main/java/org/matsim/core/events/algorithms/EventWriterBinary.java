@@ -0,0 +1,303 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Writes events into a compact, binary file, which can be read much faster than xml,
+ * see {@link org.matsim.core.events.EventsReaderBinary}.
+ * <p></p>
+ * The events are written in blocks of (by default) {@value #DEFAULT_BLOCK_SIZE} events. Every block is
+ * stored column by column and compressed on its own, and has its own dictionary of all strings (ids, modes,
+ * attribute names, ...) used in the block, so blocks can be encoded and decoded independently and in parallel.
+ * An index at the end of the file contains the position and the time range of every block, so readers can
+ * skip to the events of a specific time window.
+ * <p></p>
+ * File layout (all numbers in big-endian byte order):
+ * <pre>
+ * file      := MAGIC VERSION block* END_OF_BLOCKS index footer
+ * block     := (int) numberOfEvents, (double) minTime, (double) maxTime,
+ *              (int) uncompressedSize, (int) compressedSize, (byte[compressedSize]) deflated payload
+ * payload   := dictionary, time column, type column, attribute count column, key column, value column
+ * index     := ((long) position, (double) minTime, (double) maxTime) for every block
+ * footer    := (int) numberOfBlocks, (long) position of index, MAGIC
+ * </pre>
+ * In the payload, times are stored as doubles, all other numbers as variable-length integers. Strings are
+ * stored as the index into the dictionary plus one, <code>0</code> stands for <code>null</code>.
+ * The attributes <code>time</code> and <code>type</code> are only stored in their own columns.
+ */
+public final class EventWriterBinary implements EventWriter, BasicEventHandler {
+
+	public static final int MAGIC = 0x4D455642; // "MEVB"
+	public static final int VERSION = 1;
+	public static final int END_OF_BLOCKS = -1;
+
+	public static final int DEFAULT_BLOCK_SIZE = 65536;
+
+	private final DataOutputStream out;
+	private final int blockSize;
+	private final ExecutorService executor;
+	private final int maxPendingBlocks;
+	private final Deque<Block> pendingBlocks = new ArrayDeque<>();
+	private Block currentBlock;
+
+	private final List<Block> index = new ArrayList<>();
+	private long position = 0;
+
+	public EventWriterBinary(final String filename) {
+		this(IOUtils.getOutputStream(filename));
+	}
+
+	public EventWriterBinary(final OutputStream stream) {
+		this(stream, DEFAULT_BLOCK_SIZE, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * @param numberOfThreads the number of threads used to encode blocks in parallel
+	 */
+	public EventWriterBinary(final OutputStream stream, final int blockSize, final int numberOfThreads) {
+		this.out = new DataOutputStream(stream);
+		this.blockSize = blockSize;
+		this.maxPendingBlocks = 2 * numberOfThreads;
+		this.executor = Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+			Thread thread = new Thread(runnable, "EventWriterBinary");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.currentBlock = new Block(blockSize);
+		try {
+			this.out.writeInt(MAGIC);
+			this.out.writeInt(VERSION);
+			this.position = 8;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		this.currentBlock.add(event);
+		if (this.currentBlock.events.size() == this.blockSize) {
+			submitCurrentBlock();
+		}
+	}
+
+	@Override
+	public void reset(final int iteration) {
+	}
+
+	@Override
+	public void closeFile() {
+		try {
+			if (!this.currentBlock.events.isEmpty()) {
+				submitCurrentBlock();
+			}
+			while (!this.pendingBlocks.isEmpty()) {
+				writeBlock(this.pendingBlocks.poll());
+			}
+			this.out.writeInt(END_OF_BLOCKS);
+			long indexPosition = this.position + 4;
+			for (Block block : this.index) {
+				this.out.writeLong(block.position);
+				this.out.writeDouble(block.minTime);
+				this.out.writeDouble(block.maxTime);
+			}
+			this.out.writeInt(this.index.size());
+			this.out.writeLong(indexPosition);
+			this.out.writeInt(MAGIC);
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.executor.shutdownNow();
+		}
+	}
+
+	private void submitCurrentBlock() {
+		final Block block = this.currentBlock;
+		block.data = this.executor.submit(() -> encodeBlock(block.events, block.minTime, block.maxTime));
+		this.pendingBlocks.add(block);
+		this.currentBlock = new Block(this.blockSize);
+		while (this.pendingBlocks.size() > this.maxPendingBlocks) {
+			writeBlock(this.pendingBlocks.poll());
+		}
+	}
+
+	private void writeBlock(final Block block) {
+		try {
+			byte[] data = block.data.get();
+			this.out.write(data);
+			block.position = this.position;
+			block.events = null;
+			block.data = null;
+			this.index.add(block);
+			this.position += data.length;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("problem encoding events", e.getCause());
+		}
+	}
+
+	private static byte[] encodeBlock(final List<Event> events, final double minTime, final double maxTime) throws IOException {
+		final int n = events.size();
+		final Map<String, Integer> dictionary = new HashMap<>();
+		final List<String> strings = new ArrayList<>();
+		final double[] times = new double[n];
+		final int[] types = new int[n];
+		final int[] counts = new int[n];
+		int[] keys = new int[4 * n];
+		int[] values = new int[4 * n];
+		int numberOfAttributes = 0;
+
+		for (int i = 0; i < n; i++) {
+			Event event = events.get(i);
+			times[i] = event.getTime();
+			types[i] = lookup(event.getEventType(), dictionary, strings);
+			for (Map.Entry<String, String> e : event.getAttributes().entrySet()) {
+				String key = e.getKey();
+				if (Event.ATTRIBUTE_TIME.equals(key) || Event.ATTRIBUTE_TYPE.equals(key)) {
+					continue;
+				}
+				if (numberOfAttributes == keys.length) {
+					keys = Arrays.copyOf(keys, 2 * keys.length);
+					values = Arrays.copyOf(values, 2 * values.length);
+				}
+				keys[numberOfAttributes] = lookup(key, dictionary, strings);
+				values[numberOfAttributes] = lookup(e.getValue(), dictionary, strings);
+				numberOfAttributes++;
+				counts[i]++;
+			}
+		}
+
+		ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(16 * n + 64);
+		DataOutputStream payload = new DataOutputStream(payloadBytes);
+		writeVarInt(payload, strings.size());
+		for (String string : strings) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(payload, bytes.length);
+			payload.write(bytes);
+		}
+		for (int i = 0; i < n; i++) {
+			payload.writeDouble(times[i]);
+		}
+		for (int i = 0; i < n; i++) {
+			writeVarInt(payload, types[i]);
+		}
+		for (int i = 0; i < n; i++) {
+			writeVarInt(payload, counts[i]);
+		}
+		for (int i = 0; i < numberOfAttributes; i++) {
+			writeVarInt(payload, keys[i]);
+		}
+		for (int i = 0; i < numberOfAttributes; i++) {
+			writeVarInt(payload, values[i]);
+		}
+		payload.flush();
+		byte[] uncompressed = payloadBytes.toByteArray();
+
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		deflater.setInput(uncompressed);
+		deflater.finish();
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(uncompressed.length / 4 + 64);
+		byte[] buffer = new byte[65536];
+		while (!deflater.finished()) {
+			int length = deflater.deflate(buffer);
+			compressed.write(buffer, 0, length);
+		}
+		deflater.end();
+
+		ByteArrayOutputStream blockBytes = new ByteArrayOutputStream(compressed.size() + 28);
+		DataOutputStream block = new DataOutputStream(blockBytes);
+		block.writeInt(n);
+		block.writeDouble(minTime);
+		block.writeDouble(maxTime);
+		block.writeInt(uncompressed.length);
+		block.writeInt(compressed.size());
+		compressed.writeTo(block);
+		block.flush();
+		return blockBytes.toByteArray();
+	}
+
+	private static int lookup(final String string, final Map<String, Integer> dictionary, final List<String> strings) {
+		if (string == null) {
+			return 0;
+		}
+		Integer index = dictionary.get(string);
+		if (index == null) {
+			strings.add(string);
+			index = strings.size();
+			dictionary.put(string, index);
+		}
+		return index;
+	}
+
+	private static void writeVarInt(final DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static class Block {
+		List<Event> events;
+		double minTime = Double.POSITIVE_INFINITY;
+		double maxTime = Double.NEGATIVE_INFINITY;
+		Future<byte[]> data = null;
+		long position = -1;
+
+		Block(final int size) {
+			this.events = new ArrayList<>(size);
+		}
+
+		void add(final Event event) {
+			this.events.add(event);
+			this.minTime = Math.min(this.minTime, event.getTime());
+			this.maxTime = Math.max(this.maxTime, event.getTime());
+		}
+	}
+
+}
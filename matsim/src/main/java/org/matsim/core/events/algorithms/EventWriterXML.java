@@ -22,6 +22,7 @@ package org.matsim.core.events.algorithms;
 
 import org.matsim.api.core.v01.events.Event;
 import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.AsyncOutputService;
 import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.io.UncheckedIOException;
 
@@ -30,16 +31,46 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class EventWriterXML implements EventWriter, BasicEventHandler {
+
+	private static final String HEADER = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<events version=\"1.0\">\n";
+	private static final String FOOTER = "</events>";
+
+	/*package*/ static final int EVENTS_PER_PART = 10000;
+
 	private final BufferedWriter out;
 
+	private final AsyncOutputService.OrderedOutput orderedOut;
+	private List<Event> part;
+
 	public EventWriterXML(final String outfilename) {
 		this.out = IOUtils.getBufferedWriter(outfilename);
+		this.orderedOut = null;
 		this.writeHeader();
 	}
 
+	/**
+	 * Formats, compresses and writes the events in the background if the output service is asynchronous. The events
+	 * are collected in parts of {@value #EVENTS_PER_PART} events, so the events must not be modified after they were
+	 * handled.
+	 */
+	public EventWriterXML(final String outfilename, final AsyncOutputService outputService) {
+		if (outputService.isAsynchronous()) {
+			this.out = null;
+			this.orderedOut = outputService.openOrderedOutput(outfilename);
+			this.part = new ArrayList<>(EVENTS_PER_PART);
+			this.orderedOut.write(() -> HEADER.getBytes(StandardCharsets.UTF_8));
+		} else {
+			this.out = IOUtils.getBufferedWriter(outfilename);
+			this.orderedOut = null;
+			this.writeHeader();
+		}
+	}
+
 	/**
 	 * Constructor so you can pass System.out or System.err to the writer to see the result on the console.
 	 *
@@ -47,12 +78,13 @@ public class EventWriterXML implements EventWriter, BasicEventHandler {
 	 */
 	public EventWriterXML(final OutputStream stream ) {
 		this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+		this.orderedOut = null;
 		this.writeHeader();
 	}
 
 	private void writeHeader() {
 		try {
-			this.out.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<events version=\"1.0\">\n");
+			this.out.write(HEADER);
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
@@ -60,8 +92,14 @@ public class EventWriterXML implements EventWriter, BasicEventHandler {
 
 	@Override
 	public void closeFile() {
+		if (this.orderedOut != null) {
+			writePart();
+			this.orderedOut.write(() -> FOOTER.getBytes(StandardCharsets.UTF_8));
+			this.orderedOut.close();
+			return;
+		}
 		try {
-			this.out.write("</events>");
+			this.out.write(FOOTER);
 			// I added a "\n" to make it look nicer on the console.  Can't say if this may have unintended side
 			// effects anywhere else.  kai, oct'12
 			// fails signalsystems test (and presumably other tests in contrib/playground) since they compare
@@ -78,21 +116,51 @@ public class EventWriterXML implements EventWriter, BasicEventHandler {
 
 	@Override
 	public void handleEvent(final Event event) {
-		try {
-			this.out.append("\t<event ");
-			Map<String, String> attr = event.getAttributes();
-			for (Map.Entry<String, String> entry : attr.entrySet()) {
-				this.out.append(entry.getKey());
-				this.out.append("=\"");
-				this.out.append(encodeAttributeValue(entry.getValue()));
-				this.out.append("\" ");
+		if (this.orderedOut != null) {
+			this.part.add(event);
+			if (this.part.size() == EVENTS_PER_PART) {
+				writePart();
 			}
-			this.out.append(" />\n");
+			return;
+		}
+		try {
+			appendEvent(this.out, event);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
+	private void writePart() {
+		if (this.part.isEmpty()) {
+			return;
+		}
+		final List<Event> events = this.part;
+		this.part = new ArrayList<>(EVENTS_PER_PART);
+		this.orderedOut.write(() -> {
+			StringBuilder builder = new StringBuilder(160 * events.size());
+			for (Event event : events) {
+				try {
+					appendEvent(builder, event);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e); // cannot happen with a StringBuilder
+				}
+			}
+			return builder.toString().getBytes(StandardCharsets.UTF_8);
+		});
+	}
+
+	private static void appendEvent(final Appendable out, final Event event) throws IOException {
+		out.append("\t<event ");
+		Map<String, String> attr = event.getAttributes();
+		for (Map.Entry<String, String> entry : attr.entrySet()) {
+			out.append(entry.getKey());
+			out.append("=\"");
+			out.append(encodeAttributeValue(entry.getValue()));
+			out.append("\" ");
+		}
+		out.append(" />\n");
+	}
+
 	// the following method was taken from MatsimXmlWriter in order to correctly encode attributes, but
 	// to forego the overhead of using the full MatsimXmlWriter.
 	/**
@@ -103,7 +171,7 @@ public class EventWriterXML implements EventWriter, BasicEventHandler {
 	 * @param attributeValue
 	 * @return String with some characters replaced by their xml-encoding.
 	 */
-	private String encodeAttributeValue(final String attributeValue) {
+	private static String encodeAttributeValue(final String attributeValue) {
 		if (attributeValue == null) {
 			return null;
 		}
@@ -22,6 +22,7 @@ import org.matsim.core.mobsim.qsim.pt.TransitStopHandlerFactory;
 import org.matsim.core.mobsim.qsim.qnetsimengine.DefaultQNetworkFactory;
 import org.matsim.core.mobsim.qsim.qnetsimengine.QLanesNetworkFactory;
 import org.matsim.core.mobsim.qsim.qnetsimengine.QNetsimEngineModule;
+import org.matsim.core.mobsim.qsim.qnetsimengine.QNetworkLoadStatistics;
 import org.matsim.core.mobsim.qsim.qnetsimengine.QNetworkFactory;
 
 import com.google.inject.Key;
@@ -89,6 +90,9 @@ public class QSimModule extends AbstractModule {
 		// I don't know why this is here.  kai, nov'18
 
 		bind(Mobsim.class).toProvider(QSimProvider.class);
+
+		bind(QNetworkLoadStatistics.class).asEagerSingleton();
+		// lives on the controler level, so that the netsim engine can rebalance its partitions between iterations.
 		
 		// yyyy the following will eventually be moved to QSim scope, and into QNetsimEngineModule:
 //		if ( config.qsim().isUseLanes() ) {
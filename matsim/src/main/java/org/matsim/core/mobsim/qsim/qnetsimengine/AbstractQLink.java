@@ -103,6 +103,12 @@ abstract class AbstractQLink implements QLinkI {
 
 	private boolean active = false;
 
+	/*
+	 * The time step at which the link should be simulated again if it was put to sleep by its QNetsimEngineRunner,
+	 * NaN if the link is not sleeping.  Only used if the wake-up calendar of the runners is switched on.
+	 */
+	private double wakeUpTime = Double.NaN;
+
 	private TransitQLink transitQLink;
 	
 	private final QNodeI toQNode ;
@@ -136,9 +142,30 @@ abstract class AbstractQLink implements QLinkI {
 		if (!this.active) {
 			netElementActivationRegistry.registerLinkAsActive(this);
 			this.active = true;
+		} else if (!Double.isNaN(this.wakeUpTime)) {
+			// the link is active, but sleeping until a later time step.  Something happened that needs to be handled now.
+			this.wakeUpTime = Double.NaN;
+			netElementActivationRegistry.wakeUpLink(this);
 		}
 		// This is a bit involved since we do not want to ask the registry in every time step if the link is already active.
 	}
+
+	/**
+	 * @return the earliest time at which {@link #doSimStep()} may change anything on this link, given that nothing is
+	 * added to the link in the meantime (which would call {@link #activateLink()}).  A value which is not in the
+	 * future means that the link needs to be simulated in every time step.
+	 */
+	/*package*/ double getEarliestWakeUpTime() {
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	/*package*/ final double getWakeUpTime() {
+		return this.wakeUpTime;
+	}
+
+	/*package*/ final void setWakeUpTime(double wakeUpTime) {
+		this.wakeUpTime = wakeUpTime;
+	}
 	private static int wrnCnt = 0 ;
 	@Override
 	public final void addParkedVehicle(MobsimVehicle vehicle) {
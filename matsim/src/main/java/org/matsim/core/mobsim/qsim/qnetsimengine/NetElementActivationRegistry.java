@@ -31,4 +31,13 @@ abstract class NetElementActivationRegistry {
 	abstract void registerLinkAsActive(final QLinkI link);
 
 	abstract int getNumberOfSimulatedLinks();
+
+	/**
+	 * Called for links which are still active, but were put to sleep until a later time step because they could not
+	 * do anything before (see {@link AbstractQLink#getEarliestWakeUpTime()}), and now need to be simulated earlier.
+	 * Only relevant for registries that put links to sleep at all.
+	 */
+	void wakeUpLink(final QLinkI link) {
+		registerLinkAsActive(link);
+	}
 } 
\ No newline at end of file
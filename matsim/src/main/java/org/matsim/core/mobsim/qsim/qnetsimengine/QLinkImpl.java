@@ -151,6 +151,8 @@ public final class QLinkImpl extends AbstractQLink implements SignalizeableItem
 			double now = context.getSimTimer().getTimeOfDay() ;
 			context.getEventsManager().processEvent(
 					new VehicleEntersTrafficEvent(now, veh.getDriver().getId(), this.getLink().getId(), veh.getId(), veh.getDriver().getMode(), 1.0));
+			// (the travel time on the link where the vehicle departs is not recorded)
+			veh.setLinkEnterTime(Double.NaN);
 
 			if ( this.getTransitQLink().addTransitToStopQueue(now, veh, this.getLink().getId()) ) {
 				continue ;
@@ -228,6 +230,15 @@ public final class QLinkImpl extends AbstractQLink implements SignalizeableItem
 		return this.visdata;
 	}
 
+	@Override
+	double getEarliestWakeUpTime() {
+		if (!this.getWaitingList().isEmpty() || !this.getTransitQLink().getTransitVehicleStopQueue().isEmpty()
+				|| !(this.qlane instanceof QueueWithBuffer)) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		return ((QueueWithBuffer) this.qlane).getEarliestWakeUpTime();
+	}
+
 	private boolean checkForActivity() {
 		/*
 		 * Leave Link active as long as there are vehicles on the link (ignore
@@ -403,6 +403,8 @@ public final class QLinkLanesImpl extends AbstractQLink {
 			context .getEventsManager() .processEvent(
 							new VehicleEntersTrafficEvent(now, veh.getDriver().getId(),
 									this.getLink().getId(), veh.getId(), veh.getDriver().getMode(), 1.0));
+			// (the travel time on the link where the vehicle departs is not recorded)
+			veh.setLinkEnterTime(Double.NaN);
 
 			if (this.getTransitQLink().addTransitToStopQueue(now, veh, this.getLink().getId())) {
 				continue;
@@ -25,11 +25,13 @@ import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.QSimConfigGroup.LinkDynamics;
+import org.matsim.core.config.groups.QSimConfigGroup.NetworkPartitioning;
 import org.matsim.core.config.groups.QSimConfigGroup.SnapshotStyle;
 import org.matsim.core.config.groups.QSimConfigGroup.StarttimeInterpretation;
 import org.matsim.core.config.groups.QSimConfigGroup.VehicleBehavior;
@@ -43,6 +45,7 @@ import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimNetwork;
+import org.matsim.core.trafficmonitoring.LinkTravelTimeRecorder;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vis.snapshotwriters.SnapshotLinkWidthCalculator;
@@ -75,6 +78,10 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		QNetwork getNetsimNetwork();
 		void arrangeNextAgentState(MobsimAgent pp);
 		void letVehicleArrive(QVehicle veh);
+		/**
+		 * @return the recorder to which the nodes report link travel times, or <code>null</code>
+		 */
+		LinkTravelTimeRecorder getLinkTravelTimeRecorder();
 	}
 
 	NetsimInternalInterface ii = new NetsimInternalInterface(){
@@ -87,6 +94,9 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		@Override public void letVehicleArrive(QVehicle veh) {
 			QNetsimEngine.this.letVehicleArrive( veh ) ;
 		}
+		@Override public LinkTravelTimeRecorder getLinkTravelTimeRecorder() {
+			return linkTravelTimeRecorder ;
+		}
 	} ;
 
 	private static final Logger log = Logger.getLogger(QNetsimEngine.class);
@@ -119,6 +129,14 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 	private ExecutorService pool;
 
 	private final boolean usingThreadpool;
+
+	private final NetworkPartitioning networkPartitioning;
+
+	private final boolean usingLinkWakeUpCalendar;
+
+	private QNetworkLoadStatistics loadStatistics = new QNetworkLoadStatistics();
+
+	private LinkTravelTimeRecorder linkTravelTimeRecorder = null;
 	
 	// for detailed run time analysis - used in combination with QSim.analyzeRunTimes
 	public static int numObservedTimeSteps = 24*3600;
@@ -133,6 +151,33 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		this(sim, null);
 	}
 
+	/**
+	 * The load statistics need to survive the QSim in order to rebalance the partitions between iterations.
+	 * If they are not injected, a fresh instance is used and the partitions are only balanced spatially.
+	 */
+	@com.google.inject.Inject(optional = true)
+	public void setLoadStatistics(QNetworkLoadStatistics loadStatistics) {
+		this.loadStatistics = loadStatistics;
+	}
+
+	/**
+	 * The recorders are only bound if the travel times are recorded by the qsim instead of from events, see
+	 * {@link org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup#isRecordTravelTimesInQSim()}.
+	 */
+	@com.google.inject.Inject(optional = true)
+	public void setLinkTravelTimeRecorders(Set<LinkTravelTimeRecorder> recorders) {
+		if (recorders.size() == 1) {
+			this.linkTravelTimeRecorder = recorders.iterator().next();
+		} else if (recorders.size() > 1) {
+			final LinkTravelTimeRecorder[] array = recorders.toArray(new LinkTravelTimeRecorder[0]);
+			this.linkTravelTimeRecorder = (linkId, nextLinkId, mode, enterTime, leaveTime) -> {
+				for (LinkTravelTimeRecorder recorder : array) {
+					recorder.recordLinkTravelTime(linkId, nextLinkId, mode, enterTime, leaveTime);
+				}
+			};
+		}
+	}
+
 	@Inject
 	public QNetsimEngine(final QSim sim, QNetworkFactory netsimNetworkFactory) {
 		this.qsim = sim;
@@ -140,6 +185,8 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		final Config config = sim.getScenario().getConfig();
 		final QSimConfigGroup qsimConfigGroup = config.qsim();
 		this.usingThreadpool = qsimConfigGroup.isUsingThreadpool();
+		this.networkPartitioning = qsimConfigGroup.getNetworkPartitioning();
+		this.usingLinkWakeUpCalendar = qsimConfigGroup.isUsingLinkWakeUpCalendar();
 
 
 		// configuring the car departure hander (including the vehicle behavior)
@@ -240,6 +287,8 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 			engine.afterSim();
 		}
 
+		collectRunnerStatistics();
+
 		if (this.usingThreadpool) {
 			this.pool.shutdown();
 		} else {
@@ -447,6 +496,12 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 				thread.setDaemon(true);	// make the Thread Daemons so they will terminate automatically
 				thread.start();
 			}
+			if (this.networkPartitioning == NetworkPartitioning.loadBalanced) {
+				engine.setRecordingLoad(Id.getNumberOfIds(Node.class));
+			}
+			if (this.usingLinkWakeUpCalendar) {
+				engine.setUsingWakeUpCalendar(this.qsim.getScenario().getConfig().qsim().getTimeStepSize());
+			}
 			this.engines.add(engine);
 		}
 
@@ -469,9 +524,19 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		int nodes[] = new int[numOfRunners];
 		int links[] = new int[numOfRunners];
 
+		List<QNodeI> qNodes = new ArrayList<>(network.getNetsimNodes().values());
+		int[] partitions = null;
+		if (this.networkPartitioning == NetworkPartitioning.loadBalanced) {
+			List<Node> nodesToPartition = new ArrayList<>(qNodes.size());
+			for (QNodeI node : qNodes) {
+				nodesToPartition.add(node.getNode());
+			}
+			partitions = QNetworkPartitioner.partition(nodesToPartition, this.loadStatistics.getNodeWeights(), this.numOfRunners);
+		}
+
 		int roundRobin = 0;
-		for (QNodeI node : network.getNetsimNodes().values()) {
-			int i = roundRobin % this.numOfRunners;
+		for (QNodeI node : qNodes) {
+			int i = partitions == null ? roundRobin % this.numOfRunners : partitions[roundRobin];
 			if( node instanceof AbstractQNode){
 				((AbstractQNode) node).setNetElementActivationRegistry(this.engines.get(i));
 			}
@@ -509,6 +574,36 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		this.linksToActivateInitially.clear();
 	}
 
+	/*
+	 * Reports how evenly the work was distributed over the runners, and hands the observed
+	 * load over to the load statistics for the partitioning in the next iteration.
+	 */
+	private void collectRunnerStatistics() {
+		long maxBusyTime = 0;
+		long sumBusyTime = 0;
+		for (int i = 0; i < this.engines.size(); i++) {
+			long busyTime = this.engines.get(i).getBusyTime();
+			log.info("QNetsimEngineRunner #" + i + " was busy for " + busyTime / 1000000 + " ms.");
+			maxBusyTime = Math.max(maxBusyTime, busyTime);
+			sumBusyTime += busyTime;
+		}
+		if (sumBusyTime > 0) {
+			double avgBusyTime = (double) sumBusyTime / this.engines.size();
+			log.info("QNetsimEngineRunner load imbalance (max busy time / average busy time): " + maxBusyTime / avgBusyTime);
+		}
+
+		if (this.networkPartitioning == NetworkPartitioning.loadBalanced) {
+			long[] nodeLoad = new long[Id.getNumberOfIds(Node.class)];
+			for (QNetsimEngineRunner engine : this.engines) {
+				long[] runnerLoad = engine.getNodeLoad();
+				for (int i = 0; i < runnerLoad.length; i++) {
+					nodeLoad[i] += runnerLoad[i];
+				}
+			}
+			this.loadStatistics.addObservedLoad(nodeLoad);
+		}
+	}
+
 	public void printEngineRunTimes() {
 		if (!QSim.analyzeRunTimes) return;
 		
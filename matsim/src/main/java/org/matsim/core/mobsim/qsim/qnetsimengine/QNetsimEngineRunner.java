@@ -78,6 +78,30 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 
 	/*package*/ long[] runTimes;
 	private long startTime = 0;
+
+	/*
+	 * Time spent in moveNodes() and moveLinks(), i.e. without waiting at the barriers.
+	 * Always recorded, since two calls to System.nanoTime() per time step are negligible.
+	 */
+	private long busyTime = 0;
+
+	/*
+	 * Number of doSimStep calls per node (including the calls of the node's outgoing links),
+	 * indexed by node id index. Only recorded if the QNetsimEngine balances its partitions by load.
+	 */
+	private long[] nodeLoad = null;
+
+	/*
+	 * Optional wake-up calendar (a timing wheel with one slot per time step): active links which cannot move anything
+	 * before a known future time are taken out of the linksList and put to sleep in the slot of that time step.
+	 * Links with a wake-up time beyond the horizon of the wheel stay in their slot for the next round(s).  Links are
+	 * woken up early if something is added to them, see AbstractQLink.activateLink().
+	 */
+	private static final int WAKE_UP_CALENDAR_SIZE = 1024;
+	private List<AbstractQLink>[] wakeUpCalendar = null;
+	private double timeStepSize = 1.0;
+	private double lastWakeUpTime = Double.NaN;
+	private int numberOfSleepingLinks = 0;
 	{	
 		if (QSim.analyzeRunTimes) runTimes = new long[QNetsimEngine.numObservedTimeSteps];
 		else runTimes = null;
@@ -165,30 +189,114 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		}
 	}
 	private void moveNodes() {
+		long start = System.nanoTime();
 		boolean remainsActive;
 		this.lockNodes = true;
 		QNodeI node;
 		Iterator<QNodeI> simNodes = this.nodesQueue.iterator();
 		while (simNodes.hasNext()) {
 			node = simNodes.next();
+			if (this.nodeLoad != null) this.nodeLoad[node.getNode().getId().index()]++;
 			remainsActive = node.doSimStep(time);
 			if (!remainsActive) simNodes.remove();
 		}
 		this.lockNodes = false;
+		this.busyTime += System.nanoTime() - start;
 	}
 	private void moveLinks() {
+		long start = System.nanoTime();
+		if (this.wakeUpCalendar != null) wakeUpDueLinks();
 		boolean remainsActive;
 		lockLinks = true;
 		QLinkI link;
 		ListIterator<QLinkI> simLinks = this.linksList.listIterator();
 		while (simLinks.hasNext()) {
 			link = simLinks.next();
+			if (this.nodeLoad != null) this.nodeLoad[link.getLink().getFromNode().getId().index()]++;
 
 			remainsActive = link.doSimStep();
 
 			if (!remainsActive) simLinks.remove();
+			else if (this.wakeUpCalendar != null && link instanceof AbstractQLink && sendToSleep((AbstractQLink) link)) simLinks.remove();
 		}
 		lockLinks = false;
+		this.busyTime += System.nanoTime() - start;
+	}
+
+	/*package*/ void setUsingWakeUpCalendar(final double timeStepSize) {
+		@SuppressWarnings("unchecked")
+		List<AbstractQLink>[] calendar = new List[WAKE_UP_CALENDAR_SIZE];
+		for (int i = 0; i < calendar.length; i++) {
+			calendar[i] = new ArrayList<>();
+		}
+		this.wakeUpCalendar = calendar;
+		this.timeStepSize = timeStepSize;
+	}
+
+	private int getCalendarSlot(final double time) {
+		return (int) ((long) (time / this.timeStepSize) & (WAKE_UP_CALENDAR_SIZE - 1));
+	}
+
+	/*
+	 * Returns true if the link was put to sleep, i.e. has to be removed from the linksList.
+	 */
+	private boolean sendToSleep(final AbstractQLink link) {
+		double earliestWakeUpTime = link.getEarliestWakeUpTime();
+		if (Double.isInfinite(earliestWakeUpTime)) {
+			return false;
+		}
+		double wakeUpTime = Math.ceil(earliestWakeUpTime / this.timeStepSize) * this.timeStepSize;
+		if (wakeUpTime <= this.time + this.timeStepSize) {
+			// would be simulated in the next time step anyway
+			return false;
+		}
+		link.setWakeUpTime(wakeUpTime);
+		this.wakeUpCalendar[getCalendarSlot(wakeUpTime)].add(link);
+		this.numberOfSleepingLinks++;
+		return true;
+	}
+
+	/*
+	 * Moves the links of all calendar slots between the last and the current time step back to the linksList
+	 * if they are due.  Entries of links that were woken up early or re-scheduled to another slot are dropped.
+	 */
+	private void wakeUpDueLinks() {
+		double from = Double.isNaN(this.lastWakeUpTime) ? this.time : this.lastWakeUpTime + this.timeStepSize;
+		int numberOfSlots = (int) Math.min(WAKE_UP_CALENDAR_SIZE, Math.round((this.time - from) / this.timeStepSize) + 1);
+		for (int s = 0; s < numberOfSlots; s++) {
+			int slot = getCalendarSlot(from + s * this.timeStepSize);
+			List<AbstractQLink> links = this.wakeUpCalendar[slot];
+			int kept = 0;
+			for (int i = 0; i < links.size(); i++) {
+				AbstractQLink link = links.get(i);
+				double wakeUpTime = link.getWakeUpTime();
+				if (Double.isNaN(wakeUpTime)) {
+					continue; // already woken up
+				}
+				if (wakeUpTime <= this.time) {
+					link.setWakeUpTime(Double.NaN);
+					this.linksList.add(link);
+					this.numberOfSleepingLinks--;
+				} else if (getCalendarSlot(wakeUpTime) == slot) {
+					links.set(kept++, link); // due in a later round
+				}
+				// else: outdated entry, the link was re-scheduled to another slot
+			}
+			links.subList(kept, links.size()).clear();
+		}
+		this.lastWakeUpTime = this.time;
+	}
+
+	/*package*/ void setRecordingLoad(final int numberOfNodeIds) {
+		this.nodeLoad = new long[numberOfNodeIds];
+	}
+
+	/*package*/ long[] getNodeLoad() {
+		return this.nodeLoad;
+	}
+
+	/*package*/ long getBusyTime() {
+		return this.busyTime;
 	}
 
 	/*
@@ -202,9 +310,19 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		else throw new RuntimeException("Tried to activate a QLink at a time where this was not allowed. Aborting!");
 	}
 
+	@Override
+	void wakeUpLink(QLinkI link) {
+		if (!lockLinks) {
+			linksList.add(link);
+			this.numberOfSleepingLinks--;
+		}
+		else throw new RuntimeException("Tried to wake up a QLink at a time where this was not allowed. Aborting!");
+	}
+
 	@Override
 	public int getNumberOfSimulatedLinks() {
-		return this.linksList.size();
+		// sleeping links are still active, they are just not simulated in every time step
+		return this.linksList.size() + this.numberOfSleepingLinks;
 	}
 
 	/*
@@ -0,0 +1,66 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the observed load of the network nodes from one mobsim iteration to the next, such that the
+ * {@link QNetsimEngine} can rebalance its partitions between iterations (see {@link QNetworkPartitioner}).
+ * <p></p>
+ * The load of a node is the number of times the node and its outgoing links were simulated,
+ * i.e. the number of calls to their <code>doSimStep</code> methods. The weights are smoothed over
+ * iterations, so that the partitioning does not jump around because of single unusual iterations.
+ * <p></p>
+ * The object needs to live longer than a single QSim, thus it is bound on the controler level in
+ * {@link org.matsim.core.mobsim.qsim.QSimModule}.
+ */
+public final class QNetworkLoadStatistics {
+
+	private static final double SMOOTHING = 0.5;
+
+	private double[] nodeWeights = null;
+
+	/**
+	 * @return the smoothed node weights indexed by node id index, or <code>null</code> if no load was observed yet
+	 */
+	synchronized double[] getNodeWeights() {
+		return this.nodeWeights;
+	}
+
+	/**
+	 * @param nodeLoad the load observed per node in the last mobsim, indexed by node id index
+	 */
+	synchronized void addObservedLoad(final long[] nodeLoad) {
+		double[] weights = new double[nodeLoad.length];
+		for (int i = 0; i < nodeLoad.length; i++) {
+			// every node costs something, even if it is never activated
+			weights[i] = 1.0 + nodeLoad[i];
+		}
+		if (this.nodeWeights != null) {
+			double[] old = this.nodeWeights.length >= weights.length ? this.nodeWeights : Arrays.copyOf(this.nodeWeights, weights.length);
+			for (int i = 0; i < weights.length; i++) {
+				weights[i] = SMOOTHING * weights[i] + (1.0 - SMOOTHING) * old[i];
+			}
+		}
+		this.nodeWeights = weights;
+	}
+
+}
@@ -0,0 +1,121 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Splits the nodes of a network into spatially coherent partitions of (approximately) equal weight,
+ * using weighted recursive coordinate bisection: the set of nodes is split along the longer side of its
+ * bounding box such that both halves carry the share of the total weight corresponding to the number
+ * of partitions they will be further split into.
+ * <p></p>
+ * Compared to round robin, neighbouring nodes end up in the same partition, and the expensive parts of the
+ * network (e.g. a congested city center) are spread over all partitions according to the observed load.
+ *
+ * @see QNetworkLoadStatistics
+ */
+final class QNetworkPartitioner {
+
+	private QNetworkPartitioner() {
+		// static helper
+	}
+
+	/**
+	 * @param nodes the nodes to partition
+	 * @param weights the weight of every node, indexed by {@link org.matsim.api.core.v01.Id#index()} of the node id;
+	 * 		may be <code>null</code>, in which case all nodes have the same weight
+	 * @param numOfPartitions the number of partitions to create
+	 * @return the partition (in <code>[0, numOfPartitions)</code>) of every node, in the order of <code>nodes</code>
+	 */
+	static int[] partition(final List<? extends Node> nodes, final double[] weights, final int numOfPartitions) {
+		final int n = nodes.size();
+		final double[] x = new double[n];
+		final double[] y = new double[n];
+		final double[] w = new double[n];
+		for (int i = 0; i < n; i++) {
+			Node node = nodes.get(i);
+			Coord coord = node.getCoord();
+			x[i] = coord.getX();
+			y[i] = coord.getY();
+			int index = node.getId().index();
+			w[i] = (weights != null && index < weights.length) ? weights[index] : 1.0;
+		}
+
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		int[] partitions = new int[n];
+		bisect(order, 0, n, x, y, w, 0, numOfPartitions, partitions);
+		return partitions;
+	}
+
+	private static void bisect(final Integer[] order, final int from, final int to, final double[] x, final double[] y,
+			final double[] w, final int firstPartition, final int numOfPartitions, final int[] partitions) {
+		if (numOfPartitions == 1 || to - from <= 1) {
+			for (int i = from; i < to; i++) {
+				partitions[order[i]] = firstPartition;
+			}
+			return;
+		}
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		double totalWeight = 0.0;
+		for (int i = from; i < to; i++) {
+			int node = order[i];
+			minX = Math.min(minX, x[node]);
+			maxX = Math.max(maxX, x[node]);
+			minY = Math.min(minY, y[node]);
+			maxY = Math.max(maxY, y[node]);
+			totalWeight += w[node];
+		}
+
+		final double[] coords = (maxX - minX >= maxY - minY) ? x : y;
+		Arrays.sort(order, from, to, Comparator.comparingDouble(node -> coords[node]));
+
+		final int leftPartitions = numOfPartitions / 2;
+		final int rightPartitions = numOfPartitions - leftPartitions;
+		final double leftTarget = totalWeight * leftPartitions / numOfPartitions;
+
+		// make sure every side keeps at least one node per partition, if possible
+		final int minSplit = Math.min(from + leftPartitions, to);
+		final int maxSplit = Math.max(to - rightPartitions, minSplit);
+
+		int split = from;
+		double leftWeight = 0.0;
+		while (split < maxSplit && (split < minSplit || leftWeight + w[order[split]] / 2 < leftTarget)) {
+			leftWeight += w[order[split]];
+			split++;
+		}
+
+		bisect(order, from, split, x, y, w, firstPartition, leftPartitions, partitions);
+		bisect(order, split, to, x, y, w, firstPartition + leftPartitions, rightPartitions, partitions);
+	}
+
+}
@@ -40,6 +40,7 @@ import org.matsim.core.mobsim.framework.PassengerAgent;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimLink;
 import org.matsim.core.mobsim.qsim.qnetsimengine.QNetsimEngine.NetsimInternalInterface;
 import org.matsim.core.mobsim.qsim.qnetsimengine.TurnAcceptanceLogic.AcceptTurn;
+import org.matsim.core.trafficmonitoring.LinkTravelTimeRecorder;
 
 /**
  * Represents a node in the QSimulation.
@@ -237,6 +238,8 @@ final class QNodeImpl extends AbstractQNode {
 		// -->
 		this.context.getEventsManager().processEvent(new LinkLeaveEvent(now, veh.getId(), currentLinkId));
 		// <--
+		recordLinkTravelTime(veh, currentLinkId, null, now);
+		veh.setLinkEnterTime(Double.NaN);
 		
 		// first treat the passengers:
 		for ( PassengerAgent pp : veh.getPassengers() ) {
@@ -264,15 +267,25 @@ final class QNodeImpl extends AbstractQNode {
 		//		network.simEngine.getMobsim().getEventsManager().processEvent(new LaneLeaveEvent(now, veh.getId(), currentLinkId, fromLane.getId()));
 		this.context.getEventsManager().processEvent(new LinkLeaveEvent(now, veh.getId(), currentLinkId));
 		// <--
+		recordLinkTravelTime(veh, currentLinkId, nextLinkId, now);
 		
 		veh.getDriver().notifyMoveOverNode( nextLinkId );
 		
 		// -->
 		this.context.getEventsManager().processEvent(new LinkEnterEvent(now, veh.getId(), nextLinkId ));
 		// <--
+		veh.setLinkEnterTime(now);
 		nextQueueLane.addFromUpstream(veh);
 	}
 	
+	private void recordLinkTravelTime(final QVehicle veh, Id<Link> currentLinkId, Id<Link> nextLinkId, final double now) {
+		// the enter time is NaN if the vehicle did not enter the link over a node, e.g. because it departed on it:
+		LinkTravelTimeRecorder recorder = this.netsimEngine.getLinkTravelTimeRecorder();
+		if (recorder != null && !Double.isNaN(veh.getLinkEnterTime())) {
+			recorder.recordLinkTravelTime(currentLinkId, nextLinkId, veh.getDriver().getMode(), veh.getLinkEnterTime(), now);
+		}
+	}
+	
 	private boolean vehicleIsStuck(final QLaneI fromLaneBuffer, final double now) {
 		//		final double stuckTime = network.simEngine.getStuckTime();
 		final double stuckTime = this.context.qsimConfig.getStuckTime() ;
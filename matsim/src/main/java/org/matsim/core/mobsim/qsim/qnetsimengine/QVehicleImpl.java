@@ -54,7 +54,7 @@ public class QVehicleImpl implements QVehicle {
 
 	private static int warnCount = 0;
 
-	private double linkEnterTime = 0. ;
+	private double linkEnterTime = Double.NaN ;
 	private double earliestLinkExitTime = 0;
 	private DriverAgent driver = null;
 	private Collection<PassengerAgent> passengers = null;
@@ -224,7 +224,7 @@ public class QVehicleImpl implements QVehicle {
 	}
 	@Override
 	public final void setLinkEnterTime( double linkEnterTime ) {
-		// yyyyyy use in code!
+		// (set by the QNodes when the vehicle enters a link; NaN if the vehicle did not enter its current link over a node)
 		this.linkEnterTime = linkEnterTime;
 	}
 }
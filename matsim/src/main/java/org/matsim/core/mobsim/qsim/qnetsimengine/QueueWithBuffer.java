@@ -563,6 +563,29 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 		}
 	}
 
+	/**
+	 * @return the earliest time at which {@link #doSimStep()} may move something, i.e. when the front-most vehicle
+	 * may leave the queue or the front-most hole arrives upstream.  Returns a value which is not in the future if the
+	 * lane needs to be simulated in every time step anyway (slow capacity update, kinematic waves, seepage).
+	 */
+	/*package*/ double getEarliestWakeUpTime() {
+		if (!context.qsimConfig.isUsingFastCapacityUpdate()
+				|| context.qsimConfig.getTrafficDynamics() == TrafficDynamics.kinematicWaves
+				|| context.qsimConfig.getLinkDynamics() == LinkDynamics.SeepageQ) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		double wakeUpTime = Double.POSITIVE_INFINITY;
+		QVehicle veh = this.vehQueue.peek();
+		if (veh != null) {
+			wakeUpTime = veh.getEarliestLinkExitTime();
+		}
+		QueueWithBuffer.Hole hole = this.holes.peek();
+		if (hole != null) {
+			wakeUpTime = Math.min(wakeUpTime, hole.getEarliestLinkExitTime());
+		}
+		return wakeUpTime;
+	}
+
 	@Override
 	public final boolean isActive() {
 		if( context.qsimConfig.isUsingFastCapacityUpdate() ){
@@ -66,6 +66,7 @@ final class TransitQLink {
 			while (true) {
 				TransitStopFacility stop = driver.getNextTransitStop();
 				if ((stop != null) && (stop.getLinkId().equals(linkId))) {
+					veh.setLinkEnterTime(Double.NaN); // (stop times are not link travel times)
 					double delay = driver.handleTransitStop(stop, now);
 					if (delay > 0.0) {
 						// yy removing this condition makes at least one test fail.  I still think we could discuss doing this. kai, jun'13
@@ -116,6 +117,7 @@ final class TransitQLink {
 			final TransitDriverAgent transitDriver, Id<Link> linkId) {
 		TransitStopFacility stop = transitDriver.getNextTransitStop();
 		if ((stop != null) && (stop.getLinkId().equals(linkId))) {
+			veh.setLinkEnterTime(Double.NaN); // (stop times are not link travel times)
 			double delay = transitDriver.handleTransitStop(stop, now);
 			if (delay > 0.0) {
 				veh.setEarliestLinkExitTime(now + delay);
@@ -0,0 +1,503 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Link;
+
+/**
+ * An R-tree to find the links closest to a location, or within a distance or a rectangle around it. The links are
+ * treated as straight line segments from their from-node to their to-node.
+ * <p></p>
+ * The tree is bulk-loaded with the Sort-Tile-Recursive algorithm (Leutenegger et al., 1997): the links are sorted by
+ * the x coordinate of their centers into vertical slices, within the slices by the y coordinate, and packed into
+ * leaves of {@value #NODE_CAPACITY} links. The same is repeated with the leaves and all further levels up to the root.
+ * All nodes are full, except for the last one of every level, and they are stored in arrays instead of objects: the
+ * coordinates of the links in the order of the leaves, and for every node its bounding box and the range of its
+ * children. The queries do not create any objects while searching the tree.
+ * <p></p>
+ * The tree cannot be modified after it was built, so it can be queried by several threads at the same time. Among
+ * links with the same distance, the one which comes first in the collection passed to the constructor is returned
+ * first.
+ */
+public final class LinkRTree {
+
+	private static final int NODE_CAPACITY = 16;
+
+	/*
+	 * The links, in the order of the leaves. The order is the position of every link in the collection passed to the
+	 * constructor.
+	 */
+	private final Link[] links;
+	private final int[] order;
+	private final double[] fromX;
+	private final double[] fromY;
+	private final double[] toX;
+	private final double[] toY;
+
+	/*
+	 * The nodes, level by level from the leaves to the root. The children of node i are the links, if i is a leaf,
+	 * or else the nodes firstChild[i] to firstChild[i] + childCount[i] - 1.
+	 */
+	private final double[] minX;
+	private final double[] minY;
+	private final double[] maxX;
+	private final double[] maxY;
+	private final int[] firstChild;
+	private final int[] childCount;
+	private final int numberOfLeaves;
+	private final int root;
+
+	public LinkRTree(final Collection<? extends Link> links) {
+		int n = links.size();
+		Link[] inputLinks = links.toArray(new Link[n]);
+		double[] centerX = new double[n];
+		double[] centerY = new double[n];
+		for (int i = 0; i < n; i++) {
+			Link link = inputLinks[i];
+			centerX[i] = (link.getFromNode().getCoord().getX() + link.getToNode().getCoord().getX()) / 2;
+			centerY[i] = (link.getFromNode().getCoord().getY() + link.getToNode().getCoord().getY()) / 2;
+		}
+		this.order = sortTileRecursive(centerX, centerY, n);
+		this.links = new Link[n];
+		this.fromX = new double[n];
+		this.fromY = new double[n];
+		this.toX = new double[n];
+		this.toY = new double[n];
+		for (int i = 0; i < n; i++) {
+			Link link = inputLinks[this.order[i]];
+			this.links[i] = link;
+			this.fromX[i] = link.getFromNode().getCoord().getX();
+			this.fromY[i] = link.getFromNode().getCoord().getY();
+			this.toX[i] = link.getToNode().getCoord().getX();
+			this.toY[i] = link.getToNode().getCoord().getY();
+		}
+
+		this.numberOfLeaves = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		int numberOfNodes = this.numberOfLeaves;
+		for (int levelSize = this.numberOfLeaves; levelSize > 1; ) {
+			levelSize = (levelSize + NODE_CAPACITY - 1) / NODE_CAPACITY;
+			numberOfNodes += levelSize;
+		}
+		this.minX = new double[numberOfNodes];
+		this.minY = new double[numberOfNodes];
+		this.maxX = new double[numberOfNodes];
+		this.maxY = new double[numberOfNodes];
+		this.firstChild = new int[numberOfNodes];
+		this.childCount = new int[numberOfNodes];
+
+		for (int node = 0; node < this.numberOfLeaves; node++) {
+			int first = node * NODE_CAPACITY;
+			int end = Math.min(first + NODE_CAPACITY, n);
+			this.firstChild[node] = first;
+			this.childCount[node] = end - first;
+			double nodeMinX = Double.POSITIVE_INFINITY;
+			double nodeMinY = Double.POSITIVE_INFINITY;
+			double nodeMaxX = Double.NEGATIVE_INFINITY;
+			double nodeMaxY = Double.NEGATIVE_INFINITY;
+			for (int i = first; i < end; i++) {
+				nodeMinX = Math.min(nodeMinX, Math.min(this.fromX[i], this.toX[i]));
+				nodeMinY = Math.min(nodeMinY, Math.min(this.fromY[i], this.toY[i]));
+				nodeMaxX = Math.max(nodeMaxX, Math.max(this.fromX[i], this.toX[i]));
+				nodeMaxY = Math.max(nodeMaxY, Math.max(this.fromY[i], this.toY[i]));
+			}
+			this.minX[node] = nodeMinX;
+			this.minY[node] = nodeMinY;
+			this.maxX[node] = nodeMaxX;
+			this.maxY[node] = nodeMaxY;
+		}
+
+		int levelStart = 0;
+		int levelSize = this.numberOfLeaves;
+		while (levelSize > 1) {
+			sortLevel(levelStart, levelSize);
+			int parentStart = levelStart + levelSize;
+			int parentSize = (levelSize + NODE_CAPACITY - 1) / NODE_CAPACITY;
+			for (int p = 0; p < parentSize; p++) {
+				int parent = parentStart + p;
+				int first = levelStart + p * NODE_CAPACITY;
+				int end = Math.min(first + NODE_CAPACITY, parentStart);
+				this.firstChild[parent] = first;
+				this.childCount[parent] = end - first;
+				double nodeMinX = Double.POSITIVE_INFINITY;
+				double nodeMinY = Double.POSITIVE_INFINITY;
+				double nodeMaxX = Double.NEGATIVE_INFINITY;
+				double nodeMaxY = Double.NEGATIVE_INFINITY;
+				for (int child = first; child < end; child++) {
+					nodeMinX = Math.min(nodeMinX, this.minX[child]);
+					nodeMinY = Math.min(nodeMinY, this.minY[child]);
+					nodeMaxX = Math.max(nodeMaxX, this.maxX[child]);
+					nodeMaxY = Math.max(nodeMaxY, this.maxY[child]);
+				}
+				this.minX[parent] = nodeMinX;
+				this.minY[parent] = nodeMinY;
+				this.maxX[parent] = nodeMaxX;
+				this.maxY[parent] = nodeMaxY;
+			}
+			levelStart = parentStart;
+			levelSize = parentSize;
+		}
+		this.root = numberOfNodes - 1;
+	}
+
+	/**
+	 * Orders the nodes of one level, which are not referenced by any parent yet, such that they can be packed into
+	 * parents.
+	 */
+	private void sortLevel(final int levelStart, final int levelSize) {
+		double[] centerX = new double[levelSize];
+		double[] centerY = new double[levelSize];
+		for (int i = 0; i < levelSize; i++) {
+			centerX[i] = (this.minX[levelStart + i] + this.maxX[levelStart + i]) / 2;
+			centerY[i] = (this.minY[levelStart + i] + this.maxY[levelStart + i]) / 2;
+		}
+		int[] sorted = sortTileRecursive(centerX, centerY, levelSize);
+		reorder(this.minX, levelStart, sorted);
+		reorder(this.minY, levelStart, sorted);
+		reorder(this.maxX, levelStart, sorted);
+		reorder(this.maxY, levelStart, sorted);
+		reorder(this.firstChild, levelStart, sorted);
+		reorder(this.childCount, levelStart, sorted);
+	}
+
+	private static void reorder(final double[] values, final int start, final int[] sorted) {
+		double[] copy = Arrays.copyOfRange(values, start, start + sorted.length);
+		for (int i = 0; i < sorted.length; i++) {
+			values[start + i] = copy[sorted[i]];
+		}
+	}
+
+	private static void reorder(final int[] values, final int start, final int[] sorted) {
+		int[] copy = Arrays.copyOfRange(values, start, start + sorted.length);
+		for (int i = 0; i < sorted.length; i++) {
+			values[start + i] = copy[sorted[i]];
+		}
+	}
+
+	/**
+	 * @return the indices of the rectangles, sorted by their centers into slices along the x axis and within the
+	 * slices along the y axis, such that every {@value #NODE_CAPACITY} consecutive ones can be packed into a node.
+	 */
+	private static int[] sortTileRecursive(final double[] centerX, final double[] centerY, final int count) {
+		int[] sorted = new int[count];
+		for (int i = 0; i < count; i++) {
+			sorted[i] = i;
+		}
+		sort(sorted, 0, count, centerX);
+		int numberOfNodes = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		int numberOfSlices = (int) Math.ceil(Math.sqrt(numberOfNodes));
+		int sliceSize = Math.max(1, numberOfSlices) * NODE_CAPACITY;
+		for (int start = 0; start < count; start += sliceSize) {
+			sort(sorted, start, Math.min(start + sliceSize, count), centerY);
+		}
+		return sorted;
+	}
+
+	/**
+	 * Sorts the indices by their keys, and indices with the same key by themselves. The keys are only compared with
+	 * float precision, which is good enough to build the tree, and allows to sort primitive longs.
+	 */
+	private static void sort(final int[] indices, final int from, final int to, final double[] keys) {
+		long[] sortable = new long[to - from];
+		for (int i = from; i < to; i++) {
+			int bits = Float.floatToIntBits((float) keys[indices[i]]);
+			// negative floats are ordered the other way round when compared as ints
+			bits ^= (bits >> 31) & Integer.MAX_VALUE;
+			sortable[i - from] = ((long) bits << 32) | indices[i];
+		}
+		Arrays.sort(sortable);
+		for (int i = from; i < to; i++) {
+			indices[i] = (int) sortable[i - from];
+		}
+	}
+
+	public int size() {
+		return this.links.length;
+	}
+
+	/**
+	 * @return the link closest to x/y, or <code>null</code> if the tree is empty
+	 */
+	public Link getNearest(final double x, final double y) {
+		if (this.links.length == 0) {
+			return null;
+		}
+		return this.links[getNearest(this.root, x, y, -1)];
+	}
+
+	/**
+	 * @return the up to k links closest to x/y, the closest one first
+	 */
+	public List<Link> getNearest(final double x, final double y, final int k) {
+		List<Link> result = new ArrayList<>(k);
+		if (this.links.length == 0 || k <= 0) {
+			return result;
+		}
+		int[] nearest = new int[k];
+		double[] distances = new double[k];
+		Arrays.fill(nearest, -1);
+		Arrays.fill(distances, Double.POSITIVE_INFINITY);
+		getNearest(this.root, x, y, nearest, distances);
+		for (int entry : nearest) {
+			if (entry >= 0) {
+				result.add(this.links[entry]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds all links which are not farther away from x/y than the given distance to the collection.
+	 *
+	 * @return the collection
+	 */
+	public Collection<Link> getDisk(final double x, final double y, final double distance, final Collection<Link> values) {
+		if (this.links.length > 0) {
+			getDisk(this.root, x, y, distance * distance, values);
+		}
+		return values;
+	}
+
+	/**
+	 * Adds all links which intersect or touch the rectangle to the collection.
+	 *
+	 * @return the collection
+	 */
+	public Collection<Link> getRectangle(final double minX, final double minY, final double maxX, final double maxY, final Collection<Link> values) {
+		if (this.links.length > 0) {
+			getRectangle(this.root, minX, minY, maxX, maxY, values);
+		}
+		return values;
+	}
+
+	/**
+	 * @param best the closest link found so far, or -1
+	 * @return the closest link found in the node, or best if there is none closer
+	 */
+	private int getNearest(final int node, final double x, final double y, int best) {
+		double bestDistance = (best < 0) ? Double.POSITIVE_INFINITY : calcDistanceIndicator(best, x, y);
+		int first = this.firstChild[node];
+		int end = first + this.childCount[node];
+		if (node < this.numberOfLeaves) {
+			for (int entry = first; entry < end; entry++) {
+				double distance = calcDistanceIndicator(entry, x, y);
+				if (best < 0 || distance < bestDistance || (distance == bestDistance && this.order[entry] < this.order[best])) {
+					best = entry;
+					bestDistance = distance;
+				}
+			}
+			return best;
+		}
+		// first search the child closest to x/y, which most likely contains a close link ...
+		int closestChild = first;
+		double closestChildDistance = calcBoxDistanceIndicator(first, x, y);
+		for (int child = first + 1; child < end; child++) {
+			double distance = calcBoxDistanceIndicator(child, x, y);
+			if (distance < closestChildDistance) {
+				closestChild = child;
+				closestChildDistance = distance;
+			}
+		}
+		if (closestChildDistance <= bestDistance) {
+			best = getNearest(closestChild, x, y, best);
+			bestDistance = calcDistanceIndicator(best, x, y);
+		}
+		// ... then the others, if they may contain a closer link (or an equally close one which comes first)
+		for (int child = first; child < end; child++) {
+			if (child != closestChild && calcBoxDistanceIndicator(child, x, y) <= bestDistance) {
+				best = getNearest(child, x, y, best);
+				bestDistance = calcDistanceIndicator(best, x, y);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Inserts the links of the node into the sorted arrays of the k closest links found so far.
+	 */
+	private void getNearest(final int node, final double x, final double y, final int[] nearest, final double[] distances) {
+		int last = nearest.length - 1;
+		int first = this.firstChild[node];
+		int end = first + this.childCount[node];
+		if (node < this.numberOfLeaves) {
+			for (int entry = first; entry < end; entry++) {
+				double distance = calcDistanceIndicator(entry, x, y);
+				if (isCloser(entry, distance, nearest[last], distances[last])) {
+					int position = last;
+					while (position > 0 && isCloser(entry, distance, nearest[position - 1], distances[position - 1])) {
+						nearest[position] = nearest[position - 1];
+						distances[position] = distances[position - 1];
+						position--;
+					}
+					nearest[position] = entry;
+					distances[position] = distance;
+				}
+			}
+			return;
+		}
+		int closestChild = first;
+		double closestChildDistance = calcBoxDistanceIndicator(first, x, y);
+		for (int child = first + 1; child < end; child++) {
+			double distance = calcBoxDistanceIndicator(child, x, y);
+			if (distance < closestChildDistance) {
+				closestChild = child;
+				closestChildDistance = distance;
+			}
+		}
+		if (closestChildDistance <= distances[last]) {
+			getNearest(closestChild, x, y, nearest, distances);
+		}
+		for (int child = first; child < end; child++) {
+			if (child != closestChild && calcBoxDistanceIndicator(child, x, y) <= distances[last]) {
+				getNearest(child, x, y, nearest, distances);
+			}
+		}
+	}
+
+	private boolean isCloser(final int entry, final double distance, final int otherEntry, final double otherDistance) {
+		return otherEntry < 0 || distance < otherDistance || (distance == otherDistance && this.order[entry] < this.order[otherEntry]);
+	}
+
+	private void getDisk(final int node, final double x, final double y, final double maxDistanceIndicator, final Collection<Link> values) {
+		int first = this.firstChild[node];
+		int end = first + this.childCount[node];
+		if (node < this.numberOfLeaves) {
+			for (int entry = first; entry < end; entry++) {
+				if (calcDistanceIndicator(entry, x, y) <= maxDistanceIndicator) {
+					values.add(this.links[entry]);
+				}
+			}
+			return;
+		}
+		for (int child = first; child < end; child++) {
+			if (calcBoxDistanceIndicator(child, x, y) <= maxDistanceIndicator) {
+				getDisk(child, x, y, maxDistanceIndicator, values);
+			}
+		}
+	}
+
+	private void getRectangle(final int node, final double rectMinX, final double rectMinY, final double rectMaxX, final double rectMaxY,
+			final Collection<Link> values) {
+		int first = this.firstChild[node];
+		int end = first + this.childCount[node];
+		if (node < this.numberOfLeaves) {
+			for (int entry = first; entry < end; entry++) {
+				if (intersects(this.fromX[entry], this.fromY[entry], this.toX[entry], this.toY[entry], rectMinX, rectMinY, rectMaxX, rectMaxY)) {
+					values.add(this.links[entry]);
+				}
+			}
+			return;
+		}
+		for (int child = first; child < end; child++) {
+			if (this.minX[child] <= rectMaxX && this.maxX[child] >= rectMinX && this.minY[child] <= rectMaxY && this.maxY[child] >= rectMinY) {
+				getRectangle(child, rectMinX, rectMinY, rectMaxX, rectMaxY, values);
+			}
+		}
+	}
+
+	/**
+	 * Clips the line segment against the rectangle (Liang-Barsky).
+	 */
+	private static boolean intersects(final double fx, final double fy, final double tx, final double ty,
+			final double rectMinX, final double rectMinY, final double rectMaxX, final double rectMaxY) {
+		double dx = tx - fx;
+		double dy = ty - fy;
+		double tMin = 0.0;
+		double tMax = 1.0;
+		for (int edge = 0; edge < 4; edge++) {
+			double p;
+			double q;
+			switch (edge) {
+			case 0: p = -dx; q = fx - rectMinX; break;
+			case 1: p = dx; q = rectMaxX - fx; break;
+			case 2: p = -dy; q = fy - rectMinY; break;
+			default: p = dy; q = rectMaxY - fy; break;
+			}
+			if (p == 0.0) {
+				if (q < 0.0) {
+					// parallel to the edge and outside
+					return false;
+				}
+			} else {
+				double t = q / p;
+				if (p < 0.0) {
+					if (t > tMax) return false;
+					if (t > tMin) tMin = t;
+				} else {
+					if (t < tMin) return false;
+					if (t < tMax) tMax = t;
+				}
+			}
+		}
+		return true;
+	}
+
+	private double calcBoxDistanceIndicator(final int node, final double x, final double y) {
+		double distanceX = (x < this.minX[node]) ? this.minX[node] - x : (x > this.maxX[node]) ? x - this.maxX[node] : 0.0;
+		double distanceY = (y < this.minY[node]) ? this.minY[node] - y : (y > this.maxY[node]) ? y - this.maxY[node] : 0.0;
+		return distanceX * distanceX + distanceY * distanceY;
+	}
+
+	private double calcDistanceIndicator(final int entry, final double x, final double y) {
+		return calcLineSegmentDistanceIndicator(x, y, this.fromX[entry], this.fromY[entry], this.toX[entry], this.toY[entry]);
+	}
+
+	/**
+	 * @return the squared distance of x/y to the link, computed the same way as by {@link LinkQuadTree}
+	 */
+	/*package*/ static double calcDistanceIndicator(final double x, final double y, final Link link) {
+		return calcLineSegmentDistanceIndicator(x, y, link.getFromNode().getCoord().getX(), link.getFromNode().getCoord().getY(),
+				link.getToNode().getCoord().getX(), link.getToNode().getCoord().getY());
+	}
+
+	private static double calcLineSegmentDistanceIndicator(final double x, final double y, final double fx, final double fy,
+			final double tx, final double ty) {
+		double lineDX = tx - fx;
+		double lineDY = ty - fy;
+
+		if ((lineDX == 0.0) && (lineDY == 0.0)) {
+			// the line segment is a point without dimension
+			return calcPointDistanceIndicator(fx, fy, x, y);
+		}
+
+		double u = ((x - fx)*lineDX + (y - fy)*lineDY) / (lineDX*lineDX + lineDY*lineDY);
+
+		if (u <= 0) {
+			// (x | y) is not on the line segment, but before lineFrom
+			return calcPointDistanceIndicator(fx, fy, x, y);
+		}
+		if (u >= 1) {
+			// (x | y) is not on the line segment, but after lineTo
+			return calcPointDistanceIndicator(fx + lineDX, fy + lineDY, x, y);
+		}
+		return calcPointDistanceIndicator(fx + u*lineDX, fy + u*lineDY, x, y);
+	}
+
+	private static double calcPointDistanceIndicator(final double fromX, final double fromY, final double toX, final double toY) {
+		double xDiff = toX - fromX;
+		double yDiff = toY - fromY;
+		return (xDiff*xDiff) + (yDiff*yDiff);
+	}
+
+}
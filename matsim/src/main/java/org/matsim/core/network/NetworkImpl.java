@@ -31,6 +31,7 @@ import org.matsim.core.scenario.Lockable;
 import org.matsim.core.utils.collections.QuadTree;
 import org.matsim.utils.objectattributes.attributable.Attributes;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -66,6 +67,14 @@ import java.util.Queue;
 
 	private LinkQuadTree linkQuadTree = null;
 
+	private LinkRTree linkRTree = null;
+
+	/**
+	 * Links added after the R-tree was built. They are searched linearly, until there are so many that the tree is
+	 * rebuilt.
+	 */
+	private final List<Link> linksNotInRTree = new ArrayList<>();
+
 	private static final double DEFAULT_EFFECTIVE_CELL_SIZE = 7.5;
 
 	private double effectiveCellSize = DEFAULT_EFFECTIVE_CELL_SIZE;
@@ -146,6 +155,13 @@ import java.util.Queue;
 				this.linkQuadTree = null;
 			}
 		}
+		if (this.linkRTree != null) {
+			this.linksNotInRTree.add(link);
+			if (this.linksNotInRTree.size() > 64 + this.linkRTree.size() / 16) {
+				this.linkRTree = null;
+				this.linksNotInRTree.clear();
+			}
+		}
 
 
 		// show counter
@@ -241,6 +257,8 @@ import java.util.Queue;
 		if (this.linkQuadTree != null) {
 			this.linkQuadTree.remove(l);
 		}
+		this.linkRTree = null;
+		this.linksNotInRTree.clear();
 
 		return l;
 	}
@@ -345,10 +363,22 @@ import java.util.Queue;
 	}
 
 	@Override public Link getNearestLinkExactly(final Coord coord) {
-		if (this.linkQuadTree == null) {
-			buildLinkQuadTree();
+		LinkRTree tree = this.linkRTree;
+		if (tree == null) {
+			tree = buildLinkRTree();
 		}
-		return this.linkQuadTree.getNearest(coord.getX(), coord.getY());
+		Link nearest = tree.getNearest(coord.getX(), coord.getY());
+		if (!this.linksNotInRTree.isEmpty()) {
+			double nearestDistance = (nearest == null) ? Double.POSITIVE_INFINITY : LinkRTree.calcDistanceIndicator(coord.getX(), coord.getY(), nearest);
+			for (Link link : this.linksNotInRTree) {
+				double distance = LinkRTree.calcDistanceIndicator(coord.getX(), coord.getY(), link);
+				if (distance < nearestDistance) {
+					nearest = link;
+					nearestDistance = distance;
+				}
+			}
+		}
+		return nearest;
 	}
 
 	/**
@@ -424,10 +454,7 @@ import java.util.Queue;
 		// yy the above four lines are problematic if the coordinate values are much smaller than one. kai, oct'15
 
 		log.info("building QuadTree for nodes: xrange(" + minx + "," + maxx + "); yrange(" + miny + "," + maxy + ")");
-		QuadTree<Node> quadTree = new QuadTree<>(minx, miny, maxx, maxy);
-		for (Node n : this.nodes.values()) {
-			quadTree.put(n.getCoord().getX(), n.getCoord().getY(), n);
-		}
+		QuadTree<Node> quadTree = new QuadTree<>(minx, miny, maxx, maxy, this.nodes.values(), n -> n.getCoord().getX(), n -> n.getCoord().getY());
 		/* assign the quadTree at the very end, when it is complete.
 		 * otherwise, other threads may already start working on an incomplete quadtree
 		 */
@@ -435,6 +462,18 @@ import java.util.Queue;
 		log.info("Building QuadTree took " + ((System.currentTimeMillis() - startTime) / 1000.0) + " seconds.");
 	}
 
+	synchronized private LinkRTree buildLinkRTree() {
+		if (this.linkRTree != null) {
+			return this.linkRTree;
+		}
+		double startTime = System.currentTimeMillis();
+		LinkRTree tree = new LinkRTree(this.links.values());
+		this.linksNotInRTree.clear();
+		this.linkRTree = tree;
+		log.info("Building LinkRTree for " + tree.size() + " links took " + ((System.currentTimeMillis() - startTime) / 1000.0) + " seconds.");
+		return tree;
+	}
+
 	synchronized private void buildLinkQuadTree() {
 		if (this.linkQuadTree != null) {
 			return;
@@ -506,7 +545,14 @@ import java.util.Queue;
 	@Override public Attributes getAttributes() {
 		return attributes;
 	}
+	/**
+	 * @deprecated the nearest link is searched in a {@link LinkRTree}, the quad tree is only built for this method.
+	 */
+	@Deprecated
 	@Override public final LinkQuadTree getLinkQuadTree() {
+		if (this.linkQuadTree == null) {
+			buildLinkQuadTree();
+		}
 		return this.linkQuadTree ;
 	}
 	@Override public final QuadTree<Node> getNodeQuadTree() {
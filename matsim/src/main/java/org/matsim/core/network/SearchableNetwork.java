@@ -39,6 +39,10 @@ public interface SearchableNetwork {
 
 	QuadTree<Node> getNodeQuadTree();
 
+	/**
+	 * @deprecated use {@link #getNearestLinkExactly(Coord)}, which searches a {@link LinkRTree}
+	 */
+	@Deprecated
 	LinkQuadTree getLinkQuadTree();
 
 }
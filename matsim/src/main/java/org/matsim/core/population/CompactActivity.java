@@ -0,0 +1,243 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.core.population.CompactPlanElementStore.ActivityChunk;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * An activity of a {@link CompactPlan}. As long as the activity is not part of a plan, its data is kept in a
+ * regular activity. Once it is added to a plan, it becomes a view on its row in the {@link CompactPlanElementStore}.
+ * The plan does not keep the views, it creates a new one on every access, see {@link CompactPlan}.
+ */
+/* package */ final class CompactActivity implements Activity {
+
+	private Activity detached;
+	private CompactPlanElementStore store = null;
+	private int row = -1;
+	private int serial = -1;
+
+	/* package */ CompactActivity(final Activity detached) {
+		this.detached = detached;
+	}
+
+	/* package */ CompactActivity(final CompactPlanElementStore store, final int row, final int serial) {
+		this.detached = null;
+		this.store = store;
+		this.row = row;
+		this.serial = serial;
+	}
+
+	/* package */ boolean isDetached() {
+		return this.detached != null;
+	}
+
+	/* package */ boolean isViewOn(final CompactPlanElementStore store, final int row) {
+		return this.detached == null && this.store == store && this.row == row;
+	}
+
+	/**
+	 * Makes this activity a view on the given row.
+	 *
+	 * @return the data of this activity so far, which must be copied into the row
+	 */
+	/* package */ Activity attach(final CompactPlanElementStore store, final int row, final int serial) {
+		Activity data = this.detached;
+		this.detached = null;
+		this.store = store;
+		this.row = row;
+		this.serial = serial;
+		return data;
+	}
+
+	private ActivityChunk chunk() {
+		ActivityChunk chunk = this.store.getActivityChunk(this.row);
+		if (chunk.serial[CompactPlanElementStore.index(this.row)] != this.serial) {
+			throw new IllegalStateException("This activity was removed from its plan.");
+		}
+		return chunk;
+	}
+
+	@Override
+	public double getEndTime() {
+		if (this.detached != null) {
+			return this.detached.getEndTime();
+		}
+		return chunk().endTime[CompactPlanElementStore.index(this.row)];
+	}
+
+	@Override
+	public void setEndTime(final double seconds) {
+		if (this.detached != null) {
+			this.detached.setEndTime(seconds);
+		} else {
+			chunk().endTime[CompactPlanElementStore.index(this.row)] = seconds;
+		}
+	}
+
+	@Override
+	public String getType() {
+		if (this.detached != null) {
+			return this.detached.getType();
+		}
+		return chunk().type[CompactPlanElementStore.index(this.row)];
+	}
+
+	@Override
+	public void setType(final String type) {
+		if (this.detached != null) {
+			this.detached.setType(type);
+		} else {
+			chunk().type[CompactPlanElementStore.index(this.row)] = type.intern();
+		}
+	}
+
+	@Override
+	public Coord getCoord() {
+		if (this.detached != null) {
+			return this.detached.getCoord();
+		}
+		return chunk().getCoord(CompactPlanElementStore.index(this.row));
+	}
+
+	@Override
+	public void setCoord(final Coord coord) {
+		if (this.detached != null) {
+			this.detached.setCoord(coord);
+		} else {
+			chunk().setCoord(CompactPlanElementStore.index(this.row), coord);
+		}
+	}
+
+	@Override
+	public double getStartTime() {
+		if (this.detached != null) {
+			return this.detached.getStartTime();
+		}
+		return chunk().startTime[CompactPlanElementStore.index(this.row)];
+	}
+
+	@Override
+	public void setStartTime(final double seconds) {
+		if (this.detached != null) {
+			this.detached.setStartTime(seconds);
+		} else {
+			chunk().startTime[CompactPlanElementStore.index(this.row)] = seconds;
+		}
+	}
+
+	@Override
+	public double getMaximumDuration() {
+		if (this.detached != null) {
+			return this.detached.getMaximumDuration();
+		}
+		return chunk().maximumDuration[CompactPlanElementStore.index(this.row)];
+	}
+
+	@Override
+	public void setMaximumDuration(final double seconds) {
+		if (this.detached != null) {
+			this.detached.setMaximumDuration(seconds);
+		} else {
+			chunk().maximumDuration[CompactPlanElementStore.index(this.row)] = seconds;
+		}
+	}
+
+	@Override
+	public Id<Link> getLinkId() {
+		if (this.detached != null) {
+			return this.detached.getLinkId();
+		}
+		return chunk().getLinkId(CompactPlanElementStore.index(this.row));
+	}
+
+	@Override
+	public void setLinkId(final Id<Link> id) {
+		if (this.detached != null) {
+			this.detached.setLinkId(id);
+		} else {
+			chunk().setLinkId(CompactPlanElementStore.index(this.row), id);
+		}
+	}
+
+	@Override
+	public Id<ActivityFacility> getFacilityId() {
+		if (this.detached != null) {
+			return this.detached.getFacilityId();
+		}
+		return chunk().getFacilityId(CompactPlanElementStore.index(this.row));
+	}
+
+	@Override
+	public void setFacilityId(final Id<ActivityFacility> id) {
+		if (this.detached != null) {
+			this.detached.setFacilityId(id);
+		} else {
+			chunk().setFacilityId(CompactPlanElementStore.index(this.row), id);
+		}
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		if (this.detached != null) {
+			return this.detached.getAttributes();
+		}
+		return chunk().getAttributes(CompactPlanElementStore.index(this.row));
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (this.detached != null || !(obj instanceof CompactActivity)) {
+			return false;
+		}
+		CompactActivity other = (CompactActivity) obj;
+		return other.detached == null && other.store == this.store && other.row == this.row && other.serial == this.serial;
+	}
+
+	@Override
+	public int hashCode() {
+		// note that the hash code changes when the activity is added to a plan
+		if (this.detached != null) {
+			return System.identityHashCode(this);
+		}
+		return 31 * this.row + this.serial;
+	}
+
+	@Override
+	public String toString() {
+		return "act [type=" + this.getType() + "]" +
+				"[coord=" + this.getCoord() + "]" +
+				"[linkId=" + this.getLinkId() + "]" +
+				"[startTime=" + Time.writeTime(this.getStartTime()) + "]" +
+				"[endTime=" + Time.writeTime(this.getEndTime()) + "]" +
+				"[duration=" + Time.writeTime(this.getMaximumDuration()) + "]" +
+				"[facilityId=" + this.getFacilityId() + "]" ;
+	}
+
+}
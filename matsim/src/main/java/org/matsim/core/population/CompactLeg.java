@@ -0,0 +1,185 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.CompactPlanElementStore.LegChunk;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * A leg of a {@link CompactPlan}, see {@link CompactActivity}.
+ */
+/* package */ final class CompactLeg implements Leg {
+
+	private Leg detached;
+	private CompactPlanElementStore store = null;
+	private int row = -1;
+	private int serial = -1;
+
+	/* package */ CompactLeg(final Leg detached) {
+		this.detached = detached;
+	}
+
+	/* package */ CompactLeg(final CompactPlanElementStore store, final int row, final int serial) {
+		this.detached = null;
+		this.store = store;
+		this.row = row;
+		this.serial = serial;
+	}
+
+	/* package */ boolean isDetached() {
+		return this.detached != null;
+	}
+
+	/* package */ boolean isViewOn(final CompactPlanElementStore store, final int row) {
+		return this.detached == null && this.store == store && this.row == row;
+	}
+
+	/**
+	 * Makes this leg a view on the given row.
+	 *
+	 * @return the data of this leg so far, which must be copied into the row
+	 */
+	/* package */ Leg attach(final CompactPlanElementStore store, final int row, final int serial) {
+		Leg data = this.detached;
+		this.detached = null;
+		this.store = store;
+		this.row = row;
+		this.serial = serial;
+		return data;
+	}
+
+	private LegChunk chunk() {
+		LegChunk chunk = this.store.getLegChunk(this.row);
+		if (chunk.serial[CompactPlanElementStore.index(this.row)] != this.serial) {
+			throw new IllegalStateException("This leg was removed from its plan.");
+		}
+		return chunk;
+	}
+
+	@Override
+	public String getMode() {
+		if (this.detached != null) {
+			return this.detached.getMode();
+		}
+		return chunk().mode[CompactPlanElementStore.index(this.row)];
+	}
+
+	@Override
+	public void setMode(final String mode) {
+		if (this.detached != null) {
+			this.detached.setMode(mode);
+		} else {
+			chunk().mode[CompactPlanElementStore.index(this.row)] = mode;
+		}
+	}
+
+	@Override
+	public Route getRoute() {
+		if (this.detached != null) {
+			return this.detached.getRoute();
+		}
+		return chunk().route[CompactPlanElementStore.index(this.row)];
+	}
+
+	@Override
+	public void setRoute(final Route route) {
+		if (this.detached != null) {
+			this.detached.setRoute(route);
+		} else {
+			chunk().route[CompactPlanElementStore.index(this.row)] = route;
+		}
+	}
+
+	@Override
+	public double getDepartureTime() {
+		if (this.detached != null) {
+			return this.detached.getDepartureTime();
+		}
+		return chunk().departureTime[CompactPlanElementStore.index(this.row)];
+	}
+
+	@Override
+	public void setDepartureTime(final double seconds) {
+		if (this.detached != null) {
+			this.detached.setDepartureTime(seconds);
+		} else {
+			chunk().departureTime[CompactPlanElementStore.index(this.row)] = seconds;
+		}
+	}
+
+	@Override
+	public double getTravelTime() {
+		if (this.detached != null) {
+			return this.detached.getTravelTime();
+		}
+		return chunk().travelTime[CompactPlanElementStore.index(this.row)];
+	}
+
+	@Override
+	public void setTravelTime(final double seconds) {
+		if (this.detached != null) {
+			this.detached.setTravelTime(seconds);
+		} else {
+			chunk().travelTime[CompactPlanElementStore.index(this.row)] = seconds;
+		}
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		if (this.detached != null) {
+			return this.detached.getAttributes();
+		}
+		return chunk().getAttributes(CompactPlanElementStore.index(this.row));
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (this.detached != null || !(obj instanceof CompactLeg)) {
+			return false;
+		}
+		CompactLeg other = (CompactLeg) obj;
+		return other.detached == null && other.store == this.store && other.row == this.row && other.serial == this.serial;
+	}
+
+	@Override
+	public int hashCode() {
+		// note that the hash code changes when the leg is added to a plan
+		if (this.detached != null) {
+			return System.identityHashCode(this);
+		}
+		return 31 * this.row + this.serial;
+	}
+
+	@Override
+	public String toString() {
+		return "leg [mode=" + this.getMode() + "]" +
+				"[depTime=" + Time.writeTime(this.getDepartureTime()) + "]" +
+				"[travTime=" + Time.writeTime(this.getTravelTime()) + "]" +
+				"[arrTime=" + Time.writeTime(this.getDepartureTime() + this.getTravelTime()) + "]" +
+				"[route=" + this.getRoute() + "]";
+	}
+
+}
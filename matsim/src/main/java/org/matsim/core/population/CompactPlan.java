@@ -0,0 +1,228 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.matsim.api.core.v01.Customizable;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.scenario.CustomizableUtils;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * A plan whose activities and legs are stored in a {@link CompactPlanElementStore}. The plan itself only keeps
+ * an array with the references to the rows of its elements, so there are no objects per activity or leg.
+ * <p></p>
+ * The elements returned by {@link #getPlanElements()} are short-lived flyweights which address the row of the
+ * element. They are created on every access and not kept by the plan, so reading a plan does not modify it, and
+ * several threads may read the same plan at the same time. Differences to {@link PlanImpl}:<ul>
+ * <li> Accessing the same element twice returns two objects which are equal, but not identical, so plan elements
+ * must be compared with {@link Object#equals(Object)}.
+ * <li> An element which is added to the plan is copied into the store. If it was created by the
+ * {@link CompactPopulationFactory} and is not part of another plan yet, it becomes the view on its copy, so it can
+ * still be modified after adding it. Otherwise, the plan contains a copy of the element.
+ * <li> An element which is removed from the plan becomes invalid; the list methods which return removed elements
+ * return copies of them.
+ * </ul>
+ */
+/* package */ final class CompactPlan implements Plan {
+
+	private static final int[] EMPTY = new int[0];
+
+	private final CompactPopulationFactory factory;
+	private final CompactPlanElementStore store;
+	private int[] elements = EMPTY;
+	private int size = 0;
+
+	private Double score = null;
+	private Person person = null;
+	private String type = null;
+
+	private Customizable customizableDelegate;
+	private Attributes attributes = null;
+
+	/* package */ CompactPlan(final CompactPopulationFactory factory) {
+		this.factory = factory;
+		this.store = factory.getStore();
+	}
+
+	/* package */ CompactPopulationFactory getFactory() {
+		return this.factory;
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		if (this.attributes == null) {
+			this.attributes = new Attributes();
+		}
+		return this.attributes;
+	}
+
+	@Override
+	public Person getPerson() {
+		return this.person;
+	}
+
+	@Override
+	public void setPerson(final Person person) {
+		this.person = person;
+	}
+
+	@Override
+	public Double getScore() {
+		return this.score;
+	}
+
+	@Override
+	public void setScore(final Double score) {
+		this.score = score;
+	}
+
+	@Override
+	public String getType() {
+		return this.type;
+	}
+
+	@Override
+	public void setType(final String type) {
+		this.type = type;
+	}
+
+	@Override
+	public List<PlanElement> getPlanElements() {
+		return new PlanElements();
+	}
+
+	@Override
+	public void addLeg(final Leg leg) {
+		insert(this.size, leg);
+	}
+
+	@Override
+	public void addActivity(final Activity act) {
+		insert(this.size, act);
+	}
+
+	private void insert(final int index, final PlanElement element) {
+		int reference = this.store.add(element);
+		if (this.size == this.elements.length) {
+			this.elements = Arrays.copyOf(this.elements, Math.max(4, this.size + (this.size >> 1) + 1));
+		}
+		System.arraycopy(this.elements, index, this.elements, index + 1, this.size - index);
+		this.elements[index] = reference;
+		this.size++;
+	}
+
+	private void delete(final int fromIndex, final int toIndex) {
+		System.arraycopy(this.elements, toIndex, this.elements, fromIndex, this.size - toIndex);
+		this.size -= toIndex - fromIndex;
+	}
+
+	@Override
+	public Map<String, Object> getCustomAttributes() {
+		if (this.customizableDelegate == null) {
+			this.customizableDelegate = CustomizableUtils.createCustomizable();
+		}
+		return this.customizableDelegate.getCustomAttributes();
+	}
+
+	@Override
+	public String toString() {
+		String scoreString = "undefined";
+		if (this.getScore() != null) {
+			scoreString = this.getScore().toString();
+		}
+		String personIdString = "undefined" ;
+		if ( this.getPerson() != null ) {
+			personIdString = this.getPerson().getId().toString() ;
+		}
+
+		return "[score=" + scoreString + "]" +
+				"[nof_acts_legs=" + this.size + "]" +
+				"[type=" + this.type + "]" +
+				"[personId=" + personIdString + "]" ;
+	}
+
+	private final class PlanElements extends AbstractList<PlanElement> implements RandomAccess {
+
+		@Override
+		public PlanElement get(final int index) {
+			checkIndex(index, size);
+			return store.get(elements[index]);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public PlanElement set(final int index, final PlanElement element) {
+			checkIndex(index, size);
+			if (store.isView(element, elements[index])) {
+				return element;
+			}
+			int reference = store.add(element);
+			PlanElement previous = store.remove(elements[index], true);
+			elements[index] = reference;
+			return previous;
+		}
+
+		@Override
+		public void add(final int index, final PlanElement element) {
+			checkIndex(index, size + 1);
+			insert(index, element);
+			this.modCount++;
+		}
+
+		@Override
+		public PlanElement remove(final int index) {
+			checkIndex(index, size);
+			PlanElement removed = store.remove(elements[index], true);
+			delete(index, index + 1);
+			this.modCount++;
+			return removed;
+		}
+
+		@Override
+		protected void removeRange(final int fromIndex, final int toIndex) {
+			for (int i = fromIndex; i < toIndex; i++) {
+				store.remove(elements[i], false);
+			}
+			delete(fromIndex, toIndex);
+			this.modCount++;
+		}
+
+		private void checkIndex(final int index, final int limit) {
+			if (index < 0 || index >= limit) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+		}
+	}
+
+}
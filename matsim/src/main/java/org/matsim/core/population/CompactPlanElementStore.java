@@ -0,0 +1,382 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * Stores the activities and legs of all {@link CompactPlan}s created by one {@link CompactPopulationFactory} in
+ * columns of primitive arrays, one row per plan element. A plan only keeps the references to its rows, see
+ * {@link #ACTIVITY} and {@link #LEG}. Link and facility ids are stored as their {@link Id#index() indices}, activity
+ * types and modes as references to the interned strings. Routes are stored as they are; the population's factory
+ * creates network routes which pack their links, see {@link org.matsim.core.population.routes.PackedNetworkRouteFactory}.
+ * <p></p>
+ * The columns are split into chunks of fixed size which never move once allocated, so plans can be modified by
+ * several threads at the same time (as done in replanning) as long as every plan is only modified by one thread.
+ * Only allocating and freeing rows is synchronized. A freed row is re-used by the next element; every row has a
+ * serial number which is incremented when the row is freed, so views on removed elements can be detected.
+ */
+final class CompactPlanElementStore {
+
+	/** the kind of a plan element reference, stored in its lowest bit: <code>reference = (row &lt;&lt; 1) | kind</code> */
+	static final int ACTIVITY = 0;
+	static final int LEG = 1;
+
+	private static final int CHUNK_BITS = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private volatile ActivityChunk[] activityChunks = new ActivityChunk[0];
+	private volatile LegChunk[] legChunks = new LegChunk[0];
+	private final RowAllocator activityRows = new RowAllocator();
+	private final RowAllocator legRows = new RowAllocator();
+
+	static int index(final int row) {
+		return row & CHUNK_MASK;
+	}
+
+	ActivityChunk getActivityChunk(final int row) {
+		return this.activityChunks[row >>> CHUNK_BITS];
+	}
+
+	LegChunk getLegChunk(final int row) {
+		return this.legChunks[row >>> CHUNK_BITS];
+	}
+
+	/**
+	 * Copies the plan element into a newly allocated row. If the plan element is a compact plan element which is
+	 * not part of a plan yet, it becomes a view on the new row, so it can still be modified after it was added to
+	 * the plan.
+	 *
+	 * @return the reference to the new row
+	 */
+	int add(final PlanElement planElement) {
+		if (planElement instanceof Activity) {
+			int row = allocateActivity();
+			ActivityChunk chunk = getActivityChunk(row);
+			int i = index(row);
+			Activity act = planElement instanceof CompactActivity && ((CompactActivity) planElement).isDetached() ?
+					((CompactActivity) planElement).attach(this, row, chunk.serial[i]) : (Activity) planElement;
+			chunk.type[i] = act.getType().intern();
+			chunk.setCoord(i, act.getCoord());
+			chunk.setLinkId(i, act.getLinkId());
+			chunk.setFacilityId(i, act.getFacilityId());
+			chunk.startTime[i] = act.getStartTime();
+			chunk.endTime[i] = act.getEndTime();
+			chunk.maximumDuration[i] = act.getMaximumDuration();
+			copyAttributes(act.getAttributes(), chunk, i);
+			return (row << 1) | ACTIVITY;
+		}
+		if (planElement instanceof Leg) {
+			int row = allocateLeg();
+			LegChunk chunk = getLegChunk(row);
+			int i = index(row);
+			Leg leg = planElement instanceof CompactLeg && ((CompactLeg) planElement).isDetached() ?
+					((CompactLeg) planElement).attach(this, row, chunk.serial[i]) : (Leg) planElement;
+			chunk.mode[i] = leg.getMode();
+			chunk.departureTime[i] = leg.getDepartureTime();
+			chunk.travelTime[i] = leg.getTravelTime();
+			chunk.route[i] = leg.getRoute();
+			copyAttributes(leg.getAttributes(), chunk, i);
+			return (row << 1) | LEG;
+		}
+		throw new IllegalArgumentException("unsupported plan element " + planElement);
+	}
+
+	private static void copyAttributes(final Attributes from, final Chunk chunk, final int i) {
+		if (!from.isEmpty()) {
+			Attributes to = new Attributes();
+			for (Map.Entry<String, Object> e : from.getAsMap().entrySet()) {
+				to.putAttribute(e.getKey(), e.getValue());
+			}
+			chunk.getAttributesColumn()[i] = to;
+		}
+	}
+
+	/**
+	 * @return whether the plan element is a view on the given reference, i.e. it became one when it was added
+	 */
+	boolean isView(final PlanElement planElement, final int reference) {
+		int row = reference >>> 1;
+		if ((reference & 1) == ACTIVITY) {
+			return planElement instanceof CompactActivity && ((CompactActivity) planElement).isViewOn(this, row);
+		}
+		return planElement instanceof CompactLeg && ((CompactLeg) planElement).isViewOn(this, row);
+	}
+
+	/**
+	 * @return a new view on the plan element with the given reference
+	 */
+	PlanElement get(final int reference) {
+		int row = reference >>> 1;
+		if ((reference & 1) == ACTIVITY) {
+			return new CompactActivity(this, row, getActivityChunk(row).serial[index(row)]);
+		}
+		return new CompactLeg(this, row, getLegChunk(row).serial[index(row)]);
+	}
+
+	/**
+	 * Frees the row of the plan element with the given reference. Views on it become invalid.
+	 *
+	 * @return a copy of the plan element which is not part of any plan
+	 */
+	PlanElement remove(final int reference, final boolean copy) {
+		int row = reference >>> 1;
+		int i = index(row);
+		PlanElement removed = null;
+		if ((reference & 1) == ACTIVITY) {
+			ActivityChunk chunk = getActivityChunk(row);
+			if (copy) {
+				ActivityImpl act = new ActivityImpl(chunk.type[i]);
+				act.setCoord(chunk.getCoord(i));
+				act.setLinkId(chunk.getLinkId(i));
+				act.setFacilityId(chunk.getFacilityId(i));
+				act.setStartTime(chunk.startTime[i]);
+				act.setEndTime(chunk.endTime[i]);
+				act.setMaximumDuration(chunk.maximumDuration[i]);
+				copyAttributesTo(chunk, i, act.getAttributes());
+				removed = new CompactActivity(act);
+			}
+			chunk.clear(i);
+			this.activityRows.free(row);
+		} else {
+			LegChunk chunk = getLegChunk(row);
+			if (copy) {
+				LegImpl leg = new LegImpl(chunk.mode[i]);
+				leg.setDepartureTime(chunk.departureTime[i]);
+				leg.setTravelTime(chunk.travelTime[i]);
+				leg.setRoute(chunk.route[i]);
+				copyAttributesTo(chunk, i, leg.getAttributes());
+				removed = new CompactLeg(leg);
+			}
+			chunk.clear(i);
+			this.legRows.free(row);
+		}
+		return removed;
+	}
+
+	private static void copyAttributesTo(final Chunk chunk, final int i, final Attributes to) {
+		Attributes[] attributes = chunk.attributes;
+		if (attributes != null && attributes[i] != null) {
+			for (Map.Entry<String, Object> e : attributes[i].getAsMap().entrySet()) {
+				to.putAttribute(e.getKey(), e.getValue());
+			}
+		}
+	}
+
+	private int allocateActivity() {
+		synchronized (this.activityRows) {
+			int row = this.activityRows.allocate();
+			if ((row >>> CHUNK_BITS) == this.activityChunks.length) {
+				ActivityChunk[] chunks = Arrays.copyOf(this.activityChunks, this.activityChunks.length + 1);
+				chunks[chunks.length - 1] = new ActivityChunk();
+				this.activityChunks = chunks;
+			}
+			return row;
+		}
+	}
+
+	private int allocateLeg() {
+		synchronized (this.legRows) {
+			int row = this.legRows.allocate();
+			if ((row >>> CHUNK_BITS) == this.legChunks.length) {
+				LegChunk[] chunks = Arrays.copyOf(this.legChunks, this.legChunks.length + 1);
+				chunks[chunks.length - 1] = new LegChunk();
+				this.legChunks = chunks;
+			}
+			return row;
+		}
+	}
+
+	/*package*/ int getNumberOfActivities() {
+		return this.activityRows.getNumberOfUsedRows();
+	}
+
+	/*package*/ int getNumberOfLegs() {
+		return this.legRows.getNumberOfUsedRows();
+	}
+
+	private static final class RowAllocator {
+		private int numberOfRows = 0;
+		private int[] freeRows = new int[16];
+		private int numberOfFreeRows = 0;
+
+		synchronized int allocate() {
+			if (this.numberOfFreeRows > 0) {
+				return this.freeRows[--this.numberOfFreeRows];
+			}
+			return this.numberOfRows++;
+		}
+
+		synchronized void free(final int row) {
+			if (this.numberOfFreeRows == this.freeRows.length) {
+				this.freeRows = Arrays.copyOf(this.freeRows, this.freeRows.length * 2);
+			}
+			this.freeRows[this.numberOfFreeRows++] = row;
+		}
+
+		synchronized int getNumberOfUsedRows() {
+			return this.numberOfRows - this.numberOfFreeRows;
+		}
+	}
+
+	/**
+	 * Columns which are only needed by few elements are allocated lazily.
+	 */
+	static abstract class Chunk {
+		final int[] serial = new int[CHUNK_SIZE];
+		volatile Attributes[] attributes = null;
+
+		Attributes[] getAttributesColumn() {
+			Attributes[] column = this.attributes;
+			if (column == null) {
+				synchronized (this) {
+					if (this.attributes == null) {
+						this.attributes = new Attributes[CHUNK_SIZE];
+					}
+					column = this.attributes;
+				}
+			}
+			return column;
+		}
+
+		Attributes getAttributes(final int i) {
+			Attributes[] column = getAttributesColumn();
+			Attributes attributes = column[i];
+			if (attributes == null) {
+				attributes = new Attributes();
+				column[i] = attributes;
+			}
+			return attributes;
+		}
+
+		void clear(final int i) {
+			this.serial[i]++;
+			Attributes[] column = this.attributes;
+			if (column != null) {
+				column[i] = null;
+			}
+		}
+	}
+
+	static final class ActivityChunk extends Chunk {
+		final String[] type = new String[CHUNK_SIZE];
+		final double[] x = new double[CHUNK_SIZE];
+		final double[] y = new double[CHUNK_SIZE];
+		volatile double[] z = null;
+		/** the {@link Id#index() indices} of the ids, <code>-1</code> for <code>null</code> */
+		final int[] linkIndex = new int[CHUNK_SIZE];
+		final int[] facilityIndex = new int[CHUNK_SIZE];
+		final double[] startTime = new double[CHUNK_SIZE];
+		final double[] endTime = new double[CHUNK_SIZE];
+		final double[] maximumDuration = new double[CHUNK_SIZE];
+
+		Id<Link> getLinkId(final int i) {
+			return Id.get(this.linkIndex[i], Link.class);
+		}
+
+		void setLinkId(final int i, final Id<Link> linkId) {
+			this.linkIndex[i] = linkId == null ? -1 : linkId.index();
+		}
+
+		Id<ActivityFacility> getFacilityId(final int i) {
+			return Id.get(this.facilityIndex[i], ActivityFacility.class);
+		}
+
+		void setFacilityId(final int i, final Id<ActivityFacility> facilityId) {
+			this.facilityIndex[i] = facilityId == null ? -1 : facilityId.index();
+		}
+
+		Coord getCoord(final int i) {
+			if (Double.isNaN(this.x[i])) {
+				return null;
+			}
+			double[] zColumn = this.z;
+			if (zColumn != null && zColumn[i] != Double.NEGATIVE_INFINITY) {
+				return new Coord(this.x[i], this.y[i], zColumn[i]);
+			}
+			return new Coord(this.x[i], this.y[i]);
+		}
+
+		void setCoord(final int i, final Coord coord) {
+			if (coord == null) {
+				this.x[i] = Double.NaN;
+				this.y[i] = Double.NaN;
+			} else {
+				this.x[i] = coord.getX();
+				this.y[i] = coord.getY();
+			}
+			double[] zColumn = this.z;
+			if (coord != null && coord.hasZ()) {
+				if (zColumn == null) {
+					synchronized (this) {
+						if (this.z == null) {
+							double[] column = new double[CHUNK_SIZE];
+							Arrays.fill(column, Double.NEGATIVE_INFINITY);
+							this.z = column;
+						}
+						zColumn = this.z;
+					}
+				}
+				zColumn[i] = coord.getZ();
+			} else if (zColumn != null) {
+				zColumn[i] = Double.NEGATIVE_INFINITY;
+			}
+		}
+
+		@Override
+		void clear(final int i) {
+			super.clear(i);
+			this.type[i] = null;
+			this.linkIndex[i] = -1;
+			this.facilityIndex[i] = -1;
+			this.startTime[i] = Time.getUndefinedTime();
+			this.endTime[i] = Time.getUndefinedTime();
+			this.maximumDuration[i] = Time.getUndefinedTime();
+		}
+	}
+
+	static final class LegChunk extends Chunk {
+		final String[] mode = new String[CHUNK_SIZE];
+		final double[] departureTime = new double[CHUNK_SIZE];
+		final double[] travelTime = new double[CHUNK_SIZE];
+		final Route[] route = new Route[CHUNK_SIZE];
+
+		@Override
+		void clear(final int i) {
+			super.clear(i);
+			this.mode[i] = null;
+			this.route[i] = null;
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.facilities.ActivityFacility;
+
+/**
+ * Creates {@link CompactPlan}s, which store their activities and legs in one {@link CompactPlanElementStore}
+ * shared by all plans of this factory, instead of one object per plan element. This needs considerably less
+ * memory for large populations with several plans per person, see {@link PlansConfigGroup.PlanStorage#compact}.
+ */
+/* deliberately package */ final class CompactPopulationFactory extends PopulationFactoryImpl {
+
+	private final CompactPlanElementStore store = new CompactPlanElementStore();
+
+	CompactPopulationFactory(RouteFactories routeFactory) {
+		super(routeFactory);
+	}
+
+	/* package */ CompactPlanElementStore getStore() {
+		return this.store;
+	}
+
+	@Override
+	public Plan createPlan() {
+		return new CompactPlan(this);
+	}
+
+	@Override
+	public Activity createActivityFromCoord(final String actType, final Coord coord) {
+		Activity act = new CompactActivity(new ActivityImpl(actType));
+		act.setCoord(coord);
+		return act;
+	}
+
+	@Override
+	public Activity createActivityFromLinkId(final String actType, final Id<Link> linkId) {
+		Activity act = new CompactActivity(new ActivityImpl(actType));
+		act.setLinkId(linkId);
+		return act;
+	}
+
+	@Override
+	public Activity createActivityFromActivityFacilityId(final String actType, final Id<ActivityFacility> activityFacilityId) {
+		Activity act = new CompactActivity(new ActivityImpl(actType));
+		act.setFacilityId(activityFacilityId);
+		return act;
+	}
+
+	@Override
+	public Leg createLeg(final String legMode) {
+		return new CompactLeg(new LegImpl(legMode));
+	}
+
+}
@@ -80,7 +80,14 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 		if (oldPlan == null) {
 			return null;
 		}
-		Plan newPlan = PopulationUtils.createPlan(oldPlan.getPerson());
+		Plan newPlan;
+		if (oldPlan instanceof CompactPlan) {
+			// keep the copy in the same store, instead of falling back to the default plan implementation
+			newPlan = ((CompactPlan) oldPlan).getFactory().createPlan();
+			newPlan.setPerson(oldPlan.getPerson());
+		} else {
+			newPlan = PopulationUtils.createPlan(oldPlan.getPerson());
+		}
 		PopulationUtils.copyFromTo(oldPlan, newPlan);
 		this.getPlans().add(newPlan);
 		this.setSelectedPlan(newPlan);
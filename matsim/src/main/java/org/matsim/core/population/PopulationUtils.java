@@ -58,6 +58,7 @@ import org.matsim.core.population.io.PopulationWriter;
 import org.matsim.core.population.io.StreamingPopulationReader;
 import org.matsim.core.population.routes.CompressedNetworkRouteFactory;
 import org.matsim.core.population.routes.LinkNetworkRouteFactory;
+import org.matsim.core.population.routes.PackedNetworkRouteFactory;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.population.routes.RouteFactories;
 import org.matsim.core.population.routes.RouteFactory;
@@ -118,15 +119,27 @@ public final class PopulationUtils {
 		// yyyy my intuition would be to rather get this out of a standard scenario. kai, jun'16
 		RouteFactories routeFactory = new RouteFactories();
 		String networkRouteType = plansConfigGroup.getNetworkRouteType();
+		if (plansConfigGroup.getPlanStorage() == PlansConfigGroup.PlanStorage.compact
+				&& !PlansConfigGroup.NetworkRouteType.PackedNetworkRoute.equals(networkRouteType)) {
+			// compact plans would otherwise keep one list of link ids per leg
+			log.info("plans are stored compactly, so network routes are stored as " + PlansConfigGroup.NetworkRouteType.PackedNetworkRoute
+					+ " instead of " + networkRouteType + "." );
+			networkRouteType = PlansConfigGroup.NetworkRouteType.PackedNetworkRoute;
+		}
 		RouteFactory factory;
 		if (PlansConfigGroup.NetworkRouteType.LinkNetworkRoute.equals(networkRouteType)) {
 			factory = new LinkNetworkRouteFactory();
 		} else if (PlansConfigGroup.NetworkRouteType.CompressedNetworkRoute.equals(networkRouteType) && network != null) {
 			factory = new CompressedNetworkRouteFactory(network);
+		} else if (PlansConfigGroup.NetworkRouteType.PackedNetworkRoute.equals(networkRouteType)) {
+			factory = new PackedNetworkRouteFactory(network);
 		} else {
 			throw new IllegalArgumentException("The type \"" + networkRouteType + "\" is not a supported type for network routes.");
 		}
 		routeFactory.setRouteFactory(NetworkRoute.class, factory);
+		if (plansConfigGroup.getPlanStorage() == PlansConfigGroup.PlanStorage.compact) {
+			return new PopulationImpl(new CompactPopulationFactory(routeFactory));
+		}
 		return new PopulationImpl(new PopulationFactoryImpl(routeFactory));
 	}
 
@@ -776,23 +789,40 @@ public final class PopulationUtils {
 	// createAndAdd methods:
 
 	public static Activity createAndAddActivityFromCoord( Plan plan, String type, Coord coord ) {
-		Activity act = getFactory().createActivityFromCoord(type, coord) ;
+		Activity act = getFactory( plan ).createActivityFromCoord(type, coord) ;
 		plan.addActivity(act);
-		act.setCoord(coord);
-		return act ;
+		return (Activity) getLastPlanElement( plan ) ;
 	}
 	public static Activity createAndAddActivityFromLinkId( Plan plan, String type, Id<Link> linkId ) {
-		Activity act = getFactory().createActivityFromLinkId(type, linkId) ;
+		Activity act = getFactory( plan ).createActivityFromLinkId(type, linkId) ;
 		plan.addActivity(act);
-		act.setLinkId(linkId);
-		return act ;
+		return (Activity) getLastPlanElement( plan ) ;
 	}
 
 	public static Leg createAndAddLeg(Plan plan, String mode) {
 		verifyCreateLeg( plan ) ;
-		Leg leg = getFactory().createLeg(mode) ;
+		Leg leg = getFactory( plan ).createLeg(mode) ;
 		plan.addLeg( leg );
-		return leg ;
+		return (Leg) getLastPlanElement( plan ) ;
+	}
+
+	/**
+	 * The factory matching the plan implementation, so that the elements created for the plan are stored the same way as
+	 * the plan, see {@link PlansConfigGroup.PlanStorage}.
+	 */
+	private static PopulationFactory getFactory( Plan plan ) {
+		if ( plan instanceof CompactPlan ) {
+			return ((CompactPlan) plan).getFactory() ;
+		}
+		return getFactory() ;
+	}
+
+	/**
+	 * A plan may store a copy of an added element, so return what the plan actually contains.
+	 */
+	private static PlanElement getLastPlanElement( Plan plan ) {
+		List<PlanElement> planElements = plan.getPlanElements() ;
+		return planElements.get( planElements.size() - 1 ) ;
 	}
 	private static void verifyCreateLeg(Plan plan) throws IllegalStateException {
 		if (plan.getPlanElements().size() == 0) {
@@ -801,10 +831,10 @@ public final class PopulationUtils {
 	}
 
 	public static Activity createAndAddActivity(Plan plan, String type) {
-		Activity act = new ActivityImpl( type ) ;
-		// (can't do this from the factory since factory method only exists with coord or with linkId. kai, jun'16)
+		Activity act = getFactory( plan ).createActivityFromLinkId( type, null ) ;
+		// (factory method only exists with coord or with linkId; a null linkId gives the same activity as "new ActivityImpl( type )")
 		plan.addActivity(act);
-		return act ;
+		return (Activity) getLastPlanElement( plan ) ;
 	}
 
 
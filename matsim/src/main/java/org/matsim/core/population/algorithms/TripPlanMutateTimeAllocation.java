@@ -104,7 +104,7 @@ public final class TripPlanMutateTimeAllocation implements PlanAlgorithm {
 					now += act.getEndTime();
 
 				// handle middle activities
-				} else if (act != lastAct) {
+				} else if (!act.equals(lastAct)) {
 
 					// assume that there will be no delay between arrival time and activity start time
 					act.setStartTime(now);
@@ -0,0 +1,225 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Parallel implementation of the PopulationReaderMatsimV6. The main thread only runs the SAX parser and
+ * collects the tags of {@value #BATCH_SIZE} persons at a time. Such batches are interpreted by worker threads,
+ * i.e. creating the ids, plans, activities and routes happens in parallel.
+ * <p></p>
+ * The persons are handed over to the population in the order of the file, on the main thread. As only a bounded
+ * number of batches is in flight at any time, this also works with population streaming: the person algorithms of
+ * the {@link StreamingPopulationReader} see one person after the other, and the memory needed does not depend on the
+ * size of the file.
+ */
+/* deliberately package */ class ParallelPopulationReaderMatsimV6 extends PopulationReaderMatsimV6 {
+
+	private static final Logger log = Logger.getLogger(ParallelPopulationReaderMatsimV6.class);
+
+	/*package*/ static final int BATCH_SIZE = 100;
+
+	private final static String POPULATION = "population";
+	private final static String PERSON = "person";
+
+	private final Scenario scenario;
+	private final Population population;
+	private final int numThreads;
+	private final Map<Class<?>, AttributeConverter<?>> attributeConverters = new HashMap<>();
+
+	private ExecutorService executor = null;
+	private CoordinateTransformation personsCoordinateTransformation = null;
+	private final Deque<Future<List<Person>>> pendingBatches = new ArrayDeque<>();
+	private List<Tag> currentBatch = new ArrayList<>();
+	private int personsInCurrentBatch = 0;
+	private boolean inPerson = false;
+
+	ParallelPopulationReaderMatsimV6(
+			final String inputCRS,
+			final String targetCRS,
+			final Scenario scenario,
+			final int numThreads) {
+		super(inputCRS, targetCRS, scenario);
+		this.scenario = scenario;
+		this.population = scenario.getPopulation();
+		this.numThreads = Math.max(1, numThreads);
+	}
+
+	@Override
+	public void putAttributeConverter(final Class<?> clazz, final AttributeConverter<?> converter) {
+		super.putAttributeConverter(clazz, converter);
+		this.attributeConverters.put(clazz, converter);
+	}
+
+	@Override
+	public void putAttributeConverters(final Map<Class<?>, AttributeConverter<?>> converters) {
+		super.putAttributeConverters(converters);
+		this.attributeConverters.putAll(converters);
+	}
+
+	@Override
+	public void startTag(final String name, final Attributes atts, final Stack<String> context) {
+		if (PERSON.equals(name)) {
+			if (this.executor == null) {
+				initThreads();
+			}
+			this.inPerson = true;
+		}
+		if (this.inPerson) {
+			// We have to create copies of the attributes because the object is re-used by the parser!
+			this.currentBatch.add(new Tag(name, new AttributesImpl(atts), null));
+		} else {
+			super.startTag(name, atts, context);
+		}
+	}
+
+	@Override
+	public void endTag(final String name, final String content, final Stack<String> context) {
+		if (this.inPerson) {
+			this.currentBatch.add(new Tag(name, null, content));
+			if (PERSON.equals(name)) {
+				this.inPerson = false;
+				this.personsInCurrentBatch++;
+				if (this.personsInCurrentBatch == BATCH_SIZE) {
+					submitCurrentBatch();
+				}
+			}
+		} else {
+			if (POPULATION.equals(name)) {
+				finishThreads();
+			}
+			super.endTag(name, content, context);
+		}
+	}
+
+	private void initThreads() {
+		log.info("Start parallel population reading with " + this.numThreads + " threads...");
+		// the header of the population (e.g. the CRS given as population attribute) is completely known at this point
+		this.personsCoordinateTransformation = getCoordinateTransformation();
+		this.executor = Executors.newFixedThreadPool(this.numThreads, runnable -> {
+			Thread thread = new Thread(runnable, ParallelPopulationReaderMatsimV6.class.getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private void submitCurrentBatch() {
+		final List<Tag> batch = this.currentBatch;
+		this.pendingBatches.add(this.executor.submit(() -> parseBatch(batch)));
+		this.currentBatch = new ArrayList<>();
+		this.personsInCurrentBatch = 0;
+		// keep the number of persons in memory bounded, in particular when streaming
+		while (this.pendingBatches.size() > 2 * this.numThreads) {
+			addPersons(this.pendingBatches.poll());
+		}
+	}
+
+	private void finishThreads() {
+		if (this.executor == null) {
+			return;
+		}
+		try {
+			if (this.personsInCurrentBatch > 0) {
+				submitCurrentBatch();
+			}
+			while (!this.pendingBatches.isEmpty()) {
+				addPersons(this.pendingBatches.poll());
+			}
+		} finally {
+			this.executor.shutdownNow();
+			this.executor = null;
+		}
+		log.info("Finished parallel population reading...");
+	}
+
+	private void addPersons(final Future<List<Person>> batch) {
+		try {
+			for (Person person : batch.get()) {
+				this.population.addPerson(person);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			this.executor.shutdownNow();
+			throw new RuntimeException("problem parsing persons", e.getCause());
+		}
+	}
+
+	private List<Person> parseBatch(final List<Tag> batch) {
+		final List<Person> persons = new ArrayList<>(BATCH_SIZE);
+		PopulationReaderMatsimV6 reader = new PopulationReaderMatsimV6(this.personsCoordinateTransformation, this.scenario) {
+			@Override
+			void addPerson(final Person person) {
+				persons.add(person);
+			}
+		};
+		reader.putAttributeConverters(this.attributeConverters);
+
+		Stack<String> context = new Stack<>();
+		context.push(POPULATION);
+		for (Tag tag : batch) {
+			if (tag.atts != null) {
+				reader.startTag(tag.name, tag.atts, context);
+				context.push(tag.name);
+			} else {
+				context.pop();
+				reader.endTag(tag.name, tag.content, context);
+			}
+		}
+		return persons;
+	}
+
+	/**
+	 * A start tag (with attributes) or an end tag (with content) within a person.
+	 */
+	private static final class Tag {
+		final String name;
+		final Attributes atts;
+		final String content;
+
+		Tag(final String name, final Attributes atts, final String content) {
+			this.name = name;
+			this.atts = atts;
+			this.content = content;
+		}
+	}
+
+}
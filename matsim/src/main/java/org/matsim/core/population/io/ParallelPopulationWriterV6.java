@@ -0,0 +1,161 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.io.ChunkCompression;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.utils.objectattributes.AttributeConverter;
+
+/**
+ * Writes a population in the format of population_v6.dtd with several threads, producing the same file as
+ * {@link PopulationWriterHandlerImplV6}.
+ * <p></p>
+ * The persons are split into chunks of {@value #CHUNK_SIZE} persons, which are serialized and compressed in parallel,
+ * each thread with its own {@link PopulationWriterHandlerImplV6}. The chunks are written to the file in order, and at
+ * most two chunks per thread are kept in memory. Compression is decided by the ending of the filename, see
+ * {@link ChunkCompression}.
+ */
+/* deliberately package */ final class ParallelPopulationWriterV6 {
+
+	private static final Logger log = Logger.getLogger(ParallelPopulationWriterV6.class);
+
+	/*package*/ static final int CHUNK_SIZE = 1000;
+
+	private final CoordinateTransformation coordinateTransformation;
+	private final Population population;
+	private final Map<Class<?>, AttributeConverter<?>> converters;
+	private final int numberOfThreads;
+
+	ParallelPopulationWriterV6(final CoordinateTransformation coordinateTransformation, final Population population,
+			final Map<Class<?>, AttributeConverter<?>> converters, final int numberOfThreads) {
+		this.coordinateTransformation = coordinateTransformation;
+		this.population = population;
+		this.converters = converters;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
+	void write(final String filename) {
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+			write(out, ChunkCompression.forFilename(filename));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		log.info("Population written to: " + filename);
+	}
+
+	/**
+	 * Writes the uncompressed population to the stream, without closing it.
+	 */
+	void write(final OutputStream out) {
+		try {
+			write(out, ChunkCompression.none);
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void write(final OutputStream out, final ChunkCompression compression) throws IOException {
+		List<Person> persons = new ArrayList<>(PopulationUtils.getSortedPersons(this.population).values());
+		log.info("writing " + persons.size() + " persons with " + this.numberOfThreads + " threads...");
+
+		ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads, runnable -> {
+			Thread thread = new Thread(runnable, ParallelPopulationWriterV6.class.getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			Deque<Future<byte[]>> pendingChunks = new ArrayDeque<>();
+			pendingChunks.add(executor.submit(() -> writeChunk(null, compression)));
+			for (int start = 0; start < persons.size(); start += CHUNK_SIZE) {
+				List<Person> chunk = persons.subList(start, Math.min(start + CHUNK_SIZE, persons.size()));
+				pendingChunks.add(executor.submit(() -> writeChunk(chunk, compression)));
+				while (pendingChunks.size() > 2 * this.numberOfThreads) {
+					out.write(getChunk(pendingChunks.poll()));
+				}
+			}
+			while (!pendingChunks.isEmpty()) {
+				out.write(getChunk(pendingChunks.poll()));
+			}
+			out.write(writeChunk(new ArrayList<>(), compression));
+			compression.finish(out);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static byte[] getChunk(final Future<byte[]> chunk) {
+		try {
+			return chunk.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("problem writing persons", e.getCause());
+		}
+	}
+
+	/**
+	 * @param persons the persons to write, <code>null</code> for the start of the file and an empty list for its end
+	 */
+	private byte[] writeChunk(final List<Person> persons, final ChunkCompression compression) throws IOException {
+		PopulationWriterHandlerImplV6 handler = new PopulationWriterHandlerImplV6(this.coordinateTransformation);
+		handler.putAttributeConverters(this.converters);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(persons == null ? 1024 : 4096 * persons.size() + 1024);
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+		if (persons == null) {
+			handler.writeHeaderAndStartElement(writer);
+			handler.startPlans(this.population, writer);
+			handler.writeSeparator(writer);
+		} else if (persons.isEmpty()) {
+			handler.endPlans(writer);
+		} else {
+			for (Person person : persons) {
+				handler.writePerson(person, writer);
+			}
+		}
+		writer.flush();
+		return compression.compress(bytes.toByteArray());
+	}
+
+}
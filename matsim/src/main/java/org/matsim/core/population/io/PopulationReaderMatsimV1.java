@@ -146,7 +146,7 @@ import org.xml.sax.Attributes;
 	}
 
 	private void startPerson(final Attributes atts) {
-		this.currperson = PopulationUtils.getFactory().createPerson(Id.create(atts.getValue("id"), Person.class));
+		this.currperson = this.plans.getFactory().createPerson(Id.create(atts.getValue("id"), Person.class));
 		PersonUtils.setSex(this.currperson, atts.getValue("sex"));
 		
 		PersonUtils.setAge(this.currperson, Integer.parseInt(atts.getValue("age")));
@@ -174,7 +174,7 @@ import org.xml.sax.Attributes;
 			throw new NumberFormatException(
 					"Attribute 'selected' of Element 'Plan' is neither 'yes' nor 'no'.");
 		}
-		this.currplan = PersonUtils.createAndAddPlan(this.currperson, selected);
+		this.currplan = PersonUtils.createAndAddPlan(this.plans.getFactory(), this.currperson, selected);
 		this.routeNodes = null;
 
 		String scoreString = atts.getValue("score");
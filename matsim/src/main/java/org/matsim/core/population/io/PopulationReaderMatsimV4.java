@@ -185,7 +185,7 @@ import org.xml.sax.Attributes;
 //		int age = Integer.MIN_VALUE;
 		Integer age = null;
 		if (ageString != null) age = Integer.parseInt(ageString);
-		this.currperson = PopulationUtils.getFactory().createPerson(Id.create(atts.getValue("id"), Person.class));
+		this.currperson = this.plans.getFactory().createPerson(Id.create(atts.getValue("id"), Person.class));
 		PersonUtils.setSex(this.currperson, atts.getValue("sex"));
 		PersonUtils.setAge(this.currperson, age);
 		PersonUtils.setLicence(this.currperson, atts.getValue("license"));
@@ -247,7 +247,7 @@ import org.xml.sax.Attributes;
 			throw new NumberFormatException("Attribute 'selected' of Element 'Plan' is neither 'yes' nor 'no'.");
 		}
 		this.routeDescription = null;
-		this.currplan = PersonUtils.createAndAddPlan(this.currperson, selected);
+		this.currplan = PersonUtils.createAndAddPlan(this.plans.getFactory(), this.currperson, selected);
 
 		String scoreString = atts.getValue("score");
 		if (scoreString != null) {
@@ -164,7 +164,7 @@ import org.xml.sax.Attributes;
 		Integer age = null ;
 		if (ageString != null)
 			age = Integer.parseInt(ageString);
-		this.currperson = PopulationUtils.getFactory().createPerson(Id.create(atts.getValue(ATTR_PERSON_ID), Person.class));
+		this.currperson = this.plans.getFactory().createPerson(Id.create(atts.getValue(ATTR_PERSON_ID), Person.class));
 		PersonUtils.setSex(this.currperson, atts.getValue(ATTR_PERSON_SEX));
 		PersonUtils.setAge(this.currperson, age);
 		PersonUtils.setLicence(this.currperson, atts.getValue(ATTR_PERSON_LICENSE));
@@ -191,7 +191,7 @@ import org.xml.sax.Attributes;
 					"Attribute 'selected' of Element 'Plan' is neither 'yes' nor 'no'.");
 		}
 		this.routeDescription = null;
-		this.currplan = PersonUtils.createAndAddPlan(this.currperson, selected);
+		this.currplan = PersonUtils.createAndAddPlan(this.plans.getFactory(), this.currperson, selected);
 
 		String scoreString = atts.getValue(ATTR_PLAN_SCORE);
 		if (scoreString != null) {
@@ -128,6 +128,20 @@ import java.util.Stack;
 	    }
 	}
 
+	/**
+	 * Creates a reader for the persons of a population whose header has already been read by another reader,
+	 * see {@link ParallelPopulationReaderMatsimV6}.
+	 */
+	/*package*/ PopulationReaderMatsimV6(
+			final CoordinateTransformation coordinateTransformation,
+			final Scenario scenario) {
+		this.externalInputCRS = null;
+		this.targetCRS = null;
+		this.scenario = scenario;
+		this.plans = scenario.getPopulation();
+		this.coordinateTransformation = coordinateTransformation;
+	}
+
 	public void putAttributeConverter( final Class<?> clazz , AttributeConverter<?> converter ) {
 		attributesReader.putAttributeConverter( clazz , converter );
 	}
@@ -191,7 +205,7 @@ import java.util.Stack;
 	public void endTag(final String name, final String content, final Stack<String> context) {
 		switch ( name ) {
 			case PERSON:
-				this.plans.addPerson(this.currperson);
+				addPerson(this.currperson);
 				this.currperson = null;
 				break;
 			case ATTRIBUTE:
@@ -227,12 +241,20 @@ import java.util.Stack;
 		}
 	}
 
+	/*package*/ void addPerson(final Person person) {
+		this.plans.addPerson(person);
+	}
+
+	/*package*/ CoordinateTransformation getCoordinateTransformation() {
+		return this.coordinateTransformation;
+	}
+
 	private void startPopulation(final Attributes atts) {
 		this.plans.setName(atts.getValue(ATTR_POPULATION_DESC));
 	}
 
 	private void startPerson(final Attributes atts) {
-		this.currperson = PopulationUtils.getFactory().createPerson(Id.create(atts.getValue(ATTR_PERSON_ID), Person.class));
+		this.currperson = this.plans.getFactory().createPerson(Id.create(atts.getValue(ATTR_PERSON_ID), Person.class));
 	}
 
 	private void startPlan(final Attributes atts) {
@@ -249,7 +271,7 @@ import java.util.Stack;
 					"Attribute 'selected' of Element 'Plan' is neither 'yes' nor 'no'.");
 		}
 		this.routeDescription = null;
-		this.currplan = PersonUtils.createAndAddPlan(this.currperson, selected);
+		this.currplan = PersonUtils.createAndAddPlan(this.plans.getFactory(), this.currperson, selected);
 
 		String scoreString = atts.getValue(ATTR_PLAN_SCORE);
 		if (scoreString != null) {
@@ -51,6 +51,7 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 
 	private final static Logger log = Logger.getLogger(PopulationWriter.class);
 	private Map<Class<?>,AttributeConverter<?>> converters = new HashMap<>();
+	private int numberOfThreads = 1;
 
 
 	public PopulationWriter(final Population population) {
@@ -128,11 +129,30 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 		this.converters.put( key, converter );
 	}
 
+	/**
+	 * Lets {@link #write(String)} and {@link #write(OutputStream)} serialize and compress the persons with the given
+	 * number of threads. Only used for the current file format, if all persons are written and compression is decided
+	 * by the ending of the filename. The file is the same as with one thread. The coordinate transformation must be
+	 * thread-safe.
+	 */
+	public void setNumberOfThreads(final int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	private boolean isWritingInParallel() {
+		return this.numberOfThreads > 1 && this.handler instanceof PopulationWriterHandlerImplV6
+				&& this.write_person_fraction >= 1.0 && this.useCompression == null;
+	}
+
 	/**
 	 * Writes all plans to the file.
 	 */
 	@Override
 	public final void write(final String filename) {
+		if (isWritingInParallel()) {
+			new ParallelPopulationWriterV6(this.coordinateTransformation, this.population, this.converters, this.numberOfThreads).write(filename);
+			return;
+		}
 		try {
 			this.handler.putAttributeConverters(converters);
 			this.openFile(filename);
@@ -156,6 +176,15 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 	 * 
 	 */
 	public final void write(OutputStream outputStream) {
+		if (isWritingInParallel()) {
+			try {
+				new ParallelPopulationWriterV6(this.coordinateTransformation, this.population, this.converters, this.numberOfThreads).write(outputStream);
+				outputStream.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return;
+		}
 		try {
 			this.handler.putAttributeConverters(converters);
 			this.openOutputStream(outputStream);
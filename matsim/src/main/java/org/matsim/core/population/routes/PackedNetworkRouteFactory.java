@@ -0,0 +1,82 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.Arrays;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Route;
+
+/**
+ * Creates network routes which store their links as delta-encoded link indices in a byte array, see
+ * {@link PackedNetworkRouteImpl}. Unlike {@link CompressedNetworkRouteFactory}, the network is optional; it is only
+ * used to pre-compute the length of the routes.
+ */
+public final class PackedNetworkRouteFactory implements RouteFactory {
+
+	private final Network network;
+	private volatile double[] lengthByLinkIndex = null;
+
+	public PackedNetworkRouteFactory(final Network network) {
+		this.network = network;
+	}
+
+	@Override
+	public Route createRoute(final Id<Link> startLinkId, final Id<Link> endLinkId) {
+		return new PackedNetworkRouteImpl(startLinkId, endLinkId, this);
+	}
+
+	@Override
+	public String getCreatedRouteType() {
+		return LinkNetworkRouteImpl.ROUTE_TYPE;
+	}
+
+	/*package*/ Network getNetwork() {
+		return this.network;
+	}
+
+	/**
+	 * @return the length of the link, or NaN if there is no network or the link is not part of it
+	 */
+	/*package*/ double getLinkLength(final Id<Link> linkId) {
+		if (this.network == null) {
+			return Double.NaN;
+		}
+		double[] lengths = this.lengthByLinkIndex;
+		if (lengths == null || linkId.index() >= lengths.length) {
+			lengths = updateLengths();
+		}
+		return linkId.index() < lengths.length ? lengths[linkId.index()] : Double.NaN;
+	}
+
+	private synchronized double[] updateLengths() {
+		// links might have been added to the network since the last update
+		double[] lengths = new double[Id.getNumberOfIds(Link.class)];
+		Arrays.fill(lengths, Double.NaN);
+		for (Link link : this.network.getLinks().values()) {
+			lengths[link.getId().index()] = link.getLength();
+		}
+		this.lengthByLinkIndex = lengths;
+		return lengths;
+	}
+
+}
@@ -0,0 +1,340 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Implementation of {@link NetworkRoute} which stores the links of the route as the differences between the
+ * {@link Id#index() indices} of subsequent link ids, each encoded as a zig-zag varint in one byte array. Subsequent
+ * links often have similar indices, so most links need one or two bytes instead of a reference each.
+ * <p></p>
+ * The list returned by {@link #getLinkIds()} decodes the links on the fly. It is kept with the route until the links
+ * change, and it remembers the last decoded link. So the mobsim agents, which call {@code getLinkIds().get(i)} for
+ * every link they enter, decode each link once and do not allocate anything. Accessing the list backwards starts
+ * decoding at the first link again. Iterators decode on their own and do not move the list's position.
+ * The summed length of the links between the start and end link is computed once when the links are set, see
+ * {@link RouteUtils#calcDistanceExcludingStartEndLink(NetworkRoute, org.matsim.api.core.v01.network.Network)}.
+ */
+final class PackedNetworkRouteImpl extends AbstractRoute implements NetworkRoute {
+
+	private static final byte[] EMPTY = new byte[0];
+
+	private final PackedNetworkRouteFactory factory;
+	private byte[] links = EMPTY;
+	private int numberOfLinks = 0;
+	private double linksLength = 0.0;
+	private double travelCost = Double.NaN;
+	private Id<Vehicle> vehicleId = null;
+	/* volatile: the list is created lazily, and its position fields are not final */
+	private volatile LinkIds linkIdsView = null;
+
+	PackedNetworkRouteImpl(final Id<Link> startLinkId, final Id<Link> endLinkId, final PackedNetworkRouteFactory factory) {
+		super(startLinkId, endLinkId);
+		this.factory = factory;
+	}
+
+	@Override
+	public PackedNetworkRouteImpl clone() {
+		// the byte array is never modified, only replaced, so it can be shared, as well as the list decoding it
+		return (PackedNetworkRouteImpl) super.clone();
+	}
+
+	@Override
+	public void setLinkIds(final Id<Link> startLinkId, final List<Id<Link>> srcRoute, final Id<Link> endLinkId) {
+		setStartLinkId(startLinkId);
+		setEndLinkId(endLinkId);
+		if (srcRoute == null || srcRoute.isEmpty()) {
+			this.links = EMPTY;
+			this.numberOfLinks = 0;
+			this.linksLength = 0.0;
+			return;
+		}
+		byte[] buffer = new byte[srcRoute.size() * 5];
+		int position = 0;
+		// the first link is stored with its absolute index, so changing the start link does not invalidate the links
+		int previousIndex = 0;
+		double length = 0.0;
+		for (Id<Link> linkId : srcRoute) {
+			int index = linkId.index();
+			int delta = index - previousIndex;
+			int zigzag = (delta << 1) ^ (delta >> 31);
+			while ((zigzag & ~0x7f) != 0) {
+				buffer[position++] = (byte) ((zigzag & 0x7f) | 0x80);
+				zigzag >>>= 7;
+			}
+			buffer[position++] = (byte) zigzag;
+			previousIndex = index;
+			length += this.factory.getLinkLength(linkId);
+		}
+		this.links = Arrays.copyOf(buffer, position);
+		this.numberOfLinks = srcRoute.size();
+		this.linksLength = length;
+	}
+
+	@Override
+	public List<Id<Link>> getLinkIds() {
+		LinkIds view = this.linkIdsView;
+		if (view == null || view.data != this.links) {
+			view = new LinkIds();
+			this.linkIdsView = view;
+		}
+		return view;
+	}
+
+	/**
+	 * @return the summed length of the links between the start and end link, or NaN if the
+	 * factory has no network or some link is not part of it.
+	 */
+	/*package*/ double getLinksLength() {
+		return this.linksLength;
+	}
+
+	/*package*/ PackedNetworkRouteFactory getFactory() {
+		return this.factory;
+	}
+
+	@Override
+	public NetworkRoute getSubRoute(final Id<Link> fromLinkId, final Id<Link> toLinkId) {
+		List<Id<Link>> route = new ArrayList<>(getLinkIds());
+		// same as in LinkNetworkRouteImpl
+		int fromIndex = -1;
+		int toIndex = -1;
+
+		if (fromLinkId.equals(this.getStartLinkId())) {
+			fromIndex = 0;
+		} else {
+			for (int i = 0, n = route.size(); (i < n) && (fromIndex < 0); i++) {
+				if (fromLinkId.equals(route.get(i))) {
+					fromIndex = i+1;
+				}
+			}
+			if (fromIndex < 0 && fromLinkId.equals(this.getEndLinkId())) {
+				fromIndex = route.size();
+			}
+			if (fromIndex < 0) {
+				throw new IllegalArgumentException("Cannot create subroute because fromLinkId is not part of the route.");
+			}
+		}
+
+		if (fromLinkId.equals(toLinkId)) {
+			toIndex = fromIndex - 1;
+		} else {
+			for (int i = fromIndex, n = route.size(); (i < n) && (toIndex < 0); i++) {
+				if (fromLinkId.equals(route.get(i))) {
+					fromIndex = i+1; // in case of a loop, cut it short
+				}
+				if (toLinkId.equals(route.get(i))) {
+					toIndex = i;
+				}
+			}
+			if (toIndex < 0 && toLinkId.equals(this.getEndLinkId())) {
+				toIndex = route.size();
+			}
+			if (toIndex < 0) {
+				throw new IllegalArgumentException("Cannot create subroute because toLinkId is not part of the route.");
+			}
+		}
+		NetworkRoute ret = new PackedNetworkRouteImpl(fromLinkId, toLinkId, this.factory);
+		if (toIndex > fromIndex) {
+			ret.setLinkIds(fromLinkId, route.subList(fromIndex, toIndex), toLinkId);
+		} else {
+			ret.setLinkIds(fromLinkId, null, toLinkId);
+		}
+		return ret;
+	}
+
+	@Override
+	public double getTravelCost() {
+		return this.travelCost;
+	}
+
+	@Override
+	public void setTravelCost(final double travelCost) {
+		this.travelCost = travelCost;
+	}
+
+	@Override
+	public Id<Vehicle> getVehicleId() {
+		return this.vehicleId;
+	}
+
+	@Override
+	public void setVehicleId(final Id<Vehicle> vehicleId) {
+		this.vehicleId = vehicleId;
+	}
+
+	@Override
+	public String getRouteType() {
+		return LinkNetworkRouteImpl.ROUTE_TYPE;
+	}
+
+	@Override
+	public String getRouteDescription() {
+		StringBuilder desc = new StringBuilder(100);
+		desc.append(this.getStartLinkId().toString());
+		for (Id<Link> linkId : this.getLinkIds()) {
+			desc.append(" ");
+			desc.append(linkId.toString());
+		}
+		// If the start links equals the end link additionally check if its is a round trip.
+		if (!this.getEndLinkId().equals(this.getStartLinkId()) || this.numberOfLinks > 0) {
+			desc.append(" ");
+			desc.append(this.getEndLinkId().toString());
+		}
+		return desc.toString();
+	}
+
+	@Override
+	public void setRouteDescription(final String routeDescription) {
+		List<Id<Link>> linkIds = NetworkUtils.getLinkIds(routeDescription);
+		Id<Link> startLinkId = getStartLinkId();
+		Id<Link> endLinkId = getEndLinkId();
+		if (linkIds.size() > 0) {
+			startLinkId = linkIds.remove(0);
+			setStartLinkId(startLinkId);
+		}
+		if (linkIds.size() > 0) {
+			endLinkId = linkIds.remove(linkIds.size() - 1);
+			setEndLinkId(endLinkId);
+		}
+		this.setLinkIds(startLinkId, linkIds, endLinkId);
+	}
+
+	/**
+	 * Two routes are equal if they have the same start and end link, the same links in between and the same
+	 * vehicle. This only compares the encoded links, nothing is decoded.
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof PackedNetworkRouteImpl)) {
+			return false;
+		}
+		PackedNetworkRouteImpl other = (PackedNetworkRouteImpl) obj;
+		return this.numberOfLinks == other.numberOfLinks
+				&& Objects.equals(this.getStartLinkId(), other.getStartLinkId())
+				&& Objects.equals(this.getEndLinkId(), other.getEndLinkId())
+				&& Arrays.equals(this.links, other.links)
+				&& Objects.equals(this.vehicleId, other.vehicleId);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Objects.hash(this.getStartLinkId(), this.getEndLinkId()) + Arrays.hashCode(this.links);
+	}
+
+	@Override
+	public String toString() {
+		String str = super.toString();
+		str += " linkIds=" + this.getLinkIds() ;
+		str += " travelCost=" + this.getTravelCost() ;
+		return str ;
+	}
+
+	/**
+	 * Decodes the links on demand. Remembers the position of the last decoded link, so accessing the links in
+	 * order does not need to start decoding at the beginning every time. The list may be shared by cloned routes
+	 * and thus by several threads, so access to the position is synchronized.
+	 */
+	private final class LinkIds extends AbstractList<Id<Link>> {
+		private final byte[] data = links;
+		private final int size = numberOfLinks;
+		private int cursorIndex = -1;
+		private int cursorPosition = 0;
+		private int cursorLinkIndex = 0;
+
+		@Override
+		public synchronized Id<Link> get(final int index) {
+			if (index < 0 || index >= this.size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+			}
+			if (index < this.cursorIndex) {
+				this.cursorIndex = -1;
+				this.cursorPosition = 0;
+				this.cursorLinkIndex = 0;
+			}
+			while (this.cursorIndex < index) {
+				int zigzag = 0;
+				int shift = 0;
+				byte b;
+				do {
+					b = this.data[this.cursorPosition++];
+					zigzag |= (b & 0x7f) << shift;
+					shift += 7;
+				} while (b < 0);
+				this.cursorLinkIndex += (zigzag >>> 1) ^ -(zigzag & 1);
+				this.cursorIndex++;
+			}
+			return Id.get(this.cursorLinkIndex, Link.class);
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
+
+		@Override
+		public Iterator<Id<Link>> iterator() {
+			return new Iterator<Id<Link>>() {
+				private int next = 0;
+				private int position = 0;
+				private int linkIndex = 0;
+
+				@Override
+				public boolean hasNext() {
+					return this.next < LinkIds.this.size;
+				}
+
+				@Override
+				public Id<Link> next() {
+					if (this.next >= LinkIds.this.size) {
+						throw new NoSuchElementException();
+					}
+					int zigzag = 0;
+					int shift = 0;
+					byte b;
+					do {
+						b = LinkIds.this.data[this.position++];
+						zigzag |= (b & 0x7f) << shift;
+						shift += 7;
+					} while (b < 0);
+					this.linkIndex += (zigzag >>> 1) ^ -(zigzag & 1);
+					this.next++;
+					return Id.get(this.linkIndex, Link.class);
+				}
+			};
+		}
+	}
+
+}
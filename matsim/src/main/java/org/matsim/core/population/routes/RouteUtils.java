@@ -142,6 +142,13 @@ public class RouteUtils {
 	 * @return
 	 */
 	public static double calcDistanceExcludingStartEndLink(final NetworkRoute route, final Network network) {
+		if (route instanceof PackedNetworkRouteImpl) {
+			PackedNetworkRouteImpl packedRoute = (PackedNetworkRouteImpl) route;
+			// the length was summed up when the links were set, as long as it refers to the same network
+			if (packedRoute.getFactory().getNetwork() == network && !Double.isNaN(packedRoute.getLinksLength())) {
+				return packedRoute.getLinksLength();
+			}
+		}
 		double dist = 0;
 		for (Id<Link> linkId : route.getLinkIds()) {
 			dist += network.getLinks().get(linkId).getLength();
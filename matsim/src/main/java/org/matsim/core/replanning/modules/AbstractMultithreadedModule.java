@@ -24,13 +24,16 @@ import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.replanning.PlanStrategyModule;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.GlobalConfigGroup.ReplanningScheduling;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 import org.matsim.core.replanning.ReplanningContext;
 import org.matsim.core.utils.misc.Counter;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -50,6 +53,11 @@ import java.util.concurrent.atomic.AtomicReference;
  * "fast threads"), it helps building reproducible runs.  Additionally, as the threads are only
  * started after all to-be-handled plans are added, we can use unsynchronized data structures.
  * <p></p>
+ * With {@link ReplanningScheduling#dynamic}, all plans are collected in one list instead, and every thread fetches
+ * the next few plans from it whenever it is idle.  This avoids waiting for the slowest thread when the plans take
+ * very different time to handle (e.g. long pt plans vs. a single walk), but the plans an algorithm instance
+ * handles, and thus the random numbers it uses for them, depend on the timing of the threads.
+ * <p></p>
  * Design comments/questions:<ul>
  * <li> As a consequence of the design, the instances that getPlanAlgoInstance() returns, need to be thread-safe.  kai, dec'12
  * For an example with discussions, see {@link tutorial.programming.multiThreadedPlanStrategy.RunWithMultithreadedModule}
@@ -59,8 +67,13 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 abstract public class AbstractMultithreadedModule implements PlanStrategyModule {
 	private final int numOfThreads;
+	private final ReplanningScheduling scheduling;
+
+	/** number of plans a thread fetches at once with {@link ReplanningScheduling#dynamic} */
+	private static final int CHUNK_SIZE = 16;
 
 	private PlanAlgoThread[] algothreads = null;
+	private List<Plan> sharedPlans = null;
 	private Thread[] threads = null;
 	private PlanAlgorithm directAlgo = null;
 	private String name = null;
@@ -83,11 +96,16 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	abstract public PlanAlgorithm getPlanAlgoInstance();
 
 	public AbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
-		this.numOfThreads = globalConfigGroup.getNumberOfThreads();
+		this(globalConfigGroup.getNumberOfThreads(), globalConfigGroup.getReplanningScheduling());
 	}
 
 	public AbstractMultithreadedModule(final int numOfThreads) {
+		this(numOfThreads, ReplanningScheduling.roundRobin);
+	}
+
+	public AbstractMultithreadedModule(final int numOfThreads, final ReplanningScheduling scheduling) {
 		this.numOfThreads = numOfThreads;
+		this.scheduling = scheduling;
 	}
 	
 	protected void beforePrepareReplanningHook(@SuppressWarnings("unused") ReplanningContext replanningContextTmp) {
@@ -118,7 +136,11 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	@Override
 	public final void handlePlan(final Plan plan) {
 		if (this.directAlgo == null) {
-			this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
+			if (this.sharedPlans != null) {
+				this.sharedPlans.add(plan);
+			} else {
+				this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
+			}
 			this.count++;
 		} else {
 			this.directAlgo.run(plan);
@@ -154,6 +176,7 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 				throw new RuntimeException(e);
 			}
 			log.info("[" + this.name + "] all " + this.threads.length + " threads finished.");
+			logBusyTimes();
 			Throwable throwable = this.hadException.get();
 			if (throwable != null) {
 				throw new RuntimeException("Some threads crashed, thus not all plans may have been handled.", throwable);
@@ -161,6 +184,7 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		}
 		// reset
 		this.algothreads = null;
+		this.sharedPlans = null;
 		this.threads = null;
 		this.replanningContext = null;
 		this.count = 0;
@@ -176,6 +200,11 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		this.hadException.set(null);
 		this.threads = new Thread[this.numOfThreads];
 		this.algothreads = new PlanAlgoThread[this.numOfThreads];
+		AtomicInteger nextPlan = null;
+		if (this.scheduling == ReplanningScheduling.dynamic) {
+			this.sharedPlans = new ArrayList<>();
+			nextPlan = new AtomicInteger(0);
+		}
 
 		Counter counter = null;
 		// setup threads
@@ -185,7 +214,8 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 				this.name = algo.getClass().getSimpleName();
 				counter = new Counter("[" + this.name + "] handled plan # ");
 			}
-			PlanAlgoThread algothread = new PlanAlgoThread(algo, counter);
+			PlanAlgoThread algothread = nextPlan == null ? new PlanAlgoThread(algo, counter)
+					: new PlanAlgoThread(algo, counter, this.sharedPlans, nextPlan);
 			Thread thread = new Thread(algothread, this.name + "." + i);
 			thread.setUncaughtExceptionHandler(this.exceptionHandler);
 			this.threads[i] = thread;
@@ -193,6 +223,14 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		}
 	}
 
+	private void logBusyTimes() {
+		StringBuilder str = new StringBuilder();
+		for (PlanAlgoThread algothread : this.algothreads) {
+			str.append(' ').append(algothread.handledPlans).append('/').append(algothread.busyTime / 1000000);
+		}
+		log.info("[" + this.name + "] plans/busy time [ms] per thread:" + str);
+	}
+
 	/* package (for a test) */ final int getNumOfThreads() {
 		return numOfThreads;
 	}
@@ -216,12 +254,27 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	private final static class PlanAlgoThread implements Runnable {
 
 		private final PlanAlgorithm planAlgo;
-		private final List<Plan> plans = new LinkedList<>();
+		private final List<Plan> plans;
+		private final AtomicInteger nextPlan;
 		private final Counter counter;
+		private int handledPlans = 0;
+		private long busyTime = 0;
 
 		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter) {
 			this.planAlgo = algo;
 			this.counter = counter;
+			this.plans = new LinkedList<>();
+			this.nextPlan = null;
+		}
+
+		/**
+		 * Fetches chunks of plans from the given list, which is shared with the other threads, until all plans are handled.
+		 */
+		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter, final List<Plan> sharedPlans, final AtomicInteger nextPlan) {
+			this.planAlgo = algo;
+			this.counter = counter;
+			this.plans = sharedPlans;
+			this.nextPlan = nextPlan;
 		}
 
 		public void addPlanToThread(final Plan plan) {
@@ -230,10 +283,27 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 		@Override
 		public void run() {
-			for (Plan plan : this.plans) {
-				this.planAlgo.run(plan);
-				this.counter.incCounter();
+			long start = System.nanoTime();
+			if (this.nextPlan == null) {
+				for (Plan plan : this.plans) {
+					handle(plan);
+				}
+			} else {
+				int size = this.plans.size();
+				for (int first = this.nextPlan.getAndAdd(CHUNK_SIZE); first < size; first = this.nextPlan.getAndAdd(CHUNK_SIZE)) {
+					int last = Math.min(first + CHUNK_SIZE, size);
+					for (int i = first; i < last; i++) {
+						handle(this.plans.get(i));
+					}
+				}
 			}
+			this.busyTime = System.nanoTime() - start;
+		}
+
+		private void handle(final Plan plan) {
+			this.planAlgo.run(plan);
+			this.counter.incCounter();
+			this.handledPlans++;
 		}
 	}
 }
@@ -28,6 +28,7 @@ import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.router.util.AStarNodeData;
+import org.matsim.core.router.util.LandmarksTimeSlices;
 import org.matsim.core.router.util.PreProcessLandmarks;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
@@ -70,8 +71,14 @@ public class AStarLandmarks extends AStarEuclidean {
 
 	protected final Node[] landmarks;
 
+	private final PreProcessLandmarks preProcessLandmarks;
+
+	private LandmarksTimeSlices timeSlices = null;
+	private int timeSlice = 0;
+
 	/*package*/ static final int controlInterval = 40;
 	/*package*/ int controlCounter = 0;
+	/*package*/ int exploredNodes = 0;
 
 	/**
 	 * Default constructor; sets the overdo factor to 1.
@@ -111,22 +118,51 @@ public class AStarLandmarks extends AStarEuclidean {
 		super(network, preProcessData, costFunction, timeFunction, overdoFactor);
 
 		this.landmarks = preProcessData.getLandmarks();
+		this.preProcessLandmarks = preProcessData;
+	}
+
+	/**
+	 * Lets the router estimate the remaining travel costs with the distances to and from the landmarks of the time
+	 * slice of the departure, instead of the distances computed from the minimum travel disutilities. The time slices
+	 * must have been computed by the same pre-processing data the router uses.
+	 */
+	/*package*/ void setTimeSlices(final LandmarksTimeSlices timeSlices) {
+		this.timeSlices = timeSlices;
+	}
+
+	/*package*/ LandmarksTimeSlices getTimeSlices() {
+		return this.timeSlices;
 	}
 
 	@Override
 	public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double startTime, final Person person, final Vehicle vehicle) {
 		this.controlCounter = 0;	// reset counter for each calculated path!
-		
+		this.exploredNodes = 0;
+		if (this.timeSlices != null) {
+			this.timeSlice = this.timeSlices.getTimeSlice(startTime);
+		}
+
 		if (this.landmarks.length >= 2) {
 			initializeActiveLandmarks(fromNode, toNode, 2);
 		} else {
 			initializeActiveLandmarks(fromNode, toNode, this.landmarks.length);
 		}
-		return super.calcLeastCostPath(fromNode, toNode, startTime, person, vehicle);
+		Path path = super.calcLeastCostPath(fromNode, toNode, startTime, person, vehicle);
+		this.preProcessLandmarks.addQuery(this.exploredNodes);
+		return path;
+	}
+
+	/**
+	 * @return the number of nodes that were expanded while calculating the last path. The fewer nodes, the better
+	 * the estimates of the landmarks.
+	 */
+	public int getNumberOfExploredNodes() {
+		return this.exploredNodes;
 	}
 
 	@Override
 	protected void relaxNode(final Node outNode, final Node toNode, final RouterPriorityQueue<Node> pendingNodes) {
+		this.exploredNodes++;
 		this.controlCounter++;
 		if (this.controlCounter == controlInterval) {
 			int newLandmarkIndex = checkToAddLandmark(outNode, toNode);
@@ -281,6 +317,9 @@ public class AStarLandmarks extends AStarEuclidean {
 	 */
 	protected double estimateRemainingTravelCost(final PreProcessLandmarks.LandmarksData fromRole,
 			final PreProcessLandmarks.LandmarksData toRole, final int index) {
+		if (this.timeSlices != null) {
+			return this.timeSlices.estimateRemainingTravelCost(this.timeSlice, fromRole, toRole, index) * this.overdoFactor;
+		}
 		double tmpTravTime;
 		final double fromMinLandmarkTravelTime = fromRole.getMinLandmarkTravelTime(index);
 		final double toMaxLandmarkTravelTime = toRole.getMaxLandmarkTravelTime(index);
@@ -26,8 +26,14 @@ import java.util.Map;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.PlansCalcRouteConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.PreProcessLandmarks;
@@ -35,16 +41,37 @@ import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
 /**
+ * Optionally, the distances to and from the landmarks are computed per time slice from the current travel
+ * disutilities, see {@link FastAStarLandmarksFactory}.
+ *
  * @author dgrether
  */
 @Singleton
-public class AStarLandmarksFactory implements LeastCostPathCalculatorFactory {
+public class AStarLandmarksFactory implements LeastCostPathCalculatorFactory, IterationStartsListener {
+
+	private static final Logger log = Logger.getLogger(AStarLandmarksFactory.class);
 
 	private final Map<Network, PreProcessLandmarks> preProcessData = new HashMap<>();
+	private final LandmarksTimeSlicesCache timeSlices = new LandmarksTimeSlicesCache();
 
 	private final int nThreads;
-	
+
+
 	@Inject
+	public AStarLandmarksFactory(final GlobalConfigGroup globalConfigGroup, final ControlerConfigGroup controlerConfigGroup,
+			final TravelTimeCalculatorConfigGroup travelTimeCalculatorConfigGroup, final PlansCalcRouteConfigGroup plansCalcRouteConfigGroup) {
+		this(globalConfigGroup.getNumberOfThreads());
+		if (controlerConfigGroup.getLandmarksTimeSliceSize() > 0) {
+			if (plansCalcRouteConfigGroup.getRoutingRandomness() != 0.0) {
+				throw new RuntimeException("Time dependent landmarks cannot take person specific travel disutilities into account. "
+						+ "Set routingRandomness in the " + PlansCalcRouteConfigGroup.GROUP_NAME + " config group to 0 or "
+						+ "landmarksTimeSliceSize in the " + ControlerConfigGroup.GROUP_NAME + " config group to 0.");
+			}
+			setTimeSlices(controlerConfigGroup.getLandmarksTimeSliceSize(), controlerConfigGroup.getLandmarksTimeHorizon(),
+					travelTimeCalculatorConfigGroup.getTraveltimeBinSize(), travelTimeCalculatorConfigGroup.getMaxTime());
+		}
+	}
+
 	public AStarLandmarksFactory(final GlobalConfigGroup globalConfigGroup) {
 		this(globalConfigGroup.getNumberOfThreads());
 	}
@@ -57,8 +84,23 @@ public class AStarLandmarksFactory implements LeastCostPathCalculatorFactory {
 		this(8);
 	}
 
+	/**
+	 * Lets the path calculators created from now on use landmark distances per time slice, see
+	 * {@link PreProcessLandmarks#calcTimeSlices(TravelDisutility, double, double, double, double)}.
+	 */
+	public synchronized void setTimeSlices(final double timeSliceSize, final double horizon, final double sampleInterval,
+			final double maxTime) {
+		this.timeSlices.setTimeSlices(timeSliceSize, horizon, sampleInterval, maxTime);
+	}
+
 	@Override
-	public synchronized LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+	public LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		return createPathCalculator(network, travelCosts, travelTimes, null);
+	}
+
+	@Override
+	public synchronized LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes,
+			final String routingMode) {
 		PreProcessLandmarks preProcessLandmarks = this.preProcessData.get(network);
 		if (preProcessLandmarks == null) {
 			preProcessLandmarks = new PreProcessLandmarks(travelCosts);
@@ -68,6 +110,42 @@ public class AStarLandmarksFactory implements LeastCostPathCalculatorFactory {
 		}
 		
 		final double overdoFactor = 1.0;
-		return new AStarLandmarks(network, preProcessLandmarks, travelCosts, travelTimes, overdoFactor);
+		AStarLandmarks router = new AStarLandmarks(network, preProcessLandmarks, travelCosts, travelTimes, overdoFactor);
+		if (this.timeSlices.isEnabled()) {
+			router.setTimeSlices(this.timeSlices.get(preProcessLandmarks, network, travelCosts, travelTimes, routingMode));
+		}
+		return router;
+	}
+
+	/**
+	 * Discards the landmark distances of all time slices, such that they are computed again from the travel
+	 * disutilities given to the next calls to {@link #createPathCalculator(Network, TravelDisutility, TravelTime)}.
+	 */
+	public synchronized void clearTimeSlices() {
+		this.timeSlices.clear();
+	}
+
+	/**
+	 * Computes the landmark distances of all time slices again, from the travel disutilities of the routing modes
+	 * they were computed for so far, see {@link LandmarksTimeSlicesCache}.
+	 */
+	public synchronized void refreshTimeSlices() {
+		this.timeSlices.refresh();
+	}
+
+	@Override
+	public void notifyIterationStarts(final IterationStartsEvent event) {
+		synchronized (this) {
+			for (PreProcessLandmarks data : this.preProcessData.values()) {
+				long queries = data.getNumberOfQueries();
+				if (queries > 0) {
+					log.info("explored " + (data.getNumberOfExploredNodes() / queries) + " nodes per query on average in "
+							+ queries + " queries.");
+				}
+				data.resetQueryStatistics();
+			}
+		}
+		// once for all routing threads, before the replanning requests new routers
+		refreshTimeSlices();
 	}
 }
\ No newline at end of file
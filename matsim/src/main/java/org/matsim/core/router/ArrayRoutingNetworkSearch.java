@@ -0,0 +1,295 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.ContractionHierarchiesRouter.NodeHeap;
+import org.matsim.core.router.ContractionHierarchiesRouter.NodeList;
+import org.matsim.core.router.util.ArrayRoutingNetwork;
+import org.matsim.core.router.util.ArrayRoutingNetworkNode;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.RoutingNetworkLink;
+import org.matsim.core.router.util.RoutingNetworkNode;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Searches of the {@link FastMultiNodeDijkstra} which work directly on the array indices of an
+ * {@link ArrayRoutingNetwork}. All arrays are allocated once and only the nodes touched by a search are reset
+ * afterwards, so a query does not allocate anything except for its result.
+ * <p></p>
+ * The in-links of the nodes, which the routing network does not provide, are collected when the first
+ * bidirectional search is done.
+ */
+/*package*/ final class ArrayRoutingNetworkSearch {
+
+	private final ArrayRoutingNetwork network;
+	private final TravelDisutility travelDisutility;
+	private final TravelTime travelTime;
+	private final int numberOfNodes;
+	private final RoutingNetworkNode[] nodes;
+
+	private final double[] forwardCosts;
+	private final double[] forwardTimes;
+	private final RoutingNetworkLink[] forwardLinks;
+	private final NodeHeap forwardHeap;
+	private final NodeList forwardTouched = new NodeList();
+
+	private double[] backwardCosts = null;
+	private RoutingNetworkLink[] backwardLinks = null;
+	private NodeHeap backwardHeap = null;
+	private final NodeList backwardTouched = new NodeList();
+
+	private int[] inFirst = null;
+	private RoutingNetworkLink[] inLinks = null;
+
+	private boolean[] isTarget = null;
+
+	/*package*/ ArrayRoutingNetworkSearch(final ArrayRoutingNetwork network, final TravelDisutility travelDisutility, final TravelTime travelTime) {
+		this.network = network;
+		this.travelDisutility = travelDisutility;
+		this.travelTime = travelTime;
+		this.numberOfNodes = network.getNodes().size();
+		this.nodes = new RoutingNetworkNode[this.numberOfNodes];
+		for (RoutingNetworkNode node : network.getNodes().values()) {
+			this.nodes[((ArrayRoutingNetworkNode) node).getArrayIndex()] = node;
+		}
+		this.forwardCosts = new double[this.numberOfNodes];
+		this.forwardTimes = new double[this.numberOfNodes];
+		this.forwardLinks = new RoutingNetworkLink[this.numberOfNodes];
+		Arrays.fill(this.forwardCosts, Double.POSITIVE_INFINITY);
+		this.forwardHeap = new NodeHeap(this.numberOfNodes);
+	}
+
+	/**
+	 * Bidirectional Dijkstra search. It alternately settles the node with the smaller cost of the forward and the
+	 * backward search and stops once the sum of both smallest costs is not smaller than the cost of the best path
+	 * found so far, which is the meeting criterion for the least cost path.
+	 * <p></p>
+	 * The backward search does not know when the links are entered, so both searches use the link costs at the
+	 * departure time. The travel time and cost of the path are then calculated link by link, like the other routers do.
+	 */
+	/*package*/ Path calcLeastCostPathBidirectional(final Node fromNode, final Node toNode, final double starttime,
+			final Person person, final Vehicle vehicle) {
+		final int from = getIndex(fromNode);
+		final int to = getIndex(toNode);
+		if (this.inFirst == null) {
+			initBackwardSearch();
+		}
+
+		this.forwardCosts[from] = 0.0;
+		this.forwardTouched.add(from);
+		this.forwardHeap.insert(from, 0.0);
+		this.backwardCosts[to] = 0.0;
+		this.backwardTouched.add(to);
+		this.backwardHeap.insert(to, 0.0);
+
+		double best = from == to ? 0.0 : Double.POSITIVE_INFINITY;
+		int meeting = from == to ? from : -1;
+		while (true) {
+			double forwardMin = this.forwardHeap.isEmpty() ? Double.POSITIVE_INFINITY : this.forwardHeap.peekCost();
+			double backwardMin = this.backwardHeap.isEmpty() ? Double.POSITIVE_INFINITY : this.backwardHeap.peekCost();
+			if (forwardMin + backwardMin >= best) {
+				break;
+			}
+			if (forwardMin <= backwardMin) {
+				int node = this.forwardHeap.poll();
+				double cost = this.forwardCosts[node];
+				for (RoutingNetworkLink link : this.nodes[node].getOutLinksArray()) {
+					int next = ((ArrayRoutingNetworkNode) link.getToNode()).getArrayIndex();
+					double newCost = cost + this.travelDisutility.getLinkTravelDisutility(link, starttime, person, vehicle);
+					if (update(next, newCost, link, this.forwardCosts, this.forwardLinks, this.forwardHeap, this.forwardTouched)
+							&& newCost + this.backwardCosts[next] < best) {
+						best = newCost + this.backwardCosts[next];
+						meeting = next;
+					}
+				}
+			} else {
+				int node = this.backwardHeap.poll();
+				double cost = this.backwardCosts[node];
+				for (int i = this.inFirst[node]; i < this.inFirst[node + 1]; i++) {
+					RoutingNetworkLink link = this.inLinks[i];
+					int previous = ((ArrayRoutingNetworkNode) link.getFromNode()).getArrayIndex();
+					double newCost = cost + this.travelDisutility.getLinkTravelDisutility(link, starttime, person, vehicle);
+					if (update(previous, newCost, link, this.backwardCosts, this.backwardLinks, this.backwardHeap, this.backwardTouched)
+							&& newCost + this.forwardCosts[previous] < best) {
+						best = newCost + this.forwardCosts[previous];
+						meeting = previous;
+					}
+				}
+			}
+		}
+
+		List<Link> links = null;
+		if (meeting != -1) {
+			links = new ArrayList<>();
+			for (int node = meeting; node != from; node = ((ArrayRoutingNetworkNode) this.forwardLinks[node].getFromNode()).getArrayIndex()) {
+				links.add(this.forwardLinks[node].getLink());
+			}
+			Collections.reverse(links);
+			for (int node = meeting; node != to; node = ((ArrayRoutingNetworkNode) this.backwardLinks[node].getToNode()).getArrayIndex()) {
+				links.add(this.backwardLinks[node].getLink());
+			}
+		}
+
+		reset(this.forwardTouched, this.forwardCosts, this.forwardHeap);
+		reset(this.backwardTouched, this.backwardCosts, this.backwardHeap);
+
+		if (links == null) {
+			return null;
+		}
+		List<Node> nodes = new ArrayList<>(links.size() + 1);
+		nodes.add(this.nodes[from].getNode());
+		double time = starttime;
+		double cost = 0.0;
+		for (Link link : links) {
+			cost += this.travelDisutility.getLinkTravelDisutility(link, time, person, vehicle);
+			time += this.travelTime.getLinkTravelTime(link, time, person, vehicle);
+			nodes.add(link.getToNode());
+		}
+		return new Path(nodes, links, time - starttime, cost);
+	}
+
+	/**
+	 * One time dependent Dijkstra search per from node, each of which stops once it has settled all to nodes.
+	 * The costs are thus the same as those of the paths found by {@link Dijkstra}.
+	 */
+	/*package*/ double[][] calcLeastCostMatrix(final List<? extends Node> fromNodes, final List<? extends Node> toNodes,
+			final double starttime, final Person person, final Vehicle vehicle) {
+		if (this.isTarget == null) {
+			this.isTarget = new boolean[this.numberOfNodes];
+		}
+		final int[] targets = new int[toNodes.size()];
+		int numberOfTargets = 0;
+		for (int j = 0; j < targets.length; j++) {
+			targets[j] = getIndex(toNodes.get(j));
+			if (!this.isTarget[targets[j]]) {
+				this.isTarget[targets[j]] = true;
+				numberOfTargets++;
+			}
+		}
+
+		final double[][] costs = new double[fromNodes.size()][];
+		for (int i = 0; i < costs.length; i++) {
+			final int from = getIndex(fromNodes.get(i));
+			this.forwardCosts[from] = 0.0;
+			this.forwardTimes[from] = starttime;
+			this.forwardTouched.add(from);
+			this.forwardHeap.insert(from, 0.0);
+			int remainingTargets = numberOfTargets;
+			while (remainingTargets > 0 && !this.forwardHeap.isEmpty()) {
+				int node = this.forwardHeap.poll();
+				if (this.isTarget[node]) {
+					remainingTargets--;
+				}
+				double cost = this.forwardCosts[node];
+				double time = this.forwardTimes[node];
+				for (RoutingNetworkLink link : this.nodes[node].getOutLinksArray()) {
+					int next = ((ArrayRoutingNetworkNode) link.getToNode()).getArrayIndex();
+					double newCost = cost + this.travelDisutility.getLinkTravelDisutility(link, time, person, vehicle);
+					if (update(next, newCost, link, this.forwardCosts, this.forwardLinks, this.forwardHeap, this.forwardTouched)) {
+						this.forwardTimes[next] = time + this.travelTime.getLinkTravelTime(link, time, person, vehicle);
+					}
+				}
+			}
+			final double[] row = new double[targets.length];
+			for (int j = 0; j < targets.length; j++) {
+				row[j] = this.forwardCosts[targets[j]];
+			}
+			costs[i] = row;
+			reset(this.forwardTouched, this.forwardCosts, this.forwardHeap);
+		}
+
+		for (int target : targets) {
+			this.isTarget[target] = false;
+		}
+		return costs;
+	}
+
+	private void initBackwardSearch() {
+		this.backwardCosts = new double[this.numberOfNodes];
+		this.backwardLinks = new RoutingNetworkLink[this.numberOfNodes];
+		Arrays.fill(this.backwardCosts, Double.POSITIVE_INFINITY);
+		this.backwardHeap = new NodeHeap(this.numberOfNodes);
+
+		int[] first = new int[this.numberOfNodes + 1];
+		int numberOfLinks = 0;
+		for (RoutingNetworkNode node : this.nodes) {
+			for (RoutingNetworkLink link : node.getOutLinksArray()) {
+				first[((ArrayRoutingNetworkNode) link.getToNode()).getArrayIndex() + 1]++;
+				numberOfLinks++;
+			}
+		}
+		for (int i = 0; i < this.numberOfNodes; i++) {
+			first[i + 1] += first[i];
+		}
+		int[] position = Arrays.copyOf(first, this.numberOfNodes);
+		RoutingNetworkLink[] links = new RoutingNetworkLink[numberOfLinks];
+		for (RoutingNetworkNode node : this.nodes) {
+			for (RoutingNetworkLink link : node.getOutLinksArray()) {
+				links[position[((ArrayRoutingNetworkNode) link.getToNode()).getArrayIndex()]++] = link;
+			}
+		}
+		this.inFirst = first;
+		this.inLinks = links;
+	}
+
+	private int getIndex(final Node node) {
+		Node routingNode = node instanceof ArrayRoutingNetworkNode ? node : this.network.getNodes().get(node.getId());
+		if (!(routingNode instanceof ArrayRoutingNetworkNode)) {
+			throw new IllegalArgumentException("The node passed as parameter is not part of the network stored by " +
+					FastMultiNodeDijkstra.class.getSimpleName() + ": Validation failed for node " + node.getId());
+		}
+		return ((ArrayRoutingNetworkNode) routingNode).getArrayIndex();
+	}
+
+	private static boolean update(final int node, final double cost, final RoutingNetworkLink link, final double[] costs,
+			final RoutingNetworkLink[] links, final NodeHeap heap, final NodeList touched) {
+		if (cost < costs[node]) {
+			if (costs[node] == Double.POSITIVE_INFINITY) {
+				touched.add(node);
+				heap.insert(node, cost);
+			} else {
+				heap.decreaseKey(node, cost);
+			}
+			costs[node] = cost;
+			links[node] = link;
+			return true;
+		}
+		return false;
+	}
+
+	private static void reset(final NodeList touched, final double[] costs, final NodeHeap heap) {
+		for (int i = 0; i < touched.size; i++) {
+			costs[touched.nodes[i]] = Double.POSITIVE_INFINITY;
+		}
+		touched.size = 0;
+		heap.clear();
+	}
+
+}
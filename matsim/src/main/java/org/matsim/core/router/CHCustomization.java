@@ -0,0 +1,148 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.router.util.TravelDisutility;
+
+/**
+ * The arc weights of a {@link CHGraph} for a given travel disutility, one set of weights per time bin.
+ * The weights of a time bin are calculated when they are first needed, using the travel disutility of every link at
+ * the start of the time bin. Instances are thread-safe, as required for travel disutilities anyway.
+ */
+final class CHCustomization {
+
+	private static final Logger log = Logger.getLogger(CHCustomization.class);
+
+	final CHGraph graph;
+	private final TravelDisutility travelDisutility;
+	private final double binSize;
+	private final AtomicReferenceArray<Weights> weights;
+	private final Object[] locks;
+
+	CHCustomization(final CHGraph graph, final TravelDisutility travelDisutility, final double binSize, final int numberOfBins) {
+		this.graph = graph;
+		this.travelDisutility = travelDisutility;
+		this.binSize = binSize;
+		this.weights = new AtomicReferenceArray<>(numberOfBins);
+		this.locks = new Object[numberOfBins];
+		for (int i = 0; i < numberOfBins; i++) {
+			this.locks[i] = new Object();
+		}
+	}
+
+	Weights getWeights(final double time) {
+		int bin = (int) (time / this.binSize);
+		if (bin < 0) {
+			bin = 0;
+		} else if (bin >= this.weights.length()) {
+			bin = this.weights.length() - 1;
+		}
+		Weights w = this.weights.get(bin);
+		if (w == null) {
+			// different time bins may be customized by different threads concurrently
+			synchronized (this.locks[bin]) {
+				w = this.weights.get(bin);
+				if (w == null) {
+					w = customize(bin * this.binSize);
+					this.weights.set(bin, w);
+				}
+			}
+		}
+		return w;
+	}
+
+	private Weights customize(final double time) {
+		final CHGraph g = this.graph;
+		final float[] up = new float[g.numberOfArcs];
+		final float[] down = new float[g.numberOfArcs];
+		Arrays.fill(up, Float.POSITIVE_INFINITY);
+		Arrays.fill(down, Float.POSITIVE_INFINITY);
+
+		for (int arc = 0; arc < g.numberOfArcs; arc++) {
+			for (int i = g.arcLinkFirst[arc]; i < g.arcLinkFirst[arc + 1]; i++) {
+				Link link = g.arcLinks[i];
+				float weight = getLinkWeight(link, time);
+				if (g.getRank(link.getFromNode()) == g.arcLow[arc]) {
+					up[arc] = Math.min(up[arc], weight);
+				} else {
+					down[arc] = Math.min(down[arc], weight);
+				}
+			}
+		}
+
+		// basic customization: for every pair of upward arcs (x, y) and (x, z) with y < z, the path y -> x -> z
+		// may be shorter than the arc (y, z). Processing x in rank order guarantees that both arcs are final.
+		for (int x = 0; x < g.numberOfNodes; x++) {
+			int first = g.upFirst[x];
+			int last = g.upFirst[x + 1];
+			for (int i = first; i < last; i++) {
+				float upXY = up[i];
+				float downXY = down[i];
+				if (upXY == Float.POSITIVE_INFINITY && downXY == Float.POSITIVE_INFINITY) {
+					continue;
+				}
+				// the upward neighbours of x above y are a subset of the upward neighbours of y, both lists are sorted
+				int yz = g.upFirst[g.arcHigh[i]];
+				for (int j = i + 1; j < last; j++) {
+					int z = g.arcHigh[j];
+					while (g.arcHigh[yz] != z) {
+						yz++;
+					}
+					float viaUp = downXY + up[j];
+					if (viaUp < up[yz]) {
+						up[yz] = viaUp;
+					}
+					float viaDown = down[j] + upXY;
+					if (viaDown < down[yz]) {
+						down[yz] = viaDown;
+					}
+				}
+			}
+		}
+		log.debug("customized contraction hierarchy for time " + time);
+		return new Weights(up, down, time);
+	}
+
+	float getLinkWeight(final Link link, final double time) {
+		return (float) this.travelDisutility.getLinkTravelDisutility(link, time, null, null);
+	}
+
+	/**
+	 * The weights of all arcs, from the lower to the higher node (<code>up</code>) and back (<code>down</code>).
+	 * Unreachable connections have the weight {@link Float#POSITIVE_INFINITY}.
+	 */
+	static final class Weights {
+		final float[] up;
+		final float[] down;
+		final double time;
+
+		Weights(final float[] up, final float[] down, final double time) {
+			this.up = up;
+			this.down = down;
+			this.time = time;
+		}
+	}
+
+}
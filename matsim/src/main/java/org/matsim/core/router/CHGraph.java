@@ -0,0 +1,365 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * The metric-independent part of a customizable contraction hierarchy, see {@link ContractionHierarchiesFactory}.
+ * <p></p>
+ * The nodes are ordered by a geometric nested dissection: the nodes are recursively split at the median of their
+ * coordinates along the longer side of their bounding box, the nodes separating both halves are contracted after
+ * all nodes of both halves. Contracting the nodes in this order without witness searches results in a graph where
+ * every node is only connected to nodes contracted later ("upward arcs"), which does not depend on the travel
+ * disutilities and thus can be built once per network.
+ * <p></p>
+ * Nodes are identified by their rank in the contraction order. An arc connects a lower and a higher ranked node, and
+ * has a weight in both directions ("up" from the lower to the higher node and "down" the other way), which are set
+ * by {@link CHCustomization}. The arcs of every node are sorted by the rank of the higher node.
+ * <p></p>
+ * In the resulting graph, the parent of a node in the elimination tree, i.e. its lowest ranked upward neighbour,
+ * is the next node to be contracted among all nodes reachable by upward arcs. Thus, all nodes reachable by an
+ * upward search from a node are its ancestors in the elimination tree.
+ */
+final class CHGraph {
+
+	private static final Logger log = Logger.getLogger(CHGraph.class);
+
+	private static final int LEAF_SIZE = 4;
+
+	final Network network;
+	final int numberOfNodes;
+	final int numberOfArcs;
+
+	/* node data, indexed by rank */
+	final Node[] nodes;
+	final int[] upFirst;
+	final int[] downFirst;
+	final int[] parent;
+
+	/* arc data */
+	final int[] arcLow;
+	final int[] arcHigh;
+	/* for every node, the arcs connecting it to lower ranked nodes, sorted by the rank of the lower node */
+	final int[] downArcs;
+	final int[] arcLinkFirst;
+	final Link[] arcLinks;
+
+	/* indexed by Id.index() of the node id */
+	private final int[] rankByNodeIndex;
+
+	private CHGraph(final Network network, final Node[] nodes, final int[][] upNeighbours) {
+		this.network = network;
+		this.numberOfNodes = nodes.length;
+		this.nodes = nodes;
+
+		int maxIndex = 0;
+		for (Node node : nodes) {
+			maxIndex = Math.max(maxIndex, node.getId().index());
+		}
+		this.rankByNodeIndex = new int[maxIndex + 1];
+		Arrays.fill(this.rankByNodeIndex, -1);
+		for (int r = 0; r < this.numberOfNodes; r++) {
+			this.rankByNodeIndex[nodes[r].getId().index()] = r;
+		}
+
+		// upward arcs
+		this.upFirst = new int[this.numberOfNodes + 1];
+		for (int r = 0; r < this.numberOfNodes; r++) {
+			this.upFirst[r + 1] = this.upFirst[r] + upNeighbours[r].length;
+		}
+		this.numberOfArcs = this.upFirst[this.numberOfNodes];
+		this.arcLow = new int[this.numberOfArcs];
+		this.arcHigh = new int[this.numberOfArcs];
+		this.parent = new int[this.numberOfNodes];
+		int[] downCounts = new int[this.numberOfNodes + 1];
+		for (int r = 0; r < this.numberOfNodes; r++) {
+			int[] neighbours = upNeighbours[r];
+			this.parent[r] = neighbours.length == 0 ? -1 : neighbours[0];
+			for (int i = 0; i < neighbours.length; i++) {
+				int arc = this.upFirst[r] + i;
+				this.arcLow[arc] = r;
+				this.arcHigh[arc] = neighbours[i];
+				downCounts[neighbours[i] + 1]++;
+			}
+		}
+
+		// downward arcs; as arcs are numbered by their lower node, they end up sorted by it
+		this.downFirst = new int[this.numberOfNodes + 1];
+		for (int r = 0; r < this.numberOfNodes; r++) {
+			this.downFirst[r + 1] = this.downFirst[r] + downCounts[r + 1];
+		}
+		this.downArcs = new int[this.numberOfArcs];
+		int[] fill = Arrays.copyOf(this.downFirst, this.numberOfNodes);
+		for (int arc = 0; arc < this.numberOfArcs; arc++) {
+			this.downArcs[fill[this.arcHigh[arc]]++] = arc;
+		}
+
+		// links belonging to every arc
+		List<Link> links = new ArrayList<>(network.getLinks().size());
+		int[] linkArcs = new int[network.getLinks().size()];
+		this.arcLinkFirst = new int[this.numberOfArcs + 1];
+		for (Link link : network.getLinks().values()) {
+			int from = getRank(link.getFromNode());
+			int to = getRank(link.getToNode());
+			if (from == to) {
+				continue; // loops are never part of a least cost path
+			}
+			int arc = findArc(Math.min(from, to), Math.max(from, to));
+			linkArcs[links.size()] = arc;
+			links.add(link);
+			this.arcLinkFirst[arc + 1]++;
+		}
+		for (int arc = 0; arc < this.numberOfArcs; arc++) {
+			this.arcLinkFirst[arc + 1] += this.arcLinkFirst[arc];
+		}
+		this.arcLinks = new Link[links.size()];
+		fill = Arrays.copyOf(this.arcLinkFirst, this.numberOfArcs);
+		for (int i = 0; i < links.size(); i++) {
+			this.arcLinks[fill[linkArcs[i]]++] = links.get(i);
+		}
+	}
+
+	/**
+	 * @return the rank of the node, or <code>-1</code> if the node is not part of the network of this graph.
+	 */
+	int getRank(final Node node) {
+		int index = node.getId().index();
+		if (index >= this.rankByNodeIndex.length) {
+			return -1;
+		}
+		int rank = this.rankByNodeIndex[index];
+		return (rank >= 0 && this.nodes[rank] == node) ? rank : -1;
+	}
+
+	/**
+	 * @return the arc between the nodes with the ranks <code>low &lt; high</code>, or <code>-1</code> if there is no such arc.
+	 */
+	int findArc(final int low, final int high) {
+		int from = this.upFirst[low];
+		int to = this.upFirst[low + 1] - 1;
+		while (from <= to) {
+			int mid = (from + to) >>> 1;
+			int rank = this.arcHigh[mid];
+			if (rank < high) {
+				from = mid + 1;
+			} else if (rank > high) {
+				to = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	static CHGraph create(final Network network) {
+		long start = System.currentTimeMillis();
+		final Node[] networkNodes = network.getNodes().values().toArray(new Node[0]);
+		final int n = networkNodes.length;
+
+		int maxIndex = 0;
+		for (Node node : networkNodes) {
+			maxIndex = Math.max(maxIndex, node.getId().index());
+		}
+		int[] indexByNodeIndex = new int[maxIndex + 1];
+		for (int i = 0; i < n; i++) {
+			indexByNodeIndex[networkNodes[i].getId().index()] = i;
+		}
+
+		// undirected adjacency, ignoring loops and parallel links
+		int[][] neighbours = new int[n][];
+		int[] degrees = new int[n];
+		for (int i = 0; i < n; i++) {
+			neighbours[i] = new int[4];
+		}
+		for (Link link : network.getLinks().values()) {
+			int from = indexByNodeIndex[link.getFromNode().getId().index()];
+			int to = indexByNodeIndex[link.getToNode().getId().index()];
+			if (from != to) {
+				add(neighbours, degrees, from, to);
+				add(neighbours, degrees, to, from);
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			neighbours[i] = sortedUnique(neighbours[i], degrees[i]);
+		}
+
+		// contraction order
+		double[] x = new double[n];
+		double[] y = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = networkNodes[i].getCoord().getX();
+			y[i] = networkNodes[i].getCoord().getY();
+		}
+		Integer[] all = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			all[i] = i;
+		}
+		int[] order = new int[n];
+		int[] side = new int[n];
+		dissect(all, neighbours, x, y, side, order, new int[] { 0 });
+		int[] rank = new int[n];
+		Node[] nodes = new Node[n];
+		for (int r = 0; r < n; r++) {
+			rank[order[r]] = r;
+			nodes[r] = networkNodes[order[r]];
+		}
+
+		// contraction, i.e. the symbolic elimination: the upward neighbours of a node are its original upward
+		// neighbours, plus the upward neighbours of all its children in the elimination tree
+		int[][] upNeighbours = new int[n][];
+		int[][] pending = new int[n][];
+		int[] pendingSizes = new int[n];
+		for (int r = 0; r < n; r++) {
+			int[] original = neighbours[order[r]];
+			int[] candidates = pending[r] == null ? new int[original.length] : Arrays.copyOf(pending[r], pendingSizes[r] + original.length);
+			int size = pending[r] == null ? 0 : pendingSizes[r];
+			pending[r] = null;
+			for (int neighbour : original) {
+				if (rank[neighbour] > r) {
+					candidates[size++] = rank[neighbour];
+				}
+			}
+			int[] up = sortedUnique(candidates, size);
+			upNeighbours[r] = up;
+			if (up.length > 1) {
+				int p = up[0];
+				for (int i = 1; i < up.length; i++) {
+					add(pending, pendingSizes, p, up[i]);
+				}
+			}
+		}
+
+		CHGraph graph = new CHGraph(network, nodes, upNeighbours);
+		log.info("contraction hierarchy with " + n + " nodes and " + graph.numberOfArcs + " arcs (" + network.getLinks().size()
+				+ " links) built in " + (System.currentTimeMillis() - start) / 1000.0 + " seconds.");
+		return graph;
+	}
+
+	/**
+	 * Appends the nodes in <code>set</code> to <code>order</code> in nested dissection order.
+	 */
+	private static void dissect(final Integer[] set, final int[][] neighbours, final double[] x, final double[] y,
+			final int[] side, final int[] order, final int[] size) {
+		if (set.length <= LEAF_SIZE) {
+			for (int node : set) {
+				order[size[0]++] = node;
+			}
+			return;
+		}
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int node : set) {
+			minX = Math.min(minX, x[node]);
+			maxX = Math.max(maxX, x[node]);
+			minY = Math.min(minY, y[node]);
+			maxY = Math.max(maxY, y[node]);
+		}
+		final double[] coords = (maxX - minX >= maxY - minY) ? x : y;
+		Arrays.sort(set, Comparator.comparingDouble(node -> coords[node]));
+
+		final int half = set.length / 2;
+		for (int i = 0; i < set.length; i++) {
+			side[set[i]] = i < half ? 1 : 2;
+		}
+		// the separator consists of the nodes on the smaller border between both halves
+		int leftBorder = 0;
+		int rightBorder = 0;
+		for (int i = 0; i < set.length; i++) {
+			if (isBorder(set[i], neighbours, side)) {
+				if (i < half) {
+					leftBorder++;
+				} else {
+					rightBorder++;
+				}
+			}
+		}
+		final int separatorSide = leftBorder <= rightBorder ? 1 : 2;
+		List<Integer> left = new ArrayList<>(half);
+		List<Integer> right = new ArrayList<>(set.length - half);
+		List<Integer> separator = new ArrayList<>();
+		for (int node : set) {
+			if (side[node] == separatorSide && isBorder(node, neighbours, side)) {
+				separator.add(node);
+			} else if (side[node] == 1) {
+				left.add(node);
+			} else {
+				right.add(node);
+			}
+		}
+		for (int node : set) {
+			side[node] = 0;
+		}
+
+		// both halves are smaller than the set, as the separator is taken from one side only
+		dissect(left.toArray(new Integer[0]), neighbours, x, y, side, order, size);
+		dissect(right.toArray(new Integer[0]), neighbours, x, y, side, order, size);
+		for (int node : separator) {
+			order[size[0]++] = node;
+		}
+	}
+
+	private static boolean isBorder(final int node, final int[][] neighbours, final int[] side) {
+		int own = side[node];
+		for (int neighbour : neighbours[node]) {
+			int other = side[neighbour];
+			if (other != 0 && other != own) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void add(final int[][] lists, final int[] sizes, final int list, final int value) {
+		int[] values = lists[list];
+		if (values == null) {
+			values = new int[4];
+			lists[list] = values;
+		} else if (sizes[list] == values.length) {
+			values = Arrays.copyOf(values, 2 * values.length);
+			lists[list] = values;
+		}
+		values[sizes[list]++] = value;
+	}
+
+	private static int[] sortedUnique(final int[] values, final int size) {
+		Arrays.sort(values, 0, size);
+		int unique = 0;
+		for (int i = 0; i < size; i++) {
+			if (unique == 0 || values[unique - 1] != values[i]) {
+				values[unique++] = values[i];
+			}
+		}
+		return Arrays.copyOf(values, unique);
+	}
+
+}
@@ -0,0 +1,133 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.PlansCalcRouteConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * Creates least cost path calculators based on customizable contraction hierarchies.
+ * <p></p>
+ * Routing is split into three phases:<ul>
+ * <li> preprocessing: the contraction order and the resulting shortcuts only depend on the network, and are computed
+ *      once per network, see {@link CHGraph}.
+ * <li> customization: the weights of all arcs are computed from the travel disutilities, once per time bin (by
+ *      default the time bins of the travel time calculator) and iteration, see {@link CHCustomization}.
+ * <li> queries: searching a path only touches a small part of the network and takes microseconds, see
+ *      {@link ContractionHierarchiesRouter}.
+ * </ul>
+ * All path calculators created for the same network and routing mode within one iteration share the customization,
+ * even if each routing thread has its own travel disutility instance, see
+ * {@link LeastCostPathCalculatorFactory#createPathCalculator(Network, TravelDisutility, TravelTime, String)}. Without
+ * a routing mode, only path calculators for the same travel disutility and travel time instances share it. The
+ * contraction of a network is shared by all its path calculators. The customization is discarded at the start of
+ * every iteration, so when used outside of the controler, {@link #clearCustomizations()} has to be called whenever
+ * the travel times change.
+ * <p></p>
+ * The paths are searched with the travel disutility of every link at the start of the time bin of the departure,
+ * without a person or vehicle. Thus, this router cannot be used with person specific travel disutilities, in particular
+ * not with a <code>routingRandomness</code> other than 0.
+ */
+@Singleton
+public class ContractionHierarchiesFactory implements LeastCostPathCalculatorFactory, IterationStartsListener {
+
+	private final double binSize;
+	private final int numberOfBins;
+
+	private final Map<Network, CHGraph> graphs = new IdentityHashMap<>();
+	private final Map<List<Object>, CHCustomization> customizations = new HashMap<>();
+
+	@Inject
+	public ContractionHierarchiesFactory(final TravelTimeCalculatorConfigGroup travelTimeCalculatorConfigGroup,
+			final PlansCalcRouteConfigGroup plansCalcRouteConfigGroup) {
+		this(travelTimeCalculatorConfigGroup.getTraveltimeBinSize(), travelTimeCalculatorConfigGroup.getMaxTime());
+		if (plansCalcRouteConfigGroup.getRoutingRandomness() != 0.0) {
+			throw new RuntimeException("Contraction hierarchies cannot take person specific travel disutilities into account. "
+					+ "Set routingRandomness in the " + PlansCalcRouteConfigGroup.GROUP_NAME + " config group to 0 or use another routing algorithm.");
+		}
+	}
+
+	/**
+	 * @param binSize the length of the time bins the arc weights are computed for, in seconds
+	 * @param maxTime the end of the last time bin, later departures use the weights of the last time bin
+	 */
+	public ContractionHierarchiesFactory(final double binSize, final double maxTime) {
+		this.binSize = binSize;
+		this.numberOfBins = (int) (maxTime / binSize) + 1;
+	}
+
+	@Override
+	public LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		// the weights depend on the parameters of the instances, not only on their classes, so all are compared by identity
+		return createPathCalculator(network, travelCosts, travelTimes,
+				Arrays.asList(new IdentityKey(network), new IdentityKey(travelCosts), new IdentityKey(travelTimes)));
+	}
+
+	@Override
+	public LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes,
+			final String routingMode) {
+		return createPathCalculator(network, travelCosts, travelTimes, Arrays.asList(new IdentityKey(network), routingMode));
+	}
+
+	private synchronized LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts,
+			final TravelTime travelTimes, final List<Object> key) {
+		CHGraph graph = this.graphs.get(network);
+		if (graph == null) {
+			graph = CHGraph.create(network);
+			this.graphs.put(network, graph);
+		}
+		CHCustomization customization = this.customizations.get(key);
+		if (customization == null) {
+			customization = new CHCustomization(graph, travelCosts, this.binSize, this.numberOfBins);
+			this.customizations.put(key, customization);
+		}
+		return new ContractionHierarchiesRouter(customization, travelCosts, travelTimes);
+	}
+
+	/**
+	 * Discards the arc weights of all networks, such that they are computed again from the travel disutilities
+	 * given to the next calls to {@link #createPathCalculator(Network, TravelDisutility, TravelTime)}.
+	 */
+	public synchronized void clearCustomizations() {
+		this.customizations.clear();
+	}
+
+	@Override
+	public void notifyIterationStarts(final IterationStartsEvent event) {
+		clearCustomizations();
+	}
+
+}
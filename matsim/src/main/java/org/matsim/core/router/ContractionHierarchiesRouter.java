@@ -0,0 +1,479 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Least cost path calculator on a customizable contraction hierarchy, see {@link ContractionHierarchiesFactory}.
+ * <p></p>
+ * The path is searched with the weights of the time bin containing the departure time, using a bidirectional
+ * Dijkstra search which only follows arcs to higher ranked nodes, with stall-on-demand. The path leads over the node
+ * with the smallest sum of both distances; its arcs are then unpacked into the links they stand for.
+ * The travel time and cost of the resulting path are then calculated link by link, like the other routers do.
+ * <p></p>
+ * Note that the person and the vehicle are only taken into account for the travel time and cost of the path,
+ * but not for finding it.
+ * <p></p>
+ * {@link #calcLeastCostMatrix(List, List, double, Person, Vehicle)} uses the bucket based many-to-many search: an
+ * upward search backwards from every to node stores its costs in buckets at the nodes it reaches, then an upward
+ * search from every from node scans the buckets of the nodes it reaches. Both searches are as small as in the one to
+ * one case, so the costs of all pairs are found with one search per node instead of one per pair.
+ * <p></p>
+ * Instances are not thread-safe, use one instance per thread.
+ *
+ * @see CHGraph
+ * @see CHCustomization
+ */
+public class ContractionHierarchiesRouter implements LeastCostPathCalculator {
+
+	private final CHGraph graph;
+	private final CHCustomization customization;
+	private final TravelDisutility travelDisutility;
+	private final TravelTime travelTime;
+
+	private final double[] forwardCosts;
+	private final double[] backwardCosts;
+	private final int[] forwardArcs;
+	private final int[] backwardArcs;
+
+	private final NodeHeap forwardHeap;
+	private final NodeHeap backwardHeap;
+	private final NodeList forwardTouched = new NodeList();
+	private final NodeList backwardTouched = new NodeList();
+
+	private int[] stack = new int[64];
+
+	// buckets of the many-to-many search, as linked lists of entries per node
+	private int[] bucketHeads = null;
+	private int[] entryNext = new int[64];
+	private int[] entryTarget = new int[64];
+	private double[] entryCost = new double[64];
+	private int numberOfEntries = 0;
+	private final NodeList bucketNodes = new NodeList();
+
+	ContractionHierarchiesRouter(final CHCustomization customization, final TravelDisutility travelDisutility, final TravelTime travelTime) {
+		this.graph = customization.graph;
+		this.customization = customization;
+		this.travelDisutility = travelDisutility;
+		this.travelTime = travelTime;
+		this.forwardCosts = new double[this.graph.numberOfNodes];
+		this.backwardCosts = new double[this.graph.numberOfNodes];
+		this.forwardArcs = new int[this.graph.numberOfNodes];
+		this.backwardArcs = new int[this.graph.numberOfNodes];
+		Arrays.fill(this.forwardCosts, Double.POSITIVE_INFINITY);
+		Arrays.fill(this.backwardCosts, Double.POSITIVE_INFINITY);
+		this.forwardHeap = new NodeHeap(this.graph.numberOfNodes);
+		this.backwardHeap = new NodeHeap(this.graph.numberOfNodes);
+	}
+
+	@Override
+	public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double starttime, final Person person, final Vehicle vehicle) {
+		final int from = getRank(fromNode);
+		final int to = getRank(toNode);
+		final CHCustomization.Weights weights = this.customization.getWeights(starttime);
+
+		this.forwardCosts[from] = 0.0;
+		this.forwardTouched.add(from);
+		this.forwardHeap.insert(from, 0.0);
+		this.backwardCosts[to] = 0.0;
+		this.backwardTouched.add(to);
+		this.backwardHeap.insert(to, 0.0);
+
+		// bidirectional upward search: the forward search uses the weights from the lower to the higher node,
+		// the backward search the weights the other way. Both stop once they cannot improve the best path found.
+		double best = Double.POSITIVE_INFINITY;
+		int meeting = -1;
+		while (true) {
+			boolean forward;
+			if (this.forwardHeap.isEmpty() || this.forwardHeap.peekCost() >= best) {
+				if (this.backwardHeap.isEmpty() || this.backwardHeap.peekCost() >= best) {
+					break;
+				}
+				forward = false;
+			} else {
+				forward = this.backwardHeap.isEmpty() || this.backwardHeap.peekCost() >= best
+						|| this.forwardHeap.peekCost() <= this.backwardHeap.peekCost();
+			}
+
+			final NodeHeap heap = forward ? this.forwardHeap : this.backwardHeap;
+			final double[] costs = forward ? this.forwardCosts : this.backwardCosts;
+			final double[] otherCosts = forward ? this.backwardCosts : this.forwardCosts;
+			final int node = heap.poll();
+			final double cost = costs[node];
+			final double total = cost + otherCosts[node];
+			if (total < best) {
+				best = total;
+				meeting = node;
+			}
+			relax(node, cost, forward ? weights.up : weights.down, forward ? weights.down : weights.up,
+					costs, forward ? this.forwardArcs : this.backwardArcs, heap, forward ? this.forwardTouched : this.backwardTouched);
+		}
+
+		List<Link> links = null;
+		if (meeting != -1) {
+			links = new ArrayList<>();
+			// the arcs of the forward search are found backwards, starting at the meeting node
+			List<Integer> forwardPath = new ArrayList<>();
+			for (int node = meeting; node != from; node = this.graph.arcLow[this.forwardArcs[node]]) {
+				forwardPath.add(this.forwardArcs[node]);
+			}
+			for (int i = forwardPath.size() - 1; i >= 0; i--) {
+				unpack(forwardPath.get(i), true, weights, links);
+			}
+			for (int node = meeting; node != to; node = this.graph.arcLow[this.backwardArcs[node]]) {
+				unpack(this.backwardArcs[node], false, weights, links);
+			}
+		}
+
+		reset(this.forwardTouched, this.forwardCosts, this.forwardHeap);
+		reset(this.backwardTouched, this.backwardCosts, this.backwardHeap);
+
+		if (links == null) {
+			return null;
+		}
+		return createPath(fromNode, links, starttime, person, vehicle);
+	}
+
+	/**
+	 * Calculates the costs with the weights of the time bin containing the departure time, i.e. the costs of the
+	 * returned matrix are the costs used to find the paths, which need not be the same as the costs of the paths
+	 * calculated link by link as by {@link #calcLeastCostPath(Node, Node, double, Person, Vehicle)}.
+	 */
+	@Override
+	public double[][] calcLeastCostMatrix(final List<? extends Node> fromNodes, final List<? extends Node> toNodes,
+			final double starttime, final Person person, final Vehicle vehicle) {
+		final CHCustomization.Weights weights = this.customization.getWeights(starttime);
+		if (this.bucketHeads == null) {
+			this.bucketHeads = new int[this.graph.numberOfNodes];
+			Arrays.fill(this.bucketHeads, -1);
+		}
+
+		for (int target = 0; target < toNodes.size(); target++) {
+			final int to = getRank(toNodes.get(target));
+			this.backwardCosts[to] = 0.0;
+			this.backwardTouched.add(to);
+			this.backwardHeap.insert(to, 0.0);
+			while (!this.backwardHeap.isEmpty()) {
+				final int node = this.backwardHeap.poll();
+				final double cost = this.backwardCosts[node];
+				addBucketEntry(node, target, cost);
+				relax(node, cost, weights.down, weights.up, this.backwardCosts, this.backwardArcs, this.backwardHeap, this.backwardTouched);
+			}
+			reset(this.backwardTouched, this.backwardCosts, this.backwardHeap);
+		}
+
+		final double[][] costs = new double[fromNodes.size()][];
+		for (int source = 0; source < fromNodes.size(); source++) {
+			final double[] row = new double[toNodes.size()];
+			Arrays.fill(row, Double.POSITIVE_INFINITY);
+			final int from = getRank(fromNodes.get(source));
+			this.forwardCosts[from] = 0.0;
+			this.forwardTouched.add(from);
+			this.forwardHeap.insert(from, 0.0);
+			while (!this.forwardHeap.isEmpty()) {
+				final int node = this.forwardHeap.poll();
+				final double cost = this.forwardCosts[node];
+				// nodes which are stalled have too high costs, which is harmless here
+				for (int entry = this.bucketHeads[node]; entry >= 0; entry = this.entryNext[entry]) {
+					final double total = cost + this.entryCost[entry];
+					if (total < row[this.entryTarget[entry]]) {
+						row[this.entryTarget[entry]] = total;
+					}
+				}
+				relax(node, cost, weights.up, weights.down, this.forwardCosts, this.forwardArcs, this.forwardHeap, this.forwardTouched);
+			}
+			reset(this.forwardTouched, this.forwardCosts, this.forwardHeap);
+			costs[source] = row;
+		}
+
+		// empty the buckets, but keep the arrays for the next call
+		for (int i = 0; i < this.bucketNodes.size; i++) {
+			this.bucketHeads[this.bucketNodes.nodes[i]] = -1;
+		}
+		this.bucketNodes.size = 0;
+		this.numberOfEntries = 0;
+		return costs;
+	}
+
+	private void addBucketEntry(final int node, final int target, final double cost) {
+		if (this.numberOfEntries == this.entryNext.length) {
+			int length = 2 * this.entryNext.length;
+			this.entryNext = Arrays.copyOf(this.entryNext, length);
+			this.entryTarget = Arrays.copyOf(this.entryTarget, length);
+			this.entryCost = Arrays.copyOf(this.entryCost, length);
+		}
+		if (this.bucketHeads[node] == -1) {
+			this.bucketNodes.add(node);
+		}
+		this.entryNext[this.numberOfEntries] = this.bucketHeads[node];
+		this.entryTarget[this.numberOfEntries] = target;
+		this.entryCost[this.numberOfEntries] = cost;
+		this.bucketHeads[node] = this.numberOfEntries;
+		this.numberOfEntries++;
+	}
+
+	private int getRank(final Node node) {
+		int rank = this.graph.getRank(node);
+		if (rank < 0) {
+			throw new IllegalArgumentException("The node passed as parameter is not part of the network stored by " +
+					getClass().getSimpleName() + ": Validation failed for node " + node.getId());
+		}
+		return rank;
+	}
+
+	private void relax(final int node, final double cost, final float[] arcWeights, final float[] reverseWeights,
+			final double[] costs, final int[] arcs, final NodeHeap heap, final NodeList touched) {
+		final CHGraph g = this.graph;
+		final int first = g.upFirst[node];
+		final int last = g.upFirst[node + 1];
+		// stall-on-demand: if a higher node reaches this node cheaper, the search need not continue from here
+		for (int arc = first; arc < last; arc++) {
+			if (costs[g.arcHigh[arc]] + reverseWeights[arc] < cost) {
+				return;
+			}
+		}
+		for (int arc = first; arc < last; arc++) {
+			double newCost = cost + arcWeights[arc];
+			int high = g.arcHigh[arc];
+			if (newCost < costs[high]) {
+				if (costs[high] == Double.POSITIVE_INFINITY) {
+					touched.add(high);
+					heap.insert(high, newCost);
+				} else {
+					heap.decreaseKey(high, newCost);
+				}
+				costs[high] = newCost;
+				arcs[high] = arc;
+			}
+		}
+	}
+
+	private static void reset(final NodeList touched, final double[] costs, final NodeHeap heap) {
+		for (int i = 0; i < touched.size; i++) {
+			costs[touched.nodes[i]] = Double.POSITIVE_INFINITY;
+		}
+		touched.size = 0;
+		heap.clear();
+	}
+
+	CHCustomization getCustomization() {
+		return this.customization;
+	}
+
+	/**
+	 * Appends the links the arc stands for to <code>links</code>, in the order of the direction the arc is traversed in.
+	 * For every arc, the original link or pair of lower arcs with the smallest weight is chosen, which, due to the
+	 * customization, results in the weight of the arc.
+	 */
+	private void unpack(final int arc, final boolean up, final CHCustomization.Weights weights, final List<Link> links) {
+		final CHGraph g = this.graph;
+		int size = 0;
+		size = push(size, arc, up);
+		while (size > 0) {
+			size -= 2;
+			final int a = this.stack[size];
+			final boolean isUp = this.stack[size + 1] == 1;
+			final int low = g.arcLow[a];
+			final int high = g.arcHigh[a];
+			final float weight = isUp ? weights.up[a] : weights.down[a];
+
+			Link bestLink = null;
+			float bestCost = Float.POSITIVE_INFINITY;
+			for (int i = g.arcLinkFirst[a]; i < g.arcLinkFirst[a + 1]; i++) {
+				Link link = g.arcLinks[i];
+				if ((g.getRank(link.getFromNode()) == low) == isUp) {
+					float cost = (float) this.travelDisutility.getLinkTravelDisutility(link, weights.time, null, null);
+					if (cost < bestCost) {
+						bestCost = cost;
+						bestLink = link;
+					}
+				}
+			}
+
+			int bestFirst = -1;
+			int bestSecond = -1;
+			if (bestCost > weight) {
+				// look for the lower node x with the shortest path low -> x -> high (or the other way)
+				for (int i = g.downFirst[low]; i < g.downFirst[low + 1] && bestCost > weight; i++) {
+					int xLow = g.downArcs[i];
+					int xHigh = g.findArc(g.arcLow[xLow], high);
+					if (xHigh < 0) {
+						continue;
+					}
+					float cost = isUp ? weights.down[xLow] + weights.up[xHigh] : weights.down[xHigh] + weights.up[xLow];
+					if (cost < bestCost) {
+						bestCost = cost;
+						bestFirst = isUp ? xLow : xHigh;
+						bestSecond = isUp ? xHigh : xLow;
+					}
+				}
+			}
+
+			if (bestFirst >= 0) {
+				// first part goes down to x, the second part up from x; push in reverse order
+				size = push(size, bestSecond, true);
+				size = push(size, bestFirst, false);
+			} else if (bestLink != null) {
+				links.add(bestLink);
+			} else {
+				throw new IllegalStateException("cannot unpack arc between " + g.nodes[low].getId() + " and " + g.nodes[high].getId());
+			}
+		}
+	}
+
+	private int push(final int size, final int arc, final boolean up) {
+		if (size + 2 > this.stack.length) {
+			this.stack = Arrays.copyOf(this.stack, 2 * this.stack.length);
+		}
+		this.stack[size] = arc;
+		this.stack[size + 1] = up ? 1 : 0;
+		return size + 2;
+	}
+
+	private Path createPath(final Node fromNode, final List<Link> links, final double starttime, final Person person, final Vehicle vehicle) {
+		List<Node> nodes = new ArrayList<>(links.size() + 1);
+		nodes.add(fromNode);
+		double time = starttime;
+		double cost = 0.0;
+		for (Link link : links) {
+			cost += this.travelDisutility.getLinkTravelDisutility(link, time, person, vehicle);
+			time += this.travelTime.getLinkTravelTime(link, time, person, vehicle);
+			nodes.add(link.getToNode());
+		}
+		return new Path(nodes, links, time - starttime, cost);
+	}
+
+	/**
+	 * Nodes touched by a search, to reset their costs afterwards.
+	 */
+	/*package*/ static final class NodeList {
+		int[] nodes = new int[64];
+		int size = 0;
+
+		void add(final int node) {
+			if (this.size == this.nodes.length) {
+				this.nodes = Arrays.copyOf(this.nodes, 2 * this.nodes.length);
+			}
+			this.nodes[this.size++] = node;
+		}
+	}
+
+	/**
+	 * Binary min heap of node ranks, supporting decrease key.
+	 */
+	/*package*/ static final class NodeHeap {
+		private final int[] heap;
+		private final double[] keys;
+		private final int[] positions;
+		private int size = 0;
+
+		NodeHeap(final int numberOfNodes) {
+			this.heap = new int[numberOfNodes];
+			this.keys = new double[numberOfNodes];
+			this.positions = new int[numberOfNodes];
+			Arrays.fill(this.positions, -1);
+		}
+
+		boolean isEmpty() {
+			return this.size == 0;
+		}
+
+		double peekCost() {
+			return this.keys[this.heap[0]];
+		}
+
+		void insert(final int node, final double key) {
+			this.keys[node] = key;
+			siftUp(this.size++, node);
+		}
+
+		void decreaseKey(final int node, final double key) {
+			this.keys[node] = key;
+			siftUp(this.positions[node], node);
+		}
+
+		int poll() {
+			final int min = this.heap[0];
+			this.positions[min] = -1;
+			this.size--;
+			if (this.size > 0) {
+				siftDown(0, this.heap[this.size]);
+			}
+			return min;
+		}
+
+		void clear() {
+			for (int i = 0; i < this.size; i++) {
+				this.positions[this.heap[i]] = -1;
+			}
+			this.size = 0;
+		}
+
+		private void siftUp(int position, final int node) {
+			final double key = this.keys[node];
+			while (position > 0) {
+				int parent = (position - 1) >>> 1;
+				int parentNode = this.heap[parent];
+				if (this.keys[parentNode] <= key) {
+					break;
+				}
+				this.heap[position] = parentNode;
+				this.positions[parentNode] = position;
+				position = parent;
+			}
+			this.heap[position] = node;
+			this.positions[node] = position;
+		}
+
+		private void siftDown(int position, final int node) {
+			final double key = this.keys[node];
+			while (true) {
+				int child = 2 * position + 1;
+				if (child >= this.size) {
+					break;
+				}
+				if (child + 1 < this.size && this.keys[this.heap[child + 1]] < this.keys[this.heap[child]]) {
+					child++;
+				}
+				int childNode = this.heap[child];
+				if (this.keys[childNode] >= key) {
+					break;
+				}
+				this.heap[position] = childNode;
+				this.positions[childNode] = position;
+				position = child;
+			}
+			this.heap[position] = node;
+			this.positions[node] = position;
+		}
+	}
+
+}
@@ -22,7 +22,8 @@ package org.matsim.core.router;
 
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
-import org.matsim.core.router.priorityqueue.BinaryMinHeap;
+import org.matsim.core.router.priorityqueue.MinHeap;
+import org.matsim.core.router.priorityqueue.MinHeapType;
 import org.matsim.core.router.util.AStarNodeData;
 import org.matsim.core.router.util.AStarNodeDataFactory;
 import org.matsim.core.router.util.ArrayRoutingNetwork;
@@ -50,15 +51,17 @@ public class FastAStarEuclidean extends AStarEuclidean {
 
 	private final RoutingNetwork routingNetwork;
 	private final FastRouterDelegate fastRouter;
-	private BinaryMinHeap<ArrayRoutingNetworkNode> heap = null;
+	private final MinHeapType minHeapType;
+	private MinHeap<ArrayRoutingNetworkNode> heap = null;
 	private int maxSize = -1;
 	
 	FastAStarEuclidean(final RoutingNetwork routingNetwork, final PreProcessEuclidean preProcessData,
 			final TravelDisutility costFunction, final TravelTime timeFunction, final double overdoFactor,
-			final FastRouterDelegateFactory fastRouterFactory) {
+			final FastRouterDelegateFactory fastRouterFactory, final MinHeapType minHeapType) {
 		super(routingNetwork, preProcessData, costFunction, timeFunction, overdoFactor);
 
 		this.routingNetwork = routingNetwork;
+		this.minHeapType = minHeapType;
 		this.fastRouter = fastRouterFactory.createFastRouterDelegate(this, new AStarNodeDataFactory(), routingNetwork);
 
 		this.nodeData.clear();
@@ -90,7 +93,7 @@ public class FastAStarEuclidean extends AStarEuclidean {
 			int size = this.routingNetwork.getNodes().size();
 			if (this.heap == null || this.maxSize != size) {
 				this.maxSize = size;
-				this.heap = new BinaryMinHeap<>(maxSize);
+				this.heap = this.minHeapType.createMinHeap(maxSize);
 				return this.heap;
 			} else {
 				this.heap.reset();
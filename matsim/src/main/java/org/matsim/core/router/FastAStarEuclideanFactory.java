@@ -21,6 +21,7 @@
 package org.matsim.core.router;
 
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.router.priorityqueue.MinHeapType;
 import org.matsim.core.router.util.ArrayRoutingNetworkFactory;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
@@ -43,6 +44,7 @@ public class FastAStarEuclideanFactory implements LeastCostPathCalculatorFactory
 	private final Map<Network, RoutingNetwork> routingNetworks = new HashMap<>();
 	private final Map<Network, PreProcessEuclidean> preProcessData = new HashMap<>();
 	private final double overdoFactor;
+	private MinHeapType minHeapType = MinHeapType.BinaryMinHeap;
 
 	public FastAStarEuclideanFactory() {
 		this(1);		
@@ -65,6 +67,13 @@ public class FastAStarEuclideanFactory implements LeastCostPathCalculatorFactory
 		}
 	}
 
+	/**
+	 * Lets the path calculators created from now on use the given kind of heap for their pending nodes.
+	 */
+	public synchronized void setMinHeapType(final MinHeapType minHeapType) {
+		this.minHeapType = minHeapType;
+	}
+
 	@Override
 	public synchronized LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes) {
 		RoutingNetwork routingNetwork = this.routingNetworks.get(network);
@@ -87,6 +96,6 @@ public class FastAStarEuclideanFactory implements LeastCostPathCalculatorFactory
 		}
 		FastRouterDelegateFactory fastRouterFactory = new ArrayFastRouterDelegateFactory();
 		
-		return new FastAStarEuclidean(routingNetwork, preProcessEuclidean, travelCosts, travelTimes, overdoFactor, fastRouterFactory);
+		return new FastAStarEuclidean(routingNetwork, preProcessEuclidean, travelCosts, travelTimes, overdoFactor, fastRouterFactory, this.minHeapType);
 	}
 }
\ No newline at end of file
@@ -26,10 +26,18 @@ import java.util.Map;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.config.Config;
+import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.PlansCalcRouteConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.router.priorityqueue.MinHeapType;
 import org.matsim.core.router.util.ArrayRoutingNetworkFactory;
+import org.matsim.core.router.util.LandmarksTimeSlices;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.PreProcessLandmarks;
@@ -40,18 +48,44 @@ import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
 /**
+ * Optionally, the distances to and from the landmarks are computed per time slice from the current travel
+ * disutilities, see {@link LandmarksTimeSlices}. They are shared by all path calculators created for the same network
+ * and routing mode, i.e. by all routing threads, and are computed again at the start of every iteration, see
+ * {@link LandmarksTimeSlicesCache}. When used outside of the controler, {@link #refreshTimeSlices()} or
+ * {@link #clearTimeSlices()} has to be called whenever the travel times change.
+ *
  * @author cdobler
  */
 @Singleton
-public class FastAStarLandmarksFactory implements LeastCostPathCalculatorFactory {
-	
+public class FastAStarLandmarksFactory implements LeastCostPathCalculatorFactory, IterationStartsListener {
+
+	private static final Logger log = Logger.getLogger(FastAStarLandmarksFactory.class);
+
 	private final RoutingNetworkFactory routingNetworkFactory;
 	private final Map<Network, RoutingNetwork> routingNetworks = new HashMap<>();
 	private final Map<Network, PreProcessLandmarks> preProcessData = new HashMap<>();
+	private final LandmarksTimeSlicesCache timeSlices = new LandmarksTimeSlicesCache();
 
 	private final int nThreads;
 
+	private MinHeapType minHeapType = MinHeapType.BinaryMinHeap;
+
 	@Inject
+	public FastAStarLandmarksFactory(final GlobalConfigGroup globalConfigGroup, final ControlerConfigGroup controlerConfigGroup,
+			final TravelTimeCalculatorConfigGroup travelTimeCalculatorConfigGroup, final PlansCalcRouteConfigGroup plansCalcRouteConfigGroup) {
+		this(FastRouterType.ARRAY, globalConfigGroup.getNumberOfThreads());
+		setMinHeapType(controlerConfigGroup.getRoutingMinHeapType());
+		if (controlerConfigGroup.getLandmarksTimeSliceSize() > 0) {
+			if (plansCalcRouteConfigGroup.getRoutingRandomness() != 0.0) {
+				throw new RuntimeException("Time dependent landmarks cannot take person specific travel disutilities into account. "
+						+ "Set routingRandomness in the " + PlansCalcRouteConfigGroup.GROUP_NAME + " config group to 0 or "
+						+ "landmarksTimeSliceSize in the " + ControlerConfigGroup.GROUP_NAME + " config group to 0.");
+			}
+			setTimeSlices(controlerConfigGroup.getLandmarksTimeSliceSize(), controlerConfigGroup.getLandmarksTimeHorizon(),
+					travelTimeCalculatorConfigGroup.getTraveltimeBinSize(), travelTimeCalculatorConfigGroup.getMaxTime());
+		}
+	}
+
 	public FastAStarLandmarksFactory(final GlobalConfigGroup globalConfigGroup) {
 		this(FastRouterType.ARRAY, globalConfigGroup.getNumberOfThreads());
 	}
@@ -82,8 +116,30 @@ public class FastAStarLandmarksFactory implements LeastCostPathCalculatorFactory
 		this.nThreads = numberOfThreads;
 	}
 
+	/**
+	 * Lets the path calculators created from now on use the given kind of heap for their pending nodes.
+	 */
+	public synchronized void setMinHeapType(final MinHeapType minHeapType) {
+		this.minHeapType = minHeapType;
+	}
+
+	/**
+	 * Lets the path calculators created from now on use landmark distances per time slice, see
+	 * {@link PreProcessLandmarks#calcTimeSlices(TravelDisutility, double, double, double, double)}.
+	 */
+	public synchronized void setTimeSlices(final double timeSliceSize, final double horizon, final double sampleInterval,
+			final double maxTime) {
+		this.timeSlices.setTimeSlices(timeSliceSize, horizon, sampleInterval, maxTime);
+	}
+
+	@Override
+	public LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		return createPathCalculator(network, travelCosts, travelTimes, null);
+	}
+
 	@Override
-	public synchronized LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+	public synchronized LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes,
+			final String routingMode) {
 		RoutingNetwork routingNetwork = this.routingNetworks.get(network);
 		PreProcessLandmarks preProcessLandmarks = this.preProcessData.get(network);
 		
@@ -106,6 +162,43 @@ public class FastAStarLandmarksFactory implements LeastCostPathCalculatorFactory
 		FastRouterDelegateFactory fastRouterFactory = new ArrayFastRouterDelegateFactory();
 		
 		final double overdoFactor = 1.0;
-		return new FastAStarLandmarks(routingNetwork, preProcessLandmarks, travelCosts, travelTimes, overdoFactor, fastRouterFactory);
+		FastAStarLandmarks router = new FastAStarLandmarks(routingNetwork, preProcessLandmarks, travelCosts, travelTimes, overdoFactor, fastRouterFactory,
+				this.minHeapType);
+		if (this.timeSlices.isEnabled()) {
+			router.setTimeSlices(this.timeSlices.get(preProcessLandmarks, network, travelCosts, travelTimes, routingMode));
+		}
+		return router;
+	}
+
+	/**
+	 * Discards the landmark distances of all time slices, such that they are computed again from the travel
+	 * disutilities given to the next calls to {@link #createPathCalculator(Network, TravelDisutility, TravelTime)}.
+	 */
+	public synchronized void clearTimeSlices() {
+		this.timeSlices.clear();
+	}
+
+	/**
+	 * Computes the landmark distances of all time slices again, from the travel disutilities of the routing modes
+	 * they were computed for so far, see {@link LandmarksTimeSlicesCache}.
+	 */
+	public synchronized void refreshTimeSlices() {
+		this.timeSlices.refresh();
+	}
+
+	@Override
+	public void notifyIterationStarts(final IterationStartsEvent event) {
+		synchronized (this) {
+			for (PreProcessLandmarks data : this.preProcessData.values()) {
+				long queries = data.getNumberOfQueries();
+				if (queries > 0) {
+					log.info("explored " + (data.getNumberOfExploredNodes() / queries) + " nodes per query on average in "
+							+ queries + " queries.");
+				}
+				data.resetQueryStatistics();
+			}
+		}
+		// once for all routing threads, before the replanning requests new routers
+		refreshTimeSlices();
 	}
 }
\ No newline at end of file
@@ -21,6 +21,8 @@
 package org.matsim.core.router;
 
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.router.priorityqueue.MinHeapType;
 import org.matsim.core.router.util.ArrayRoutingNetworkFactory;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
@@ -44,8 +46,14 @@ public class FastDijkstraFactory implements LeastCostPathCalculatorFactory {
 	private final RoutingNetworkFactory routingNetworkFactory;
 	private final Map<Network, RoutingNetwork> routingNetworks = new HashMap<>();
 	private final Map<Network, PreProcessDijkstra> preProcessData = new HashMap<>();
+	private MinHeapType minHeapType = MinHeapType.BinaryMinHeap;
 
 	@Inject
+	public FastDijkstraFactory(final ControlerConfigGroup controlerConfigGroup) {
+		this(false, FastRouterType.ARRAY);
+		setMinHeapType(controlerConfigGroup.getRoutingMinHeapType());
+	}
+
 	public FastDijkstraFactory() {
 		this(false, FastRouterType.ARRAY);
 	}
@@ -69,6 +77,13 @@ public class FastDijkstraFactory implements LeastCostPathCalculatorFactory {
 		}
 	}
 
+	/**
+	 * Lets the path calculators created from now on use the given kind of heap for their pending nodes.
+	 */
+	public synchronized void setMinHeapType(final MinHeapType minHeapType) {
+		this.minHeapType = minHeapType;
+	}
+
 	@Override
 	public synchronized LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes) {
 		RoutingNetwork routingNetwork = this.routingNetworks.get(network);
@@ -93,6 +108,6 @@ public class FastDijkstraFactory implements LeastCostPathCalculatorFactory {
 		}
 		FastRouterDelegateFactory fastRouterFactory = new ArrayFastRouterDelegateFactory();
 		
-		return new FastDijkstra(routingNetwork, travelCosts, travelTimes, preProcessDijkstra, fastRouterFactory);
+		return new FastDijkstra(routingNetwork, travelCosts, travelTimes, preProcessDijkstra, fastRouterFactory, this.minHeapType);
 	}
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ package org.matsim.core.router;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
@@ -53,6 +54,7 @@ public class FastMultiNodeDijkstra extends MultiNodeDijkstra {
 	private final FastRouterDelegate fastRouter;
 	private BinaryMinHeap<ArrayRoutingNetworkNode> heap = null;
 	private int maxSize = -1;
+	private ArrayRoutingNetworkSearch search = null;
 	
 	/*
 	 * Create the routing network here and clear the nodeData map 
@@ -97,6 +99,43 @@ public class FastMultiNodeDijkstra extends MultiNodeDijkstra {
 		return super.calcLeastCostPath(routingNetworkFromNode, routingNetworkToNode, startTime, person, vehicle);
 	}
 	
+	/**
+	 * Calculates the least cost path with a bidirectional search, which usually settles far fewer nodes than
+	 * {@link #calcLeastCostPath(Node, Node, double, Person, Vehicle)}. As the backward search cannot know when
+	 * a link is entered, all links are evaluated with their cost at the departure time; the travel time and cost
+	 * of the returned path are calculated link by link, though. Use this method where the costs do not change much
+	 * during a trip, e.g. for short trips or for time independent travel disutilities.
+	 * <p></p>
+	 * Neither {@link ImaginaryNode}s nor dead end pruning are supported.
+	 */
+	public Path calcLeastCostPathBidirectional(final Node fromNode, final Node toNode, final double startTime, final Person person, final Vehicle vehicle) {
+		if (!(this.routingNetwork instanceof ArrayRoutingNetwork)) {
+			return calcLeastCostPath(fromNode, toNode, startTime, person, vehicle);
+		}
+		return getSearch().calcLeastCostPathBidirectional(fromNode, toNode, startTime, person, vehicle);
+	}
+
+	/**
+	 * Runs one search per from node, which stops as soon as all to nodes are settled, instead of one search per pair
+	 * of nodes. The searches work on the array indices of the routing network and re-use their data, and the costs are
+	 * the same as those of {@link #calcLeastCostPath(Node, Node, double, Person, Vehicle)}.
+	 */
+	@Override
+	public double[][] calcLeastCostMatrix(final List<? extends Node> fromNodes, final List<? extends Node> toNodes,
+			final double startTime, final Person person, final Vehicle vehicle) {
+		if (!(this.routingNetwork instanceof ArrayRoutingNetwork)) {
+			return super.calcLeastCostMatrix(fromNodes, toNodes, startTime, person, vehicle);
+		}
+		return getSearch().calcLeastCostMatrix(fromNodes, toNodes, startTime, person, vehicle);
+	}
+
+	private ArrayRoutingNetworkSearch getSearch() {
+		if (this.search == null) {
+			this.search = new ArrayRoutingNetworkSearch((ArrayRoutingNetwork) this.routingNetwork, this.costFunction, this.timeFunction);
+		}
+		return this.search;
+	}
+
 	@Override
 	/*package*/ RouterPriorityQueue<? extends Node> createRouterPriorityQueue() {
 		/*
@@ -0,0 +1,42 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+/**
+ * Wraps an object such that it is compared by identity when used as (part of) a map key, even if its class overrides
+ * {@link Object#equals(Object)}.
+ */
+/* package */ final class IdentityKey {
+	private final Object object;
+
+	IdentityKey(final Object object) {
+		this.object = object;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		return obj instanceof IdentityKey && ((IdentityKey) obj).object == this.object;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(this.object);
+	}
+}
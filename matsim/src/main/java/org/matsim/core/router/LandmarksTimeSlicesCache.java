@@ -0,0 +1,124 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.router.util.LandmarksTimeSlices;
+import org.matsim.core.router.util.PreProcessLandmarks;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * The landmark distances per time slice of the A* landmarks factories.
+ * <p></p>
+ * The distances for a routing mode are shared by all path calculators for the same network and routing mode, i.e. by
+ * all routing threads. They are computed the first time they are requested, and then again by {@link #refresh()} at
+ * the start of every iteration, from the travel disutility they were first computed with. Without a routing mode, the
+ * distances are only shared by path calculators for the same travel disutility and travel time instances, and are
+ * discarded by {@link #refresh()}.
+ * <p></p>
+ * Not thread-safe, the factories synchronize all accesses.
+ */
+/* package */ final class LandmarksTimeSlicesCache {
+
+	private final Map<List<Object>, Entry> entries = new HashMap<>();
+
+	private double timeSliceSize = 0.0;
+	private double horizon;
+	private double sampleInterval;
+	private double maxTime;
+
+	void setTimeSlices(final double timeSliceSize, final double horizon, final double sampleInterval, final double maxTime) {
+		this.timeSliceSize = timeSliceSize;
+		this.horizon = horizon;
+		this.sampleInterval = sampleInterval;
+		this.maxTime = maxTime;
+		this.entries.clear();
+	}
+
+	boolean isEnabled() {
+		return this.timeSliceSize > 0;
+	}
+
+	/**
+	 * @param routingMode the routing mode of the path calculator, or <code>null</code> if unknown
+	 */
+	LandmarksTimeSlices get(final PreProcessLandmarks preProcessLandmarks, final Network network, final TravelDisutility travelCosts,
+			final TravelTime travelTimes, final String routingMode) {
+		List<Object> key;
+		if (routingMode == null) {
+			// the landmark distances depend on the parameters of the instances, not only on their classes, so all are compared by identity
+			key = Arrays.asList(new IdentityKey(network), new IdentityKey(travelCosts), new IdentityKey(travelTimes));
+		} else {
+			key = Arrays.asList(new IdentityKey(network), routingMode);
+		}
+		Entry entry = this.entries.get(key);
+		if (entry == null) {
+			entry = new Entry(preProcessLandmarks, travelCosts, routingMode != null);
+			entry.slices = calcTimeSlices(entry);
+			this.entries.put(key, entry);
+		}
+		return entry.slices;
+	}
+
+	/**
+	 * Computes the distances of all routing modes again, and discards the ones without a routing mode.
+	 */
+	void refresh() {
+		Iterator<Entry> iter = this.entries.values().iterator();
+		while (iter.hasNext()) {
+			Entry entry = iter.next();
+			if (entry.perRoutingMode) {
+				entry.slices = calcTimeSlices(entry);
+			} else {
+				iter.remove();
+			}
+		}
+	}
+
+	void clear() {
+		this.entries.clear();
+	}
+
+	private LandmarksTimeSlices calcTimeSlices(final Entry entry) {
+		return entry.preProcessLandmarks.calcTimeSlices(entry.travelCosts, this.timeSliceSize, this.horizon, this.sampleInterval,
+				this.maxTime);
+	}
+
+	private static final class Entry {
+		final PreProcessLandmarks preProcessLandmarks;
+		final TravelDisutility travelCosts;
+		final boolean perRoutingMode;
+		LandmarksTimeSlices slices;
+
+		Entry(final PreProcessLandmarks preProcessLandmarks, final TravelDisutility travelCosts, final boolean perRoutingMode) {
+			this.preProcessLandmarks = preProcessLandmarks;
+			this.travelCosts = travelCosts;
+			this.perRoutingMode = perRoutingMode;
+		}
+	}
+
+}
@@ -0,0 +1,290 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.log4j.Logger;
+import org.matsim.analysis.IterationStopWatch;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.config.groups.PlansCalcRouteConfigGroup;
+import org.matsim.core.controler.events.AfterMobsimEvent;
+import org.matsim.core.controler.events.BeforeMobsimEvent;
+import org.matsim.core.controler.listener.AfterMobsimListener;
+import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutilityFactory;
+import org.matsim.core.router.costcalculators.RandomizingTimeDistanceTravelDisutilityFactory;
+import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.VehicleType;
+
+/**
+ * A bounded cache of least cost paths, shared by the network routers of all threads, see
+ * {@link ControlerConfigGroup#getRouteCacheSize()}. Paths are cached by mode, start node, end node, departure
+ * time bin and vehicle type, so agents with the same origin and destination in the same time bin share the path of
+ * the first of them, including its travel time.
+ * <p></p>
+ * Apart from the vehicle type, the key does not know anything about the person. So only paths for travel
+ * disutilities which do not differ by person are cached, see
+ * {@link #createPathCalculator(String, TravelDisutilityFactory, LeastCostPathCalculator)}.
+ * <p></p>
+ * The travel times change during the mobsim, so the cache is emptied before every mobsim and not used until the
+ * mobsim has ended. Paths which are still being calculated at that point are not added to the emptied cache. The
+ * numbers of hits and misses are written to the {@link IterationStopWatch}.
+ * <p></p>
+ * The cache is split into segments, each of which evicts its least recently used paths once it is full.
+ */
+@Singleton
+public final class NetworkRouteCache implements BeforeMobsimListener, AfterMobsimListener {
+
+	private static final Logger log = Logger.getLogger(NetworkRouteCache.class);
+
+	private static final int NUMBER_OF_SEGMENTS = 16;
+
+	private final int size;
+	private final double timeBinSize;
+	private final IterationStopWatch stopwatch;
+	private final Segment[] segments;
+
+	private volatile boolean enabled = true;
+	private volatile int version = 0;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final Set<String> uncachedNames = ConcurrentHashMap.newKeySet();
+
+	@Inject
+	NetworkRouteCache(ControlerConfigGroup controlerConfigGroup, PlansCalcRouteConfigGroup plansCalcRouteConfigGroup, IterationStopWatch stopwatch) {
+		this(controlerConfigGroup.getRouteCacheSize(), controlerConfigGroup.getRouteCacheTimeBinSize(), stopwatch);
+		if (this.size > 0 && plansCalcRouteConfigGroup.getRoutingRandomness() != 0.0) {
+			throw new RuntimeException("The route cache requires the routingRandomness to be 0, otherwise the agents would share "
+					+ "their randomized paths. Please set the routingRandomness to 0 or the routeCacheSize to 0.");
+		}
+	}
+
+	public NetworkRouteCache(final int size, final double timeBinSize) {
+		this(size, timeBinSize, null);
+	}
+
+	private NetworkRouteCache(final int size, final double timeBinSize, final IterationStopWatch stopwatch) {
+		this.size = size;
+		this.timeBinSize = timeBinSize;
+		this.stopwatch = stopwatch;
+		int numberOfSegments = Math.max(1, Math.min(NUMBER_OF_SEGMENTS, size));
+		this.segments = new Segment[numberOfSegments];
+		for (int i = 0; i < numberOfSegments; i++) {
+			this.segments[i] = new Segment((size + numberOfSegments - 1) / numberOfSegments);
+		}
+	}
+
+	/**
+	 * @return whether {@link #createPathCalculator(String, LeastCostPathCalculator)} does use this cache
+	 */
+	public boolean isEnabled() {
+		return this.size > 0;
+	}
+
+	/**
+	 * @param name the modes the router is for, e.g. the mode of the network and the routing mode. Routers with the
+	 * same name must route on the same network with the same travel disutilities.
+	 * @return a router which looks up the paths in this cache first, or the given router itself if the cache is disabled
+	 */
+	public LeastCostPathCalculator createPathCalculator(final String name, final LeastCostPathCalculator delegate) {
+		if (!isEnabled()) {
+			return delegate;
+		}
+		return new CachingPathCalculator(name, delegate);
+	}
+
+	/**
+	 * Only caches the paths if the travel disutilities come from one of the default factories. Their travel
+	 * disutilities only differ by person through the routing randomness, which must be 0 for the cache. Other
+	 * factories may create travel disutilities which depend on the person, e.g. on its income, such that persons
+	 * with the same origin and destination must not share their paths.
+	 *
+	 * @see #createPathCalculator(String, LeastCostPathCalculator)
+	 */
+	public LeastCostPathCalculator createPathCalculator(final String name, final TravelDisutilityFactory travelDisutilityFactory,
+			final LeastCostPathCalculator delegate) {
+		if (!isEnabled()) {
+			return delegate;
+		}
+		Class<?> factoryClass = travelDisutilityFactory.getClass();
+		if (factoryClass != RandomizingTimeDistanceTravelDisutilityFactory.class && factoryClass != OnlyTimeDependentTravelDisutilityFactory.class) {
+			if (this.uncachedNames.add(name)) {
+				log.warn("paths for " + name + " are not cached, as the travel disutilities of " + factoryClass.getName()
+						+ " might depend on the person.");
+			}
+			return delegate;
+		}
+		return createPathCalculator(name, delegate);
+	}
+
+	public long getNumberOfHits() {
+		return this.hits.sum();
+	}
+
+	public long getNumberOfMisses() {
+		return this.misses.sum();
+	}
+
+	public void clear() {
+		this.version++;
+		for (Segment segment : this.segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	@Override
+	public void notifyBeforeMobsim(final BeforeMobsimEvent event) {
+		if (!isEnabled()) {
+			return;
+		}
+		this.enabled = false;
+		clear();
+		long hits = this.hits.sumThenReset();
+		long misses = this.misses.sumThenReset();
+		if (hits + misses > 0) {
+			log.info("route cache: " + hits + " hits, " + misses + " misses (" + (100 * hits / (hits + misses)) + "% hits)");
+		}
+		if (this.stopwatch != null) {
+			this.stopwatch.count("route cache hits", hits);
+			this.stopwatch.count("route cache misses", misses);
+		}
+	}
+
+	@Override
+	public void notifyAfterMobsim(final AfterMobsimEvent event) {
+		if (!isEnabled()) {
+			return;
+		}
+		clear();
+		this.enabled = true;
+	}
+
+	private final class CachingPathCalculator implements LeastCostPathCalculator {
+		private final String name;
+		private final LeastCostPathCalculator delegate;
+
+		CachingPathCalculator(final String name, final LeastCostPathCalculator delegate) {
+			this.name = name;
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double starttime, final Person person, final Vehicle vehicle) {
+			if (!enabled) {
+				return this.delegate.calcLeastCostPath(fromNode, toNode, starttime, person, vehicle);
+			}
+			int version = NetworkRouteCache.this.version;
+			// the travel times may depend on the vehicle type, e.g. on its maximum velocity
+			Id<VehicleType> vehicleType = vehicle == null || vehicle.getType() == null ? null : vehicle.getType().getId();
+			Key key = new Key(this.name, fromNode.getId().index(), toNode.getId().index(), (int) (starttime / timeBinSize), vehicleType, version);
+			Segment segment = segments[(key.hashCode() & Integer.MAX_VALUE) % segments.length];
+			Path path;
+			synchronized (segment) {
+				path = segment.get(key);
+			}
+			if (path != null) {
+				hits.increment();
+				return path;
+			}
+			misses.increment();
+			path = this.delegate.calcLeastCostPath(fromNode, toNode, starttime, person, vehicle);
+			if (path != null) {
+				// the path is shared, so it must not be modified
+				path = new Path(Collections.unmodifiableList(new ArrayList<>(path.nodes)), Collections.unmodifiableList(new ArrayList<>(path.links)),
+						path.travelTime, path.travelCost);
+				if (version == NetworkRouteCache.this.version) {
+					synchronized (segment) {
+						segment.put(key, path);
+					}
+				}
+			}
+			return path;
+		}
+	}
+
+	private static final class Key {
+		private final String name;
+		private final int fromNode;
+		private final int toNode;
+		private final int timeBin;
+		private final Id<VehicleType> vehicleType;
+		private final int version;
+		private final int hashCode;
+
+		Key(final String name, final int fromNode, final int toNode, final int timeBin, final Id<VehicleType> vehicleType, final int version) {
+			this.name = name;
+			this.fromNode = fromNode;
+			this.toNode = toNode;
+			this.timeBin = timeBin;
+			this.vehicleType = vehicleType;
+			this.version = version;
+			this.hashCode = 31 * (31 * (31 * (31 * name.hashCode() + fromNode) + toNode) + timeBin) + Objects.hashCode(vehicleType);
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return this.fromNode == other.fromNode && this.toNode == other.toNode && this.timeBin == other.timeBin
+					&& this.version == other.version && this.name.equals(other.name) && Objects.equals(this.vehicleType, other.vehicleType);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+	private static final class Segment extends LinkedHashMap<Key, LeastCostPathCalculator.Path> {
+		private static final long serialVersionUID = 1L;
+		private final int maxSize;
+
+		Segment(final int maxSize) {
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Key, LeastCostPathCalculator.Path> eldest) {
+			return size() > this.maxSize;
+		}
+	}
+
+}
@@ -42,6 +42,9 @@ public class NetworkRoutingProvider implements Provider<RoutingModule> {
 
 	@Inject
     LeastCostPathCalculatorFactory leastCostPathCalculatorFactory;
+
+	@Inject
+	NetworkRouteCache routeCache;
 	
 	/**
 	 * This is the older (and still more standard) constructor, where the routingMode and the resulting mode were the
@@ -104,7 +107,10 @@ public class NetworkRoutingProvider implements Provider<RoutingModule> {
 				leastCostPathCalculatorFactory.createPathCalculator(
 						filteredNetwork,
 						travelDisutilityFactory.createTravelDisutility(travelTime),
-						travelTime);
+						travelTime,
+						routingMode);
+		// the cache needs to distinguish both the network and the travel disutility:
+		routeAlgo = routeCache.createPathCalculator(mode + "/" + routingMode, travelDisutilityFactory, routeAlgo);
 
 		// the following again refers to the (transport)mode, since it will determine the mode of the leg on the network:
 		if ( plansCalcRouteConfigGroup.isInsertingAccessEgressWalk() ) {
@@ -158,7 +158,7 @@ public class PlanRouter implements PlanAlgorithm, PersonAlgorithm {
 
 		for (PlanElement pe : plan.getPlanElements()) {
 			now = TripRouter.calcEndOfPlanElement( now, pe, config );
-			if (pe == activity) return now;
+			if (pe.equals(activity)) return now;
 		}
 
 		throw new RuntimeException( "activity "+activity+" not found in "+plan.getPlanElements() );
@@ -332,10 +332,10 @@ public final class TripRouter implements MatsimExtensionPoint {
 		// search the trip
 		int currentIndex = 0;
 		for (PlanElement pe : plan) {
-			if (pe == origin) {
+			if (pe.equals(origin)) {
 				indexOfOrigin = currentIndex;
 			}
-			if (pe == destination) {
+			if (pe.equals(destination)) {
 				indexOfDestination = currentIndex;
 				if (indexOfDestination < indexOfOrigin ) {
 					throw new RuntimeException(
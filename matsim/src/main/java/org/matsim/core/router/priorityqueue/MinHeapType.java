@@ -0,0 +1,52 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.priorityqueue;
+
+/**
+ * The {@link MinHeap} implementations the fast routers can use for their pending nodes.
+ * <ul>
+ * <li>{@link #BinaryMinHeap}: the {@link BinaryMinHeap} with its default fanout of 6. This is the default.</li>
+ * <li>{@link #FourAryMinHeap}: the {@link BinaryMinHeap} with a fanout of 4, i.e. fewer comparisons per level but
+ * more levels.</li>
+ * <li>{@link #PairingMinHeap}: the {@link PairingMinHeap}, which has an amortized constant decreaseKey.</li>
+ * <li>{@link #RadixMinHeap}: the {@link RadixMinHeap}, which needs no comparisons at all as long as the extracted
+ * priorities never decrease, as in Dijkstra's algorithm and A* with a consistent estimate.</li>
+ * </ul>
+ * All of them return elements with the same priority ordered by their index, so the routers find the same paths
+ * with each of them.
+ */
+public enum MinHeapType {
+	BinaryMinHeap, FourAryMinHeap, PairingMinHeap, RadixMinHeap;
+
+	public <E extends HasIndex> MinHeap<E> createMinHeap(final int maxSize) {
+		switch (this) {
+		case BinaryMinHeap:
+			return new BinaryMinHeap<>(maxSize);
+		case FourAryMinHeap:
+			return new BinaryMinHeap<>(maxSize, 4, false);
+		case PairingMinHeap:
+			return new PairingMinHeap<>(maxSize);
+		case RadixMinHeap:
+			return new RadixMinHeap<>(maxSize);
+		default:
+			throw new RuntimeException("Undefined MinHeapType: " + this);
+		}
+	}
+}
@@ -0,0 +1,339 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.priorityqueue;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A pairing heap for elements which implement {@link HasIndex}. Adding an element and decreasing its key only link
+ * two trees, the trees are only merged when the head is removed. The routers decrease the keys of many nodes which
+ * they never poll, which a pairing heap handles in amortized constant time.
+ * <p></p>
+ * Like the {@link BinaryMinHeap}, the heap does not create any objects. The trees are stored in arrays indexed by the
+ * elements' indices: the first child, the next sibling and the previous sibling or, for the first child, the parent.
+ * Elements with the same costs are ordered by their index.
+ *
+ * @param <E> the type of elements held in this collection
+ */
+public class PairingMinHeap<E extends HasIndex> implements MinHeap<E> {
+
+	private final E[] data;
+	private final double[] costs;
+	private final int[] child;
+	private final int[] next;
+	private final int[] previous;
+
+	/*
+	 * The roots which are merged in the first pass of poll(), and the elements which are visited by reset().
+	 */
+	private final int[] stack;
+
+	private int root = -1;
+	private int heapSize = 0;
+	private transient int modCount = 0;
+
+	@SuppressWarnings("unchecked")
+	public PairingMinHeap(int maxSize) {
+		this.data = (E[]) new HasIndex[maxSize];
+		this.costs = new double[maxSize];
+		this.child = new int[maxSize];
+		this.next = new int[maxSize];
+		this.previous = new int[maxSize];
+		this.stack = new int[maxSize];
+	}
+
+	/**
+	 * Resets the queue to its initial state.
+	 */
+	@Override
+	public void reset() {
+		/*
+		 * Only the elements in the heap have to be removed, all other entries of the data array are null.
+		 */
+		if (this.root >= 0) {
+			int stackSize = 0;
+			this.stack[stackSize++] = this.root;
+			while (stackSize > 0) {
+				int index = this.stack[--stackSize];
+				for (int c = this.child[index]; c >= 0; c = this.next[c]) {
+					this.stack[stackSize++] = c;
+				}
+				this.data[index] = null;
+			}
+		}
+		this.root = -1;
+		this.heapSize = 0;
+		this.modCount = 0;
+	}
+
+	@Override
+	public E peek() {
+		if (isEmpty()) return null;
+		return this.data[this.root];
+	}
+
+	/**
+	 * Retrieves and removes the head of this queue, or <tt>null</tt> if this
+	 * queue is empty.
+	 *
+	 * @return the head of this queue, or <tt>null</tt> if this queue is empty.
+	 */
+	@Override
+	public E poll() {
+		if (isEmpty()) return null;
+		this.modCount++;
+		int index = this.root;
+		E minValue = this.data[index];
+		this.root = mergePairs(this.child[index]);
+		if (this.root >= 0) {
+			this.previous[this.root] = -1;
+		}
+		this.data[index] = null;
+		this.heapSize--;
+		return minValue;
+	}
+
+	@Override
+	public int size() {
+		return this.heapSize;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (this.heapSize == 0);
+	}
+
+	/**
+	 * Adds the specified element to this priority queue, with the given priority.
+	 * If the element is already present in the queue, it is not added a second
+	 * time.
+	 *
+	 * @return <tt>true</tt> if the element was added to the collection.
+	 */
+	@Override
+	public boolean add(E value, double priority) {
+		if (value == null) {
+			throw new NullPointerException("null values are not supported!");
+		}
+		int index = value.getArrayIndex();
+		if (this.data[index] != null) {
+			return false;
+		}
+		this.modCount++;
+		this.data[index] = value;
+		this.costs[index] = priority;
+		this.child[index] = -1;
+		this.next[index] = -1;
+		this.previous[index] = -1;
+		this.root = (this.root < 0) ? index : link(this.root, index);
+		this.heapSize++;
+		return true;
+	}
+
+	/**
+	 * Removes a single instance of the specified element from this
+	 * queue, if it is present.
+	 *
+	 * @return <tt>true</tt> if the queue contained the specified
+	 *         element.
+	 */
+	@Override
+	public boolean remove(E value) {
+		if (value == null) return false;
+		int index = value.getArrayIndex();
+		if (this.data[index] != value) {
+			return false;
+		}
+		if (index == this.root) {
+			poll();
+			return true;
+		}
+		this.modCount++;
+		cut(index);
+		int children = mergePairs(this.child[index]);
+		if (children >= 0) {
+			this.root = link(this.root, children);
+		}
+		this.data[index] = null;
+		this.heapSize--;
+		return true;
+	}
+
+	/**
+	 * Increases the priority (=decrease the given double value) of the element.
+	 * If the element is not part of the queue, it is added. If the new priority
+	 * is lower than the existing one, the method returns <tt>false</tt>
+	 *
+	 * @return <tt>true</tt> if the elements priority was decreased.
+	 */
+	@Override
+	public boolean decreaseKey(E value, double cost) {
+		int index = value.getArrayIndex();
+		if (this.data[index] == null) {
+			return this.add(value, cost);
+		}
+		if (this.costs[index] < cost) return false;
+
+		this.modCount++;
+		this.costs[index] = cost;
+		if (index != this.root) {
+			// the subtree remains a valid heap, it only has to be linked with the root again
+			cut(index);
+			this.root = link(this.root, index);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns an iterator over the elements in this queue. The iterator
+	 * does NOT return the elements sorted by their priority. Removing
+	 * elements is not supported via the iterator.
+	 *
+	 * @return an iterator over the elements in this queue.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new TreeIterator();
+	}
+
+	private boolean isLess(int index1, int index2) {
+		double costs1 = this.costs[index1];
+		double costs2 = this.costs[index2];
+		return costs1 < costs2 || (costs1 == costs2 && index1 < index2);
+	}
+
+	/**
+	 * Makes the root with the higher costs the first child of the other one. Both must not have siblings.
+	 *
+	 * @return the new root
+	 */
+	private int link(int root1, int root2) {
+		if (isLess(root2, root1)) {
+			int tmp = root1;
+			root1 = root2;
+			root2 = tmp;
+		}
+		int firstChild = this.child[root1];
+		this.next[root2] = firstChild;
+		if (firstChild >= 0) {
+			this.previous[firstChild] = root2;
+		}
+		this.previous[root2] = root1;
+		this.child[root1] = root2;
+		return root1;
+	}
+
+	/**
+	 * Detaches the subtree of the given element, which is not the root, from its parent and siblings.
+	 */
+	private void cut(int index) {
+		int prev = this.previous[index];
+		int nxt = this.next[index];
+		if (this.child[prev] == index) {
+			this.child[prev] = nxt;
+		} else {
+			this.next[prev] = nxt;
+		}
+		if (nxt >= 0) {
+			this.previous[nxt] = prev;
+		}
+		this.next[index] = -1;
+		this.previous[index] = -1;
+	}
+
+	/**
+	 * The two-pass merge: links the siblings pairwise from left to right, then links the resulting trees from right
+	 * to left.
+	 *
+	 * @return the root of the merged tree, or -1 if there are no siblings
+	 */
+	private int mergePairs(int first) {
+		if (first < 0) {
+			return -1;
+		}
+		int stackSize = 0;
+		int index = first;
+		while (index >= 0) {
+			int second = this.next[index];
+			if (second < 0) {
+				this.next[index] = -1;
+				this.previous[index] = -1;
+				this.stack[stackSize++] = index;
+				break;
+			}
+			int nextPair = this.next[second];
+			this.next[index] = -1;
+			this.previous[index] = -1;
+			this.next[second] = -1;
+			this.previous[second] = -1;
+			this.stack[stackSize++] = link(index, second);
+			index = nextPair;
+		}
+		int merged = this.stack[--stackSize];
+		while (stackSize > 0) {
+			merged = link(this.stack[--stackSize], merged);
+		}
+		return merged;
+	}
+
+	private final class TreeIterator implements Iterator<E> {
+
+		private final int expectedModCount = modCount;
+
+		/*
+		 * The next element is the first one on the stack, the stack contains its siblings and the siblings of its
+		 * ancestors which have not been visited yet.
+		 */
+		private final int[] pending = new int[heapSize];
+		private int pendingSize = 0;
+
+		TreeIterator() {
+			if (root >= 0) {
+				this.pending[this.pendingSize++] = root;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.pendingSize > 0;
+		}
+
+		@Override
+		public E next() {
+			if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+			if (!hasNext()) throw new NoSuchElementException();
+			int index = this.pending[--this.pendingSize];
+			if (next[index] >= 0) {
+				this.pending[this.pendingSize++] = next[index];
+			}
+			if (child[index] >= 0) {
+				this.pending[this.pendingSize++] = child[index];
+			}
+			return data[index];
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Not supported operation!");
+		}
+	}
+}
@@ -0,0 +1,334 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.priorityqueue;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A radix heap for elements which implement {@link HasIndex}. The costs are mapped to 64 bit keys with the same
+ * order, and an element is kept in the bucket of the highest bit in which its key differs from the key of the last
+ * polled element. Adding an element and decreasing its key only move it to another bucket. Polling redistributes the
+ * lowest non-empty bucket, and every element moves to lower buckets only, so an element is moved at most 64 times.
+ * <p></p>
+ * This requires monotone priorities: no element may have lower costs than the last polled one. This is the case
+ * in Dijkstra's algorithm, and in A* if the estimate is consistent, as the landmarks estimate is without overdo
+ * factor. Lower costs are still supported, but then all elements are redistributed, which is slow.
+ * <p></p>
+ * Elements with the same costs are ordered by their index.
+ *
+ * @param <E> the type of elements held in this collection
+ */
+public class RadixMinHeap<E extends HasIndex> implements MinHeap<E> {
+
+	private static final int NUMBER_OF_BUCKETS = 65;
+	private static final int INITIAL_BUCKET_SIZE = 16;
+
+	private final E[] data;
+	private final double[] costs;
+	private final long[] keys;
+	private final int[] bucketOf;
+	private final int[] positionInBucket;
+
+	private final int[][] buckets = new int[NUMBER_OF_BUCKETS][];
+	private final int[] bucketSizes = new int[NUMBER_OF_BUCKETS];
+
+	private long lastKey = 0;
+	private int heapSize = 0;
+	private transient int modCount = 0;
+
+	@SuppressWarnings("unchecked")
+	public RadixMinHeap(int maxSize) {
+		this.data = (E[]) new HasIndex[maxSize];
+		this.costs = new double[maxSize];
+		this.keys = new long[maxSize];
+		this.bucketOf = new int[maxSize];
+		for (int i = 0; i < maxSize; i++) {
+			this.bucketOf[i] = -1;
+		}
+		this.positionInBucket = new int[maxSize];
+		for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+			this.buckets[i] = new int[INITIAL_BUCKET_SIZE];
+		}
+	}
+
+	/**
+	 * Resets the queue to its initial state.
+	 */
+	@Override
+	public void reset() {
+		for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+			int[] elements = this.buckets[bucket];
+			for (int i = 0; i < this.bucketSizes[bucket]; i++) {
+				this.bucketOf[elements[i]] = -1;
+				this.data[elements[i]] = null;
+			}
+			this.bucketSizes[bucket] = 0;
+		}
+		this.lastKey = 0;
+		this.heapSize = 0;
+		this.modCount = 0;
+	}
+
+	@Override
+	public E peek() {
+		if (isEmpty()) return null;
+		return this.data[findMinimum()];
+	}
+
+	/**
+	 * Retrieves and removes the head of this queue, or <tt>null</tt> if this
+	 * queue is empty.
+	 *
+	 * @return the head of this queue, or <tt>null</tt> if this queue is empty.
+	 */
+	@Override
+	public E poll() {
+		if (isEmpty()) return null;
+		this.modCount++;
+		int index = findMinimum();
+		E minValue = this.data[index];
+		removeFromBucket(index);
+		this.data[index] = null;
+		this.heapSize--;
+		return minValue;
+	}
+
+	@Override
+	public int size() {
+		return this.heapSize;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (this.heapSize == 0);
+	}
+
+	/**
+	 * Adds the specified element to this priority queue, with the given priority.
+	 * If the element is already present in the queue, it is not added a second
+	 * time.
+	 *
+	 * @return <tt>true</tt> if the element was added to the collection.
+	 */
+	@Override
+	public boolean add(E value, double priority) {
+		if (value == null) {
+			throw new NullPointerException("null values are not supported!");
+		}
+		int index = value.getArrayIndex();
+		if (this.bucketOf[index] >= 0) {
+			return false;
+		}
+		this.modCount++;
+		this.data[index] = value;
+		this.heapSize++;
+		setCosts(index, priority);
+		return true;
+	}
+
+	/**
+	 * Removes a single instance of the specified element from this
+	 * queue, if it is present.
+	 *
+	 * @return <tt>true</tt> if the queue contained the specified
+	 *         element.
+	 */
+	@Override
+	public boolean remove(E value) {
+		if (value == null) return false;
+		int index = value.getArrayIndex();
+		if (this.bucketOf[index] < 0) {
+			return false;
+		}
+		this.modCount++;
+		removeFromBucket(index);
+		this.data[index] = null;
+		this.heapSize--;
+		return true;
+	}
+
+	/**
+	 * Increases the priority (=decrease the given double value) of the element.
+	 * If the element is not part of the queue, it is added. If the new priority
+	 * is lower than the existing one, the method returns <tt>false</tt>
+	 *
+	 * @return <tt>true</tt> if the elements priority was decreased.
+	 */
+	@Override
+	public boolean decreaseKey(E value, double cost) {
+		int index = value.getArrayIndex();
+		if (this.bucketOf[index] < 0) {
+			return this.add(value, cost);
+		}
+		if (this.costs[index] < cost) return false;
+
+		this.modCount++;
+		removeFromBucket(index);
+		setCosts(index, cost);
+		return true;
+	}
+
+	/**
+	 * Returns an iterator over the elements in this queue. The iterator
+	 * does NOT return the elements sorted by their priority. Removing
+	 * elements is not supported via the iterator.
+	 *
+	 * @return an iterator over the elements in this queue.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new BucketIterator();
+	}
+
+	/**
+	 * Maps the costs to keys which have the same order when compared as unsigned values: the sign bit of positive
+	 * costs is set, all bits of negative costs are flipped. Adding 0.0 turns -0.0 into 0.0.
+	 */
+	private static long getKey(double cost) {
+		long bits = Double.doubleToLongBits(cost + 0.0);
+		return (bits < 0) ? ~bits : (bits | Long.MIN_VALUE);
+	}
+
+	private int getBucket(long key) {
+		return Long.SIZE - Long.numberOfLeadingZeros(key ^ this.lastKey);
+	}
+
+	private void setCosts(int index, double cost) {
+		long key = getKey(cost);
+		this.costs[index] = cost;
+		this.keys[index] = key;
+		if (Long.compareUnsigned(key, this.lastKey) < 0) {
+			// not monotone: all elements have to be redistributed relative to the new minimum
+			this.lastKey = key;
+			redistributeAll();
+		}
+		addToBucket(index, getBucket(key));
+	}
+
+	/**
+	 * Moves the elements of the lowest non-empty bucket to the lower buckets, relative to the minimum key in it. Then,
+	 * the first bucket contains the elements with the minimum key.
+	 *
+	 * @return the element with the minimum costs, or the lowest index if several have the same costs
+	 */
+	private int findMinimum() {
+		if (this.bucketSizes[0] == 0) {
+			this.modCount++;
+			int bucket = 1;
+			while (this.bucketSizes[bucket] == 0) {
+				bucket++;
+			}
+			int[] elements = this.buckets[bucket];
+			int size = this.bucketSizes[bucket];
+			long minKey = this.keys[elements[0]];
+			for (int i = 1; i < size; i++) {
+				long key = this.keys[elements[i]];
+				if (Long.compareUnsigned(key, minKey) < 0) {
+					minKey = key;
+				}
+			}
+			this.lastKey = minKey;
+			this.bucketSizes[bucket] = 0;
+			for (int i = 0; i < size; i++) {
+				int index = elements[i];
+				addToBucket(index, getBucket(this.keys[index]));
+			}
+		}
+		int[] elements = this.buckets[0];
+		int minIndex = elements[0];
+		for (int i = 1; i < this.bucketSizes[0]; i++) {
+			if (elements[i] < minIndex) {
+				minIndex = elements[i];
+			}
+		}
+		return minIndex;
+	}
+
+	private void redistributeAll() {
+		int[] all = new int[this.heapSize];
+		int size = 0;
+		for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+			System.arraycopy(this.buckets[bucket], 0, all, size, this.bucketSizes[bucket]);
+			size += this.bucketSizes[bucket];
+			this.bucketSizes[bucket] = 0;
+		}
+		for (int i = 0; i < size; i++) {
+			addToBucket(all[i], getBucket(this.keys[all[i]]));
+		}
+	}
+
+	private void addToBucket(int index, int bucket) {
+		int size = this.bucketSizes[bucket];
+		int[] elements = this.buckets[bucket];
+		if (size == elements.length) {
+			int[] newElements = new int[Math.min(2 * size, Math.max(this.data.length, INITIAL_BUCKET_SIZE))];
+			System.arraycopy(elements, 0, newElements, 0, size);
+			this.buckets[bucket] = newElements;
+			elements = newElements;
+		}
+		elements[size] = index;
+		this.bucketOf[index] = bucket;
+		this.positionInBucket[index] = size;
+		this.bucketSizes[bucket] = size + 1;
+	}
+
+	private void removeFromBucket(int index) {
+		int bucket = this.bucketOf[index];
+		int position = this.positionInBucket[index];
+		int last = --this.bucketSizes[bucket];
+		int[] elements = this.buckets[bucket];
+		if (position != last) {
+			int moved = elements[last];
+			elements[position] = moved;
+			this.positionInBucket[moved] = position;
+		}
+		this.bucketOf[index] = -1;
+	}
+
+	private final class BucketIterator implements Iterator<E> {
+
+		private final int expectedModCount = modCount;
+		private int bucket = 0;
+		private int position = 0;
+
+		@Override
+		public boolean hasNext() {
+			while (this.bucket < NUMBER_OF_BUCKETS && this.position >= bucketSizes[this.bucket]) {
+				this.bucket++;
+				this.position = 0;
+			}
+			return this.bucket < NUMBER_OF_BUCKETS;
+		}
+
+		@Override
+		public E next() {
+			if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+			if (!hasNext()) throw new NoSuchElementException();
+			return data[buckets[this.bucket][this.position++]];
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Not supported operation!");
+		}
+	}
+}
@@ -0,0 +1,412 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * The distances from and to the landmarks of {@link PreProcessLandmarks}, computed separately for time slices of a
+ * fixed length from a time dependent travel disutility, see
+ * {@link PreProcessLandmarks#calcTimeSlices(TravelDisutility, double, double, double, double)}.
+ * <p></p>
+ * The cost of a link in a time slice is the lowest travel disutility of the link from the start of the time slice
+ * until the end of the time slice plus the horizon, evaluated at the given sample interval, but never less than its
+ * minimum travel disutility. A route departing within the time slice only enters links at or after the start of the
+ * time slice, so with an infinite horizon these costs are lower bounds of the actual costs, and the estimates derived
+ * from them remain admissible. This only holds if the travel disutility does not depend on the person or vehicle and
+ * does not change within a sample interval, as is the case for the travel times of the
+ * {@link org.matsim.core.trafficmonitoring.TravelTimeCalculator} if the sample interval is its time bin size.
+ * <p></p>
+ * As the travel times at the end of the day are mostly free speed travel times, an infinite horizon rarely yields
+ * better estimates than the minimum travel disutilities. With a finite horizon, the estimates reflect the congestion
+ * within the time slice, but are only guaranteed to be admissible for routes that end within the horizon; longer
+ * routes are not guaranteed to be least-cost paths, similar to an overdo factor larger than 1.
+ * <p></p>
+ * The distances of a time slice are stored in two arrays, indexed by
+ * <code>nodeIndex * numberOfLandmarks + landmarkIndex</code>. Time slices with the same link costs as the next time slice
+ * share the arrays, so e.g. the time slices of the night are only computed once.
+ */
+public final class LandmarksTimeSlices {
+
+	private static final Logger log = Logger.getLogger(LandmarksTimeSlices.class);
+
+	private final int landmarkCount;
+	private final double timeSliceSize;
+	private final double[][] fromLandmark;
+	private final double[][] toLandmark;
+	private int distinctTimeSlices = 0;
+
+	LandmarksTimeSlices(final Graph graph, final Node[] landmarks, final TravelDisutility travelDisutility,
+			final double timeSliceSize, final double horizon, final double sampleInterval, final double maxTime,
+			final int numberOfThreads) {
+		long now = System.currentTimeMillis();
+		this.landmarkCount = landmarks.length;
+		this.timeSliceSize = timeSliceSize;
+		int numberOfTimeSlices = (int) (maxTime / timeSliceSize) + 1;
+		this.fromLandmark = new double[numberOfTimeSlices][];
+		this.toLandmark = new double[numberOfTimeSlices][];
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, numberOfThreads));
+		try {
+			double[][] linkCosts = calcLinkCosts(graph, travelDisutility, numberOfTimeSlices, timeSliceSize, horizon,
+					sampleInterval, maxTime, numberOfThreads, executor);
+
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for (int slice = numberOfTimeSlices - 1; slice >= 0; slice--) {
+				if (slice < numberOfTimeSlices - 1 && Arrays.equals(linkCosts[slice], linkCosts[slice + 1])) {
+					this.fromLandmark[slice] = this.fromLandmark[slice + 1];
+					this.toLandmark[slice] = this.toLandmark[slice + 1];
+					continue;
+				}
+				this.distinctTimeSlices++;
+				this.fromLandmark[slice] = new double[graph.numberOfNodes * this.landmarkCount];
+				this.toLandmark[slice] = new double[graph.numberOfNodes * this.landmarkCount];
+				for (int i = 0; i < landmarks.length; i++) {
+					tasks.add(new Calculator(graph, linkCosts[slice], graph.getNodeIndex(landmarks[i]), i, this.landmarkCount,
+							this.fromLandmark[slice], this.toLandmark[slice]));
+				}
+			}
+			run(executor, tasks);
+		} finally {
+			executor.shutdown();
+		}
+		log.info("calculated the distances to and from " + this.landmarkCount + " landmarks for " + numberOfTimeSlices
+				+ " time slices (" + this.distinctTimeSlices + " distinct) in " + (System.currentTimeMillis() - now) + " ms");
+	}
+
+	private static double[][] calcLinkCosts(final Graph graph, final TravelDisutility travelDisutility,
+			final int numberOfTimeSlices, final double timeSliceSize, final double horizon, final double sampleInterval,
+			final double maxTime, final int numberOfThreads, final ExecutorService executor) {
+		final double[][] linkCosts = new double[numberOfTimeSlices][graph.links.length];
+		final int numberOfSamples = (int) (maxTime / sampleInterval) + 1;
+		// the samples covering the time slices plus the horizon
+		final int[] firstSample = new int[numberOfTimeSlices];
+		final int[] lastSample = new int[numberOfTimeSlices];
+		for (int slice = 0; slice < numberOfTimeSlices; slice++) {
+			firstSample[slice] = (int) (slice * timeSliceSize / sampleInterval);
+			lastSample[slice] = (int) Math.min(numberOfSamples - 1, ((slice + 1) * timeSliceSize + horizon) / sampleInterval);
+		}
+		final int chunkSize = graph.links.length / Math.max(1, numberOfThreads) + 1;
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int start = 0; start < graph.links.length; start += chunkSize) {
+			final int first = start;
+			final int last = Math.min(start + chunkSize, graph.links.length);
+			tasks.add(() -> {
+				double[] samples = new double[numberOfSamples];
+				for (int l = first; l < last; l++) {
+					Link link = graph.links[l];
+					for (int sample = 0; sample < numberOfSamples; sample++) {
+						samples[sample] = travelDisutility.getLinkTravelDisutility(link, sample * sampleInterval, null, null);
+					}
+					double minCost = travelDisutility.getLinkMinimumTravelDisutility(link);
+					double cost = Double.POSITIVE_INFINITY;
+					int from = numberOfSamples;
+					// going backwards in time; if the window ends with the one of the next time slice, it only grows
+					for (int slice = numberOfTimeSlices - 1; slice >= 0; slice--) {
+						if (slice == numberOfTimeSlices - 1 || lastSample[slice] != lastSample[slice + 1]) {
+							cost = Double.POSITIVE_INFINITY;
+							from = lastSample[slice] + 1;
+						}
+						for (int sample = firstSample[slice]; sample < from; sample++) {
+							cost = Math.min(cost, samples[sample]);
+						}
+						from = Math.min(from, firstSample[slice]);
+						linkCosts[slice][l] = Math.max(cost, minCost);
+					}
+				}
+				return null;
+			});
+		}
+		run(executor, tasks);
+		return linkCosts;
+	}
+
+	private static void run(final ExecutorService executor, final List<Callable<Void>> tasks) {
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	public int getNumberOfTimeSlices() {
+		return this.fromLandmark.length;
+	}
+
+	/**
+	 * @return the number of time slices for which the distances had to be computed, as the link costs differ from the
+	 * ones of the next time slice
+	 */
+	public int getNumberOfDistinctTimeSlices() {
+		return this.distinctTimeSlices;
+	}
+
+	/**
+	 * @return the time slice of the given departure time. Departures before the first or after the last time slice
+	 * use the first or the last time slice.
+	 */
+	public int getTimeSlice(final double time) {
+		int slice = (int) (time / this.timeSliceSize);
+		if (slice < 0 || Double.isNaN(time)) {
+			return 0;
+		}
+		return Math.min(slice, this.fromLandmark.length - 1);
+	}
+
+	/**
+	 * Estimates the remaining travel cost from one node to another node using the landmark given by index, with the
+	 * triangle inequality for directed graphs.
+	 *
+	 * @return a lower bound of the travel cost between the two nodes for departures within the given time slice, or 0
+	 * if one of the nodes was not part of the network when it was pre-processed
+	 */
+	public double estimateRemainingTravelCost(final int timeSlice, final PreProcessLandmarks.LandmarksData fromData,
+			final PreProcessLandmarks.LandmarksData toData, final int landmarkIndex) {
+		int from = fromData.getNodeIndex();
+		int to = toData.getNodeIndex();
+		if (from < 0 || to < 0) {
+			return 0;
+		}
+		from = from * this.landmarkCount + landmarkIndex;
+		to = to * this.landmarkCount + landmarkIndex;
+		double[] fromL = this.fromLandmark[timeSlice];
+		double[] toL = this.toLandmark[timeSlice];
+		double estimate = 0;
+		// d(v, t) >= d(l, t) - d(l, v) and d(v, t) >= d(v, l) - d(t, l); unreachable landmarks yield no estimate
+		double viaFrom = fromL[to] - fromL[from];
+		if (viaFrom > estimate && viaFrom < Double.POSITIVE_INFINITY) {
+			estimate = viaFrom;
+		}
+		double viaTo = toL[from] - toL[to];
+		if (viaTo > estimate && viaTo < Double.POSITIVE_INFINITY) {
+			estimate = viaTo;
+		}
+		return estimate;
+	}
+
+	/**
+	 * The part of the network reachable from the pre-processed nodes, as primitive arrays. The links are ordered by
+	 * their from node, so the out-links of node <code>n</code> are the links <code>outFirst[n]</code> to
+	 * <code>outFirst[n + 1] - 1</code>.
+	 */
+	static final class Graph {
+		final int numberOfNodes;
+		final Link[] links;
+		final int[] linkFromNode;
+		final int[] linkToNode;
+		final int[] outFirst;
+		final int[] inFirst;
+		final int[] inLinks;
+		private final Map<Node, Integer> nodeIndices;
+
+		Graph(final Node[] nodes) {
+			this.numberOfNodes = nodes.length;
+			this.nodeIndices = new IdentityHashMap<>(nodes.length);
+			for (int i = 0; i < nodes.length; i++) {
+				this.nodeIndices.put(nodes[i], i);
+			}
+			List<Link> linkList = new ArrayList<>();
+			this.outFirst = new int[nodes.length + 1];
+			for (int i = 0; i < nodes.length; i++) {
+				this.outFirst[i] = linkList.size();
+				for (Link link : nodes[i].getOutLinks().values()) {
+					if (this.nodeIndices.containsKey(link.getToNode())) {
+						linkList.add(link);
+					}
+				}
+			}
+			this.outFirst[nodes.length] = linkList.size();
+			this.links = linkList.toArray(new Link[linkList.size()]);
+			this.linkFromNode = new int[this.links.length];
+			this.linkToNode = new int[this.links.length];
+			this.inFirst = new int[nodes.length + 1];
+			for (int l = 0; l < this.links.length; l++) {
+				this.linkFromNode[l] = getNodeIndex(this.links[l].getFromNode());
+				this.linkToNode[l] = getNodeIndex(this.links[l].getToNode());
+				this.inFirst[this.linkToNode[l] + 1]++;
+			}
+			for (int i = 0; i < nodes.length; i++) {
+				this.inFirst[i + 1] += this.inFirst[i];
+			}
+			this.inLinks = new int[this.links.length];
+			int[] next = Arrays.copyOf(this.inFirst, nodes.length);
+			for (int l = 0; l < this.links.length; l++) {
+				this.inLinks[next[this.linkToNode[l]]++] = l;
+			}
+		}
+
+		int getNodeIndex(final Node node) {
+			return this.nodeIndices.get(node);
+		}
+	}
+
+	/**
+	 * Computes the distances from and to one landmark for one time slice.
+	 */
+	private static final class Calculator implements Callable<Void> {
+		private final Graph graph;
+		private final double[] linkCosts;
+		private final int landmarkNode;
+		private final int landmarkIndex;
+		private final int landmarkCount;
+		private final double[] fromLandmark;
+		private final double[] toLandmark;
+
+		Calculator(final Graph graph, final double[] linkCosts, final int landmarkNode, final int landmarkIndex,
+				final int landmarkCount, final double[] fromLandmark, final double[] toLandmark) {
+			this.graph = graph;
+			this.linkCosts = linkCosts;
+			this.landmarkNode = landmarkNode;
+			this.landmarkIndex = landmarkIndex;
+			this.landmarkCount = landmarkCount;
+			this.fromLandmark = fromLandmark;
+			this.toLandmark = toLandmark;
+		}
+
+		@Override
+		public Void call() {
+			double[] costs = new double[this.graph.numberOfNodes];
+			Heap heap = new Heap();
+			expand(true, costs, heap);
+			for (int n = 0; n < costs.length; n++) {
+				this.fromLandmark[n * this.landmarkCount + this.landmarkIndex] = costs[n];
+			}
+			expand(false, costs, heap);
+			for (int n = 0; n < costs.length; n++) {
+				this.toLandmark[n * this.landmarkCount + this.landmarkIndex] = costs[n];
+			}
+			return null;
+		}
+
+		private void expand(final boolean fromLandmark, final double[] costs, final Heap heap) {
+			final Graph g = this.graph;
+			Arrays.fill(costs, Double.POSITIVE_INFINITY);
+			costs[this.landmarkNode] = 0.0;
+			heap.add(this.landmarkNode, 0.0);
+			while (!heap.isEmpty()) {
+				double cost = heap.peekCost();
+				int node = heap.poll();
+				if (cost > costs[node]) {
+					continue; // outdated entry, the node was already settled with a lower cost
+				}
+				if (fromLandmark) {
+					for (int l = g.outFirst[node], last = g.outFirst[node + 1]; l < last; l++) {
+						double newCost = cost + this.linkCosts[l];
+						int toNode = g.linkToNode[l];
+						if (newCost < costs[toNode]) {
+							costs[toNode] = newCost;
+							heap.add(toNode, newCost);
+						}
+					}
+				} else {
+					for (int i = g.inFirst[node], last = g.inFirst[node + 1]; i < last; i++) {
+						int l = g.inLinks[i];
+						double newCost = cost + this.linkCosts[l];
+						int fromNode = g.linkFromNode[l];
+						if (newCost < costs[fromNode]) {
+							costs[fromNode] = newCost;
+							heap.add(fromNode, newCost);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A binary min-heap of nodes and their costs, without a decrease-key operation; nodes may be contained several
+	 * times with different costs.
+	 */
+	private static final class Heap {
+		private int[] nodes = new int[64];
+		private double[] costs = new double[64];
+		private int size = 0;
+
+		void add(final int node, final double cost) {
+			if (this.size == this.nodes.length) {
+				this.nodes = Arrays.copyOf(this.nodes, this.size * 2);
+				this.costs = Arrays.copyOf(this.costs, this.size * 2);
+			}
+			int i = this.size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (this.costs[parent] <= cost) {
+					break;
+				}
+				this.nodes[i] = this.nodes[parent];
+				this.costs[i] = this.costs[parent];
+				i = parent;
+			}
+			this.nodes[i] = node;
+			this.costs[i] = cost;
+		}
+
+		boolean isEmpty() {
+			return this.size == 0;
+		}
+
+		double peekCost() {
+			return this.costs[0];
+		}
+
+		int poll() {
+			int result = this.nodes[0];
+			int lastNode = this.nodes[--this.size];
+			double lastCost = this.costs[this.size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= this.size) {
+					break;
+				}
+				if (child + 1 < this.size && this.costs[child + 1] < this.costs[child]) {
+					child++;
+				}
+				if (this.costs[child] >= lastCost) {
+					break;
+				}
+				this.nodes[i] = this.nodes[child];
+				this.costs[i] = this.costs[child];
+				i = child;
+			}
+			this.nodes[i] = lastNode;
+			this.costs[i] = lastCost;
+			return result;
+		}
+	}
+
+}
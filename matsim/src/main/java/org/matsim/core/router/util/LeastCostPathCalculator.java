@@ -31,6 +31,28 @@ public interface LeastCostPathCalculator {
 
 	Path calcLeastCostPath(Node fromNode, Node toNode, double starttime, final Person person, final Vehicle vehicle);
 
+	/**
+	 * Calculates the costs of the least cost paths from each of the from nodes to each of the to nodes, e.g. to find
+	 * the best of several access and egress candidates, or for accessibility computations.
+	 * <p></p>
+	 * The default implementation calculates one path per pair of nodes. Implementations which can share work
+	 * between the pairs should override this.
+	 *
+	 * @return the costs, indexed by the position of the from node and the position of the to node in the given lists.
+	 * If there is no path between two nodes, the cost is <code>Double.POSITIVE_INFINITY</code>.
+	 */
+	default double[][] calcLeastCostMatrix(List<? extends Node> fromNodes, List<? extends Node> toNodes, double starttime,
+			final Person person, final Vehicle vehicle) {
+		double[][] costs = new double[fromNodes.size()][toNodes.size()];
+		for (int i = 0; i < fromNodes.size(); i++) {
+			for (int j = 0; j < toNodes.size(); j++) {
+				Path path = calcLeastCostPath(fromNodes.get(i), toNodes.get(j), starttime, person, vehicle);
+				costs[i][j] = path == null ? Double.POSITIVE_INFINITY : path.travelCost;
+			}
+		}
+		return costs;
+	}
+
 	class Path {
 		public List<Node> nodes;
 		public final List<Link> links;
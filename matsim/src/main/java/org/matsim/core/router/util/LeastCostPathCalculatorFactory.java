@@ -38,4 +38,15 @@ public interface LeastCostPathCalculatorFactory extends MatsimFactory, MatsimExt
 	
 	public LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes);
 
+	/**
+	 * Creates a path calculator for the given routing mode. The network routers of all threads create their travel
+	 * disutility and travel time instances from the same bindings of the routing mode. So factories may share data which
+	 * is derived from them, e.g. weights per time bin, between all path calculators for the same network and routing
+	 * mode, even though every thread passes its own instances.
+	 */
+	public default LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes,
+			final String routingMode) {
+		return createPathCalculator(network, travelCosts, travelTimes);
+	}
+
 }
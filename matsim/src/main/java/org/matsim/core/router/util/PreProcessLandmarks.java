@@ -33,6 +33,7 @@ import java.util.PriorityQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Pre-processes a given network, gathering information which can be used by
@@ -50,9 +51,16 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 	private final Landmarker landmarker;
 
 	private Node[] landmarks;
-	
+
+	private Node[] nodes;
+
+	private LandmarksTimeSlices.Graph graph = null;
+
 	private int numberOfThreads = 8;
 
+	private final LongAdder numberOfQueries = new LongAdder();
+	private final LongAdder numberOfExploredNodes = new LongAdder();
+
 	private static final Logger log = Logger.getLogger(PreProcessLandmarks.class);
 
 	public PreProcessLandmarks(final TravelDisutility costFunction) {
@@ -115,8 +123,13 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		log.info("done in " + (System.currentTimeMillis() - now) + " ms");
 
 		log.info("Initializing landmarks data");
+		this.nodes = new Node[network.getNodes().size()];
+		int nodeIndex = 0;
 		for (Node node : network.getNodes().values()) {
-			this.nodeData.put(node, new LandmarksData(this.landmarkCount));
+			LandmarksData data = new LandmarksData(this.landmarkCount);
+			data.nodeIndex = nodeIndex;
+			this.nodes[nodeIndex++] = node;
+			this.nodeData.put(node, data);
 		}
 		
 		int nOfThreads = this.numberOfThreads;
@@ -236,6 +249,59 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		return this.landmarks.clone();
 	}
 
+	/**
+	 * Computes the distances from and to the landmarks again, for every time slice separately, from the given travel
+	 * disutility instead of the minimum travel disutility. This uses the same landmarks and the same number of threads
+	 * as {@link #run(Network)}, which must have been called before.
+	 *
+	 * @param travelDisutility evaluated without person and vehicle
+	 * @param timeSliceSize the length of the time slices, in seconds
+	 * @param horizon how long after the end of a time slice the travel disutilities are taken into account, in
+	 * seconds. Only {@link Double#POSITIVE_INFINITY} guarantees that routers find the least-cost paths.
+	 * @param sampleInterval the interval in which the travel disutility of the links is evaluated, in seconds;
+	 * typically the time bin size of the travel times
+	 * @param maxTime the end of the last time slice, later departures use the distances of the last time slice
+	 * @see LandmarksTimeSlices
+	 */
+	public LandmarksTimeSlices calcTimeSlices(final TravelDisutility travelDisutility, final double timeSliceSize,
+			final double horizon, final double sampleInterval, final double maxTime) {
+		LandmarksTimeSlices.Graph g;
+		synchronized (this) {
+			if (this.nodes == null) {
+				throw new IllegalStateException("The landmarks must be identified with run(network) first.");
+			}
+			if (this.graph == null) {
+				this.graph = new LandmarksTimeSlices.Graph(this.nodes);
+			}
+			g = this.graph;
+		}
+		return new LandmarksTimeSlices(g, this.landmarks, travelDisutility, timeSliceSize, horizon, sampleInterval, maxTime,
+				this.numberOfThreads);
+	}
+
+	/**
+	 * Collects the number of nodes a router using this pre-processing data explored in one query. Together with
+	 * {@link #getNumberOfQueries()} and {@link #getNumberOfExploredNodes()}, this allows to observe the quality of the
+	 * bounds the landmarks deliver.
+	 */
+	public void addQuery(final int exploredNodes) {
+		this.numberOfQueries.increment();
+		this.numberOfExploredNodes.add(exploredNodes);
+	}
+
+	public long getNumberOfQueries() {
+		return this.numberOfQueries.sum();
+	}
+
+	public long getNumberOfExploredNodes() {
+		return this.numberOfExploredNodes.sum();
+	}
+
+	public void resetQueryStatistics() {
+		this.numberOfQueries.reset();
+		this.numberOfExploredNodes.reset();
+	}
+
 	@Override
 	public LandmarksData getNodeData(final Node n) {
 		DeadEndData r = this.nodeData.get(n);
@@ -255,6 +321,7 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 
 		private final double[] landmarkTravelTime1;
 		private final double[] landmarkTravelTime2;
+		private int nodeIndex = -1;
 
 		LandmarksData(final int landmarkCount) {
 			this.landmarkTravelTime2 = new double[landmarkCount];
@@ -305,6 +372,14 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		public double getMaxLandmarkTravelTime(final int landmarkIndex) {
 			return this.landmarkTravelTime2[landmarkIndex];
 		}
+
+		/**
+		 * @return the index of the node in the arrays of {@link LandmarksTimeSlices}, or -1 if the node was not part of
+		 * the network when it was pre-processed
+		 */
+		public int getNodeIndex() {
+			return this.nodeIndex;
+		}
 	}
 
     /**
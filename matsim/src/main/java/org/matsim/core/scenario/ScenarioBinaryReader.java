@@ -0,0 +1,516 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scenario;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacilitiesFactory;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.facilities.ActivityFacilityImpl;
+import org.matsim.facilities.ActivityOption;
+import org.matsim.facilities.OpeningTimeImpl;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
+import org.matsim.pt.transitSchedule.api.TransitStopArea;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.EngineInformation;
+import org.matsim.vehicles.EngineInformationImpl;
+import org.matsim.vehicles.FreightCapacity;
+import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.VehicleCapacity;
+import org.matsim.vehicles.VehicleType;
+import org.matsim.vehicles.Vehicles;
+import org.matsim.vehicles.VehiclesFactory;
+
+/**
+ * Reads the binary files written by {@link ScenarioBinaryWriter}. Local files are memory mapped and decoded
+ * directly from the mapping, without copying them through streams and buffers.
+ * <p></p>
+ * Coordinates are transformed as by the xml readers: from the coordinate reference system stored in the file, or
+ * else from the input CRS given to the constructor, to the target CRS.
+ */
+public final class ScenarioBinaryReader {
+
+	private static final Logger log = Logger.getLogger(ScenarioBinaryReader.class);
+
+	private final String externalInputCRS;
+	private final String targetCRS;
+	private final ObjectAttributesConverter converter = new ObjectAttributesConverter();
+
+	public ScenarioBinaryReader() {
+		this(null, null);
+	}
+
+	public ScenarioBinaryReader(final String inputCRS, final String targetCRS) {
+		this.externalInputCRS = inputCRS;
+		this.targetCRS = targetCRS;
+	}
+
+	public void putAttributeConverter(final Class<?> clazz, final AttributeConverter<?> converter) {
+		this.converter.putAttributeConverter(clazz, converter);
+	}
+
+	public void putAttributeConverters(final Map<Class<?>, AttributeConverter<?>> converters) {
+		this.converter.putAttributeConverters(converters);
+	}
+
+	public void readNetwork(final String filename, final Network network) {
+		readNetwork(map(new File(filename)), network);
+	}
+
+	public void readNetwork(final URL url, final Network network) {
+		readNetwork(open(url), network);
+	}
+
+	public void readTransitSchedule(final String filename, final Scenario scenario) {
+		readTransitSchedule(map(new File(filename)), scenario.getTransitSchedule(), scenario.getPopulation().getFactory().getRouteFactories());
+	}
+
+	public void readTransitSchedule(final URL url, final Scenario scenario) {
+		readTransitSchedule(open(url), scenario.getTransitSchedule(), scenario.getPopulation().getFactory().getRouteFactories());
+	}
+
+	public void readFacilities(final String filename, final ActivityFacilities facilities) {
+		readFacilities(map(new File(filename)), facilities);
+	}
+
+	public void readFacilities(final URL url, final ActivityFacilities facilities) {
+		readFacilities(open(url), facilities);
+	}
+
+	public void readVehicles(final String filename, final Vehicles vehicles) {
+		readVehicles(map(new File(filename)), vehicles);
+	}
+
+	public void readVehicles(final URL url, final Vehicles vehicles) {
+		readVehicles(open(url), vehicles);
+	}
+
+	private void readNetwork(final ByteBuffer buffer, final Network network) {
+		Input in = new Input(buffer, ScenarioBinaryWriter.CONTAINER_NETWORK);
+		network.setName(in.readString());
+		network.setCapacityPeriod(in.readDouble());
+		network.setEffectiveCellSize(in.readDouble());
+		network.setEffectiveLaneWidth(in.readDouble());
+		in.readAttributes(network.getAttributes());
+		CoordinateTransformation transformation = createTransformation(network.getAttributes());
+
+		NetworkFactory factory = network.getFactory();
+		Node[] nodes = new Node[in.readVarInt()];
+		for (int i = 0; i < nodes.length; i++) {
+			Node node = factory.createNode(Id.create(in.readString(), Node.class), transformation.transform(in.readCoord()));
+			network.addNode(node);
+			String type = in.readString();
+			if (type != null) {
+				NetworkUtils.setType(node, type);
+			}
+			String origId = in.readString();
+			if (origId != null) {
+				NetworkUtils.setOrigId(node, origId);
+			}
+			in.readAttributes(node.getAttributes());
+			nodes[i] = node;
+		}
+
+		Map<String, Set<String>> modeSets = new HashMap<>();
+		int numberOfLinks = in.readVarInt();
+		for (int i = 0; i < numberOfLinks; i++) {
+			Id<Link> id = Id.create(in.readString(), Link.class);
+			Link link = factory.createLink(id, nodes[in.readVarInt()], nodes[in.readVarInt()]);
+			link.setLength(in.readDouble());
+			link.setFreespeed(in.readDouble());
+			link.setCapacity(in.readDouble());
+			link.setNumberOfLanes(in.readDouble());
+			String modes = in.readString();
+			if (modes != null) {
+				link.setAllowedModes(modeSets.computeIfAbsent(modes, ScenarioBinaryReader::parseModes));
+			}
+			network.addLink(link);
+			in.readAttributes(link.getAttributes());
+		}
+		log.info("read " + nodes.length + " nodes and " + numberOfLinks + " links.");
+	}
+
+	private static Set<String> parseModes(final String modes) {
+		Set<String> set = new HashSet<>();
+		if (!modes.isEmpty()) {
+			for (String mode : modes.split(",")) {
+				set.add(mode.intern());
+			}
+		}
+		return set;
+	}
+
+	private void readTransitSchedule(final ByteBuffer buffer, final TransitSchedule schedule, final RouteFactories routeFactories) {
+		Input in = new Input(buffer, ScenarioBinaryWriter.CONTAINER_TRANSIT_SCHEDULE);
+		in.readAttributes(schedule.getAttributes());
+		CoordinateTransformation transformation = createTransformation(schedule.getAttributes());
+		TransitScheduleFactory factory = schedule.getFactory();
+
+		int numberOfStops = in.readVarInt();
+		for (int i = 0; i < numberOfStops; i++) {
+			Id<TransitStopFacility> id = Id.create(in.readString(), TransitStopFacility.class);
+			Coord coord = transformation.transform(in.readCoord());
+			TransitStopFacility stop = factory.createTransitStopFacility(id, coord, in.readBoolean());
+			String linkId = in.readString();
+			if (linkId != null) {
+				stop.setLinkId(Id.create(linkId, Link.class));
+			}
+			stop.setName(in.readString());
+			String stopAreaId = in.readString();
+			if (stopAreaId != null) {
+				stop.setStopAreaId(Id.create(stopAreaId, TransitStopArea.class));
+			}
+			in.readAttributes(stop.getAttributes());
+			schedule.addStopFacility(stop);
+		}
+
+		int numberOfTransferTimes = in.readVarInt();
+		for (int i = 0; i < numberOfTransferTimes; i++) {
+			Id<TransitStopFacility> fromStop = Id.create(in.readString(), TransitStopFacility.class);
+			Id<TransitStopFacility> toStop = Id.create(in.readString(), TransitStopFacility.class);
+			schedule.getMinimalTransferTimes().set(fromStop, toStop, in.readDouble());
+		}
+
+		int numberOfLines = in.readVarInt();
+		for (int i = 0; i < numberOfLines; i++) {
+			TransitLine line = factory.createTransitLine(Id.create(in.readString(), TransitLine.class));
+			line.setName(in.readString());
+			in.readAttributes(line.getAttributes());
+			schedule.addTransitLine(line);
+			int numberOfRoutes = in.readVarInt();
+			for (int r = 0; r < numberOfRoutes; r++) {
+				line.addRoute(readTransitRoute(in, schedule, routeFactories));
+			}
+		}
+		log.info("read " + numberOfStops + " stops and " + numberOfLines + " lines.");
+	}
+
+	private static TransitRoute readTransitRoute(final Input in, final TransitSchedule schedule, final RouteFactories routeFactories) {
+		TransitScheduleFactory factory = schedule.getFactory();
+		Id<TransitRoute> id = Id.create(in.readString(), TransitRoute.class);
+		String description = in.readString();
+		String mode = in.readString();
+		Attributes attributes = new Attributes();
+		in.readAttributes(attributes);
+
+		int numberOfStops = in.readVarInt();
+		List<TransitRouteStop> stops = new ArrayList<>(numberOfStops);
+		for (int s = 0; s < numberOfStops; s++) {
+			String stopId = in.readString();
+			TransitStopFacility facility = schedule.getFacilities().get(Id.create(stopId, TransitStopFacility.class));
+			if (facility == null) {
+				throw new RuntimeException("no stop/facility with id " + stopId);
+			}
+			TransitRouteStop stop = factory.createTransitRouteStop(facility, in.readDouble(), in.readDouble());
+			stop.setAwaitDepartureTime(in.readBoolean());
+			stops.add(stop);
+		}
+
+		NetworkRoute networkRoute = null;
+		if (in.readBoolean()) {
+			Id<Link> startLinkId = Id.create(in.readString(), Link.class);
+			int numberOfLinks = in.readVarInt();
+			List<Id<Link>> linkIds = new ArrayList<>(numberOfLinks);
+			for (int l = 0; l < numberOfLinks; l++) {
+				linkIds.add(Id.create(in.readString(), Link.class));
+			}
+			Id<Link> endLinkId = Id.create(in.readString(), Link.class);
+			networkRoute = routeFactories.createRoute(NetworkRoute.class, startLinkId, endLinkId);
+			networkRoute.setLinkIds(startLinkId, linkIds, endLinkId);
+		}
+
+		TransitRoute route = factory.createTransitRoute(id, networkRoute, stops, mode);
+		route.setDescription(description);
+		for (Map.Entry<String, Object> attribute : attributes.getAsMap().entrySet()) {
+			route.getAttributes().putAttribute(attribute.getKey(), attribute.getValue());
+		}
+
+		int numberOfDepartures = in.readVarInt();
+		for (int d = 0; d < numberOfDepartures; d++) {
+			Departure departure = factory.createDeparture(Id.create(in.readString(), Departure.class), in.readDouble());
+			String vehicleId = in.readString();
+			if (vehicleId != null) {
+				departure.setVehicleId(Id.create(vehicleId, Vehicle.class));
+			}
+			in.readAttributes(departure.getAttributes());
+			route.addDeparture(departure);
+		}
+		return route;
+	}
+
+	private void readFacilities(final ByteBuffer buffer, final ActivityFacilities facilities) {
+		Input in = new Input(buffer, ScenarioBinaryWriter.CONTAINER_FACILITIES);
+		facilities.setName(in.readString());
+		in.readAttributes(facilities.getAttributes());
+		CoordinateTransformation transformation = createTransformation(facilities.getAttributes());
+		ActivityFacilitiesFactory factory = facilities.getFactory();
+
+		int numberOfFacilities = in.readVarInt();
+		for (int i = 0; i < numberOfFacilities; i++) {
+			Id<ActivityFacility> id = Id.create(in.readString(), ActivityFacility.class);
+			Coord coord = in.readBoolean() ? transformation.transform(in.readCoord()) : null;
+			String linkId = in.readString();
+			ActivityFacility facility;
+			if (linkId == null) {
+				facility = factory.createActivityFacility(id, coord);
+			} else if (coord == null) {
+				facility = factory.createActivityFacility(id, Id.create(linkId, Link.class));
+			} else {
+				facility = factory.createActivityFacility(id, coord, Id.create(linkId, Link.class));
+			}
+			facilities.addActivityFacility(facility);
+			String desc = in.readString();
+			if (desc != null) {
+				((ActivityFacilityImpl) facility).setDesc(desc);
+			}
+			int numberOfOptions = in.readVarInt();
+			for (int o = 0; o < numberOfOptions; o++) {
+				ActivityOption option = factory.createActivityOption(in.readString());
+				option.setCapacity(in.readDouble());
+				int numberOfOpeningTimes = in.readVarInt();
+				for (int t = 0; t < numberOfOpeningTimes; t++) {
+					option.addOpeningTime(new OpeningTimeImpl(in.readDouble(), in.readDouble()));
+				}
+				facility.addActivityOption(option);
+			}
+			in.readAttributes(facility.getAttributes());
+		}
+		log.info("read " + numberOfFacilities + " facilities.");
+	}
+
+	private void readVehicles(final ByteBuffer buffer, final Vehicles vehicles) {
+		Input in = new Input(buffer, ScenarioBinaryWriter.CONTAINER_VEHICLES);
+		VehiclesFactory factory = vehicles.getFactory();
+
+		int numberOfTypes = in.readVarInt();
+		for (int i = 0; i < numberOfTypes; i++) {
+			VehicleType type = factory.createVehicleType(Id.create(in.readString(), VehicleType.class));
+			type.setDescription(in.readString());
+			if (in.readBoolean()) {
+				VehicleCapacity capacity = factory.createVehicleCapacity();
+				capacity.setSeats(in.readNullableInt());
+				capacity.setStandingRoom(in.readNullableInt());
+				if (in.readBoolean()) {
+					FreightCapacity freightCapacity = factory.createFreigthCapacity();
+					freightCapacity.setVolume(in.readDouble());
+					capacity.setFreightCapacity(freightCapacity);
+				}
+				type.setCapacity(capacity);
+			}
+			type.setLength(in.readDouble());
+			type.setWidth(in.readDouble());
+			type.setMaximumVelocity(in.readDouble());
+			if (in.readBoolean()) {
+				EngineInformation.FuelType fuelType = EngineInformation.FuelType.valueOf(in.readString());
+				type.setEngineInformation(new EngineInformationImpl(fuelType, in.readDouble()));
+			}
+			type.setAccessTime(in.readDouble());
+			type.setEgressTime(in.readDouble());
+			String doorOperationMode = in.readString();
+			if (doorOperationMode != null) {
+				type.setDoorOperationMode(VehicleType.DoorOperationMode.valueOf(doorOperationMode));
+			}
+			type.setPcuEquivalents(in.readDouble());
+			type.setFlowEfficiencyFactor(in.readDouble());
+			vehicles.addVehicleType(type);
+		}
+
+		int numberOfVehicles = in.readVarInt();
+		for (int i = 0; i < numberOfVehicles; i++) {
+			Id<Vehicle> id = Id.create(in.readString(), Vehicle.class);
+			String typeId = in.readString();
+			VehicleType type = vehicles.getVehicleTypes().get(Id.create(typeId, VehicleType.class));
+			if (type == null) {
+				throw new RuntimeException("no vehicle type with id " + typeId);
+			}
+			vehicles.addVehicle(factory.createVehicle(id, type));
+		}
+		log.info("read " + numberOfTypes + " vehicle types and " + numberOfVehicles + " vehicles.");
+	}
+
+	/**
+	 * The same logic as in the xml readers: a coordinate reference system stored in the file takes precedence over
+	 * the one given to the constructor.
+	 */
+	private CoordinateTransformation createTransformation(final Attributes containerAttributes) {
+		String inputCRS = (String) containerAttributes.getAttribute(ProjectionUtils.INPUT_CRS_ATT);
+		if (inputCRS != null && this.targetCRS != null) {
+			if (this.externalInputCRS != null) {
+				log.warn("coordinate transformation defined both in config and in input file: setting from input file will be used");
+			}
+		} else {
+			inputCRS = this.externalInputCRS;
+		}
+		if (inputCRS == null || this.targetCRS == null) {
+			return new IdentityTransformation();
+		}
+		containerAttributes.putAttribute(ProjectionUtils.INPUT_CRS_ATT, this.targetCRS);
+		return TransformationFactory.getCoordinateTransformation(inputCRS, this.targetCRS);
+	}
+
+	private static ByteBuffer map(final File file) {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("The file " + file + " is too large to be mapped.");
+			}
+			// the mapping stays valid after the channel is closed
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static ByteBuffer open(final URL url) {
+		if ("file".equals(url.getProtocol())) {
+			try {
+				return map(new File(url.toURI()));
+			} catch (URISyntaxException | IllegalArgumentException e) {
+				// not a plain path, read it like any other url
+			}
+		}
+		try (InputStream stream = IOUtils.getInputStream(url)) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			IOUtils.copyStream(stream, bytes);
+			return ByteBuffer.wrap(bytes.toByteArray());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private final class Input {
+
+		private final ByteBuffer buffer;
+		private final List<String> strings = new ArrayList<>();
+
+		Input(final ByteBuffer buffer, final int container) {
+			this.buffer = buffer;
+			if (buffer.remaining() < 12 || buffer.getInt() != ScenarioBinaryWriter.MAGIC) {
+				throw new IllegalArgumentException("Not a binary scenario file.");
+			}
+			int version = buffer.getInt();
+			if (version > ScenarioBinaryWriter.VERSION) {
+				throw new IllegalArgumentException("Unsupported version " + version + " of binary scenario file.");
+			}
+			int actualContainer = buffer.getInt();
+			if (actualContainer != container) {
+				throw new IllegalArgumentException("The binary scenario file contains container " + actualContainer + ", but " + container + " was expected.");
+			}
+		}
+
+		int readVarInt() {
+			int value = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = this.buffer.get();
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		double readDouble() {
+			return this.buffer.getDouble();
+		}
+
+		boolean readBoolean() {
+			return this.buffer.get() != 0;
+		}
+
+		Integer readNullableInt() {
+			return readBoolean() ? this.buffer.getInt() : null;
+		}
+
+		String readString() {
+			int index = readVarInt();
+			if (index == 0) {
+				return null;
+			}
+			if (index > 1) {
+				return this.strings.get(index - 2);
+			}
+			byte[] bytes = new byte[readVarInt()];
+			this.buffer.get(bytes);
+			String string = new String(bytes, StandardCharsets.UTF_8);
+			this.strings.add(string);
+			return string;
+		}
+
+		Coord readCoord() {
+			double x = this.buffer.getDouble();
+			double y = this.buffer.getDouble();
+			return readBoolean() ? new Coord(x, y, this.buffer.getDouble()) : new Coord(x, y);
+		}
+
+		void readAttributes(final Attributes attributes) {
+			int count = readVarInt();
+			for (int i = 0; i < count; i++) {
+				String name = readString();
+				String className = readString();
+				String value = readString();
+				Object o = ScenarioBinaryReader.this.converter.convert(className, value);
+				if (o != null) {
+					attributes.putAttribute(name, o);
+				}
+			}
+		}
+	}
+
+}
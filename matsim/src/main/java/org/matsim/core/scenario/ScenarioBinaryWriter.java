@@ -0,0 +1,391 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scenario;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.facilities.ActivityFacilityImpl;
+import org.matsim.facilities.ActivityOption;
+import org.matsim.facilities.OpeningTime;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.MinimalTransferTimes;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.VehicleCapacity;
+import org.matsim.vehicles.VehicleType;
+import org.matsim.vehicles.Vehicles;
+
+/**
+ * Writes networks, transit schedules, facilities and vehicles into binary files, which can be loaded much faster
+ * than xml, see {@link ScenarioBinaryReader}. The {@link ScenarioLoaderImpl} recognizes these files by their
+ * content, so they can be used in the config instead of the xml files.
+ * <p></p>
+ * Every file contains one container, with all its attributes, in the order of its map. The files are not
+ * compressed, such that they can be memory mapped when reading. Coordinates are written as they are, without any
+ * transformation; the coordinate reference system is stored in the attributes of the container, if it is set.
+ * <p></p>
+ * File layout (all fixed-size numbers in big-endian byte order):
+ * <pre>
+ * file   := MAGIC VERSION (int) container content
+ * string := (varint) 0 for null, or (varint) 1 followed by (varint) length and the UTF-8 bytes of a string which
+ *           was not yet written, or (varint) index + 2 of a string written before
+ * attrs  := (varint) count, (string) name, (string) class, (string) value converted to a string for every attribute
+ * coord  := (double) x, (double) y, (boolean) hasZ, [(double) z]
+ * </pre>
+ * The content of every container is written by the respective method below, and read by the respective method of
+ * the reader in the same order.
+ */
+public final class ScenarioBinaryWriter {
+
+	private static final Logger log = Logger.getLogger(ScenarioBinaryWriter.class);
+
+	public static final int MAGIC = 0x4D534342; // "MSCB"
+	public static final int VERSION = 1;
+
+	public static final int CONTAINER_NETWORK = 1;
+	public static final int CONTAINER_TRANSIT_SCHEDULE = 2;
+	public static final int CONTAINER_FACILITIES = 3;
+	public static final int CONTAINER_VEHICLES = 4;
+
+	private final ObjectAttributesConverter converter = new ObjectAttributesConverter();
+
+	public void putAttributeConverter(final Class<?> clazz, final AttributeConverter<?> converter) {
+		this.converter.putAttributeConverter(clazz, converter);
+	}
+
+	public void putAttributeConverters(final Map<Class<?>, AttributeConverter<?>> converters) {
+		this.converter.putAttributeConverters(converters);
+	}
+
+	public void writeNetwork(final Network network, final String filename) {
+		log.info("Writing binary network to file: " + filename + "...");
+		try (Output out = new Output(filename, CONTAINER_NETWORK)) {
+			out.writeString(network.getName());
+			out.writeDouble(network.getCapacityPeriod());
+			out.writeDouble(network.getEffectiveCellSize());
+			out.writeDouble(network.getEffectiveLaneWidth());
+			out.writeAttributes(network.getAttributes());
+
+			Map<Id<Node>, Integer> nodeIndices = new HashMap<>(2 * network.getNodes().size());
+			out.writeVarInt(network.getNodes().size());
+			for (Node node : network.getNodes().values()) {
+				nodeIndices.put(node.getId(), nodeIndices.size());
+				out.writeId(node.getId());
+				out.writeCoord(node.getCoord());
+				out.writeString(NetworkUtils.getType(node));
+				out.writeString(NetworkUtils.getOrigId(node));
+				out.writeAttributes(node.getAttributes());
+			}
+
+			// links usually share the same instances of their sets of modes
+			Map<Set<String>, String> modeStrings = new IdentityHashMap<>();
+			out.writeVarInt(network.getLinks().size());
+			for (Link link : network.getLinks().values()) {
+				out.writeId(link.getId());
+				out.writeVarInt(nodeIndices.get(link.getFromNode().getId()));
+				out.writeVarInt(nodeIndices.get(link.getToNode().getId()));
+				out.writeDouble(link.getLength());
+				out.writeDouble(link.getFreespeed());
+				out.writeDouble(link.getCapacity());
+				out.writeDouble(link.getNumberOfLanes());
+				Set<String> modes = link.getAllowedModes();
+				out.writeString(modes == null ? null : modeStrings.computeIfAbsent(modes, m -> String.join(",", m)));
+				out.writeAttributes(link.getAttributes());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		log.info("done.");
+	}
+
+	public void writeTransitSchedule(final TransitSchedule schedule, final String filename) {
+		log.info("Writing binary transit schedule to file: " + filename + "...");
+		try (Output out = new Output(filename, CONTAINER_TRANSIT_SCHEDULE)) {
+			out.writeAttributes(schedule.getAttributes());
+
+			out.writeVarInt(schedule.getFacilities().size());
+			for (TransitStopFacility stop : schedule.getFacilities().values()) {
+				out.writeId(stop.getId());
+				out.writeCoord(stop.getCoord());
+				out.writeBoolean(stop.getIsBlockingLane());
+				out.writeId(stop.getLinkId());
+				out.writeString(stop.getName());
+				out.writeId(stop.getStopAreaId());
+				out.writeAttributes(stop.getAttributes());
+			}
+
+			int numberOfTransferTimes = 0;
+			for (MinimalTransferTimes.MinimalTransferTimesIterator iter = schedule.getMinimalTransferTimes().iterator(); iter.hasNext(); ) {
+				iter.next();
+				numberOfTransferTimes++;
+			}
+			out.writeVarInt(numberOfTransferTimes);
+			for (MinimalTransferTimes.MinimalTransferTimesIterator iter = schedule.getMinimalTransferTimes().iterator(); iter.hasNext(); ) {
+				iter.next();
+				out.writeId(iter.getFromStopId());
+				out.writeId(iter.getToStopId());
+				out.writeDouble(iter.getSeconds());
+			}
+
+			out.writeVarInt(schedule.getTransitLines().size());
+			for (TransitLine line : schedule.getTransitLines().values()) {
+				out.writeId(line.getId());
+				out.writeString(line.getName());
+				out.writeAttributes(line.getAttributes());
+				out.writeVarInt(line.getRoutes().size());
+				for (TransitRoute route : line.getRoutes().values()) {
+					writeTransitRoute(route, out);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		log.info("done.");
+	}
+
+	private static void writeTransitRoute(final TransitRoute route, final Output out) throws IOException {
+		out.writeId(route.getId());
+		out.writeString(route.getDescription());
+		out.writeString(route.getTransportMode());
+		out.writeAttributes(route.getAttributes());
+
+		out.writeVarInt(route.getStops().size());
+		for (TransitRouteStop stop : route.getStops()) {
+			out.writeId(stop.getStopFacility().getId());
+			out.writeDouble(stop.getArrivalOffset());
+			out.writeDouble(stop.getDepartureOffset());
+			out.writeBoolean(stop.isAwaitDepartureTime());
+		}
+
+		NetworkRoute networkRoute = route.getRoute();
+		out.writeBoolean(networkRoute != null);
+		if (networkRoute != null) {
+			out.writeId(networkRoute.getStartLinkId());
+			out.writeVarInt(networkRoute.getLinkIds().size());
+			for (Id<Link> linkId : networkRoute.getLinkIds()) {
+				out.writeId(linkId);
+			}
+			out.writeId(networkRoute.getEndLinkId());
+		}
+
+		out.writeVarInt(route.getDepartures().size());
+		for (Departure departure : route.getDepartures().values()) {
+			out.writeId(departure.getId());
+			out.writeDouble(departure.getDepartureTime());
+			out.writeId(departure.getVehicleId());
+			out.writeAttributes(departure.getAttributes());
+		}
+	}
+
+	public void writeFacilities(final ActivityFacilities facilities, final String filename) {
+		log.info("Writing binary facilities to file: " + filename + "...");
+		try (Output out = new Output(filename, CONTAINER_FACILITIES)) {
+			out.writeString(facilities.getName());
+			out.writeAttributes(facilities.getAttributes());
+
+			out.writeVarInt(facilities.getFacilities().size());
+			for (ActivityFacility facility : facilities.getFacilities().values()) {
+				out.writeId(facility.getId());
+				out.writeBoolean(facility.getCoord() != null);
+				if (facility.getCoord() != null) {
+					out.writeCoord(facility.getCoord());
+				}
+				out.writeId(facility.getLinkId());
+				out.writeString((facility instanceof ActivityFacilityImpl) ? ((ActivityFacilityImpl) facility).getDesc() : null);
+				out.writeVarInt(facility.getActivityOptions().size());
+				for (ActivityOption option : facility.getActivityOptions().values()) {
+					out.writeString(option.getType());
+					out.writeDouble(option.getCapacity());
+					out.writeVarInt(option.getOpeningTimes().size());
+					for (OpeningTime openingTime : option.getOpeningTimes()) {
+						out.writeDouble(openingTime.getStartTime());
+						out.writeDouble(openingTime.getEndTime());
+					}
+				}
+				out.writeAttributes(facility.getAttributes());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		log.info("done.");
+	}
+
+	public void writeVehicles(final Vehicles vehicles, final String filename) {
+		log.info("Writing binary vehicles to file: " + filename + "...");
+		try (Output out = new Output(filename, CONTAINER_VEHICLES)) {
+			out.writeVarInt(vehicles.getVehicleTypes().size());
+			for (VehicleType type : vehicles.getVehicleTypes().values()) {
+				out.writeId(type.getId());
+				out.writeString(type.getDescription());
+				VehicleCapacity capacity = type.getCapacity();
+				out.writeBoolean(capacity != null);
+				if (capacity != null) {
+					out.writeNullableInt(capacity.getSeats());
+					out.writeNullableInt(capacity.getStandingRoom());
+					out.writeBoolean(capacity.getFreightCapacity() != null);
+					if (capacity.getFreightCapacity() != null) {
+						out.writeDouble(capacity.getFreightCapacity().getVolume());
+					}
+				}
+				out.writeDouble(type.getLength());
+				out.writeDouble(type.getWidth());
+				out.writeDouble(type.getMaximumVelocity());
+				out.writeBoolean(type.getEngineInformation() != null);
+				if (type.getEngineInformation() != null) {
+					out.writeString(type.getEngineInformation().getFuelType().name());
+					out.writeDouble(type.getEngineInformation().getGasConsumption());
+				}
+				out.writeDouble(type.getAccessTime());
+				out.writeDouble(type.getEgressTime());
+				out.writeString(type.getDoorOperationMode() == null ? null : type.getDoorOperationMode().name());
+				out.writeDouble(type.getPcuEquivalents());
+				out.writeDouble(type.getFlowEfficiencyFactor());
+			}
+
+			out.writeVarInt(vehicles.getVehicles().size());
+			for (Vehicle vehicle : vehicles.getVehicles().values()) {
+				out.writeId(vehicle.getId());
+				out.writeId(vehicle.getType().getId());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		log.info("done.");
+	}
+
+	private final class Output implements Closeable {
+
+		private final DataOutputStream out;
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		Output(final String filename, final int container) throws IOException {
+			// never compressed, so the file can be memory mapped
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 65536));
+			this.out.writeInt(MAGIC);
+			this.out.writeInt(VERSION);
+			this.out.writeInt(container);
+		}
+
+		void writeVarInt(int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				this.out.writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.out.writeByte(value);
+		}
+
+		void writeDouble(final double value) throws IOException {
+			this.out.writeDouble(value);
+		}
+
+		void writeBoolean(final boolean value) throws IOException {
+			this.out.writeBoolean(value);
+		}
+
+		void writeNullableInt(final Integer value) throws IOException {
+			this.out.writeBoolean(value != null);
+			if (value != null) {
+				this.out.writeInt(value);
+			}
+		}
+
+		void writeString(final String string) throws IOException {
+			if (string == null) {
+				writeVarInt(0);
+				return;
+			}
+			Integer index = this.strings.get(string);
+			if (index != null) {
+				writeVarInt(index + 2);
+				return;
+			}
+			this.strings.put(string, this.strings.size());
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(1);
+			writeVarInt(bytes.length);
+			this.out.write(bytes);
+		}
+
+		void writeId(final Id<?> id) throws IOException {
+			writeString(id == null ? null : id.toString());
+		}
+
+		void writeCoord(final Coord coord) throws IOException {
+			this.out.writeDouble(coord.getX());
+			this.out.writeDouble(coord.getY());
+			this.out.writeBoolean(coord.hasZ());
+			if (coord.hasZ()) {
+				this.out.writeDouble(coord.getZ());
+			}
+		}
+
+		void writeAttributes(final Attributes attributes) throws IOException {
+			// as in xml, attributes without a converter are not written
+			List<String[]> converted = new ArrayList<>(attributes.size());
+			for (Map.Entry<String, Object> attribute : attributes.getAsMap().entrySet()) {
+				String value = ScenarioBinaryWriter.this.converter.convertToString(attribute.getValue());
+				if (value != null) {
+					converted.add(new String[] { attribute.getKey(), attribute.getValue().getClass().getCanonicalName(), value });
+				}
+			}
+			writeVarInt(converted.size());
+			for (String[] attribute : converted) {
+				writeString(attribute[0]);
+				writeString(attribute[1]);
+				writeString(attribute[2]);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.out.close();
+		}
+	}
+
+}
@@ -32,6 +32,7 @@ import org.matsim.core.network.io.NetworkChangeEventsParser;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.io.PopulationReader;
 import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.MatsimFileTypeGuesser;
 import org.matsim.core.utils.io.UncheckedIOException;
 import org.matsim.facilities.MatsimFacilitiesReader;
 import org.matsim.households.HouseholdsReaderV10;
@@ -41,10 +42,13 @@ import org.matsim.utils.objectattributes.AttributeConverter;
 import org.matsim.utils.objectattributes.ObjectAttributesXmlReader;
 import org.matsim.vehicles.VehicleReaderV1;
 
+import java.io.File;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -127,13 +131,17 @@ class ScenarioLoaderImpl {
 			log.info("loading network from " + networkUrl);
 			String inputCRS = config.network().getInputCRS();
 
-			MatsimNetworkReader reader =
-					new MatsimNetworkReader(
-							inputCRS,
-							config.global().getCoordinateSystem(),
-							this.scenario.getNetwork());
-            reader.putAttributeConverters( attributeConverters );
-            reader.parse(networkUrl);
+			if (isBinary(networkUrl)) {
+				createBinaryReader(inputCRS).readNetwork(networkUrl, this.scenario.getNetwork());
+			} else {
+				MatsimNetworkReader reader =
+						new MatsimNetworkReader(
+								inputCRS,
+								config.global().getCoordinateSystem(),
+								this.scenario.getNetwork());
+				reader.putAttributeConverters( attributeConverters );
+				reader.parse(networkUrl);
+			}
 
 			if ((this.config.network().getChangeEventsInputFile()!= null) && this.config.network().isTimeVariantNetwork()) {
 				log.info("loading network change events from " + this.config.network().getChangeEventsInputFileUrl(this.config.getContext()).getFile());
@@ -154,9 +162,13 @@ class ScenarioLoaderImpl {
 			final String inputCRS = config.facilities().getInputCRS();
 			final String internalCRS = config.global().getCoordinateSystem();
 
-            MatsimFacilitiesReader reader = new MatsimFacilitiesReader(inputCRS, internalCRS, this.scenario.getActivityFacilities());
-            reader.putAttributeConverters(attributeConverters);
-            reader.parse(facilitiesFileName);
+			if (isBinary(facilitiesFileName)) {
+				createBinaryReader(inputCRS).readFacilities(facilitiesFileName, this.scenario.getActivityFacilities());
+			} else {
+				MatsimFacilitiesReader reader = new MatsimFacilitiesReader(inputCRS, internalCRS, this.scenario.getActivityFacilities());
+				reader.putAttributeConverters(attributeConverters);
+				reader.parse(facilitiesFileName);
+			}
 
 			log.info("loaded " + this.scenario.getActivityFacilities().getFacilities().size() + " facilities from " + facilitiesFileName);
 		}
@@ -235,7 +247,11 @@ class ScenarioLoaderImpl {
 			final String inputCRS = config.transit().getInputScheduleCRS();
 			final String internalCRS = config.global().getCoordinateSystem();
 
-            new TransitScheduleReader( inputCRS, internalCRS, this.scenario).readURL(transitScheduleFile );
+			if (isBinary(transitScheduleFile)) {
+				createBinaryReader(inputCRS).readTransitSchedule(transitScheduleFile, this.scenario);
+			} else {
+				new TransitScheduleReader( inputCRS, internalCRS, this.scenario).readURL(transitScheduleFile );
+			}
 		}
 		else {
 			log.info("no transit schedule file set in config, not loading any transit schedule");
@@ -262,7 +278,12 @@ class ScenarioLoaderImpl {
 		final String vehiclesFile = this.config.transit().getVehiclesFile();
 		if ( vehiclesFile != null ) {
 			log.info("loading transit vehicles from " + vehiclesFile);
-			new VehicleReaderV1(this.scenario.getTransitVehicles()).parse(this.config.transit().getVehiclesFileURL(this.config.getContext()));
+			URL vehiclesUrl = this.config.transit().getVehiclesFileURL(this.config.getContext());
+			if (isBinary(vehiclesUrl)) {
+				createBinaryReader(null).readVehicles(vehiclesUrl, this.scenario.getTransitVehicles());
+			} else {
+				new VehicleReaderV1(this.scenario.getTransitVehicles()).parse(vehiclesUrl);
+			}
 		}
 		else {
 			log.info("no transit vehicles file set in config, not loading any transit vehicles");
@@ -272,7 +293,12 @@ class ScenarioLoaderImpl {
 		final String vehiclesFile = this.config.vehicles().getVehiclesFile();
 		if ( vehiclesFile != null ) {
 			log.info("loading vehicles from " + vehiclesFile );
-			new VehicleReaderV1(this.scenario.getVehicles()).parse(IOUtils.newUrl(this.config.getContext(), vehiclesFile));
+			URL vehiclesUrl = IOUtils.newUrl(this.config.getContext(), vehiclesFile);
+			if (isBinary(vehiclesUrl)) {
+				createBinaryReader(null).readVehicles(vehiclesUrl, this.scenario.getVehicles());
+			} else {
+				new VehicleReaderV1(this.scenario.getVehicles()).parse(vehiclesUrl);
+			}
 		} 
 		else {
 			log.info("no vehicles file set in config, not loading any vehicles");
@@ -290,4 +316,30 @@ class ScenarioLoaderImpl {
 		}
 	}
 
+	private ScenarioBinaryReader createBinaryReader(String inputCRS) {
+		ScenarioBinaryReader reader = new ScenarioBinaryReader(inputCRS, config.global().getCoordinateSystem());
+		reader.putAttributeConverters( attributeConverters );
+		return reader;
+	}
+
+	/**
+	 * Only local files are checked for the binary format of {@link ScenarioBinaryWriter}, everything else is
+	 * read as xml.
+	 */
+	private static boolean isBinary(URL url) {
+		if (!"file".equals(url.getProtocol())) {
+			return false;
+		}
+		String name = url.getPath().toLowerCase(Locale.ROOT);
+		if (name.endsWith(".xml") || name.endsWith(".xml.gz")) {
+			return false;
+		}
+		try {
+			File file = new File(url.toURI());
+			return file.isFile() && new MatsimFileTypeGuesser(file.getPath()).isBinary();
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return false;
+		}
+	}
+
 }
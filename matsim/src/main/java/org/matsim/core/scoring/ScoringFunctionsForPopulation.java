@@ -26,6 +26,7 @@ import gnu.trove.iterator.TDoubleIterator;
 import gnu.trove.list.array.TDoubleArrayList;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.PersonMoneyEvent;
@@ -39,9 +40,12 @@ import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.internal.HasPersonId;
+import org.matsim.core.config.groups.ParallelEventHandlingConfigGroup;
 import org.matsim.core.controler.ControlerListenerManager;
 import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.events.ShutdownEvent;
 import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.controler.listener.ShutdownListener;
 import org.matsim.core.events.algorithms.Vehicle2DriverEventHandler;
 import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.population.PopulationUtils;
@@ -53,12 +57,16 @@ import org.matsim.vehicles.Vehicle;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 import static org.matsim.core.router.TripStructureUtils.Trip;
 
@@ -66,6 +74,12 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
  * This class helps EventsToScore by keeping ScoringFunctions for the entire Population - one per Person -, and dispatching Activities
  * and Legs to the ScoringFunctions. It also gives out the ScoringFunctions, so they can be given other events by EventsToScore.
  * It is not independently useful. Please do not make public.
+ * <p></p>
+ * If a number of threads for scoring is configured (see {@link ParallelEventHandlingConfigGroup#getNumberOfThreadsForScoring()}),
+ * the persons are partitioned by the index of their id into as many shards, and every shard is scored by its own thread. The
+ * events handling thread then only looks up the scoring function and hands the work over to the queue of the shard, so the
+ * scoring functions of one person are still called by only one thread, in the order of the events. The threads are
+ * started at the start of every iteration and stopped once the scoring functions are finished.
  * 
  * @author michaz
  *
@@ -91,8 +105,10 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	 * should be faster and reduce the memory overhead.
 	 *
 	 * cdobler, nov'15
+	 *
+	 * The scoring functions are looked up for every event, so they are stored in an IdMap, i.e. an array indexed by the person ids.
 	 */
-	private final Map<Id<Person>, ScoringFunction> agentScorers = new HashMap<>();
+	private final Map<Id<Person>, ScoringFunction> agentScorers = new IdMap<>(Person.class);
 	private final Map<Id<Person>, TDoubleCollection> partialScores = new LinkedHashMap<>();
 	private final AtomicReference<Throwable> exception = new AtomicReference<>();
 	private final Map<Id<Person>, Plan> tripRecords = new LinkedHashMap<>() ;
@@ -107,15 +123,37 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	@Inject(optional = true)
 	private TripRouter tripRouter;
 
+	private final int numberOfShards;
+	private ScoringShard[] shards = null;
+
 	@Inject
+	ScoringFunctionsForPopulation( ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
+						 Population population, ScoringFunctionFactory scoringFunctionFactory, ParallelEventHandlingConfigGroup parallelEventHandlingConfig) {
+		this(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, population, scoringFunctionFactory,
+				parallelEventHandlingConfig.getNumberOfThreadsForScoring());
+	}
+
 	ScoringFunctionsForPopulation( ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
 						 Population population, ScoringFunctionFactory scoringFunctionFactory) {
+		this(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, population, scoringFunctionFactory, 0);
+	}
+
+	ScoringFunctionsForPopulation( ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
+						 Population population, ScoringFunctionFactory scoringFunctionFactory, int numberOfThreadsForScoring) {
+		this.numberOfShards = numberOfThreadsForScoring;
 		controlerListenerManager.addControlerListener(new IterationStartsListener() {
 			@Override
 			public void notifyIterationStarts(IterationStartsEvent event) {
 				init();
 			}
 		});
+		controlerListenerManager.addControlerListener(new ShutdownListener() {
+			@Override
+			public void notifyShutdown(ShutdownEvent event) {
+				// in case the last iteration was not scored completely
+				stopShards();
+			}
+		});
 		this.population = population;
 		this.scoringFunctionFactory = scoringFunctionFactory;
 		eventsManager.addHandler(this);
@@ -127,11 +165,58 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	}
 
 	private void init() {
+		if (this.numberOfShards > 0 && this.shards == null) {
+			this.shards = new ScoringShard[this.numberOfShards];
+			for (int i = 0; i < this.numberOfShards; i++) {
+				this.shards[i] = new ScoringShard(i);
+			}
+		}
+		if (this.shards != null) {
+			// the shards must not initialize the stage activities concurrently
+			getStageActivities();
+			for (ScoringShard shard : this.shards) {
+				shard.persons.clear();
+			}
+		}
 		for (Person person : this.population.getPersons().values()) {
 			ScoringFunction data = this.scoringFunctionFactory.createNewScoringFunction(person);
 			this.agentScorers.put(person.getId(), data);
 			this.partialScores.put(person.getId(), new TDoubleArrayList());
 			this.tripRecords.put(person.getId(), PopulationUtils.createPlan());
+			if (this.shards != null) {
+				getShard(person.getId()).persons.add(person.getId());
+			}
+		}
+	}
+
+	private ScoringShard getShard(final Id<Person> personId) {
+		return this.shards[personId.index() % this.shards.length];
+	}
+
+	/**
+	 * Scores the item (an event, a {@link PersonExperiencedLeg} or a {@link PersonExperiencedActivity}) of the given person,
+	 * either directly or on the thread of the person's shard.  Must only be called while holding the lock of this object.
+	 */
+	private void score(final Id<Person> personId, final ScoringFunction scoringFunction, final Object item) {
+		if (this.shards == null) {
+			process(scoringFunction, item);
+		} else {
+			getShard(personId).add(scoringFunction, item);
+		}
+	}
+
+	private void process(final ScoringFunction scoringFunction, final Object item) {
+		if (item instanceof PersonExperiencedLeg) {
+			scoreLeg((PersonExperiencedLeg) item);
+		} else if (item instanceof PersonExperiencedActivity) {
+			scoreActivity((PersonExperiencedActivity) item);
+		} else if (item instanceof LinkEnterEvent) {
+			scoringFunction.handleEvent((LinkEnterEvent) item);
+		} else if (item instanceof Event) {
+			scoreEvent(scoringFunction, (Event) item);
+		} else {
+			// work of the shard itself, see runOnAllShards()
+			((Runnable) item).run();
 		}
 	}
 
@@ -164,19 +249,10 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		// link enter/leave events are NOT passed on, for performance reasons.
 		// kai/dominik, dec'12
 		if (o instanceof HasPersonId) {
-			ScoringFunction scoringFunction = getScoringFunctionForAgent(((HasPersonId) o).getPersonId());
+			Id<Person> personId = ((HasPersonId) o).getPersonId();
+			ScoringFunction scoringFunction = getScoringFunctionForAgent(personId);
 			if (scoringFunction != null) {
-				if (o instanceof PersonStuckEvent) {
-					scoringFunction.agentStuck(o.getTime());
-				} else if (o instanceof PersonMoneyEvent) {
-					scoringFunction.addMoney(((PersonMoneyEvent) o).getAmount());
-					// yy looking at this, I am a bit skeptic if it truly makes sense to not pass this additionally into the general events handling function below.
-					// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
-				} 
-//				else {
-					scoringFunction.handleEvent(o);
-					// passing this on in any case, see comment above.  kai, mar'17
-//				}
+				score(personId, scoringFunction, o);
 			}
 		}
 //		if ( passLinkEventsToPerson ) {
@@ -194,7 +270,7 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 				ScoringFunction scoringFunction = getScoringFunctionForAgent( driverId );
 				// (this will NOT do the scoring function lookup twice since LinkEnterEvent is not an instance of HasPersonId.  kai, mar'17)
 				if (scoringFunction != null) {
-					scoringFunction.handleEvent(o) ;
+					score(driverId, scoringFunction, o);
 				}
 			}
 			/*
@@ -207,8 +283,26 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 //		}
 	}
 
+	private static void scoreEvent(final ScoringFunction scoringFunction, final Event o) {
+		if (o instanceof PersonStuckEvent) {
+			scoringFunction.agentStuck(o.getTime());
+		} else if (o instanceof PersonMoneyEvent) {
+			scoringFunction.addMoney(((PersonMoneyEvent) o).getAmount());
+			// yy looking at this, I am a bit skeptic if it truly makes sense to not pass this additionally into the general events handling function below.
+			// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
+		} 
+//		else {
+			scoringFunction.handleEvent(o);
+			// passing this on in any case, see comment above.  kai, mar'17
+//		}
+	}
+
 	@Override
 	synchronized public void handleLeg(PersonExperiencedLeg o) {
+		score(o.getAgentId(), null, o);
+	}
+
+	private void scoreLeg(PersonExperiencedLeg o) {
 		Id<Person> agentId = o.getAgentId();
 		Leg leg = o.getLeg();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
@@ -225,6 +319,10 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	@Override
 	synchronized public void handleActivity(PersonExperiencedActivity o) {
+		score(o.getAgentId(), null, o);
+	}
+
+	private void scoreActivity(PersonExperiencedActivity o) {
 		Id<Person> agentId = o.getAgentId();
 		Activity activity = o.getActivity();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
@@ -281,6 +379,34 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	}
 
 	public void finishScoringFunctions() {
+		if (this.shards != null) {
+			try {
+				// wait until the shards have scored everything that was handed over, then finish their scoring functions in parallel
+				runOnAllShards(shard -> {});
+				rethrowException();
+				runOnAllShards(shard -> {
+					for (Id<Person> personId : shard.persons) {
+						ScoringFunction sf = this.agentScorers.get(personId);
+						sf.finish();
+						this.partialScores.get(personId).add(sf.getScore());
+					}
+				});
+			} finally {
+				stopShards();
+			}
+			rethrowException();
+			return;
+		}
+		rethrowException();
+		for (ScoringFunction sf : this.agentScorers.values()) {
+			sf.finish();
+		}
+		for (Entry<Id<Person>, TDoubleCollection> entry : this.partialScores.entrySet()) {
+			entry.getValue().add(this.getScoringFunctionForAgent(entry.getKey()).getScore());
+		}
+	}
+
+	private void rethrowException() {
 		// Rethrow an exception in a scoring function (user code) if there was one.
 		Throwable throwable = this.exception.get();
 		if (throwable != null) {
@@ -290,12 +416,53 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 				throw new RuntimeException(throwable);
 			}
 		}
-		for (ScoringFunction sf : this.agentScorers.values()) {
-			sf.finish();
+	}
+
+	/**
+	 * Runs the action on the thread of every shard, after all the work already handed over to the shard, and
+	 * waits until all shards are done.
+	 */
+	private void runOnAllShards(final Consumer<ScoringShard> action) {
+		CountDownLatch latch = new CountDownLatch(this.shards.length);
+		synchronized (this) {
+			for (ScoringShard shard : this.shards) {
+				Runnable task = () -> {
+					try {
+						action.accept(shard);
+					} finally {
+						latch.countDown();
+					}
+				};
+				shard.add(null, task);
+				shard.flush();
+			}
 		}
-		for (Entry<Id<Person>, TDoubleCollection> entry : this.partialScores.entrySet()) {
-			entry.getValue().add(this.getScoringFunctionForAgent(entry.getKey()).getScore());
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Stops the threads of the shards after they have done all the work handed over to them, and waits for them.
+	 */
+	private synchronized void stopShards() {
+		if (this.shards == null) {
+			return;
+		}
+		for (ScoringShard shard : this.shards) {
+			shard.flush();
+			shard.stop();
+		}
+		try {
+			for (ScoringShard shard : this.shards) {
+				shard.thread.join();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
 		}
+		this.shards = null;
 	}
 
 	public void writePartialScores(String iterationFilename) {
@@ -318,6 +485,94 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	}
 
+	/**
+	 * The persons of one shard, and their work. The work is collected in batches by the events handling thread, and
+	 * handed over to the shard's thread by a lock-free queue. The thread parks while its queue is empty.
+	 */
+	private final class ScoringShard implements Runnable {
+		private static final int BATCH_SIZE = 256;
+
+		private final List<Id<Person>> persons = new ArrayList<>();
+		private final ConcurrentLinkedQueue<Batch> queue = new ConcurrentLinkedQueue<>();
+		private final Thread thread;
+		private volatile boolean waiting = false;
+		private volatile boolean stopped = false;
+		private Batch batch = new Batch(BATCH_SIZE); // only accessed while holding the lock of the outer object
+
+		ScoringShard(final int index) {
+			this.thread = new Thread(this, "ScoringShard-" + index);
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+
+		void add(final ScoringFunction scoringFunction, final Object item) {
+			this.batch.scoringFunctions[this.batch.size] = scoringFunction;
+			this.batch.items[this.batch.size] = item;
+			this.batch.size++;
+			if (this.batch.size == BATCH_SIZE) {
+				flush();
+			}
+		}
+
+		void flush() {
+			if (this.batch.size > 0) {
+				this.queue.offer(this.batch);
+				this.batch = new Batch(BATCH_SIZE);
+				if (this.waiting) {
+					LockSupport.unpark(this.thread);
+				}
+			}
+		}
+
+		/**
+		 * Lets the thread end once its queue is empty.
+		 */
+		void stop() {
+			this.stopped = true;
+			LockSupport.unpark(this.thread);
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				Batch work = this.queue.poll();
+				if (work == null) {
+					if (this.stopped) {
+						return;
+					}
+					this.waiting = true;
+					// check again, the producer might have missed the flag
+					if (this.queue.isEmpty() && !this.stopped) {
+						LockSupport.park(this);
+					}
+					this.waiting = false;
+					continue;
+				}
+				for (int i = 0; i < work.size; i++) {
+					try {
+						process(work.scoringFunctions[i], work.items[i]);
+					} catch (Throwable e) {
+						exception.compareAndSet(null, e);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * The items to score, together with the scoring functions already looked up by the events handling thread.
+	 */
+	private static final class Batch {
+		private final ScoringFunction[] scoringFunctions;
+		private final Object[] items;
+		private int size = 0;
+
+		Batch(final int capacity) {
+			this.scoringFunctions = new ScoringFunction[capacity];
+			this.items = new Object[capacity];
+		}
+	}
+
 //	public boolean isPassLinkEventsToPerson() {
 //		return passLinkEventsToPerson;
 //	}
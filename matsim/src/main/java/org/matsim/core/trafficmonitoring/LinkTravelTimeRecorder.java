@@ -0,0 +1,48 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.trafficmonitoring;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+
+/**
+ * Receives link travel times directly from the network simulation, instead of reconstructing them from
+ * {@link org.matsim.api.core.v01.events.LinkEnterEvent}s and {@link org.matsim.api.core.v01.events.LinkLeaveEvent}s.
+ * <p></p>
+ * The QNetsimEngine reports a travel time whenever a vehicle leaves a link which it entered from another link,
+ * i.e. exactly in the cases where the {@link TravelTimeCalculator} would measure one from the events. The method is
+ * called concurrently by the threads of the QNetsimEngine, so implementations must be thread safe.
+ *
+ * @see TravelTimeCalculatorConfigGroup#isRecordTravelTimesInQSim()
+ */
+public interface LinkTravelTimeRecorder {
+
+	/**
+	 * @param linkId the link the vehicle leaves
+	 * @param nextLinkId the link the vehicle enters next, or <code>null</code> if it does not enter another link,
+	 * e.g. because it was removed from the simulation as stuck
+	 * @param mode the mode of the vehicle's driver
+	 * @param enterTime the time the vehicle entered the link
+	 * @param leaveTime the time the vehicle leaves the link
+	 */
+	void recordLinkTravelTime(Id<Link> linkId, Id<Link> nextLinkId, String mode, double enterTime, double leaveTime);
+
+}
@@ -22,6 +22,8 @@ package org.matsim.core.trafficmonitoring;
 import com.google.inject.Inject;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.IdSet;
 import org.matsim.api.core.v01.events.*;
 import org.matsim.api.core.v01.events.handler.*;
 import org.matsim.api.core.v01.network.Link;
@@ -33,6 +35,12 @@ import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityE
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
 import org.matsim.core.gbl.Gbl;
+import org.matsim.core.mobsim.framework.events.MobsimAfterSimStepEvent;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeCleanupEvent;
+import org.matsim.core.mobsim.framework.events.MobsimInitializedEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimAfterSimStepListener;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeCleanupListener;
+import org.matsim.core.mobsim.framework.listeners.MobsimInitializedListener;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.collections.CollectionUtils;
@@ -40,10 +48,13 @@ import org.matsim.core.utils.collections.Tuple;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vehicles.VehicleType;
 
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Calculates actual travel times on link from events and optionally also the link-to-link 
@@ -56,13 +67,19 @@ import java.util.concurrent.ConcurrentHashMap;
  * use {@link TravelTimeDataHashMap},}
  * as that one does not use any memory to time bins where no traffic occurred. By default,
  * {@link TravelTimeDataArray} is used.
+ * <br>
+ * Instead of handling events, the travel times can also be recorded directly by the QSim, see
+ * {@link LinkTravelTimeRecorder}. Each thread of the QSim then collects the travel times in its own buffer, and
+ * the buffers are merged into the travel time data at the end of each time bin and at the end of the mobsim.
+ * Travel times that are requested during the mobsim thus do not contain the current time bin.
  *
  * @author dgrether
  * @author mrieser
  */
 public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEventHandler,
 									     VehicleEntersTrafficEventHandler, VehicleLeavesTrafficEventHandler, VehicleArrivesAtFacilityEventHandler,
-									     VehicleAbortsEventHandler {
+									     VehicleAbortsEventHandler, LinkTravelTimeRecorder, MobsimInitializedListener, MobsimAfterSimStepListener,
+									     MobsimBeforeCleanupListener {
 	private static final Logger log = Logger.getLogger(TravelTimeCalculator.class);
 
 	private static final String ERROR_STUCK_AND_LINKTOLINK = "Using the stuck feature with turning move travel times is not available. As the next link of a stucked" +
@@ -77,7 +94,7 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 	private Map<Tuple<Id<Link>, Id<Link>>, TravelTimeData> linkToLinkData;
 
-	private final DataContainerProvider dataContainerProvider;
+	private DataContainerProvider dataContainerProvider;
 
 	private final Map<Id<Vehicle>, LinkEnterEvent> linkEnterEvents;
 
@@ -92,9 +109,18 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 	private TravelTimeDataFactory ttDataFactory = null;
 
+	private TravelTimeDataFactory linkToLinkTtDataFactory = null;
+
+	private final Network network;
+
 	@Inject private QSimConfigGroup qsimConfig ;
 	TravelTimeGetter travelTimeGetter ;
 
+	// travel times recorded by the threads of the QSim, merged at the end of each time bin
+	private final Queue<RecordedTravelTimes> recordedTravelTimes = new ConcurrentLinkedQueue<>();
+	private volatile ThreadLocal<RecordedTravelTimes> threadRecordedTravelTimes = createThreadRecordedTravelTimes();
+	private double nextMergeTime = Double.NEGATIVE_INFINITY;
+
 	@Deprecated // user builder instead.  kai, feb'19
 	public static TravelTimeCalculator create(Network network, TravelTimeCalculatorConfigGroup group) {
 		TravelTimeCalculator calculator = new TravelTimeCalculator(network, group);
@@ -110,10 +136,24 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		// Customize micro-behavior of the TravelTimeCalculator based on config. Should not be necessary for most use cases.
 		switch ( config.getTravelTimeCalculatorType() ) {
 			case TravelTimeCalculatorArray:
-				calculator.ttDataFactory = new TravelTimeDataArrayFactory(network, calculator.numSlots);
+				calculator.setTravelTimeDataFactory(new TravelTimeDataArrayFactory(network, calculator.numSlots));
 				break;
 			case TravelTimeCalculatorHashMap:
-				calculator.ttDataFactory = new TravelTimeDataHashMapFactory(network);
+				calculator.setTravelTimeDataFactory(new TravelTimeDataHashMapFactory(network));
+				break;
+			case TravelTimeCalculatorOffHeap:
+				String file = config.getTravelTimeDataFile();
+				if (file == null) {
+					calculator.setTravelTimeDataFactory(TravelTimeDataOffHeapFactory.allocate(network, calculator.numSlots));
+				} else {
+					if (calculator.filterAnalyzedModes) {
+						// with separate modes, there is one travel time calculator per mode
+						file = file + "." + String.join("_", new TreeSet<>(calculator.analyzedModes));
+					}
+					calculator.setTravelTimeDataFactory(TravelTimeDataOffHeapFactory.create(network, calculator.numSlots, file));
+				}
+				// there is only one row per link in the matrix, so link to link travel times are kept on the heap:
+				calculator.linkToLinkTtDataFactory = new TravelTimeDataArrayFactory(network, calculator.numSlots);
 				break;
 			default:
 				throw new RuntimeException(config.getTravelTimeCalculatorType() + " is unknown!");
@@ -139,7 +179,10 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		// this injected constructor is not used when getSeparateModes is true
 		this(network, ttconfigGroup.getTraveltimeBinSize(), ttconfigGroup.getMaxTime(), ttconfigGroup.isCalculateLinkTravelTimes(),
 			  ttconfigGroup.isCalculateLinkToLinkTravelTimes(), ttconfigGroup.isFilterModes(), CollectionUtils.stringToSet(ttconfigGroup.getAnalyzedModesAsString() ) );
-		eventsManager.addHandler(this);
+		if (!ttconfigGroup.isRecordTravelTimesInQSim()) {
+			// (otherwise, the travel times are recorded by the qsim, see TravelTimeCalculatorModule)
+			eventsManager.addHandler(this);
+		}
 		configure(this, ttconfigGroup, network);
 	}
 
@@ -168,6 +211,7 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		private Set<String> analyzedModes = null ;
 		private TravelTimeCalculatorConfigGroup ttcConfig;
 		private boolean toBeConfigured = false ;
+		private String sharedTravelTimeDataFile = null ;
 
 		public Builder( Network network ) {
 			this.network = network ;
@@ -206,12 +250,30 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 			this.toBeConfigured = true ;
 		}
 
+		/**
+		 * Uses the link travel times in the given file, as written by a travel time calculator of type
+		 * {@link TravelTimeCalculatorConfigGroup.TravelTimeCalculatorType#TravelTimeCalculatorOffHeap} with a travel time data file,
+		 * for the same network, time slice and maximum time.  The file is memory mapped, so the travel times are shared with
+		 * the calculator writing them (which may run in another process) instead of being copied.
+		 * <p></p>
+		 * Such a calculator is meant for reading the travel times, e.g. from replanning or analysis processes.  The file is mapped
+		 * read-only, so it cannot be added as events handler.  Reading travel times while the writing calculator handles events
+		 * is possible, but the travel times may then be incomplete.
+		 */
+		public void setSharedTravelTimeDataFile( String sharedTravelTimeDataFile ){
+			this.sharedTravelTimeDataFile = sharedTravelTimeDataFile;
+		}
+
 		public TravelTimeCalculator build() {
 			TravelTimeCalculator abc = new TravelTimeCalculator( network, timeslice, maxTime, calculateLinkTravelTimes, calculateLinkToLinkTravelTimes, filterModes,
 				  analyzedModes );
 			if( toBeConfigured ){
 				TravelTimeCalculator.configure( abc, this.ttcConfig, this.network );
 			}
+			if( sharedTravelTimeDataFile != null ){
+				abc.setTravelTimeDataFactory( TravelTimeDataOffHeapFactory.attach( network, abc.numSlots, sharedTravelTimeDataFile ) );
+				abc.linkToLinkTtDataFactory = new TravelTimeDataArrayFactory( network, abc.numSlots );
+			}
 			return abc ;
 		}
 
@@ -230,8 +292,11 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		this.numSlots = TimeBinUtils.getTimeBinCount(maxTime, timeslice);
 		this.aggregator = new TimeSlotComputation(this.numSlots, this.timeSlice);
 		this.travelTimeGetter = new AveragingTravelTimeGetter( this.aggregator ) ;
+		this.network = network;
 		this.ttDataFactory = new TravelTimeDataArrayFactory(network, this.numSlots);
+		this.linkToLinkTtDataFactory = this.ttDataFactory;
 		if (this.calculateLinkTravelTimes){
+			// the data is created lazily, also by the routing threads, so this must remain a concurrent map
 			this.linkData = new ConcurrentHashMap<>((int) (network.getLinks().size() * 1.4));
 
 			/*
@@ -251,11 +316,12 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 			// assume that every link has 2 outgoing links as default
 			this.linkToLinkData = new ConcurrentHashMap<>((int) (network.getLinks().size() * 1.4 * 2));
 		}
-		this.linkEnterEvents = new ConcurrentHashMap<>();
+		// only accessed by the events handling thread, so no concurrent map is needed here
+		this.linkEnterEvents = new IdMap<>(Vehicle.class);
 
 		// if we just look at one mode, we need to ignore all vehicles with a different mode. However, the info re the mode is only in
 		// the vehicleEntersTraffic event.  So we need to memorize the ignored vehicles from there ...
-		this.vehiclesToIgnore = new HashSet<>();
+		this.vehiclesToIgnore = new IdSet<>(Vehicle.class);
 
 
 		this.reset(0);
@@ -348,10 +414,96 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		if (filterAnalyzedModes) this.vehiclesToIgnore.remove(event.getVehicleId());
 	}
 
+	@Override
+	public void recordLinkTravelTime(Id<Link> linkId, Id<Link> nextLinkId, String mode, double enterTime, double leaveTime) {
+		if (filterAnalyzedModes && !analyzedModes.contains(mode)) return;
+		this.threadRecordedTravelTimes.get().add(linkId.index(), nextLinkId == null ? -1 : nextLinkId.index(), enterTime, leaveTime - enterTime);
+	}
+
+	@Override
+	public void notifyMobsimInitialized(MobsimInitializedEvent e) {
+		// when recording in the mobsim, the calculator is not reset by the events manager
+		this.reset(0);
+		this.nextMergeTime = Double.NEGATIVE_INFINITY;
+	}
+
+	@Override
+	public void notifyMobsimAfterSimStep(MobsimAfterSimStepEvent e) {
+		// the threads of the mobsim do not record travel times while the listeners are notified
+		double time = e.getSimulationTime();
+		if (time >= this.nextMergeTime) {
+			mergeRecordedTravelTimes();
+			this.nextMergeTime = (Math.floor(time / this.timeSlice) + 1) * this.timeSlice;
+		}
+	}
+
+	@Override
+	public void notifyMobsimBeforeCleanup(MobsimBeforeCleanupEvent e) {
+		mergeRecordedTravelTimes();
+		// the threads of the next mobsim will use new buffers
+		this.recordedTravelTimes.clear();
+		this.threadRecordedTravelTimes = createThreadRecordedTravelTimes();
+	}
+
+	private void mergeRecordedTravelTimes() {
+		for (RecordedTravelTimes recorded : this.recordedTravelTimes) {
+			for (int i = 0; i < recorded.size; i++) {
+				final int timeSlot = this.aggregator.getTimeSlotIndex(recorded.enterTimes[i]);
+				Id<Link> linkId = Id.get(recorded.linkIndices[i], Link.class);
+				if (this.calculateLinkTravelTimes) {
+					TravelTimeData data = this.dataContainerProvider.getTravelTimeData(linkId, true);
+					data.addTravelTime(timeSlot, recorded.travelTimes[i]);
+					data.setNeedsConsolidation( true );
+				}
+				if (this.calculateLinkToLinkTravelTimes && recorded.nextLinkIndices[i] >= 0) {
+					Id<Link> nextLinkId = Id.get(recorded.nextLinkIndices[i], Link.class);
+					TravelTimeData data = getLinkToLinkTravelTimeData(new Tuple<>(linkId, nextLinkId));
+					data.addTravelTime(timeSlot, recorded.travelTimes[i]);
+					data.setNeedsConsolidation( true );
+				}
+			}
+			recorded.size = 0;
+		}
+	}
+
+	private ThreadLocal<RecordedTravelTimes> createThreadRecordedTravelTimes() {
+		return ThreadLocal.withInitial(() -> {
+			RecordedTravelTimes recorded = new RecordedTravelTimes();
+			this.recordedTravelTimes.add(recorded);
+			return recorded;
+		});
+	}
+
+	/**
+	 * The travel times recorded by one thread of the mobsim since the last merge.
+	 */
+	private static final class RecordedTravelTimes {
+		private int[] linkIndices = new int[1024];
+		private int[] nextLinkIndices = new int[1024];
+		private double[] enterTimes = new double[1024];
+		private double[] travelTimes = new double[1024];
+		private int size = 0;
+
+		void add(int linkIndex, int nextLinkIndex, double enterTime, double travelTime) {
+			if (this.size == this.linkIndices.length) {
+				int capacity = this.size + (this.size >> 1);
+				this.linkIndices = Arrays.copyOf(this.linkIndices, capacity);
+				this.nextLinkIndices = Arrays.copyOf(this.nextLinkIndices, capacity);
+				this.enterTimes = Arrays.copyOf(this.enterTimes, capacity);
+				this.travelTimes = Arrays.copyOf(this.travelTimes, capacity);
+			}
+			this.linkIndices[this.size] = linkIndex;
+			this.nextLinkIndices[this.size] = nextLinkIndex;
+			this.enterTimes[this.size] = enterTime;
+			this.travelTimes[this.size] = travelTime;
+			this.size++;
+		}
+	}
+
 	private TravelTimeData getLinkToLinkTravelTimeData( Tuple<Id<Link>, Id<Link>> fromLinkToLink ) {
 		TravelTimeData data = this.linkToLinkData.get(fromLinkToLink);
 		if ( null == data ) {
-			data = this.ttDataFactory.createTravelTimeData(fromLinkToLink.getFirst()) ;
+			data = this.linkToLinkTtDataFactory.createTravelTimeData(fromLinkToLink.getFirst()) ;
 			this.linkToLinkData.put(fromLinkToLink, data);
 		}
 		return data;
@@ -434,6 +586,9 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		}
 		this.linkEnterEvents.clear();
 		this.vehiclesToIgnore.clear();
+		for (RecordedTravelTimes recorded : this.recordedTravelTimes) {
+			recorded.size = 0;
+		}
 	}
 
 	/**
@@ -554,6 +709,16 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	@Deprecated // use builder.configure(config) instead.  kai, feb'19
 	public void setTtDataFactory( TravelTimeDataFactory ttDataFactory ){
 		// yyyyyy this is currently here for a test, but should be removed.  kai, feb'19
+		this.setTravelTimeDataFactory( ttDataFactory );
+	}
+
+	private void setTravelTimeDataFactory( TravelTimeDataFactory ttDataFactory ){
 		this.ttDataFactory = ttDataFactory;
+		this.linkToLinkTtDataFactory = ttDataFactory;
+		if (this.calculateLinkTravelTimes) {
+			// the data container provider keeps the factory, so it needs to be replaced as well.  Data that has already
+			// been created (normally none, since this is called right after construction) is kept.
+			this.dataContainerProvider = new ArrayBasedDataContainerProvider(this.linkData, ttDataFactory, this.network);
+		}
 	}
 }
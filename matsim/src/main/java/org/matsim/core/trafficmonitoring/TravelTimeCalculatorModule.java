@@ -25,10 +25,12 @@ package org.matsim.core.trafficmonitoring;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Singleton;
+import com.google.inject.multibindings.Multibinder;
 import com.google.inject.name.Names;
 
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
 import org.matsim.core.controler.AbstractModule;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
@@ -50,6 +52,13 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 
 	@Override
 	public void install() {
+		final boolean recordInQSim = getConfig().travelTimeCalculator().isRecordTravelTimesInQSim();
+		if (recordInQSim && !getConfig().controler().getMobsim().equals(ControlerConfigGroup.MobsimType.qsim.toString())) {
+			// otherwise nobody would record the travel times, and the routers would silently see free speed travel times only
+			throw new RuntimeException("recordTravelTimesInQSim only works with the qsim, but the mobsim is " + getConfig().controler().getMobsim()
+					+ ". Set recordTravelTimesInQSim to false to compute the travel times from events.");
+		}
+		Multibinder<LinkTravelTimeRecorder> recorders = recordInQSim ? Multibinder.newSetBinder(binder(), LinkTravelTimeRecorder.class) : null;
 		if (getConfig().travelTimeCalculator().getSeparateModes()) {
 			if (getConfig().travelTimeCalculator().isCalculateLinkToLinkTravelTimes()) {
 				throw new RuntimeException("separate modes together with link2link routing currently not implemented. doesn't look difficult, "
@@ -62,6 +71,12 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 				// generate and bind the observer:
 				bind(TravelTimeCalculator.class).annotatedWith(Names.named(mode)).toProvider(new SingleModeTravelTimeCalculatorProvider(mode)).in(Singleton.class);
 
+				// let the qsim feed the observer directly instead of via events:
+				if (recordInQSim) {
+					recorders.addBinding().to(Key.get(TravelTimeCalculator.class, Names.named(mode)));
+					addMobsimListenerBinding().to(Key.get(TravelTimeCalculator.class, Names.named(mode)));
+				}
+
 				// bind the observer to travel time provider (for router):
 				addTravelTimeBinding(mode).toProvider(new Provider<TravelTime>() {
 					@Inject Injector injector;
@@ -76,6 +91,10 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 			
 			// bind the TravelTimeCalculator, which is the observer and aggregator:
 			bind(TravelTimeCalculator.class).in(Singleton.class);
+			if (recordInQSim) {
+				recorders.addBinding().to(TravelTimeCalculator.class);
+				addMobsimListenerBinding().to(TravelTimeCalculator.class);
+			}
 			
 			// bind the TravelTime objects.  In this case, this just passes on the same information from TravelTimeCalculator to each individual mode:
 			if (getConfig().travelTimeCalculator().isCalculateLinkTravelTimes()) {
@@ -118,7 +137,9 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 			builder.setAnalyzedModes( CollectionUtils.stringToSet( mode ) );
 			builder.configure( config );
 			TravelTimeCalculator calculator = builder.build();
-			eventsManager.addHandler( calculator );
+			if ( !config.isRecordTravelTimesInQSim() ) {
+				eventsManager.addHandler( calculator );
+			}
 			return calculator ;
 		}
 	}
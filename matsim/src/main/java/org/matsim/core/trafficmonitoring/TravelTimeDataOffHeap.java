@@ -0,0 +1,115 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.trafficmonitoring;
+
+import java.nio.ByteBuffer;
+
+import org.matsim.api.core.v01.network.Link;
+
+/**
+ * Same as {@link TravelTimeDataArray}, but the data of all time slots is stored in one row of a buffer shared by all
+ * links, see {@link TravelTimeDataOffHeapFactory}. Only absolute buffer operations are used, so the buffer can be
+ * shared by the data of all links.
+ * <p></p>
+ * Data attached to the file of another travel time calculator is read-only: it neither records travel times nor
+ * caches the computed ones in the buffer, since the buffer belongs to the writing calculator.
+ */
+class TravelTimeDataOffHeap extends TravelTimeData {
+
+	/** bytes per time slot: the sum of travel times, the cached travel time, and the number of travel times */
+	static final int SLOT_SIZE = 24;
+	private static final int SUM = 0;
+	private static final int TRAVEL_TIME = 8;
+	private static final int COUNT = 16;
+
+	private final ByteBuffer buffer;
+	private final int offset;
+	private final int numSlots;
+	private final Link link;
+	private final boolean readOnly;
+
+	TravelTimeDataOffHeap(final Link link, final ByteBuffer buffer, final int offset, final int numSlots, final boolean readOnly) {
+		this.buffer = buffer;
+		this.offset = offset;
+		this.numSlots = numSlots;
+		this.link = link;
+		this.readOnly = readOnly;
+	}
+
+	static void reset(final ByteBuffer buffer, final int offset, final int numSlots) {
+		for (int i = 0; i < numSlots; i++) {
+			int slot = offset + i * SLOT_SIZE;
+			buffer.putDouble(slot + SUM, 0.0);
+			buffer.putDouble(slot + TRAVEL_TIME, -1.0);
+			buffer.putInt(slot + COUNT, 0);
+		}
+	}
+
+	@Override
+	public void resetTravelTimes() {
+		if (!this.readOnly) {
+			reset(this.buffer, this.offset, this.numSlots);
+		}
+	}
+
+	@Override
+	void setTravelTime(final int timeSlot, final double traveltime) {
+		checkWritable();
+		int slot = this.offset + timeSlot * SLOT_SIZE;
+		this.buffer.putDouble(slot + SUM, traveltime);
+		this.buffer.putInt(slot + COUNT, 1);
+		this.buffer.putDouble(slot + TRAVEL_TIME, traveltime);
+	}
+
+	@Override
+	void addTravelTime(final int timeSlot, final double traveltime) {
+		checkWritable();
+		int slot = this.offset + timeSlot * SLOT_SIZE;
+		this.buffer.putDouble(slot + SUM, this.buffer.getDouble(slot + SUM) + traveltime);
+		this.buffer.putInt(slot + COUNT, this.buffer.getInt(slot + COUNT) + 1);
+		this.buffer.putDouble(slot + TRAVEL_TIME, -1.0); // invalidate the cached travel time
+	}
+
+	@Override
+	double getTravelTime(final int timeSlot, final double now) {
+		int slot = this.offset + timeSlot * SLOT_SIZE;
+		double ttime = this.buffer.getDouble(slot + TRAVEL_TIME);
+		if (ttime >= 0.0) return ttime; // negative values are invalid.
+
+		int cnt = this.buffer.getInt(slot + COUNT);
+		if (cnt == 0) {
+			ttime = this.link.getLength() / this.link.getFreespeed(now);
+		} else {
+			ttime = this.buffer.getDouble(slot + SUM) / cnt;
+		}
+		if (!this.readOnly) {
+			this.buffer.putDouble(slot + TRAVEL_TIME, ttime);
+		}
+		return ttime;
+	}
+
+	private void checkWritable() {
+		if (this.readOnly) {
+			throw new IllegalStateException("The travel times of link " + this.link.getId() + " are read from the file of another "
+					+ "travel time calculator and cannot be changed.  Do not add a calculator reading a shared file as events handler.");
+		}
+	}
+
+}
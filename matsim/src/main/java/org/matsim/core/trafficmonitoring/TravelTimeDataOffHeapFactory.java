@@ -0,0 +1,188 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.trafficmonitoring;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Stores the travel time data of all links outside of the java heap, in one links &times; time slots matrix.
+ * Every link of the network has one row, in the order of {@link Network#getLinks()}.
+ * <p></p>
+ * The matrix is either allocated in direct memory, or memory mapped to a file. In the latter case, other processes
+ * (or other travel time calculators in the same process) can attach to the same file and read the travel times
+ * without copying them, see {@link TravelTimeCalculator.Builder#setSharedTravelTimeDataFile(String)}. The file
+ * starts with a small header which is used to check that the network and the time slots match.
+ * <p></p>
+ * Every link has exactly one row, so data which is created more than once for the same link (as done for link to
+ * link travel times) or for links not in the network is kept on the heap, see {@link TravelTimeDataArray}.
+ */
+class TravelTimeDataOffHeapFactory implements TravelTimeDataFactory {
+	private static final Logger log = Logger.getLogger( TravelTimeDataOffHeapFactory.class ) ;
+
+	private static final int MAGIC = 0x4d545444; // "MTTD"
+	private static final int HEADER_SIZE = 32;
+
+	private final Network network;
+	private final int numSlots;
+	private final int rowSize;
+	private final int rowsPerChunk;
+	private final ByteBuffer[] chunks;
+	private final int[] rowByIdIndex;
+	private final boolean[] created;
+	private final boolean readOnly;
+
+	private TravelTimeDataOffHeapFactory(final Network network, final int numSlots, final boolean readOnly) {
+		this.network = network;
+		this.readOnly = readOnly;
+		this.numSlots = numSlots;
+		this.rowSize = numSlots * TravelTimeDataOffHeap.SLOT_SIZE;
+		// a single buffer is limited to 2GB, larger matrices are split into several chunks of complete rows
+		this.rowsPerChunk = Math.max(1, Integer.MAX_VALUE / this.rowSize);
+		int numberOfLinks = network.getLinks().size();
+		this.chunks = new ByteBuffer[(numberOfLinks + this.rowsPerChunk - 1) / this.rowsPerChunk];
+		this.rowByIdIndex = new int[Id.getNumberOfIds(Link.class)];
+		Arrays.fill(this.rowByIdIndex, -1);
+		int row = 0;
+		for (Id<Link> linkId : network.getLinks().keySet()) {
+			this.rowByIdIndex[linkId.index()] = row++;
+		}
+		this.created = new boolean[numberOfLinks];
+	}
+
+	/**
+	 * Allocates the matrix in direct memory.
+	 */
+	static TravelTimeDataOffHeapFactory allocate(final Network network, final int numSlots) {
+		TravelTimeDataOffHeapFactory factory = new TravelTimeDataOffHeapFactory(network, numSlots, false);
+		for (int chunk = 0; chunk < factory.chunks.length; chunk++) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(factory.getRowsInChunk(chunk) * factory.rowSize).order(ByteOrder.nativeOrder());
+			factory.chunks[chunk] = buffer;
+			factory.resetChunk(chunk);
+		}
+		return factory;
+	}
+
+	/**
+	 * Maps the matrix to the given file, which is created or overwritten.
+	 */
+	static TravelTimeDataOffHeapFactory create(final Network network, final int numSlots, final String filename) {
+		TravelTimeDataOffHeapFactory factory = new TravelTimeDataOffHeapFactory(network, numSlots, false);
+		File file = new File(filename);
+		if (file.exists() && !file.delete()) {
+			throw new UncheckedIOException("Could not delete existing travel time data file " + filename);
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE).order(ByteOrder.nativeOrder());
+			header.putInt(0, MAGIC);
+			header.putInt(4, network.getLinks().size());
+			header.putInt(8, numSlots);
+			header.putLong(16, factory.getNetworkHash());
+			factory.map(channel, FileChannel.MapMode.READ_WRITE);
+			for (int chunk = 0; chunk < factory.chunks.length; chunk++) {
+				factory.resetChunk(chunk);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		log.info("travel time data of " + network.getLinks().size() + " links is memory mapped to " + filename);
+		return factory;
+	}
+
+	/**
+	 * Maps the matrix to an existing file, as written by a factory created with
+	 * {@link #create(Network, int, String)} for the same network and number of time slots.
+	 * The file is mapped read-only, the data is only changed by the factory which created the file.
+	 */
+	static TravelTimeDataOffHeapFactory attach(final Network network, final int numSlots, final String filename) {
+		TravelTimeDataOffHeapFactory factory = new TravelTimeDataOffHeapFactory(network, numSlots, true);
+		try (RandomAccessFile raf = new RandomAccessFile(filename, "r"); FileChannel channel = raf.getChannel()) {
+			if (channel.size() < HEADER_SIZE) {
+				throw new RuntimeException(filename + " does not contain travel time data.");
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.nativeOrder());
+			if (header.getInt(0) != MAGIC) {
+				throw new RuntimeException(filename + " does not contain travel time data, or was written on a machine with a different byte order.");
+			}
+			if (header.getInt(4) != network.getLinks().size() || header.getLong(16) != factory.getNetworkHash()) {
+				throw new RuntimeException("The travel time data in " + filename + " was written for a different network.");
+			}
+			if (header.getInt(8) != numSlots) {
+				throw new RuntimeException("The travel time data in " + filename + " has " + header.getInt(8) + " time slots, but "
+						+ numSlots + " are expected.");
+			}
+			factory.map(channel, FileChannel.MapMode.READ_ONLY);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return factory;
+	}
+
+	private void map(final FileChannel channel, final FileChannel.MapMode mode) throws IOException {
+		// the mapping stays valid after the channel is closed
+		for (int chunk = 0; chunk < this.chunks.length; chunk++) {
+			long position = HEADER_SIZE + (long) chunk * this.rowsPerChunk * this.rowSize;
+			long size = (long) getRowsInChunk(chunk) * this.rowSize;
+			this.chunks[chunk] = channel.map(mode, position, size).order(ByteOrder.nativeOrder());
+		}
+	}
+
+	private int getRowsInChunk(final int chunk) {
+		return Math.min(this.rowsPerChunk, this.network.getLinks().size() - chunk * this.rowsPerChunk);
+	}
+
+	private void resetChunk(final int chunk) {
+		for (int row = 0; row < getRowsInChunk(chunk); row++) {
+			TravelTimeDataOffHeap.reset(this.chunks[chunk], row * this.rowSize, this.numSlots);
+		}
+	}
+
+	private long getNetworkHash() {
+		long hash = 17;
+		for (Id<Link> linkId : this.network.getLinks().keySet()) {
+			hash = 31 * hash + linkId.toString().hashCode();
+		}
+		return hash;
+	}
+
+	@Override
+	public synchronized TravelTimeData createTravelTimeData(final Id<Link> linkId) {
+		Link link = this.network.getLinks().get(linkId);
+		int row = linkId.index() < this.rowByIdIndex.length ? this.rowByIdIndex[linkId.index()] : -1;
+		if (row < 0 || this.created[row]) {
+			return new TravelTimeDataArray(link, this.numSlots);
+		}
+		this.created[row] = true;
+		int chunk = row / this.rowsPerChunk;
+		return new TravelTimeDataOffHeap(link, this.chunks[chunk], (row - chunk * this.rowsPerChunk) * this.rowSize, this.numSlots, this.readOnly);
+	}
+
+}
@@ -22,6 +22,7 @@ package org.matsim.core.utils.collections;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.ToDoubleFunction;
 
 /**
  * An implementation of a QuadTree to store data assigned to geometric points.
@@ -72,6 +73,54 @@ public class QuadTree<T> implements Serializable {
 		this.top = new Node<T>(minX, minY, maxX, maxY);
 	}
 
+	/**
+	 * Creates a QuadTree with the bounds minX/minY -- maxX/maxY containing the
+	 * given values. This is much faster than putting the values one by one,
+	 * as every node of the tree is only filled once and points which are too
+	 * many for a node are never moved to its children. The resulting tree is
+	 * the same as if the values had been put one by one in the iteration order
+	 * of the collection, so all queries return the same results.
+	 *
+	 * @param getX returns the x coordinate of a value
+	 * @param getY returns the y coordinate of a value
+	 */
+	public QuadTree(final double minX, final double minY, final double maxX, final double maxY,
+			final Collection<? extends T> values, final ToDoubleFunction<? super T> getX, final ToDoubleFunction<? super T> getY) {
+		this(minX, minY, maxX, maxY);
+		// one leaf per location, in the order in which the locations are first seen
+		List<Leaf<T>> leaves = new ArrayList<>(values.size());
+		Map<Location, Leaf<T>> leafByLocation = new HashMap<>(2 * values.size());
+		for (T value : values) {
+			double x = getX.applyAsDouble(value);
+			double y = getY.applyAsDouble(value);
+			if (!this.top.bounds.containsOrEquals(x, y)) {
+				throw new IllegalArgumentException("cannot add a point at x=" + x + ", y=" + y + " with bounds " + this.top.bounds);
+			}
+			Location location = new Location(x, y);
+			Leaf<T> leaf = leafByLocation.get(location);
+			if (leaf == null) {
+				leaf = new Leaf<>(x, y, value);
+				leafByLocation.put(location, leaf);
+				leaves.add(leaf);
+			} else if (leaf.value == value) {
+				continue;
+			} else if (leaf.values != null) {
+				if (leaf.values.contains(value)) {
+					continue;
+				}
+				leaf.values.add(value);
+			} else {
+				leaf.values = new ArrayList<>(3);
+				leaf.values.add(leaf.value);
+				leaf.value = null;
+				leaf.values.add(value);
+			}
+			this.size++;
+		}
+		this.top.putAll(leaves);
+		this.modCount++;
+	}
+
 	/**
 	 * Associates the specified value with the specified coordinates in this
 	 * QuadTree.
@@ -394,6 +443,34 @@ public class QuadTree<T> implements Serializable {
 		}
 	}
 
+	/**
+	 * A location as key of a map, with the same notion of equality as in {@link Node#put(Leaf)}.
+	 */
+	private static final class Location {
+		private final double x;
+		private final double y;
+
+		Location(final double x, final double y) {
+			// adding 0.0 turns -0.0 into 0.0, which are equal when compared as doubles
+			this.x = x + 0.0;
+			this.y = y + 0.0;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof Location)) {
+				return false;
+			}
+			Location other = (Location) obj;
+			return this.x == other.x && this.y == other.y;
+		}
+
+		@Override
+		public int hashCode() {
+			return Double.hashCode(this.x) * 31 + Double.hashCode(this.y);
+		}
+	}
+
 	public static class Rect implements Serializable {
 		private static final long serialVersionUID = -837712701959689133L;
 		public final double minX;
@@ -655,6 +732,40 @@ public class QuadTree<T> implements Serializable {
 			return put(new Leaf<T>(x, y, value));
 		}
 
+		/**
+		 * Fills an empty node with leaves at distinct locations. The node is split if, and only if, putting the leaves
+		 * one by one would split it: if there are more than {@value #MAX_CHILDS} of them.
+		 */
+		/* default */ void putAll(final List<Leaf<T>> leaves) {
+			if (leaves.size() <= MAX_CHILDS) {
+				if (!leaves.isEmpty()) {
+					this.leaves = new ArrayList<>(leaves);
+				}
+				return;
+			}
+			split();
+			List<Leaf<T>> northwestLeaves = new ArrayList<>();
+			List<Leaf<T>> northeastLeaves = new ArrayList<>();
+			List<Leaf<T>> southeastLeaves = new ArrayList<>();
+			List<Leaf<T>> southwestLeaves = new ArrayList<>();
+			for (Leaf<T> leaf : leaves) {
+				Node<T> child = getChild(leaf.x, leaf.y);
+				if (child == this.northwest) {
+					northwestLeaves.add(leaf);
+				} else if (child == this.northeast) {
+					northeastLeaves.add(leaf);
+				} else if (child == this.southeast) {
+					southeastLeaves.add(leaf);
+				} else {
+					southwestLeaves.add(leaf);
+				}
+			}
+			this.northwest.putAll(northwestLeaves);
+			this.northeast.putAll(northeastLeaves);
+			this.southeast.putAll(southeastLeaves);
+			this.southwest.putAll(southwestLeaves);
+		}
+
 		public boolean remove(final double x, final double y, final T value) {
 			if (this.hasChilds) return getChild(x, y).remove(x, y, value);
 			if (this.leaves != null) {
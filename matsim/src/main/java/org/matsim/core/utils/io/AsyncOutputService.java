@@ -0,0 +1,251 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.matsim.core.config.groups.ControlerConfigGroup;
+
+/**
+ * Formats, compresses and writes output on background threads, such that the thread producing the output only has
+ * to wait if it produces output faster than it can be written.
+ * <p></p>
+ * With 0 threads, every task is run immediately on the calling thread, which is the same as not using the service.
+ * Otherwise, at most 4 tasks per thread are pending at any time. Submitting further tasks blocks until one of them is
+ * finished, which bounds the memory held by the pending output.
+ * <p></p>
+ * Files which are produced in several parts are written with an {@link OrderedOutput}: the parts are formatted and
+ * compressed in parallel, but written to the file in the order in which they were submitted. Closing such a file
+ * waits until it is completely written, so it can be read or copied right afterwards.
+ * <p></p>
+ * An error in a background task is thrown by the next call to {@link #submit(String, Runnable)},
+ * {@link #openOrderedOutput(String)}, {@link OrderedOutput#close()} or {@link #flush()}. The controler flushes the
+ * service after all shutdown listeners.
+ */
+@Singleton
+public final class AsyncOutputService {
+
+	private final int numberOfThreads;
+	private final int maxPendingTasks;
+	private final Semaphore permits;
+	private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+	private ExecutorService executor = null;
+
+	@Inject
+	AsyncOutputService(final ControlerConfigGroup config) {
+		this(config.getNumberOfOutputThreads());
+	}
+
+	/**
+	 * @param numberOfThreads the number of background threads, or 0 to write everything on the calling thread
+	 */
+	public AsyncOutputService(final int numberOfThreads) {
+		this.numberOfThreads = Math.max(0, numberOfThreads);
+		this.maxPendingTasks = Math.max(1, 4 * this.numberOfThreads);
+		this.permits = new Semaphore(this.maxPendingTasks);
+	}
+
+	public boolean isAsynchronous() {
+		return this.numberOfThreads > 0;
+	}
+
+	/**
+	 * Runs the task in the background. The task must not access data which is modified before the returned future
+	 * is done.
+	 *
+	 * @param description what the task writes, used in error messages
+	 */
+	public CompletableFuture<Void> submit(final String description, final Runnable task) {
+		if (!isAsynchronous()) {
+			task.run();
+			return CompletableFuture.completedFuture(null);
+		}
+		throwIfFailed();
+		acquirePermit();
+		return track(description, CompletableFuture.runAsync(task, getExecutor()));
+	}
+
+	/**
+	 * Opens a file which is written in parts, see {@link OrderedOutput}. If the filename ends with <code>.gz</code>
+	 * or <code>.lz4</code>, the file is compressed. When writing in the background, the parts are compressed in
+	 * parallel, see {@link ChunkCompression}.
+	 */
+	public OrderedOutput openOrderedOutput(final String filename) {
+		if (!isAsynchronous()) {
+			return new OrderedOutput(filename, IOUtils.getOutputStream(filename), ChunkCompression.none);
+		}
+		throwIfFailed();
+		try {
+			return new OrderedOutput(filename, new BufferedOutputStream(new FileOutputStream(filename)),
+					ChunkCompression.forFilename(filename));
+		} catch (FileNotFoundException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Waits until all submitted tasks are finished, and throws the first error which occurred in any of them. The
+	 * background threads are stopped, and started again by the next submitted task.
+	 */
+	public void flush() {
+		if (isAsynchronous()) {
+			// every pending task holds a permit until it is finished
+			this.permits.acquireUninterruptibly(this.maxPendingTasks);
+			this.permits.release(this.maxPendingTasks);
+			synchronized (this) {
+				if (this.executor != null) {
+					this.executor.shutdown();
+					this.executor = null;
+				}
+			}
+		}
+		throwIfFailed();
+	}
+
+	private synchronized Executor getExecutor() {
+		if (this.executor == null) {
+			this.executor = Executors.newFixedThreadPool(this.numberOfThreads, runnable -> {
+				Thread thread = new Thread(runnable, AsyncOutputService.class.getSimpleName());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return this.executor;
+	}
+
+	private void acquirePermit() {
+		try {
+			this.permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return a future which is done after the error, if any, is recorded and the permit of the task is released
+	 */
+	private <T> CompletableFuture<T> track(final String description, final CompletableFuture<T> future) {
+		return future.whenComplete((result, error) -> {
+			if (error != null) {
+				Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+				this.failure.compareAndSet(null, new RuntimeException("problem writing " + description, cause));
+			}
+			this.permits.release();
+		});
+	}
+
+	private void throwIfFailed() {
+		RuntimeException e = this.failure.getAndSet(null);
+		if (e != null) {
+			throw e;
+		}
+	}
+
+	/**
+	 * A file which is written in parts. The parts are produced by the suppliers passed to {@link #write(Supplier)},
+	 * which may run in parallel and must thus not access data which is modified later. The file is complete once
+	 * {@link #close()} returns.
+	 */
+	public final class OrderedOutput {
+
+		private final String filename;
+		private final OutputStream stream;
+		private final ChunkCompression compression;
+		private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+
+		private OrderedOutput(final String filename, final OutputStream stream, final ChunkCompression compression) {
+			this.filename = filename;
+			this.stream = stream;
+			this.compression = compression;
+		}
+
+		/**
+		 * @param part supplies the uncompressed bytes of the next part of the file
+		 */
+		public void write(final Supplier<byte[]> part) {
+			if (!isAsynchronous()) {
+				writeToStream(part.get());
+				return;
+			}
+			throwIfFailed();
+			acquirePermit();
+			Executor executor = getExecutor();
+			CompletableFuture<byte[]> data = CompletableFuture.supplyAsync(() -> this.compression.compress(part.get()), executor);
+			this.lastWrite = track(this.filename, this.lastWrite.thenCombineAsync(data, (previous, bytes) -> {
+				writeToStream(bytes);
+				return null;
+			}, executor));
+		}
+
+		/**
+		 * Waits until all parts are written and closes the file, such that it is complete when this method returns.
+		 * The file is also closed if writing a part failed; the error is thrown then.
+		 */
+		public void close() {
+			if (!isAsynchronous()) {
+				closeStream();
+				return;
+			}
+			acquirePermit();
+			this.lastWrite = track(this.filename, this.lastWrite.whenCompleteAsync((previous, error) -> closeStream(), getExecutor()));
+			try {
+				this.lastWrite.join();
+			} catch (CompletionException | CancellationException e) {
+				// the error was recorded by track(), and is thrown below
+			}
+			throwIfFailed();
+		}
+
+		private void writeToStream(final byte[] bytes) {
+			try {
+				this.stream.write(bytes);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		private void closeStream() {
+			try {
+				this.compression.finish(this.stream);
+				this.stream.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+}
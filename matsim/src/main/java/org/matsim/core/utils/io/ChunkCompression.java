@@ -0,0 +1,93 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import net.jpountz.lz4.LZ4BlockOutputStream;
+
+/**
+ * Compresses the chunks of a file independently of each other, such that they can be compressed in parallel and
+ * written one after the other:
+ * <ul>
+ * <li>{@link #gzip}: every chunk is a gzip member of its own. Concatenated members are a valid gzip file.</li>
+ * <li>{@link #lz4}: every chunk consists of complete lz4 blocks. The end mark is only written by {@link #finish(OutputStream)}
+ * after the last chunk.</li>
+ * </ul>
+ * Both can be read by {@link IOUtils}.
+ */
+public enum ChunkCompression {
+	none, gzip, lz4;
+
+	/**
+	 * @return the compression matching the ending of the filename, as in {@link IOUtils#getOutputStream(String)}
+	 */
+	public static ChunkCompression forFilename(final String filename) {
+		String lowerCaseFilename = filename.toLowerCase(Locale.ROOT);
+		if (lowerCaseFilename.endsWith(".gz")) {
+			return gzip;
+		}
+		if (lowerCaseFilename.endsWith(".lz4")) {
+			return lz4;
+		}
+		return none;
+	}
+
+	/**
+	 * @return the compressed chunk, or the given bytes if not compressed
+	 */
+	public byte[] compress(final byte[] bytes) {
+		try {
+			switch (this) {
+			case gzip:
+				ByteArrayOutputStream gzipBytes = new ByteArrayOutputStream(bytes.length / 4 + 64);
+				try (GZIPOutputStream gzip = new GZIPOutputStream(gzipBytes, 65536)) {
+					gzip.write(bytes);
+				}
+				return gzipBytes.toByteArray();
+			case lz4:
+				ByteArrayOutputStream lz4Bytes = new ByteArrayOutputStream(bytes.length / 2 + 64);
+				// only flushed, not closed, as closing would write the end mark
+				LZ4BlockOutputStream lz4 = new LZ4BlockOutputStream(lz4Bytes);
+				lz4.write(bytes);
+				lz4.flush();
+				return lz4Bytes.toByteArray();
+			default:
+				return bytes;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes what has to follow the last chunk, i.e. the end mark of lz4 files. Does not close the stream.
+	 */
+	public void finish(final OutputStream out) throws IOException {
+		if (this == lz4) {
+			new LZ4BlockOutputStream(out).finish();
+		}
+	}
+
+}
@@ -20,6 +20,10 @@
 
 package org.matsim.core.utils.io;
 
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.Locale;
 
@@ -28,6 +32,8 @@ import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.log4j.Logger;
+import org.matsim.core.events.algorithms.EventWriterBinary;
+import org.matsim.core.scenario.ScenarioBinaryWriter;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -58,6 +64,7 @@ public class MatsimFileTypeGuesser extends DefaultHandler {
 	private FileType fileType = null;
 	private String xmlPublicId = null;
 	private String xmlSystemId = null;
+	private boolean binary = false;
 
 	public MatsimFileTypeGuesser(final String fileName) throws UncheckedIOException {
 		String name = fileName.toLowerCase(Locale.ROOT);
@@ -98,6 +105,8 @@ public class MatsimFileTypeGuesser extends DefaultHandler {
 			this.fileType = FileType.OTFVis;
 		} else if (name.endsWith(".veh.gz") || name.endsWith(".veh")) {
 			this.fileType = FileType.TransimsVehicle;
+		} else if (new File(fileName).isFile()) {
+			guessFileTypeBinary(fileName);
 		}
 	}
 
@@ -121,6 +130,47 @@ public class MatsimFileTypeGuesser extends DefaultHandler {
 		return this.xmlSystemId;
 	}
 
+	/**
+	 * @return <code>true</code> if the file is in one of the binary formats of {@link ScenarioBinaryWriter} or
+	 *  {@link EventWriterBinary}.
+	 */
+	public boolean isBinary() {
+		return this.binary;
+	}
+
+	private void guessFileTypeBinary(final String fileName) throws UncheckedIOException {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(fileName))) {
+			int magic = in.readInt();
+			if (magic == EventWriterBinary.MAGIC) {
+				this.fileType = FileType.Events;
+				this.binary = true;
+			} else if (magic == ScenarioBinaryWriter.MAGIC) {
+				in.readInt(); // version
+				switch (in.readInt()) {
+					case ScenarioBinaryWriter.CONTAINER_NETWORK:
+						this.fileType = FileType.Network;
+						break;
+					case ScenarioBinaryWriter.CONTAINER_TRANSIT_SCHEDULE:
+						this.fileType = FileType.TransitSchedule;
+						break;
+					case ScenarioBinaryWriter.CONTAINER_FACILITIES:
+						this.fileType = FileType.Facilities;
+						break;
+					case ScenarioBinaryWriter.CONTAINER_VEHICLES:
+						this.fileType = FileType.Vehicles;
+						break;
+					default:
+						log.warn("got unexpected container in binary file: " + fileName);
+				}
+				this.binary = true;
+			}
+		} catch (EOFException e) {
+			// too short for any of the binary formats
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
 	private void guessFileTypeXml(final String fileName) throws UncheckedIOException {
 		SAXParserFactory factory = SAXParserFactory.newInstance();
 		factory.setValidating(false);
@@ -35,6 +35,7 @@ import org.matsim.core.controler.listener.IterationEndsListener;
 import org.matsim.core.controler.listener.StartupListener;
 import org.matsim.core.utils.collections.CollectionUtils;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+import org.matsim.core.utils.io.AsyncOutputService;
 import org.matsim.counts.algorithms.CountSimComparisonKMLWriter;
 import org.matsim.counts.algorithms.CountSimComparisonTableWriter;
 import org.matsim.counts.algorithms.CountsComparisonAlgorithm;
@@ -46,6 +47,7 @@ import org.matsim.counts.algorithms.graphs.CountsSimRealPerHourGraphCreator;
 
 import javax.inject.Inject;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -68,6 +70,7 @@ class CountsControlerListener implements StartupListener, IterationEndsListener
     private final VolumesAnalyzer volumesAnalyzer;
     private final IterationStopWatch iterationStopwatch;
     private final OutputDirectoryHierarchy controlerIO;
+    private final AsyncOutputService outputService;
 
     @com.google.inject.Inject(optional=true)
     private Counts<Link> counts = null;
@@ -76,7 +79,7 @@ class CountsControlerListener implements StartupListener, IterationEndsListener
     private int iterationsUsed = 0;
 
     @Inject
-    CountsControlerListener(GlobalConfigGroup globalConfigGroup, Network network, ControlerConfigGroup controlerConfigGroup, CountsConfigGroup countsConfigGroup, VolumesAnalyzer volumesAnalyzer, IterationStopWatch iterationStopwatch, OutputDirectoryHierarchy controlerIO) {
+    CountsControlerListener(GlobalConfigGroup globalConfigGroup, Network network, ControlerConfigGroup controlerConfigGroup, CountsConfigGroup countsConfigGroup, VolumesAnalyzer volumesAnalyzer, IterationStopWatch iterationStopwatch, OutputDirectoryHierarchy controlerIO, AsyncOutputService outputService) {
         this.globalConfigGroup = globalConfigGroup;
         this.network = network;
         this.controlerConfigGroup = controlerConfigGroup;
@@ -85,6 +88,7 @@ class CountsControlerListener implements StartupListener, IterationEndsListener
 		this.analyzedModes = CollectionUtils.stringToSet(this.config.getAnalyzedModes());
         this.iterationStopwatch = iterationStopwatch;
         this.controlerIO = controlerIO;
+        this.outputService = outputService;
 	}
 
 	@Override
@@ -126,36 +130,43 @@ class CountsControlerListener implements StartupListener, IterationEndsListener
                 }
                 cca.setCountsScaleFactor(this.config.getCountsScaleFactor());
                 cca.run();
+                // the comparison does not change anymore, so the files can be written in the background
+                final List<CountSimComparison> comparison = cca.getComparison();
+                final int iteration = event.getIteration();
 
                 if (this.config.getOutputFormat().contains("html") ||
                         this.config.getOutputFormat().contains("all")) {
-                    CountsHtmlAndGraphsWriter cgw = new CountsHtmlAndGraphsWriter(controlerIO.getIterationPath(event.getIteration()), cca.getComparison(), event.getIteration());
-                    cgw.addGraphsCreator(new CountsSimRealPerHourGraphCreator("sim and real volumes"));
-                    cgw.addGraphsCreator(new CountsErrorGraphCreator("errors"));
-                    cgw.addGraphsCreator(new CountsLoadCurveGraphCreator("link volumes"));
-                    cgw.addGraphsCreator(new CountsSimReal24GraphCreator("average working day sim and count volumes"));
-                    cgw.createHtmlAndGraphs();
+                    String path = controlerIO.getIterationPath(iteration);
+                    outputService.submit("counts comparison graphs to " + path, () -> {
+                        CountsHtmlAndGraphsWriter cgw = new CountsHtmlAndGraphsWriter(path, comparison, iteration);
+                        cgw.addGraphsCreator(new CountsSimRealPerHourGraphCreator("sim and real volumes"));
+                        cgw.addGraphsCreator(new CountsErrorGraphCreator("errors"));
+                        cgw.addGraphsCreator(new CountsLoadCurveGraphCreator("link volumes"));
+                        cgw.addGraphsCreator(new CountsSimReal24GraphCreator("average working day sim and count volumes"));
+                        cgw.createHtmlAndGraphs();
+                    });
                 }
                 if (this.config.getOutputFormat().contains("kml") ||
                         this.config.getOutputFormat().contains("all")) {
-                    String filename = controlerIO.getIterationFilename(event.getIteration(), "countscompare.kmz");
-                    CountSimComparisonKMLWriter kmlWriter = new CountSimComparisonKMLWriter(
-                            cca.getComparison(), network, TransformationFactory.getCoordinateTransformation(globalConfigGroup.getCoordinateSystem(), TransformationFactory.WGS84));
-                    kmlWriter.setIterationNumber(event.getIteration());
-                    kmlWriter.writeFile(filename);
+                    String filename = controlerIO.getIterationFilename(iteration, "countscompare.kmz");
+                    outputService.submit(filename, () -> {
+                        CountSimComparisonKMLWriter kmlWriter = new CountSimComparisonKMLWriter(
+                                comparison, network, TransformationFactory.getCoordinateTransformation(globalConfigGroup.getCoordinateSystem(), TransformationFactory.WGS84));
+                        kmlWriter.setIterationNumber(iteration);
+                        kmlWriter.writeFile(filename);
+                    });
                 }
                 if (this.config.getOutputFormat().contains("txt") ||
                         this.config.getOutputFormat().contains("all")) {
-                    String filename = controlerIO.getIterationFilename(event.getIteration(), "countscompare.txt");
-                    CountSimComparisonTableWriter ctw = new CountSimComparisonTableWriter(cca.getComparison(), Locale.ENGLISH);
-                    ctw.writeFile(filename);
+                    String filename = controlerIO.getIterationFilename(iteration, "countscompare.txt");
+                    outputService.submit(filename, () -> new CountSimComparisonTableWriter(comparison, Locale.ENGLISH).writeFile(filename));
                 }
                 if (this.config.getOutputFormat().contains("xml") ||
                         this.config.getOutputFormat().contains("all")) {
-                    String filename = controlerIO.getIterationFilename(event.getIteration(), "simulatedCounts.xml.gz");
+                    String filename = controlerIO.getIterationFilename(iteration, "simulatedCounts.xml.gz");
                     Counts<Link> simCounts = new Counts<>();
-                    simCounts.setDescription("sim values from iteration " + event.getIteration()); simCounts.setName("sim values from iteration " + event.getIteration()); simCounts.setYear(event.getIteration());
-                    for (CountSimComparison countSimComparison : cca.getComparison()) {
+                    simCounts.setDescription("sim values from iteration " + iteration); simCounts.setName("sim values from iteration " + iteration); simCounts.setYear(iteration);
+                    for (CountSimComparison countSimComparison : comparison) {
 						if (simCounts.getCount(countSimComparison.getId()) == null) {
 							simCounts.createAndAddCount(countSimComparison.getId(), counts.getCount(countSimComparison.getId()).getCsLabel());
 							simCounts.getCount(countSimComparison.getId()).setCoord(counts.getCount(countSimComparison.getId()).getCoord());
@@ -163,7 +174,7 @@ class CountsControlerListener implements StartupListener, IterationEndsListener
 						simCounts.getCount(countSimComparison.getId()).createVolume(countSimComparison.getHour(), countSimComparison.getSimulationValue());
 					}
                     CountsWriter countsWriter = new CountsWriter(TransformationFactory.getCoordinateTransformation(globalConfigGroup.getCoordinateSystem(), TransformationFactory.WGS84), simCounts);
-                    countsWriter.write(filename);
+                    outputService.submit(filename, () -> countsWriter.write(filename));
                 }
                 reset();
                 iterationStopwatch.endOperation(OPERATION_COMPARECOUNTS);
@@ -192,10 +192,7 @@ public class ActivityFacilitiesImpl implements ActivityFacilities, SearchableAct
 		// yy the above four lines are problematic if the coordinate values are much smaller than one. kai, oct'15
 
 		log.info("building QuadTree for nodes: xrange(" + minx + "," + maxx + "); yrange(" + miny + "," + maxy + ")");
-		QuadTree<ActivityFacility> quadTree = new QuadTree<>(minx, miny, maxx, maxy);
-		for (ActivityFacility n : this.facilities.values()) {
-			quadTree.put(n.getCoord().getX(), n.getCoord().getY(), n);
-		}
+		QuadTree<ActivityFacility> quadTree = new QuadTree<>(minx, miny, maxx, maxy, this.facilities.values(), n -> n.getCoord().getX(), n -> n.getCoord().getY());
 		/* assign the quadTree at the very end, when it is complete.
 		 * otherwise, other threads may already start working on an incomplete quadtree
 		 */
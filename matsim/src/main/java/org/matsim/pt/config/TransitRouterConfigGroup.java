@@ -19,6 +19,7 @@
 
 package org.matsim.pt.config;
 
+import java.util.Arrays;
 import java.util.Map;
 
 import org.matsim.core.config.ReflectiveConfigGroup;
@@ -31,11 +32,15 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 	/*package*/ static final String EXTENSION_RADIUS = "extensionRadius";
 	/*package*/ static final String MAX_BEELINE_WALK_CONNECTION_DISTANCE = "maxBeelineWalkConnectionDistance";
 	/*package*/ static final String ADDITIONAL_TRANSFER_TIME = "additionalTransferTime";
+	/*package*/ static final String ROUTER_TYPE = "routerType";
+
+	public enum TransitRouterType { standard, raptor }
 
 	private double searchRadius = 1000.0;
 	private double extensionRadius = 200.0;
 	private double maxBeelineWalkConnectionDistance = 100.0;
 	private double additionalTransferTime = 0.0;
+	private TransitRouterType routerType = TransitRouterType.standard;
 
 	private double directWalkFactor = 1. ;
 	
@@ -56,6 +61,9 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 		comments.put(MAX_BEELINE_WALK_CONNECTION_DISTANCE, "maximum beeline distance between stops that agents could transfer to by walking");
 		comments.put(ADDITIONAL_TRANSFER_TIME, "additional time the router allocates when a line switch happens. Can be interpreted as a 'safety' time that agents need to safely transfer from one line to another");
 		comments.put(DIRECT_WALK_FACTOR, DIRECT_WALK_FACTOR_CMT);
+		comments.put(ROUTER_TYPE, "the algorithm used to route pt trips: " + TransitRouterType.standard + " searches a graph built from the schedule, "
+				+ TransitRouterType.raptor + " scans the routes of the schedule directly, which is usually considerably faster. Possible values: "
+				+ Arrays.toString(TransitRouterType.values()));
 		return comments;
 	}
 
@@ -103,6 +111,17 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 		return this.additionalTransferTime;
 	}
 
+	@StringSetter( ROUTER_TYPE )
+	public void setRouterType(final TransitRouterType routerType) {
+		testForLocked() ;
+		this.routerType = routerType;
+	}
+
+	@StringGetter( ROUTER_TYPE )
+	public TransitRouterType getRouterType() {
+		return this.routerType;
+	}
+
 	/**
 	 * {@value #DIRECT_WALK_FACTOR_CMT}
 	 */
@@ -20,10 +20,13 @@
 package org.matsim.pt.router;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
 import org.matsim.pt.transitSchedule.api.TransitRoute;
 import org.matsim.pt.transitSchedule.api.TransitRouteStop;
 import org.matsim.pt.transitSchedule.api.TransitSchedule;
@@ -42,12 +45,19 @@ import org.matsim.pt.transitSchedule.api.TransitSchedule;
  */
 public class PreparedTransitSchedule {
 	
+	/*
+	 * Filled completely in the constructor and only read afterwards, so all routers of all threads can share one
+	 * instance without any synchronization.
+	 */
+	private final Map<TransitRoute, double[]> sortedDepartures;
+
 	/*
 	 * This needs to be a ConcurrentHashMap since multiple threads might add
 	 * data concurrently. Alternatively, the map could be filled with data
 	 * before getNextDepartureTime(...) - then all concurrent accesses would be
 	 * read only.
 	 * cdobler, nov'12
+	 * Now only used for routes that were not yet in the schedule when this instance was created.
 	 */
 	private final Map<TransitRoute, double[]> sortedDepartureCache = new ConcurrentHashMap<TransitRoute, double[]>();
 
@@ -55,7 +65,13 @@ public class PreparedTransitSchedule {
      * Conceptually, an instance of this class wraps a TransitSchedule to optimize a function of it.
      */
 	public PreparedTransitSchedule(TransitSchedule schedule) {
-		
+		Map<TransitRoute, double[]> departures = new IdentityHashMap<>();
+		for (TransitLine line : schedule.getTransitLines().values()) {
+			for (TransitRoute route : line.getRoutes().values()) {
+				departures.put(route, getSortedDepartures(route));
+			}
+		}
+		this.sortedDepartures = departures;
 	}
 
 	@Deprecated
@@ -63,7 +79,7 @@ public class PreparedTransitSchedule {
 	 * See other constructor.
 	 */
 	public PreparedTransitSchedule() {
-
+		this.sortedDepartures = Collections.emptyMap();
 	}
 	
 	public double getNextDepartureTime(final TransitRoute route, final TransitRouteStop stop, final double depTime) {
@@ -80,15 +96,9 @@ public class PreparedTransitSchedule {
 		}
 	
 		// this will search for the terminus departure that corresponds to my departure at the stop:
-		double[] cache = sortedDepartureCache.get(route);
+		double[] cache = sortedDepartures.get(route);
 		if (cache == null) {
-			cache = new double[route.getDepartures().size()];
-			int i = 0;
-			for (Departure dep : route.getDepartures().values()) {
-				cache[i++] = dep.getDepartureTime();
-			}
-			Arrays.sort(cache);
-			sortedDepartureCache.put(route, cache);
+			cache = sortedDepartureCache.computeIfAbsent(route, PreparedTransitSchedule::getSortedDepartures);
 		}
 		int pos = Arrays.binarySearch(cache, earliestDepartureTimeAtTerminus);
 		if (pos < 0) {
@@ -112,4 +122,14 @@ public class PreparedTransitSchedule {
 		}
 		return bestDepartureTime;
 	}
+
+	private static double[] getSortedDepartures(final TransitRoute route) {
+		double[] departures = new double[route.getDepartures().size()];
+		int i = 0;
+		for (Departure dep : route.getDepartures().values()) {
+			departures[i++] = dep.getDepartureTime();
+		}
+		Arrays.sort(departures);
+		return departures;
+	}
 }
\ No newline at end of file
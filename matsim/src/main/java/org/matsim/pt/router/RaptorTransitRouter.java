@@ -0,0 +1,571 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.facilities.Facility;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+
+/**
+ * A transit router based on the RAPTOR algorithm (Delling, Pajor, Werneck: Round-Based Public Transit Routing, 2012).
+ * Instead of searching a graph of the schedule like {@link TransitRouterImpl}, it scans the route patterns of
+ * {@link RaptorTransitRouterData} directly, one round per transit trip. Round <i>k</i> thus finds the earliest arrival
+ * at every stop using at most <i>k</i> trips, which yields the set of journeys that are Pareto-optimal with respect to
+ * arrival time and number of transfers. Of these, {@link #calcRoute} returns the one with the least travel disutility,
+ * using the same cost model as {@link TransitRouterNetworkTravelTimeAndDisutility}, while {@link #calcRoutes} returns
+ * all Pareto-optimal journeys departing within a time window (rRAPTOR).
+ * <p></p>
+ * The schedule data is immutable and can be shared by many routers, but the router itself keeps the labels of the
+ * current query and must thus not be used by more than one thread at the same time. The labels are reused from query
+ * to query, so the per-query cost does not depend on the size of the schedule, only on the part of it that is scanned.
+ */
+public class RaptorTransitRouter extends AbstractTransitRouter implements TransitRouter {
+
+	private final RaptorTransitRouterData data;
+
+	private final List<Round> rounds = new ArrayList<>();
+	private int generation = 0;
+	private int run = 0;
+
+	/** the best arrival and boarding times of the current run over all rounds, for local pruning */
+	private final double[] bestArrival;
+	private final int[] bestArrivalRun;
+	private final double[] bestBoard;
+	private final int[] bestBoardRun;
+
+	private final int[] accessStops;
+	private final double[] accessTimes;
+	private int accessCount = 0;
+	private final double[] egressTimes;
+	private final int[] egressGeneration;
+
+	private int[] markedStops;
+	private int markedCount = 0;
+	private int[] nextMarkedStops;
+	private int nextMarkedCount = 0;
+	private final int[] markedStamp;
+	private final int[] improvedStops;
+	private int improvedCount = 0;
+	private final int[] improvedStamp;
+	/** changes with every round, so the stops marked or improved in the round can be recognized */
+	private int stamp = 0;
+
+	private final int[] queuedRoutes;
+	private int queuedCount = 0;
+	private final int[] routeFirstPosition;
+	private final int[] routeQueued;
+	private int routeStamp = 0;
+
+	private final int[] walkQueue;
+	private final boolean[] inWalkQueue;
+
+	public RaptorTransitRouter(final TransitRouterConfig config, final TransitSchedule schedule) {
+		this(config, RaptorTransitRouterData.createFromSchedule(schedule, config.getBeelineWalkConnectionDistance()),
+				new TransitRouterNetworkTravelTimeAndDisutility(config, new PreparedTransitSchedule(schedule)));
+	}
+
+	public RaptorTransitRouter(final TransitRouterConfig config, final RaptorTransitRouterData data, final TransitTravelDisutility travelDisutility) {
+		super(config, travelDisutility);
+		this.data = data;
+		int numberOfStops = data.getNumberOfStops();
+		int numberOfRoutes = data.getNumberOfRoutes();
+		this.bestArrival = new double[numberOfStops];
+		this.bestArrivalRun = new int[numberOfStops];
+		this.bestBoard = new double[numberOfStops];
+		this.bestBoardRun = new int[numberOfStops];
+		this.accessStops = new int[numberOfStops];
+		this.accessTimes = new double[numberOfStops];
+		this.egressTimes = new double[numberOfStops];
+		this.egressGeneration = new int[numberOfStops];
+		this.markedStops = new int[numberOfStops];
+		this.nextMarkedStops = new int[numberOfStops];
+		this.markedStamp = new int[numberOfStops];
+		this.improvedStops = new int[numberOfStops];
+		this.improvedStamp = new int[numberOfStops];
+		this.queuedRoutes = new int[numberOfRoutes];
+		this.routeFirstPosition = new int[numberOfRoutes];
+		this.routeQueued = new int[numberOfRoutes];
+		this.walkQueue = new int[numberOfStops];
+		this.inWalkQueue = new boolean[numberOfStops];
+	}
+
+	@Override
+	public List<Leg> calcRoute(final Facility fromFacility, final Facility toFacility, final double departureTime, final Person person) {
+		Coord fromCoord = fromFacility.getCoord();
+		Coord toCoord = toFacility.getCoord();
+		initQuery(fromCoord, toCoord, person);
+		runRounds(departureTime);
+
+		Journey best = null;
+		for (int k = 1; k < this.rounds.size(); k++) {
+			if (this.rounds.get(k).destinationGeneration == this.generation) {
+				Journey journey = createJourney(k, fromCoord, toCoord, person);
+				if (best == null || journey.route.getTravelCost() < best.route.getTravelCost()) {
+					best = journey;
+				}
+			}
+		}
+		if (best == null) {
+			return this.createDirectWalkLegList(null, fromCoord, toCoord);
+		}
+		double directWalkCost = getWalkDisutility(person, fromCoord, toCoord);
+		if (directWalkCost * getConfig().getDirectWalkFactor() < best.route.getTravelCost()) {
+			return this.createDirectWalkLegList(null, fromCoord, toCoord);
+		}
+		return convertPassengerRouteToLegList(departureTime, best.route, fromCoord, toCoord, person);
+	}
+
+	/**
+	 * Calculates all transit journeys departing between the earliest and the latest departure time that are
+	 * Pareto-optimal with respect to departure time, arrival time and number of transfers. The schedule is searched
+	 * once for every distinct departure time at which a transit vehicle can be caught at one of the stops close to
+	 * the start, starting with the latest one and keeping the labels from run to run, so that every run only has to
+	 * scan the part of the schedule where it improves on the later departures.
+	 *
+	 * @return the journeys sorted by departure time, each as list of legs with departure times set, or an empty list
+	 * 		if there is no transit connection in that time window
+	 */
+	public List<List<Leg>> calcRoutes(final Facility fromFacility, final Facility toFacility, final double earliestDepartureTime,
+			final double latestDepartureTime, final Person person) {
+		Coord fromCoord = fromFacility.getCoord();
+		Coord toCoord = toFacility.getCoord();
+		initQuery(fromCoord, toCoord, person);
+
+		double[] departureTimes = collectDepartureTimes(earliestDepartureTime, latestDepartureTime);
+		List<Journey> journeys = new ArrayList<>();
+		for (int i = departureTimes.length - 1; i >= 0; i--) {
+			runRounds(departureTimes[i]);
+			for (int k = 1; k < this.rounds.size(); k++) {
+				Round round = this.rounds.get(k);
+				if (round.destinationGeneration == this.generation && round.destinationRun == this.run) {
+					journeys.add(createJourney(k, fromCoord, toCoord, person));
+				}
+			}
+		}
+		journeys.sort((a, b) -> Double.compare(a.departureTime, b.departureTime));
+
+		List<List<Leg>> result = new ArrayList<>(journeys.size());
+		for (Journey journey : journeys) {
+			List<Leg> legs = convertPassengerRouteToLegList(journey.departureTime, journey.route, fromCoord, toCoord, person);
+			double time = journey.departureTime;
+			for (Leg leg : legs) {
+				leg.setDepartureTime(time);
+				time += leg.getTravelTime();
+			}
+			result.add(legs);
+		}
+		return result;
+	}
+
+	private void initQuery(final Coord fromCoord, final Coord toCoord, final Person person) {
+		this.generation++;
+		this.accessCount = 0;
+		for (int stop : findNearbyStops(fromCoord)) {
+			this.accessStops[this.accessCount] = stop;
+			this.accessTimes[this.accessCount] = getWalkTime(person, fromCoord, this.data.stops[stop].getCoord());
+			this.accessCount++;
+		}
+		for (int stop : findNearbyStops(toCoord)) {
+			this.egressTimes[stop] = getWalkTime(person, this.data.stops[stop].getCoord(), toCoord);
+			this.egressGeneration[stop] = this.generation;
+		}
+	}
+
+	/**
+	 * Finds the stops within the search radius, or within the extension radius beyond the nearest stop if there are
+	 * less than two stops in the search radius, like {@link TransitRouterImpl}.
+	 */
+	private Collection<Integer> findNearbyStops(final Coord coord) {
+		if (this.data.getNumberOfStops() == 0) {
+			return Collections.emptyList();
+		}
+		Collection<Integer> stops = this.data.stopsQuadTree.getDisk(coord.getX(), coord.getY(), getConfig().getSearchRadius());
+		if (stops.size() < 2) {
+			int nearestStop = this.data.stopsQuadTree.getClosest(coord.getX(), coord.getY());
+			double distance = CoordUtils.calcEuclideanDistance(coord, this.data.stops[nearestStop].getCoord());
+			stops = this.data.stopsQuadTree.getDisk(coord.getX(), coord.getY(), distance + getConfig().getExtensionRadius());
+		}
+		return stops;
+	}
+
+	private double[] collectDepartureTimes(final double earliestDepartureTime, final double latestDepartureTime) {
+		double[] times = new double[16];
+		int count = 0;
+		for (int a = 0; a < this.accessCount; a++) {
+			int stop = this.accessStops[a];
+			double accessTime = this.accessTimes[a];
+			for (int i = this.data.stopRoutesStart[stop]; i < this.data.stopRoutesStart[stop + 1]; i++) {
+				int route = this.data.stopRouteRoutes[i];
+				int position = this.data.stopRoutePositions[i];
+				if (position == this.data.routeStopsStart[route + 1] - 1) {
+					continue; // one cannot board at the last stop
+				}
+				double offset = this.data.routeStopDepartureOffsets[position];
+				double time = earliestDepartureTime + accessTime;
+				while (true) {
+					double departure = this.data.getNextTripStart(route, position, time) + offset;
+					if (departure - accessTime > latestDepartureTime) {
+						break;
+					}
+					if (count == times.length) {
+						times = Arrays.copyOf(times, count * 2);
+					}
+					times[count++] = departure - accessTime;
+					time = Math.nextUp(departure);
+				}
+			}
+		}
+		Arrays.sort(times, 0, count);
+		int distinct = 0;
+		for (int i = 0; i < count; i++) {
+			if (distinct == 0 || times[i] != times[distinct - 1]) {
+				times[distinct++] = times[i];
+			}
+		}
+		return Arrays.copyOf(times, distinct);
+	}
+
+	private void runRounds(final double departureTime) {
+		this.run++;
+		this.stamp++;
+		Round round0 = getRound(0);
+		this.nextMarkedCount = 0;
+		for (int a = 0; a < this.accessCount; a++) {
+			int stop = this.accessStops[a];
+			setBoardLabel(round0, stop, departureTime + this.accessTimes[a], -1, departureTime, 0);
+		}
+		for (int k = 1; this.nextMarkedCount > 0; k++) {
+			int[] tmp = this.markedStops;
+			this.markedStops = this.nextMarkedStops;
+			this.markedCount = this.nextMarkedCount;
+			this.nextMarkedStops = tmp;
+			this.nextMarkedCount = 0;
+			this.stamp++;
+			Round round = getRound(k);
+			queueRoutes();
+			scanRoutes(k, round);
+			relaxTransfers(k, round);
+			updateDestination(k, round);
+		}
+	}
+
+	private Round getRound(final int k) {
+		while (this.rounds.size() <= k) {
+			this.rounds.add(new Round(this.data.getNumberOfStops()));
+		}
+		return this.rounds.get(k);
+	}
+
+	private void queueRoutes() {
+		this.routeStamp++;
+		this.queuedCount = 0;
+		for (int m = 0; m < this.markedCount; m++) {
+			int stop = this.markedStops[m];
+			for (int i = this.data.stopRoutesStart[stop]; i < this.data.stopRoutesStart[stop + 1]; i++) {
+				int route = this.data.stopRouteRoutes[i];
+				int position = this.data.stopRoutePositions[i];
+				if (this.routeQueued[route] != this.routeStamp) {
+					this.routeQueued[route] = this.routeStamp;
+					this.routeFirstPosition[route] = position;
+					this.queuedRoutes[this.queuedCount++] = route;
+				} else if (position < this.routeFirstPosition[route]) {
+					this.routeFirstPosition[route] = position;
+				}
+			}
+		}
+	}
+
+	private void scanRoutes(final int k, final Round round) {
+		double destinationBound = getDestinationBound(k);
+		this.improvedCount = 0;
+		for (int q = 0; q < this.queuedCount; q++) {
+			int route = this.queuedRoutes[q];
+			int lastPosition = this.data.routeStopsStart[route + 1] - 1;
+			int boardPosition = -1;
+			int boardRound = -1;
+			double tripStart = 0;
+			for (int position = this.routeFirstPosition[route]; position <= lastPosition; position++) {
+				int stop = this.data.routeStopStops[position];
+				if (boardPosition >= 0) {
+					double arrival = tripStart + this.data.routeStopArrivalOffsets[position];
+					if (arrival < destinationBound
+							&& (this.bestArrivalRun[stop] != this.run || arrival < this.bestArrival[stop])
+							&& (round.arrivalGeneration[stop] != this.generation || arrival < round.arrivalTime[stop])) {
+						round.arrivalGeneration[stop] = this.generation;
+						round.arrivalTime[stop] = arrival;
+						round.boardPosition[stop] = boardPosition;
+						round.alightPosition[stop] = position;
+						round.tripStart[stop] = tripStart;
+						round.boardRound[stop] = boardRound;
+						this.bestArrival[stop] = arrival;
+						this.bestArrivalRun[stop] = this.run;
+						if (this.improvedStamp[stop] != this.stamp) {
+							this.improvedStamp[stop] = this.stamp;
+							this.improvedStops[this.improvedCount++] = stop;
+						}
+					}
+				}
+				if (position == lastPosition) {
+					break;
+				}
+				// check whether an earlier trip can be caught at this stop, using at most k-1 trips to get here
+				double boardTime = Double.POSITIVE_INFINITY;
+				int fromRound = -1;
+				for (int j = k - 1; j >= 0; j--) {
+					Round r = this.rounds.get(j);
+					if (r.boardGeneration[stop] == this.generation && r.boardTime[stop] < boardTime) {
+						boardTime = r.boardTime[stop];
+						fromRound = j;
+					}
+				}
+				if (fromRound >= 0 && (boardPosition < 0 || boardTime <= tripStart + this.data.routeStopDepartureOffsets[position])) {
+					double nextTripStart = this.data.getNextTripStart(route, position, boardTime);
+					if (boardPosition < 0 || nextTripStart < tripStart) {
+						tripStart = nextTripStart;
+						boardPosition = position;
+						boardRound = fromRound;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Transfers from every stop reached in this round, either by staying at the stop or by walking to other stops.
+	 * Walks may be chained over several stops, but the additional transfer time is only added once.
+	 */
+	private void relaxTransfers(final int k, final Round round) {
+		double destinationBound = getDestinationBound(k);
+		double additionalTransferTime = getConfig().getAdditionalTransferTime();
+		double walkSpeed = getConfig().getBeelineWalkSpeed();
+		int head = 0;
+		int queued = 0;
+		for (int i = 0; i < this.improvedCount; i++) {
+			int stop = this.improvedStops[i];
+			double arrival = round.arrivalTime[stop];
+			double ready = arrival + additionalTransferTime;
+			if (ready < destinationBound) {
+				setBoardLabel(round, stop, ready, stop, arrival, 0);
+			}
+			for (int t = this.data.transfersStart[stop]; t < this.data.transfersStart[stop + 1]; t++) {
+				int target = this.data.transferTargets[t];
+				double distance = this.data.transferDistances[t];
+				double time = ready + distance / walkSpeed;
+				if (time < destinationBound && setBoardLabel(round, target, time, stop, arrival, distance) && !this.inWalkQueue[target]) {
+					this.inWalkQueue[target] = true;
+					this.walkQueue[(head + queued) % this.walkQueue.length] = target;
+					queued++;
+				}
+			}
+		}
+		// continue walking from the stops reached by walking, until no stop improves anymore
+		while (queued > 0) {
+			int stop = this.walkQueue[head];
+			head = (head + 1) % this.walkQueue.length;
+			queued--;
+			this.inWalkQueue[stop] = false;
+			double time = round.boardTime[stop];
+			for (int t = this.data.transfersStart[stop]; t < this.data.transfersStart[stop + 1]; t++) {
+				int target = this.data.transferTargets[t];
+				double distance = this.data.transferDistances[t];
+				double targetTime = time + distance / walkSpeed;
+				if (targetTime < destinationBound
+						&& setBoardLabel(round, target, targetTime, round.boardOrigin[stop], round.originArrival[stop], round.walkDistance[stop] + distance)
+						&& !this.inWalkQueue[target]) {
+					this.inWalkQueue[target] = true;
+					this.walkQueue[(head + queued) % this.walkQueue.length] = target;
+					queued++;
+				}
+			}
+		}
+	}
+
+	private boolean setBoardLabel(final Round round, final int stop, final double time, final int origin,
+			final double originArrival, final double walkDistance) {
+		if ((this.bestBoardRun[stop] == this.run && time >= this.bestBoard[stop])
+				|| (round.boardGeneration[stop] == this.generation && time >= round.boardTime[stop])) {
+			return false;
+		}
+		round.boardGeneration[stop] = this.generation;
+		round.boardTime[stop] = time;
+		round.boardOrigin[stop] = origin;
+		round.originArrival[stop] = originArrival;
+		round.walkDistance[stop] = walkDistance;
+		this.bestBoard[stop] = time;
+		this.bestBoardRun[stop] = this.run;
+		if (this.markedStamp[stop] != this.stamp) {
+			this.markedStamp[stop] = this.stamp;
+			this.nextMarkedStops[this.nextMarkedCount++] = stop;
+		}
+		return true;
+	}
+
+	private void updateDestination(final int k, final Round round) {
+		double destinationBound = getDestinationBound(k);
+		for (int i = 0; i < this.improvedCount; i++) {
+			int stop = this.improvedStops[i];
+			if (this.egressGeneration[stop] == this.generation) {
+				double arrival = round.arrivalTime[stop] + this.egressTimes[stop];
+				if (arrival < destinationBound) {
+					destinationBound = arrival;
+					round.destinationArrival = arrival;
+					round.destinationStop = stop;
+					round.destinationGeneration = this.generation;
+					round.destinationRun = this.run;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the earliest arrival at the destination found so far with at most k trips
+	 */
+	private double getDestinationBound(final int k) {
+		double bound = Double.POSITIVE_INFINITY;
+		for (int j = 1; j <= k; j++) {
+			Round round = this.rounds.get(j);
+			if (round.destinationGeneration == this.generation && round.destinationArrival < bound) {
+				bound = round.destinationArrival;
+			}
+		}
+		return bound;
+	}
+
+	/**
+	 * Follows the labels back from the destination reached in round k and converts them into route segments, and
+	 * calculates the travel disutility of the journey the same way as {@link TransitRouterNetworkTravelTimeAndDisutility}.
+	 */
+	private Journey createJourney(final int k, final Coord fromCoord, final Coord toCoord, final Person person) {
+		TransitRouterConfig config = getConfig();
+		List<RouteSegment> segments = new ArrayList<>();
+		Round round = this.rounds.get(k);
+		int stop = round.destinationStop;
+		double cost = getWalkDisutility(person, this.data.stops[stop].getCoord(), toCoord);
+		double departureTime;
+		while (true) {
+			int boardPosition = round.boardPosition[stop];
+			int alightPosition = round.alightPosition[stop];
+			double tripStart = round.tripStart[stop];
+			int route = getRouteIndex(boardPosition);
+			int boardStop = this.data.routeStopStops[boardPosition];
+			Round boardRound = this.rounds.get(round.boardRound[stop]);
+			double ready = boardRound.boardTime[boardStop];
+			int origin = boardRound.boardOrigin[boardStop];
+
+			double arrival = tripStart + this.data.routeStopArrivalOffsets[alightPosition];
+			double vehicleArrival = tripStart + this.data.routeStopArrivalOffsets[boardPosition];
+			// when staying at the same stop, the transfer is not part of the legs, so the pt leg starts with the arrival
+			double segmentStart = (origin == boardStop) ? boardRound.originArrival[boardStop] : ready;
+			segments.add(new RouteSegment(this.data.stops[boardStop], this.data.stops[stop], arrival - segmentStart,
+					this.data.lines[route].getId(), this.data.routes[route].getId()));
+			double waitTime = Math.max(0, vehicleArrival - ready);
+			double inVehicleTime = arrival - Math.max(ready, vehicleArrival);
+			double distance = this.data.routeStopDistances[alightPosition] - this.data.routeStopDistances[boardPosition];
+			cost += - inVehicleTime * config.getMarginalUtilityOfTravelTimePt_utl_s()
+					- waitTime * config.getMarginalUtilityOfWaitingPt_utl_s()
+					- distance * config.getMarginalUtilityOfTravelDistancePt_utl_m();
+
+			if (origin < 0) {
+				Coord stopCoord = this.data.stops[boardStop].getCoord();
+				cost += getWalkDisutility(person, fromCoord, stopCoord);
+				departureTime = ready - getWalkTime(person, fromCoord, stopCoord);
+				break;
+			}
+			double walkDistance = boardRound.walkDistance[boardStop];
+			segments.add(new RouteSegment(this.data.stops[origin], this.data.stops[boardStop], ready - boardRound.originArrival[boardStop], null, null));
+			cost += - walkDistance / config.getBeelineWalkSpeed() * config.getMarginalUtilityOfTravelTimeWalk_utl_s()
+					- walkDistance * config.getMarginalUtilityOfTravelDistanceWalk_utl_m()
+					- config.getAdditionalTransferTime() * config.getMarginalUtilityOfWaitingPt_utl_s()
+					- config.getUtilityOfLineSwitch_utl();
+			stop = origin;
+			round = boardRound;
+		}
+		Collections.reverse(segments);
+		return new Journey(departureTime, new TransitPassengerRoute(cost, segments));
+	}
+
+	private int getRouteIndex(final int routeStop) {
+		int index = Arrays.binarySearch(this.data.routeStopsStart, routeStop);
+		if (index < 0) {
+			return -(index + 1) - 1;
+		}
+		// there are no empty routes, so there is exactly one route starting at this position
+		return index;
+	}
+
+	RaptorTransitRouterData getData() {
+		return this.data;
+	}
+
+	private static final class Round {
+		final int[] arrivalGeneration;
+		final double[] arrivalTime;
+		final int[] boardPosition;
+		final int[] alightPosition;
+		final double[] tripStart;
+		final int[] boardRound;
+
+		final int[] boardGeneration;
+		final double[] boardTime;
+		/** the stop where the trip of the previous round was left, or -1 if the stop was reached from the start */
+		final int[] boardOrigin;
+		final double[] originArrival;
+		final double[] walkDistance;
+
+		double destinationArrival;
+		int destinationStop;
+		int destinationGeneration;
+		int destinationRun;
+
+		Round(final int numberOfStops) {
+			this.arrivalGeneration = new int[numberOfStops];
+			this.arrivalTime = new double[numberOfStops];
+			this.boardPosition = new int[numberOfStops];
+			this.alightPosition = new int[numberOfStops];
+			this.tripStart = new double[numberOfStops];
+			this.boardRound = new int[numberOfStops];
+			this.boardGeneration = new int[numberOfStops];
+			this.boardTime = new double[numberOfStops];
+			this.boardOrigin = new int[numberOfStops];
+			this.originArrival = new double[numberOfStops];
+			this.walkDistance = new double[numberOfStops];
+		}
+	}
+
+	private static final class Journey {
+		final double departureTime;
+		final TransitPassengerRoute route;
+
+		Journey(final double departureTime, final TransitPassengerRoute route) {
+			this.departureTime = departureTime;
+			this.route = route;
+		}
+	}
+
+}
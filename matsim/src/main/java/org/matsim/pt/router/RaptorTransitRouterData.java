@@ -0,0 +1,242 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.core.utils.collections.QuadTree;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * The transit schedule in the form needed by {@link RaptorTransitRouter}: stops, route patterns, stop times and
+ * transfers, all stored in primitive arrays indexed by stop and route.
+ * <p></p>
+ * Instances are immutable and thus thread-safe, so one instance can be shared by the routers of all threads. Only
+ * stops served by at least one transit route with departures are included.
+ */
+public final class RaptorTransitRouterData {
+
+	private static final Logger log = Logger.getLogger(RaptorTransitRouterData.class);
+
+	final TransitStopFacility[] stops;
+	final QuadTree<Integer> stopsQuadTree;
+
+	/** the routes serving each stop: entries stopRoutesStart[stop] to stopRoutesStart[stop + 1] - 1 */
+	final int[] stopRoutesStart;
+	final int[] stopRouteRoutes;
+	final int[] stopRoutePositions;
+
+	/** the stops within walking distance of each stop: entries transfersStart[stop] to transfersStart[stop + 1] - 1 */
+	final int[] transfersStart;
+	final int[] transferTargets;
+	final double[] transferDistances;
+
+	final TransitLine[] lines;
+	final TransitRoute[] routes;
+	/** the stops of each route: entries routeStopsStart[route] to routeStopsStart[route + 1] - 1 */
+	final int[] routeStopsStart;
+	final int[] routeStopStops;
+	final double[] routeStopArrivalOffsets;
+	final double[] routeStopDepartureOffsets;
+	/** the beeline distance from the first stop of the route, along all stops in between */
+	final double[] routeStopDistances;
+	/** the sorted departure times of each route: entries departuresStart[route] to departuresStart[route + 1] - 1 */
+	final int[] departuresStart;
+	final double[] departureTimes;
+
+	private RaptorTransitRouterData(final TransitSchedule schedule, final double maxBeelineWalkConnectionDistance) {
+		Map<TransitStopFacility, Integer> stopIndices = new IdentityHashMap<>();
+		List<TransitStopFacility> stopList = new ArrayList<>();
+		List<TransitLine> lineList = new ArrayList<>();
+		List<TransitRoute> routeList = new ArrayList<>();
+		int numberOfRouteStops = 0;
+		int numberOfDepartures = 0;
+		for (TransitLine line : schedule.getTransitLines().values()) {
+			for (TransitRoute route : line.getRoutes().values()) {
+				if (route.getStops().size() < 2 || route.getDepartures().isEmpty()) {
+					continue;
+				}
+				lineList.add(line);
+				routeList.add(route);
+				numberOfRouteStops += route.getStops().size();
+				numberOfDepartures += route.getDepartures().size();
+				for (TransitRouteStop routeStop : route.getStops()) {
+					if (!stopIndices.containsKey(routeStop.getStopFacility())) {
+						stopIndices.put(routeStop.getStopFacility(), stopList.size());
+						stopList.add(routeStop.getStopFacility());
+					}
+				}
+			}
+		}
+
+		this.stops = stopList.toArray(new TransitStopFacility[0]);
+		this.lines = lineList.toArray(new TransitLine[0]);
+		this.routes = routeList.toArray(new TransitRoute[0]);
+		this.routeStopsStart = new int[this.routes.length + 1];
+		this.routeStopStops = new int[numberOfRouteStops];
+		this.routeStopArrivalOffsets = new double[numberOfRouteStops];
+		this.routeStopDepartureOffsets = new double[numberOfRouteStops];
+		this.routeStopDistances = new double[numberOfRouteStops];
+		this.departuresStart = new int[this.routes.length + 1];
+		this.departureTimes = new double[numberOfDepartures];
+		int[] routesPerStop = new int[this.stops.length];
+
+		int routeStop = 0;
+		int departure = 0;
+		for (int r = 0; r < this.routes.length; r++) {
+			this.routeStopsStart[r] = routeStop;
+			Coord previousCoord = null;
+			double distance = 0;
+			for (TransitRouteStop stop : this.routes[r].getStops()) {
+				int stopIndex = stopIndices.get(stop.getStopFacility());
+				Coord coord = stop.getStopFacility().getCoord();
+				if (previousCoord != null) {
+					distance += CoordUtils.calcEuclideanDistance(previousCoord, coord);
+				}
+				previousCoord = coord;
+				this.routeStopStops[routeStop] = stopIndex;
+				this.routeStopArrivalOffsets[routeStop] = (stop.getArrivalOffset() != Time.UNDEFINED_TIME) ? stop.getArrivalOffset() : stop.getDepartureOffset();
+				this.routeStopDepartureOffsets[routeStop] = (stop.getDepartureOffset() != Time.UNDEFINED_TIME) ? stop.getDepartureOffset() : stop.getArrivalOffset();
+				this.routeStopDistances[routeStop] = distance;
+				routesPerStop[stopIndex]++;
+				routeStop++;
+			}
+			this.departuresStart[r] = departure;
+			for (Departure dep : this.routes[r].getDepartures().values()) {
+				this.departureTimes[departure++] = dep.getDepartureTime();
+			}
+			Arrays.sort(this.departureTimes, this.departuresStart[r], departure);
+		}
+		this.routeStopsStart[this.routes.length] = routeStop;
+		this.departuresStart[this.routes.length] = departure;
+
+		this.stopRoutesStart = new int[this.stops.length + 1];
+		for (int s = 0; s < this.stops.length; s++) {
+			this.stopRoutesStart[s + 1] = this.stopRoutesStart[s] + routesPerStop[s];
+		}
+		this.stopRouteRoutes = new int[numberOfRouteStops];
+		this.stopRoutePositions = new int[numberOfRouteStops];
+		int[] nextStopRoute = Arrays.copyOf(this.stopRoutesStart, this.stops.length);
+		for (int r = 0; r < this.routes.length; r++) {
+			for (int pos = this.routeStopsStart[r]; pos < this.routeStopsStart[r + 1]; pos++) {
+				int entry = nextStopRoute[this.routeStopStops[pos]]++;
+				this.stopRouteRoutes[entry] = r;
+				this.stopRoutePositions[entry] = pos;
+			}
+		}
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		List<Integer> stopIndexList = new ArrayList<>(this.stops.length);
+		for (int s = 0; s < this.stops.length; s++) {
+			Coord c = this.stops[s].getCoord();
+			minX = Math.min(minX, c.getX());
+			minY = Math.min(minY, c.getY());
+			maxX = Math.max(maxX, c.getX());
+			maxY = Math.max(maxY, c.getY());
+			stopIndexList.add(s);
+		}
+		if (this.stops.length == 0) {
+			minX = minY = maxX = maxY = 0;
+		}
+		this.stopsQuadTree = new QuadTree<>(minX, minY, maxX, maxY, stopIndexList,
+				s -> this.stops[s].getCoord().getX(), s -> this.stops[s].getCoord().getY());
+
+		this.transfersStart = new int[this.stops.length + 1];
+		List<Integer> targets = new ArrayList<>();
+		List<Double> distances = new ArrayList<>();
+		for (int s = 0; s < this.stops.length; s++) {
+			Coord coord = this.stops[s].getCoord();
+			for (int target : this.stopsQuadTree.getDisk(coord.getX(), coord.getY(), maxBeelineWalkConnectionDistance)) {
+				if (target != s) {
+					targets.add(target);
+					distances.add(CoordUtils.calcEuclideanDistance(coord, this.stops[target].getCoord()));
+				}
+			}
+			this.transfersStart[s + 1] = targets.size();
+		}
+		this.transferTargets = new int[targets.size()];
+		this.transferDistances = new double[targets.size()];
+		for (int i = 0; i < this.transferTargets.length; i++) {
+			this.transferTargets[i] = targets.get(i);
+			this.transferDistances[i] = distances.get(i);
+		}
+
+		log.info("raptor transit router data: " + this.stops.length + " stops, " + this.routes.length + " routes, "
+				+ this.departureTimes.length + " departures, " + this.transferTargets.length + " transfers.");
+	}
+
+	public static RaptorTransitRouterData createFromSchedule(final TransitSchedule schedule, final double maxBeelineWalkConnectionDistance) {
+		return new RaptorTransitRouterData(schedule, maxBeelineWalkConnectionDistance);
+	}
+
+	public int getNumberOfStops() {
+		return this.stops.length;
+	}
+
+	public int getNumberOfRoutes() {
+		return this.routes.length;
+	}
+
+	/**
+	 * Returns the absolute departure time at the first stop of the first trip of the route that departs from the
+	 * route stop at or after the given time. As in {@link PreparedTransitSchedule}, the schedule repeats every day.
+	 */
+	double getNextTripStart(final int route, final int routeStop, final double time) {
+		double offset = this.routeStopDepartureOffsets[routeStop];
+		double earliestDepartureTimeAtTerminus = time - offset;
+		if (earliestDepartureTimeAtTerminus >= TransitRouterNetworkTravelTimeAndDisutility.MIDNIGHT) {
+			earliestDepartureTimeAtTerminus = earliestDepartureTimeAtTerminus % TransitRouterNetworkTravelTimeAndDisutility.MIDNIGHT;
+		}
+		if (earliestDepartureTimeAtTerminus < 0) {
+			earliestDepartureTimeAtTerminus += TransitRouterNetworkTravelTimeAndDisutility.MIDNIGHT;
+		}
+		int from = this.departuresStart[route];
+		int to = this.departuresStart[route + 1];
+		int pos = Arrays.binarySearch(this.departureTimes, from, to, earliestDepartureTimeAtTerminus);
+		if (pos < 0) {
+			pos = -(pos + 1);
+		}
+		if (pos >= to) {
+			pos = from; // there is no later departure time, take the first in the morning
+		}
+		double departureTime = this.departureTimes[pos] + offset;
+		while (departureTime < time) {
+			departureTime += TransitRouterNetworkTravelTimeAndDisutility.MIDNIGHT;
+		}
+		return departureTime - offset;
+	}
+
+}
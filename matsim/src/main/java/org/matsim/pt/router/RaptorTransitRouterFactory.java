@@ -0,0 +1,74 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/**
+ * Creates {@link RaptorTransitRouter}s. The schedule data is prepared only once and shared by all routers created by
+ * this factory, i.e. by all routing threads, until the schedule is changed.
+ */
+@Singleton
+public class RaptorTransitRouterFactory implements Provider<TransitRouter> {
+
+	private final TransitRouterConfig config;
+	private final TransitSchedule transitSchedule;
+	private RaptorTransitRouterData data;
+	private PreparedTransitSchedule preparedTransitSchedule;
+
+	@Inject
+	RaptorTransitRouterFactory(final TransitSchedule schedule, final EventsManager events, final Config config) {
+		this(schedule, new TransitRouterConfig(
+				config.planCalcScore(),
+				config.plansCalcRoute(),
+				config.transitRouter(),
+				config.vspExperimental()));
+		events.addHandler((TransitScheduleChangedEventHandler) event -> reset());
+	}
+
+	public RaptorTransitRouterFactory(final TransitSchedule schedule, final TransitRouterConfig config) {
+		this.config = config;
+		this.transitSchedule = schedule;
+	}
+
+	private synchronized void reset() {
+		this.data = null;
+		this.preparedTransitSchedule = null;
+	}
+
+	@Override
+	public synchronized TransitRouter get() {
+		if (this.data == null) {
+			this.data = RaptorTransitRouterData.createFromSchedule(this.transitSchedule, this.config.getBeelineWalkConnectionDistance());
+		}
+		if (this.preparedTransitSchedule == null) {
+			this.preparedTransitSchedule = new PreparedTransitSchedule(this.transitSchedule);
+		}
+		TransitRouterNetworkTravelTimeAndDisutility ttCalculator = new TransitRouterNetworkTravelTimeAndDisutility(this.config, this.preparedTransitSchedule);
+		return new RaptorTransitRouter(this.config, this.data, ttCalculator);
+	}
+
+}
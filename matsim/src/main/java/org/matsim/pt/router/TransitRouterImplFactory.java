@@ -29,6 +29,10 @@ import javax.inject.Provider;
 import javax.inject.Singleton;
 
 /**
+ * Creates {@link TransitRouterImpl}s. The router network and the prepared schedule are only created once and are then
+ * shared by all routers, i.e. by all routing threads, until the schedule changes. Each router only has its own travel
+ * time and disutility calculator and the state of the current search.
+ *
  * @author mrieser
  */
 @Singleton
@@ -46,10 +50,7 @@ public class TransitRouterImplFactory implements Provider<TransitRouter> {
 				config.plansCalcRoute(),
 				config.transitRouter(),
 				config.vspExperimental()));
-		events.addHandler((TransitScheduleChangedEventHandler) event -> {
-			routerNetwork = null;
-			preparedTransitSchedule = null;
-		});
+		events.addHandler((TransitScheduleChangedEventHandler) event -> reset());
 	}
 
 	public TransitRouterImplFactory(final TransitSchedule schedule, final TransitRouterConfig config) {
@@ -57,8 +58,17 @@ public class TransitRouterImplFactory implements Provider<TransitRouter> {
 		this.transitSchedule = schedule;
 	}
 
+	private synchronized void reset() {
+		this.routerNetwork = null;
+		this.preparedTransitSchedule = null;
+	}
+
+	/*
+	 * synchronized, as the routers for several threads are typically requested at the same time, and all of them should
+	 * get the same router network and prepared schedule instead of building their own ones.
+	 */
 	@Override
-	public TransitRouter get() {
+	public synchronized TransitRouter get() {
 		if (this.routerNetwork == null) {
 			this.routerNetwork = TransitRouterNetwork.createFromSchedule(transitSchedule, this.config.getBeelineWalkConnectionDistance());
 		}
@@ -347,12 +347,8 @@ public final class TransitRouterNetwork implements Network {
 			}
 		}
 
-		QuadTree<TransitRouterNetworkNode> quadTree = new QuadTree<TransitRouterNetworkNode>(minX, minY, maxX, maxY);
-		for (TransitRouterNetworkNode node : this.nodes.values()) {
-			Coord c = node.stop.getStopFacility().getCoord();
-			quadTree.put(c.getX(), c.getY(), node);
-		}
-		this.qtNodes = quadTree;
+		this.qtNodes = new QuadTree<>(minX, minY, maxX, maxY, this.nodes.values(),
+				node -> node.stop.getStopFacility().getCoord().getX(), node -> node.stop.getStopFacility().getCoord().getY());
 	}
 
 	public Collection<TransitRouterNetworkNode> getNearestNodes(final Coord coord, final double distance) {
@@ -217,4 +217,8 @@ public class TransitRouterNetworkTravelTimeAndDisutility implements TravelTime,
 		return initialTime;
 	}
 
+	PreparedTransitSchedule getPreparedTransitSchedule() {
+		return this.preparedTransitSchedule;
+	}
+
 }
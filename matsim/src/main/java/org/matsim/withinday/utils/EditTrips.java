@@ -58,7 +58,7 @@ public final class EditTrips {
 		for ( Trip trip : trips ) {
 			for ( PlanElement te : trip.getTripElements() ) {
 				log.debug("trip element to be compared with=" + te ) ;
-				if ( te==pe ) {
+				if ( te.equals(pe) ) {
 					log.debug("found trip element") ;
 					return trip;
 				}
@@ -0,0 +1,112 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IdMapTest {
+
+	@Test
+	public void testPutGetRemove() {
+		Id<TLink> id1 = Id.create("1", TLink.class);
+		Id<TLink> id2 = Id.create("2", TLink.class);
+		Id<TLink> id3 = Id.create("3", TLink.class);
+
+		IdMap<TLink, String> map = new IdMap<>(TLink.class, 1);
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.put(id3, "three"));
+		Assert.assertNull(map.put(id1, "one"));
+		Assert.assertEquals("one", map.put(id1, "ONE"));
+
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals("ONE", map.get(id1));
+		Assert.assertNull(map.get(id2));
+		Assert.assertEquals("three", map.get(id3.index()));
+		Assert.assertTrue(map.containsKey(id3));
+		Assert.assertFalse(map.containsKey(id2));
+		Assert.assertTrue(map.containsValue("ONE"));
+		Assert.assertNull(map.get("1"));
+
+		Assert.assertEquals("three", map.remove(id3));
+		Assert.assertNull(map.remove(id3));
+		Assert.assertEquals(1, map.size());
+
+		map.put(id2, "two");
+		map.put(id2, null);
+		Assert.assertEquals(1, map.size());
+		Assert.assertFalse(map.containsKey(id2));
+	}
+
+	@Test
+	public void testIteration() {
+		Id<TLink> id1 = Id.create("1", TLink.class);
+		Id<TLink> id2 = Id.create("2", TLink.class);
+		Id<TLink> id3 = Id.create("3", TLink.class);
+
+		IdMap<TLink, String> map = new IdMap<>(TLink.class);
+		map.put(id3, "three");
+		map.put(id1, "one");
+		map.put(id2, "two");
+
+		Iterator<Id<TLink>> keyIter = map.keySet().iterator();
+		Assert.assertSame(id1, keyIter.next());
+		Assert.assertSame(id2, keyIter.next());
+		keyIter.remove();
+		Assert.assertSame(id3, keyIter.next());
+		Assert.assertFalse(keyIter.hasNext());
+		Assert.assertEquals(2, map.size());
+		Assert.assertFalse(map.containsKey(id2));
+
+		for (Map.Entry<Id<TLink>, String> e : map.entrySet()) {
+			e.setValue(e.getValue().toUpperCase());
+		}
+		Assert.assertEquals("ONE", map.get(id1));
+		Assert.assertEquals("THREE", map.get(id3));
+		Assert.assertEquals(2, map.values().size());
+		Assert.assertTrue(map.values().contains("THREE"));
+	}
+
+	@Test
+	public void testKeysOfOtherTypes() {
+		Id<TFacility> facilityId = Id.create("1", TFacility.class);
+		Id<TZone> zoneId = Id.create("1", TZone.class);
+		Assert.assertEquals(facilityId.index(), zoneId.index());
+
+		IdMap<TFacility, String> map = new IdMap<>(TFacility.class);
+		map.put(facilityId, "facility");
+		Assert.assertFalse(map.containsKey(zoneId));
+		Assert.assertNull(map.get(zoneId));
+		Assert.assertNull(map.remove(zoneId));
+		Assert.assertFalse(map.containsKey("1"));
+		Assert.assertEquals(1, map.size());
+		Assert.assertEquals("facility", map.get(facilityId));
+	}
+
+	private static class TLink {}
+
+	private static class TFacility {}
+
+	private static class TZone {}
+
+}
@@ -0,0 +1,93 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01;
+
+import java.util.Iterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IdSetTest {
+
+	@Test
+	public void testAddContainsRemove() {
+		Id<TNode> id1 = Id.create("1", TNode.class);
+		Id<TNode> id2 = Id.create("2", TNode.class);
+		Id<TNode> id3 = Id.create("3", TNode.class);
+
+		IdSet<TNode> set = new IdSet<>(TNode.class);
+		Assert.assertTrue(set.isEmpty());
+		Assert.assertTrue(set.add(id3));
+		Assert.assertTrue(set.add(id1));
+		Assert.assertFalse(set.add(id1));
+		Assert.assertEquals(2, set.size());
+
+		Assert.assertTrue(set.contains(id1));
+		Assert.assertFalse(set.contains(id2));
+		Assert.assertTrue(set.contains(id3.index()));
+		Assert.assertFalse(set.contains("1"));
+
+		Assert.assertTrue(set.remove(id1));
+		Assert.assertFalse(set.remove(id1));
+		Assert.assertEquals(1, set.size());
+	}
+
+	@Test
+	public void testIteration() {
+		Id<TNode> id1 = Id.create("1", TNode.class);
+		Id<TNode> id2 = Id.create("2", TNode.class);
+		Id<TNode> id3 = Id.create("3", TNode.class);
+
+		IdSet<TNode> set = new IdSet<>(TNode.class);
+		set.add(id3);
+		set.add(id2);
+		set.add(id1);
+
+		Iterator<Id<TNode>> iter = set.iterator();
+		Assert.assertSame(id1, iter.next());
+		Assert.assertSame(id2, iter.next());
+		iter.remove();
+		Assert.assertSame(id3, iter.next());
+		Assert.assertFalse(iter.hasNext());
+		Assert.assertEquals(2, set.size());
+		Assert.assertFalse(set.contains(id2));
+	}
+
+	@Test
+	public void testIdsOfOtherTypes() {
+		Id<TFacility> facilityId = Id.create("1", TFacility.class);
+		Id<TZone> zoneId = Id.create("1", TZone.class);
+		Assert.assertEquals(facilityId.index(), zoneId.index());
+
+		IdSet<TFacility> set = new IdSet<>(TFacility.class);
+		set.add(facilityId);
+		Assert.assertFalse(set.contains(zoneId));
+		Assert.assertFalse(set.remove(zoneId));
+		Assert.assertEquals(1, set.size());
+		Assert.assertTrue(set.contains(facilityId));
+	}
+
+	private static class TNode {}
+
+	private static class TFacility {}
+
+	private static class TZone {}
+
+}
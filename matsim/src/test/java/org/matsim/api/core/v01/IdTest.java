@@ -67,6 +67,20 @@ public class IdTest {
 //		} // FIXME temporarily deactivated
 	}
 	
+	@Test
+	public void testIndex() {
+		Id<TLink> linkId1 = Id.create("index-1", TLink.class);
+		Id<TLink> linkId2 = Id.create("index-2", TLink.class);
+		Id<TNode> nodeId1 = Id.create("index-1", TNode.class);
+
+		Assert.assertEquals(linkId1.index() + 1, linkId2.index());
+		Assert.assertEquals(linkId1.index(), Id.create("index-1", TLink.class).index());
+		Assert.assertSame(linkId2, Id.get(linkId2.index(), TLink.class));
+		Assert.assertSame(nodeId1, Id.get(nodeId1.index(), TNode.class));
+		Assert.assertTrue(Id.getNumberOfIds(TLink.class) > linkId2.index());
+		Assert.assertNull(Id.get(Id.getNumberOfIds(TLink.class), TLink.class));
+	}
+
 	private static class TLink {}
 	private static class TNode {}
 	
@@ -0,0 +1,62 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler.corelisteners;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.core.config.Config;
+import org.matsim.core.controler.Controler;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class DumpDataAtEndIT {
+
+	@Rule public MatsimTestUtils util = new MatsimTestUtils();
+
+	/**
+	 * The events file of the last iteration is copied to output_events while the events may still be written in
+	 * the background, so the copy must wait for the file to be complete.
+	 */
+	@Test
+	public void testOutputEvents_AsynchronousOutput() throws IOException {
+		Config config = this.util.loadConfig("test/scenarios/equil/config_plans1.xml");
+		config.controler().setLastIteration(1);
+		config.controler().setWriteEventsInterval(1);
+		config.controler().setWritePlansInterval(0);
+		config.controler().setCreateGraphs(false);
+		config.controler().setNumberOfOutputThreads(2);
+		Controler c = new Controler(config);
+
+		c.run();
+
+		File iterationEvents = new File(c.getControlerIO().getIterationFilename(1, Controler.FILENAME_EVENTS_XML));
+		File outputEvents = new File(c.getControlerIO().getOutputFilename(Controler.OUTPUT_PREFIX + Controler.FILENAME_EVENTS_XML));
+		assertTrue(iterationEvents.exists());
+		assertTrue(outputEvents.exists());
+		assertArrayEquals(Files.readAllBytes(iterationEvents.toPath()), Files.readAllBytes(outputEvents.toPath()));
+	}
+
+}
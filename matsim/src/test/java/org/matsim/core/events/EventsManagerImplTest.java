@@ -63,6 +63,31 @@ public class EventsManagerImplTest {
 		}
 	}
 
+	@Test
+	public void testProcessEvent_AddRemoveHandler() {
+		EventsManager manager = new EventsManagerImpl();
+		CountingMyEventHandler handler1 = new CountingMyEventHandler();
+		CountingMyEventHandler handler2 = new CountingMyEventHandler();
+		manager.addHandler(handler1);
+		manager.processEvent(new MyEvent(1.0));
+		manager.addHandler(handler2);
+		manager.processEvent(new MyEvent(2.0));
+		manager.removeHandler(handler1);
+		manager.processEvent(new MyEvent(3.0));
+		Assert.assertEquals(2, handler1.counter);
+		Assert.assertEquals(2, handler2.counter);
+	}
+
+	@Test
+	public void testProcessEvent_EventSubclass() {
+		EventsManager manager = new EventsManagerImpl();
+		CountingMyEventHandler handler = new CountingMyEventHandler();
+		manager.addHandler(handler);
+		manager.processEvent(new MySubEvent(1.0));
+		manager.processEvent(new MyEvent(2.0));
+		Assert.assertEquals("EventHandler was not called for subclass of event.", 2, handler.counter);
+	}
+
 	/*package*/ static class MyEvent extends Event {
 		public MyEvent(final double time) {
 			super(time);
@@ -73,6 +98,12 @@ public class EventsManagerImplTest {
 		}
 	}
 
+	/*package*/ static class MySubEvent extends MyEvent {
+		public MySubEvent(final double time) {
+			super(time);
+		}
+	}
+
 	/*package*/ static interface MyEventHandler extends EventHandler {
 		public void handleEvent(final MyEvent e);
 	}
@@ -0,0 +1,61 @@
+package org.matsim.core.events;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+
+public class EventsRingBufferTest {
+
+	@Test
+	public void testProcessedEventsAreCleared() throws InterruptedException {
+		final int size = 64;
+		final int numberOfEvents = 1000;
+		final EventsRingBuffer buffer = new EventsRingBuffer(size, 3);
+		final int[] processed = new int[3];
+		List<Thread> consumers = new ArrayList<>();
+		for (int c = 0; c < 3; c++) {
+			final int consumer = c;
+			Thread thread = new Thread(() -> {
+				long next = 0;
+				while (true) {
+					long available = buffer.waitFor(consumer, next);
+					if (available < 0) {
+						break;
+					}
+					for (long sequence = next; sequence <= available; sequence++) {
+						Assert.assertNotNull(buffer.get(sequence));
+						processed[consumer]++;
+					}
+					buffer.release(consumer, available);
+					next = available + 1;
+				}
+			});
+			thread.start();
+			consumers.add(thread);
+		}
+
+		for (int i = 0; i < numberOfEvents; i++) {
+			Event event = new LinkEnterEvent(i, Id.createVehicleId(i), Id.createLinkId(i));
+			Assert.assertTrue(buffer.publish(event));
+		}
+		Assert.assertTrue(buffer.awaitProcessed());
+		buffer.halt();
+		for (Thread thread : consumers) {
+			thread.join();
+		}
+
+		for (int c = 0; c < 3; c++) {
+			Assert.assertEquals(numberOfEvents, processed[c]);
+		}
+		// no processed event must stay reachable from the buffer
+		for (long sequence = numberOfEvents - size; sequence < numberOfEvents; sequence++) {
+			Assert.assertNull(buffer.get(sequence));
+		}
+	}
+
+}
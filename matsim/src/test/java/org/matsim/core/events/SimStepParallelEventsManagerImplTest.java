@@ -8,7 +8,11 @@ import org.matsim.api.core.v01.events.PersonStuckEvent;
 import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
 import org.matsim.testcases.utils.EventsCollector;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
 public class SimStepParallelEventsManagerImplTest {
@@ -51,4 +55,29 @@ public class SimStepParallelEventsManagerImplTest {
 					new PersonStuckEvent(1.0, Id.createPersonId(0), Id.createLinkId(0), "car")));
 	}
 
+	@Test
+	public void testManyEventsWithSmallRingBuffer() {
+		final SimStepParallelEventsManagerImpl events = new SimStepParallelEventsManagerImpl(3, 16);
+		EventsCollector[] collectors = new EventsCollector[3];
+		for (int i = 0; i < collectors.length; i++) {
+			collectors[i] = new EventsCollector();
+			events.addHandler(collectors[i]);
+		}
+		List<LinkEnterEvent> expected = new ArrayList<>();
+		events.initProcessing();
+		for (int time = 0; time < 10; time++) {
+			for (int i = 0; i < 100; i++) {
+				LinkEnterEvent event = new LinkEnterEvent(time, Id.createVehicleId(i), Id.createLinkId(0));
+				expected.add(event);
+				events.processEvent(event);
+			}
+			events.afterSimStep(time);
+		}
+		events.finishProcessing();
+
+		for (EventsCollector collector : collectors) {
+			assertEquals(expected, collector.getEvents());
+		}
+	}
+
 }
@@ -0,0 +1,121 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsReaderBinary;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+import org.matsim.vehicles.Vehicle;
+
+public class EventWriterBinaryTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testWriteRead() {
+		List<Event> expected = new ArrayList<>();
+		expected.add(new ActivityEndEvent(3600.0, Id.create("1", Person.class), Id.create("2", Link.class), null, "home"));
+		expected.add(new PersonDepartureEvent(3600.0, Id.create("1", Person.class), Id.create("2", Link.class), "car"));
+		expected.add(new LinkLeaveEvent(3601.0, Id.create("vehicle\"1", Vehicle.class), Id.create("link<2", Link.class)));
+		expected.add(new LinkEnterEvent(3601.0, Id.create("vehicle\"1", Vehicle.class), Id.create("link<3", Link.class)));
+		GenericEvent genericEvent = new GenericEvent("TEST", 3700.0);
+		genericEvent.getAttributes().put("dummy", null);
+		genericEvent.getAttributes().put("name", "Zürich");
+		expected.add(genericEvent);
+
+		String filename = this.utils.getOutputDirectory() + "testEvents.bin";
+		// small blocks, such that the events are spread over several blocks
+		EventWriterBinary writer = new EventWriterBinary(IOUtils.getOutputStream(filename), 2, 2);
+		for (Event event : expected) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		new MatsimEventsReader(events).readFile(filename);
+
+		Assert.assertEquals(expected, collector.getEvents());
+		Assert.assertNull(((GenericEvent) collector.getEvents().get(4)).getAttributes().get("dummy"));
+	}
+
+	@Test
+	public void testReadStream() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		EventWriterBinary writer = new EventWriterBinary(out, 10, 1);
+		List<Event> expected = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			LinkEnterEvent event = new LinkEnterEvent(i, Id.create(i, Vehicle.class), Id.create(i % 3, Link.class));
+			expected.add(event);
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		new MatsimEventsReader(events).readStream(new ByteArrayInputStream(out.toByteArray()));
+
+		Assert.assertEquals(expected, collector.getEvents());
+	}
+
+	@Test
+	public void testReadTimeWindow() {
+		String filename = this.utils.getOutputDirectory() + "testEvents.bin";
+		EventWriterBinary writer = new EventWriterBinary(IOUtils.getOutputStream(filename), 10, 2);
+		for (int i = 0; i < 100; i++) {
+			writer.handleEvent(new LinkEnterEvent(i, Id.create(i, Vehicle.class), Id.create(i % 3, Link.class)));
+		}
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		new EventsReaderBinary(events, 2).readFile(filename, 25.0, 34.0);
+
+		Assert.assertEquals(10, collector.getEvents().size());
+		for (int i = 0; i < 10; i++) {
+			Assert.assertEquals(25.0 + i, collector.getEvents().get(i).getTime(), 0.0);
+		}
+	}
+
+}
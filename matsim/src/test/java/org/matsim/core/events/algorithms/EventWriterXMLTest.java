@@ -19,7 +19,13 @@
 
 package org.matsim.core.events.algorithms;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 import org.junit.Assert;
 import org.junit.Rule;
@@ -31,6 +37,8 @@ import org.matsim.api.core.v01.network.Link;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.utils.io.AsyncOutputService;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.testcases.MatsimTestUtils;
 import org.matsim.testcases.utils.EventsCollector;
 import org.matsim.vehicles.Vehicle;
@@ -92,4 +100,59 @@ public class EventWriterXMLTest {
 		
 		Assert.assertEquals("there must be 1 event.", 1, collector.getEvents().size());
 	}
+
+	@Test
+	public void testAsynchronous() throws IOException {
+		String expectedFile = this.utils.getOutputDirectory() + "expectedEvents.xml";
+		EventWriterXML expectedWriter = new EventWriterXML(expectedFile);
+		writeEvents(expectedWriter);
+		byte[] expected = Files.readAllBytes(Paths.get(expectedFile));
+
+		AsyncOutputService outputService = new AsyncOutputService(2);
+		for (String ending : new String[] { ".xml", ".xml.gz", ".xml.lz4" }) {
+			String filename = this.utils.getOutputDirectory() + "testEvents" + ending;
+			writeEvents(new EventWriterXML(filename, outputService));
+			outputService.flush();
+			Assert.assertEquals(ending, new String(expected, "UTF-8"), new String(readAllBytes(filename), "UTF-8"));
+		}
+	}
+
+	/**
+	 * The controler copies the events file of the last iteration right after the iteration, e.g. to output_events,
+	 * so the file must be complete when it is closed, before the output service is flushed.
+	 */
+	@Test
+	public void testAsynchronous_CompleteAfterClose() throws IOException {
+		String expectedFile = this.utils.getOutputDirectory() + "expectedEvents.xml";
+		writeEvents(new EventWriterXML(expectedFile));
+		byte[] expected = Files.readAllBytes(Paths.get(expectedFile));
+
+		AsyncOutputService outputService = new AsyncOutputService(2);
+		String filename = this.utils.getOutputDirectory() + "testEvents.xml.gz";
+		String copy = this.utils.getOutputDirectory() + "copiedEvents.xml.gz";
+		writeEvents(new EventWriterXML(filename, outputService));
+		Files.copy(Paths.get(filename), Paths.get(copy), StandardCopyOption.REPLACE_EXISTING);
+		outputService.flush();
+		Assert.assertEquals(new String(expected, "UTF-8"), new String(readAllBytes(copy), "UTF-8"));
+	}
+
+	private static void writeEvents(final EventWriterXML writer) {
+		// several parts, the last one not full
+		for (int i = 0; i < 2 * EventWriterXML.EVENTS_PER_PART + 3; i++) {
+			writer.handleEvent(new LinkLeaveEvent(i, Id.create("vehicle&" + i, Vehicle.class), Id.create(i % 10, Link.class)));
+		}
+		writer.closeFile();
+	}
+
+	private static byte[] readAllBytes(final String filename) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (InputStream stream = IOUtils.getInputStream(filename)) {
+			byte[] buffer = new byte[8192];
+			int length;
+			while ((length = stream.read(buffer)) >= 0) {
+				bytes.write(buffer, 0, length);
+			}
+		}
+		return bytes.toByteArray();
+	}
 }
@@ -0,0 +1,140 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.QSimConfigGroup.TrafficDynamics;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+
+/**
+ * Checks that putting links to sleep until their next vehicle can leave does not change the traffic flow.
+ */
+public class LinkWakeUpCalendarTest {
+
+	@Test
+	public void testSameLinkLeaveTimes_queue() {
+		Assert.assertEquals(runScenario(false, TrafficDynamics.queue, 1), runScenario(true, TrafficDynamics.queue, 1));
+	}
+
+	@Test
+	public void testSameLinkLeaveTimes_withHoles() {
+		Assert.assertEquals(runScenario(false, TrafficDynamics.withHoles, 1), runScenario(true, TrafficDynamics.withHoles, 1));
+	}
+
+	@Test
+	public void testSameLinkLeaveTimes_multipleThreads() {
+		Assert.assertEquals(runScenario(false, TrafficDynamics.queue, 2), runScenario(true, TrafficDynamics.queue, 2));
+	}
+
+	private static List<String> runScenario(final boolean usingWakeUpCalendar, final TrafficDynamics trafficDynamics, final int numberOfThreads) {
+		final Config config = ConfigUtils.createConfig();
+		config.qsim().setUsingLinkWakeUpCalendar(usingWakeUpCalendar);
+		config.qsim().setTrafficDynamics(trafficDynamics);
+		config.qsim().setNumberOfThreads(numberOfThreads);
+		config.qsim().setEndTime(24 * 3600);
+
+		final Scenario scenario = ScenarioUtils.createScenario(config);
+		final Network network = scenario.getNetwork();
+		final NetworkFactory nf = network.getFactory();
+
+		// a corridor with a bottleneck in the middle
+		Node[] nodes = new Node[5];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = nf.createNode(Id.create(i, Node.class), new Coord(i * 1000.0, 0.0));
+			network.addNode(nodes[i]);
+		}
+		List<Id<Link>> linkIds = new ArrayList<>();
+		for (int i = 0; i < nodes.length - 1; i++) {
+			Link link = nf.createLink(Id.create(i, Link.class), nodes[i], nodes[i + 1]);
+			link.setLength(1000.0);
+			link.setFreespeed(10.0);
+			link.setCapacity(i == 2 ? 600.0 : 3600.0);
+			link.setNumberOfLanes(1.0);
+			network.addLink(link);
+			linkIds.add(link.getId());
+		}
+
+		final PopulationFactory pf = scenario.getPopulation().getFactory();
+		for (int i = 0; i < 100; i++) {
+			Person person = pf.createPerson(Id.create(i, Person.class));
+			Plan plan = pf.createPlan();
+			Activity home = pf.createActivityFromLinkId("h", linkIds.get(0));
+			// two waves, so that there are periods without traffic in between
+			home.setEndTime(6 * 3600 + (i % 50) * 5.0 + (i < 50 ? 0.0 : 3600.0));
+			plan.addActivity(home);
+			Leg leg = pf.createLeg(TransportMode.car);
+			NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(linkIds.get(0), linkIds.subList(1, linkIds.size() - 1), linkIds.get(linkIds.size() - 1));
+			leg.setRoute(route);
+			plan.addLeg(leg);
+			plan.addActivity(pf.createActivityFromLinkId("w", linkIds.get(linkIds.size() - 1)));
+			person.addPlan(plan);
+			scenario.getPopulation().addPerson(person);
+		}
+
+		final List<String> linkLeaves = new ArrayList<>();
+		final EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(new LinkLeaveEventHandler() {
+			@Override
+			public void handleEvent(LinkLeaveEvent event) {
+				linkLeaves.add(event.getTime() + " " + event.getLinkId() + " " + event.getVehicleId());
+			}
+		});
+
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		new QSimBuilder(config)
+			.useDefaults()
+			.build(scenario, events)
+			.run();
+
+		Assert.assertEquals(100 * (linkIds.size() - 1), linkLeaves.size());
+		// the order of events within the same time step may differ
+		Collections.sort(linkLeaves);
+		return linkLeaves;
+	}
+
+}
@@ -0,0 +1,98 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+public class QNetworkPartitionerTest {
+
+	private static List<Node> createGrid(final int size) {
+		List<Node> nodes = new ArrayList<>();
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes.add(NetworkUtils.createNode(Id.createNodeId("partitioner_" + x + "_" + y), new Coord(x * 100.0, y * 100.0)));
+			}
+		}
+		return nodes;
+	}
+
+	@Test
+	public void testUniformWeights() {
+		List<Node> nodes = createGrid(10);
+		int[] partitions = QNetworkPartitioner.partition(nodes, null, 4);
+
+		int[] counts = new int[4];
+		for (int p : partitions) {
+			counts[p]++;
+		}
+		for (int count : counts) {
+			Assert.assertEquals(25, count);
+		}
+
+		// the four corners must end up in four different partitions
+		int p00 = partitions[0];
+		int p09 = partitions[9];
+		int p90 = partitions[90];
+		int p99 = partitions[99];
+		Assert.assertNotEquals(p00, p09);
+		Assert.assertNotEquals(p00, p90);
+		Assert.assertNotEquals(p00, p99);
+		Assert.assertNotEquals(p09, p90);
+		Assert.assertNotEquals(p09, p99);
+		Assert.assertNotEquals(p90, p99);
+	}
+
+	@Test
+	public void testWeightedPartitions() {
+		List<Node> nodes = createGrid(10);
+		double[] weights = new double[Id.getNumberOfIds(Node.class)];
+		for (Node node : nodes) {
+			// the nodes with x < 200 carry most of the load
+			weights[node.getId().index()] = node.getCoord().getX() < 200 ? 10.0 : 1.0;
+		}
+		int[] partitions = QNetworkPartitioner.partition(nodes, weights, 2);
+
+		double[] load = new double[2];
+		int[] counts = new int[2];
+		for (int i = 0; i < nodes.size(); i++) {
+			load[partitions[i]] += weights[nodes.get(i).getId().index()];
+			counts[partitions[i]]++;
+		}
+		Assert.assertEquals(load[0], load[1], 10.0);
+		Assert.assertTrue(counts[0] < counts[1]);
+	}
+
+	@Test
+	public void testMorePartitionsThanNodes() {
+		List<Node> nodes = createGrid(1);
+		int[] partitions = QNetworkPartitioner.partition(nodes, null, 4);
+		Assert.assertEquals(1, partitions.length);
+		Assert.assertEquals(0, partitions[0]);
+	}
+
+}
@@ -0,0 +1,148 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+
+public class LinkRTreeTest {
+
+	@Test
+	public void testEmpty() {
+		LinkRTree tree = new LinkRTree(Collections.emptyList());
+		Assert.assertEquals(0, tree.size());
+		Assert.assertNull(tree.getNearest(0, 0));
+		Assert.assertTrue(tree.getNearest(0, 0, 3).isEmpty());
+		Assert.assertTrue(tree.getDisk(0, 0, 100, new ArrayList<>()).isEmpty());
+		Assert.assertTrue(tree.getRectangle(-100, -100, 100, 100, new ArrayList<>()).isEmpty());
+	}
+
+	@Test
+	public void testSameAsBruteForce() {
+		Random r = new Random(20190401);
+		NetworkFactory factory = NetworkUtils.createNetwork().getFactory();
+		List<Node> nodes = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			nodes.add(factory.createNode(Id.createNodeId(i), new Coord(r.nextDouble() * 10000 - 5000, r.nextDouble() * 10000)));
+		}
+		List<Link> links = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			Node from = nodes.get(r.nextInt(nodes.size()));
+			// mostly short links, and some long ones
+			Node to = (i % 10 == 0) ? nodes.get(r.nextInt(nodes.size())) : factory.createNode(Id.createNodeId("to" + i),
+					new Coord(from.getCoord().getX() + r.nextDouble() * 600 - 300, from.getCoord().getY() + r.nextDouble() * 600 - 300));
+			Link link = factory.createLink(Id.createLinkId(i), from, to);
+			links.add(link);
+			// and every link in both directions, which are equally close to every point
+			links.add(factory.createLink(Id.createLinkId(i + "r"), to, from));
+		}
+		LinkRTree tree = new LinkRTree(links);
+		Assert.assertEquals(links.size(), tree.size());
+
+		for (int q = 0; q < 500; q++) {
+			double x = r.nextDouble() * 12000 - 6000;
+			double y = r.nextDouble() * 12000 - 1000;
+
+			List<Link> sorted = new ArrayList<>(links);
+			// a stable sort, so links with the same distance stay in the order of the list
+			sorted.sort(Comparator.comparingDouble(link -> LinkRTree.calcDistanceIndicator(x, y, link)));
+			Assert.assertSame(sorted.get(0), tree.getNearest(x, y));
+			Assert.assertEquals(sorted.subList(0, 10), tree.getNearest(x, y, 10));
+
+			Set<Link> expectedDisk = new HashSet<>();
+			for (Link link : links) {
+				if (LinkRTree.calcDistanceIndicator(x, y, link) <= 300 * 300) {
+					expectedDisk.add(link);
+				}
+			}
+			List<Link> disk = new ArrayList<>();
+			tree.getDisk(x, y, 300, disk);
+			Assert.assertEquals(expectedDisk.size(), disk.size());
+			Assert.assertEquals(expectedDisk, new HashSet<>(disk));
+
+			Set<Link> expectedRectangle = new HashSet<>();
+			for (Link link : links) {
+				if (intersects(link, x, y, x + 500, y + 200)) {
+					expectedRectangle.add(link);
+				}
+			}
+			List<Link> rectangle = new ArrayList<>();
+			tree.getRectangle(x, y, x + 500, y + 200, rectangle);
+			Assert.assertEquals(expectedRectangle.size(), rectangle.size());
+			Assert.assertEquals(expectedRectangle, new HashSet<>(rectangle));
+		}
+	}
+
+	@Test
+	public void testGetNearest_oppositeDirections() {
+		NetworkFactory factory = NetworkUtils.createNetwork().getFactory();
+		Node a = factory.createNode(Id.createNodeId("a"), new Coord(0, 0));
+		Node b = factory.createNode(Id.createNodeId("b"), new Coord(1000, 0));
+		Link ab = factory.createLink(Id.createLinkId("ab"), a, b);
+		Link ba = factory.createLink(Id.createLinkId("ba"), b, a);
+
+		Assert.assertSame(ab, new LinkRTree(Arrays.asList(ab, ba)).getNearest(500, 10));
+		Assert.assertSame(ba, new LinkRTree(Arrays.asList(ba, ab)).getNearest(500, 10));
+	}
+
+	private static boolean intersects(final Link link, final double minX, final double minY, final double maxX, final double maxY) {
+		Coord from = link.getFromNode().getCoord();
+		Coord to = link.getToNode().getCoord();
+		if (isInside(from, minX, minY, maxX, maxY) || isInside(to, minX, minY, maxX, maxY)) {
+			return true;
+		}
+		// otherwise, the link must cross one of the edges of the rectangle
+		Coord[] corners = { new Coord(minX, minY), new Coord(maxX, minY), new Coord(maxX, maxY), new Coord(minX, maxY) };
+		for (int i = 0; i < 4; i++) {
+			if (crosses(from, to, corners[i], corners[(i + 1) % 4])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isInside(final Coord c, final double minX, final double minY, final double maxX, final double maxY) {
+		return c.getX() >= minX && c.getX() <= maxX && c.getY() >= minY && c.getY() <= maxY;
+	}
+
+	private static boolean crosses(final Coord a, final Coord b, final Coord c, final Coord d) {
+		return Math.signum(orientation(a, b, c)) * Math.signum(orientation(a, b, d)) <= 0
+				&& Math.signum(orientation(c, d, a)) * Math.signum(orientation(c, d, b)) <= 0;
+	}
+
+	private static double orientation(final Coord a, final Coord b, final Coord c) {
+		return (b.getX() - a.getX()) * (c.getY() - a.getY()) - (b.getY() - a.getY()) * (c.getX() - a.getX());
+	}
+
+}
@@ -0,0 +1,268 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.io.PopulationReader;
+import org.matsim.core.population.io.PopulationWriter;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.router.TripRouter;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class CompactPlanTest {
+
+	@Rule
+	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	private static Population createPopulation() {
+		Config config = ConfigUtils.createConfig();
+		config.plans().setPlanStorage(PlansConfigGroup.PlanStorage.compact);
+		return PopulationUtils.createPopulation(config);
+	}
+
+	@Test
+	public void testCreateAndModify() {
+		PopulationFactory pf = createPopulation().getFactory();
+		Plan plan = pf.createPlan();
+		Assert.assertEquals(CompactPlan.class, plan.getClass());
+
+		Activity home = pf.createActivityFromCoord("home", new Coord(100, 200));
+		plan.addActivity(home);
+		home.setEndTime(7 * 3600); // must still be possible after adding the activity
+		Leg leg = pf.createLeg("car");
+		plan.addLeg(leg);
+		leg.setDepartureTime(7 * 3600);
+		Activity work = pf.createActivityFromLinkId("work", Id.create("1", Link.class));
+		work.getAttributes().putAttribute("purpose", "business");
+		plan.addActivity(work);
+
+		List<PlanElement> elements = plan.getPlanElements();
+		Assert.assertEquals(3, elements.size());
+		Activity home2 = (Activity) elements.get(0);
+		Assert.assertEquals("home", home2.getType());
+		Assert.assertEquals(7 * 3600, home2.getEndTime(), 0.0);
+		Assert.assertEquals(new Coord(100, 200), home2.getCoord());
+		Assert.assertNull(home2.getLinkId());
+		Assert.assertEquals(home, home2);
+		Assert.assertEquals(0, elements.indexOf(home));
+		Assert.assertEquals(7 * 3600, ((Leg) elements.get(1)).getDepartureTime(), 0.0);
+		Assert.assertEquals("business", ((Activity) elements.get(2)).getAttributes().getAttribute("purpose"));
+		Assert.assertNull(((Activity) elements.get(2)).getCoord());
+
+		home2.setType("shop");
+		Assert.assertEquals("shop", home.getType());
+	}
+
+	@Test
+	public void testRemove() {
+		PopulationFactory pf = createPopulation().getFactory();
+		Plan plan = pf.createPlan();
+		plan.addActivity(pf.createActivityFromLinkId("home", Id.create("1", Link.class)));
+		Leg leg = pf.createLeg("walk");
+		plan.addLeg(leg);
+		plan.addActivity(pf.createActivityFromLinkId("work", Id.create("2", Link.class)));
+
+		Leg removed = (Leg) plan.getPlanElements().remove(1);
+		Assert.assertEquals("walk", removed.getMode());
+		Assert.assertEquals(2, plan.getPlanElements().size());
+		try {
+			leg.getMode();
+			Assert.fail("expected exception, the leg is no longer part of the plan.");
+		} catch (IllegalStateException expected) {
+		}
+
+		// the copy returned by remove() can be added again
+		plan.getPlanElements().add(1, removed);
+		removed.setMode("bike");
+		Assert.assertEquals("bike", ((Leg) plan.getPlanElements().get(1)).getMode());
+
+		plan.getPlanElements().subList(1, 3).clear();
+		Assert.assertEquals(1, plan.getPlanElements().size());
+		Assert.assertEquals("home", ((Activity) plan.getPlanElements().get(0)).getType());
+	}
+
+	@Test
+	public void testCopyAndInsertTrip() {
+		Population population = createPopulation();
+		PopulationFactory pf = population.getFactory();
+		Person person = pf.createPerson(Id.create(1, Person.class));
+		Plan plan = pf.createPlan();
+		Activity home = pf.createActivityFromLinkId("home", Id.create("1", Link.class));
+		home.setEndTime(8 * 3600);
+		plan.addActivity(home);
+		plan.addLeg(pf.createLeg("car"));
+		plan.addActivity(pf.createActivityFromLinkId("work", Id.create("2", Link.class)));
+		person.addPlan(plan);
+		population.addPerson(person);
+
+		Plan copy = person.createCopyOfSelectedPlanAndMakeSelected();
+		Assert.assertEquals(CompactPlan.class, copy.getClass());
+		Assert.assertEquals(3, copy.getPlanElements().size());
+		((Activity) copy.getPlanElements().get(0)).setEndTime(9 * 3600);
+		Assert.assertEquals(8 * 3600, home.getEndTime(), 0.0);
+
+		Activity origin = (Activity) copy.getPlanElements().get(0);
+		Activity destination = (Activity) copy.getPlanElements().get(2);
+		List<PlanElement> trip = Arrays.asList(pf.createLeg("walk"), pf.createActivityFromLinkId("pt interaction", Id.create("3", Link.class)), pf.createLeg("pt"));
+		TripRouter.insertTrip(copy, origin, trip, destination);
+		Assert.assertEquals(5, copy.getPlanElements().size());
+		Assert.assertEquals("walk", ((Leg) copy.getPlanElements().get(1)).getMode());
+		Assert.assertEquals("pt", ((Leg) copy.getPlanElements().get(3)).getMode());
+		Assert.assertEquals("work", ((Activity) copy.getPlanElements().get(4)).getType());
+		Assert.assertEquals(9 * 3600, origin.getEndTime(), 0.0);
+	}
+
+	@Test
+	public void testViewsAreEqual() {
+		PopulationFactory pf = createPopulation().getFactory();
+		Plan plan = pf.createPlan();
+		plan.addActivity(PopulationUtils.createActivityFromLinkId("home", Id.create("1", Link.class)));
+		plan.addActivity(PopulationUtils.createActivityFromLinkId("work", Id.create("2", Link.class)));
+
+		List<PlanElement> elements = plan.getPlanElements();
+		Activity home = (Activity) elements.get(0);
+		Activity work = (Activity) plan.getPlanElements().get(1);
+		// the plan does not keep the views
+		Assert.assertNotSame(home, plan.getPlanElements().get(0));
+		Assert.assertEquals(home, plan.getPlanElements().get(0));
+		Assert.assertEquals(home.hashCode(), plan.getPlanElements().get(0).hashCode());
+		Assert.assertNotEquals(home, work);
+
+		Leg leg = pf.createLeg("car");
+		elements.add(1, leg);
+		Assert.assertEquals(home, elements.get(0));
+		Assert.assertEquals(leg, elements.get(1));
+		Assert.assertEquals(work, elements.get(2));
+		Assert.assertEquals(1, elements.indexOf(leg));
+
+		elements.remove(0);
+		Assert.assertEquals(leg, elements.get(0));
+		Assert.assertEquals(work, elements.get(1));
+		Assert.assertEquals("work", ((Activity) elements.get(1)).getType());
+	}
+
+	@Test
+	public void testIds() {
+		PopulationFactory pf = createPopulation().getFactory();
+		Plan plan = pf.createPlan();
+		Activity home = pf.createActivityFromActivityFacilityId("home", Id.create("f1", ActivityFacility.class));
+		plan.addActivity(home);
+		plan.addActivity(pf.createActivityFromLinkId("work", Id.create("2", Link.class)));
+
+		Assert.assertSame(Id.create("f1", ActivityFacility.class), home.getFacilityId());
+		Assert.assertNull(home.getLinkId());
+		Activity work = (Activity) plan.getPlanElements().get(1);
+		Assert.assertSame(Id.create("2", Link.class), work.getLinkId());
+		Assert.assertNull(work.getFacilityId());
+
+		home.setLinkId(Id.create("1", Link.class));
+		home.setFacilityId(null);
+		Assert.assertSame(Id.create("1", Link.class), ((Activity) plan.getPlanElements().get(0)).getLinkId());
+		Assert.assertNull(((Activity) plan.getPlanElements().get(0)).getFacilityId());
+	}
+
+	@Test
+	public void testCreateAndAddHelpers() {
+		Plan plan = createPopulation().getFactory().createPlan();
+		Activity home = PopulationUtils.createAndAddActivityFromCoord(plan, "home", new Coord(100, 200));
+		home.setEndTime(7 * 3600);
+		Leg leg = PopulationUtils.createAndAddLeg(plan, "car");
+		leg.setDepartureTime(7 * 3600);
+		Activity work = PopulationUtils.createAndAddActivityFromLinkId(plan, "work", Id.create("1", Link.class));
+		work.setStartTime(8 * 3600);
+
+		Assert.assertEquals(home, plan.getPlanElements().get(0));
+		Assert.assertEquals(7 * 3600, ((Activity) plan.getPlanElements().get(0)).getEndTime(), 0.0);
+		Assert.assertEquals(7 * 3600, ((Leg) plan.getPlanElements().get(1)).getDepartureTime(), 0.0);
+		Assert.assertEquals(8 * 3600, ((Activity) plan.getPlanElements().get(2)).getStartTime(), 0.0);
+	}
+
+	@Test
+	public void testReadFromFile() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Population population = scenario.getPopulation();
+		PopulationFactory pf = population.getFactory();
+		Person person = pf.createPerson(Id.create(1, Person.class));
+		Plan plan = pf.createPlan();
+		Activity home = pf.createActivityFromCoord("home", new Coord(100, 200));
+		home.setEndTime(7 * 3600);
+		plan.addActivity(home);
+		Leg leg = pf.createLeg("car");
+		leg.setDepartureTime(7 * 3600);
+		NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(Id.create("0", Link.class), Id.create("1", Link.class));
+		route.setLinkIds(route.getStartLinkId(), Arrays.asList(Id.create("5", Link.class), Id.create("6", Link.class)), route.getEndLinkId());
+		leg.setRoute(route);
+		plan.addLeg(leg);
+		plan.addActivity(pf.createActivityFromLinkId("work", Id.create("1", Link.class)));
+		plan.setScore(12.0);
+		person.addPlan(plan);
+		population.addPerson(person);
+		String filename = this.utils.getOutputDirectory() + "plans.xml.gz";
+		new PopulationWriter(population).write(filename);
+
+		Config config = ConfigUtils.createConfig();
+		config.plans().setPlanStorage(PlansConfigGroup.PlanStorage.compact);
+		Scenario compactScenario = ScenarioUtils.createScenario(config);
+		new PopulationReader(compactScenario).readFile(filename);
+
+		Person person2 = compactScenario.getPopulation().getPersons().get(person.getId());
+		Assert.assertEquals(1, person2.getPlans().size());
+		Plan plan2 = person2.getSelectedPlan();
+		Assert.assertEquals(CompactPlan.class, plan2.getClass());
+		Assert.assertEquals(12.0, plan2.getScore(), 0.0);
+		Assert.assertEquals(3, plan2.getPlanElements().size());
+		for (PlanElement pe : plan2.getPlanElements()) {
+			Assert.assertTrue(pe instanceof CompactActivity || pe instanceof CompactLeg);
+		}
+		Activity home2 = (Activity) plan2.getPlanElements().get(0);
+		Assert.assertEquals(new Coord(100, 200), home2.getCoord());
+		Assert.assertEquals(7 * 3600, home2.getEndTime(), 0.0);
+		Leg leg2 = (Leg) plan2.getPlanElements().get(1);
+		Assert.assertEquals(7 * 3600, leg2.getDepartureTime(), 0.0);
+		Assert.assertEquals(Id.create("1", Link.class), ((Activity) plan2.getPlanElements().get(2)).getLinkId());
+
+		// the links of network routes are packed as well
+		Assert.assertEquals("PackedNetworkRouteImpl", leg2.getRoute().getClass().getSimpleName());
+		Assert.assertEquals(route.getLinkIds(), ((NetworkRoute) leg2.getRoute()).getLinkIds());
+	}
+
+}
@@ -0,0 +1,125 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ParallelPopulationWriterV6Test {
+
+	@Rule
+	public final MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testSameFileAsSingleThreaded() throws IOException {
+		// several chunks, the last one not full
+		Population population = createPopulation(2 * ParallelPopulationWriterV6.CHUNK_SIZE + 17);
+		String expectedFile = this.utils.getOutputDirectory() + "population_expected.xml";
+		new PopulationWriter(population).write(expectedFile);
+		byte[] expected = Files.readAllBytes(Paths.get(expectedFile));
+
+		for (String ending : new String[] { ".xml", ".xml.gz", ".xml.lz4" }) {
+			String file = this.utils.getOutputDirectory() + "population" + ending;
+			PopulationWriter writer = new PopulationWriter(population);
+			writer.setNumberOfThreads(3);
+			writer.write(file);
+			Assert.assertArrayEquals(ending, expected, readAllBytes(file));
+		}
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		PopulationWriter writer = new PopulationWriter(population);
+		writer.setNumberOfThreads(3);
+		writer.write(stream);
+		Assert.assertArrayEquals(expected, stream.toByteArray());
+	}
+
+	@Test
+	public void testRead() {
+		Population population = createPopulation(ParallelPopulationWriterV6.CHUNK_SIZE + 1);
+		String file = this.utils.getOutputDirectory() + "population.xml.gz";
+		org.matsim.api.core.v01.population.PopulationWriter writer = new org.matsim.api.core.v01.population.PopulationWriter(population);
+		writer.setNumberOfThreads(2);
+		writer.write(file);
+
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		new PopulationReader(scenario).readFile(file);
+		Assert.assertEquals(population.getPersons().size(), scenario.getPopulation().getPersons().size());
+		Person person = scenario.getPopulation().getPersons().get(Id.createPersonId(ParallelPopulationWriterV6.CHUNK_SIZE));
+		Assert.assertEquals("Paul", person.getAttributes().getAttribute("name"));
+		Assert.assertEquals(2, person.getPlans().size());
+		Assert.assertEquals(ParallelPopulationWriterV6.CHUNK_SIZE, person.getSelectedPlan().getScore(), 0.0);
+	}
+
+	private static byte[] readAllBytes(final String file) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (InputStream stream = IOUtils.getInputStream(file)) {
+			byte[] buffer = new byte[8192];
+			int length;
+			while ((length = stream.read(buffer)) >= 0) {
+				bytes.write(buffer, 0, length);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Population createPopulation(final int numberOfPersons) {
+		Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		population.getAttributes().putAttribute("source", "test");
+		PopulationFactory factory = population.getFactory();
+		for (int i = 0; i < numberOfPersons; i++) {
+			Person person = factory.createPerson(Id.createPersonId(i));
+			person.getAttributes().putAttribute("name", "Paul");
+			for (int p = 0; p < 2; p++) {
+				Plan plan = factory.createPlan();
+				plan.setScore((double) i);
+				Activity home = factory.createActivityFromCoord("home", new Coord(i, 0));
+				home.setEndTime(7 * 3600 + i);
+				plan.addActivity(home);
+				plan.addLeg(factory.createLeg(TransportMode.car));
+				plan.addActivity(factory.createActivityFromCoord("work", new Coord(i, 1000)));
+				person.addPlan(plan);
+			}
+			population.addPerson(person);
+		}
+		return population;
+	}
+
+}
@@ -7,11 +7,19 @@ import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.population.*;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
 import org.matsim.core.scenario.ScenarioUtils;
 import org.matsim.testcases.MatsimTestUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * @author thibautd
  */
@@ -208,4 +216,73 @@ public class PopulationV6IOTest {
 				population.getAttributes().getAttribute( "type" ) ,
 				readScenario.getPopulation().getAttributes().getAttribute( "type" ) );
 	}
+
+	@Test
+	public void testParallelReadingKeepsOrder() {
+		final Population population = createPopulationWithRoutes( 1234 );
+		final String file = utils.getOutputDirectory()+"/population.xml";
+		new PopulationWriter( population ).writeV6( file );
+
+		final Config config = ConfigUtils.createConfig();
+		config.global().setNumberOfThreads( 4 );
+		final Scenario readScenario = ScenarioUtils.createScenario( config );
+		new PopulationReader( readScenario ).readFile( file );
+
+		final List<Person> expected = new ArrayList<>( population.getPersons().values() );
+		final List<Person> read = new ArrayList<>( readScenario.getPopulation().getPersons().values() );
+		Assert.assertEquals( expected.size(), read.size() );
+		for ( int i = 0; i < expected.size(); i++ ) {
+			final Person readPerson = read.get( i );
+			Assert.assertEquals( expected.get( i ).getId(), readPerson.getId() );
+			Assert.assertEquals( i, readPerson.getAttributes().getAttribute( "index" ) );
+
+			final Leg readLeg = (Leg) readPerson.getSelectedPlan().getPlanElements().get( 1 );
+			final NetworkRoute route = (NetworkRoute) readLeg.getRoute();
+			Assert.assertEquals( Id.createLinkId( i ), route.getStartLinkId() );
+			Assert.assertEquals( Arrays.asList( Id.createLinkId( i + 1 ), Id.createLinkId( i + 2 ) ), route.getLinkIds() );
+			Assert.assertEquals( Id.createLinkId( i + 3 ), route.getEndLinkId() );
+		}
+	}
+
+	@Test
+	public void testParallelStreaming() {
+		final Population population = createPopulationWithRoutes( 1234 );
+		final String file = utils.getOutputDirectory()+"/population.xml";
+		new PopulationWriter( population ).writeV6( file );
+
+		final Config config = ConfigUtils.createConfig();
+		config.global().setNumberOfThreads( 4 );
+		final Scenario readScenario = ScenarioUtils.createScenario( config );
+		final StreamingPopulationReader reader = new StreamingPopulationReader( readScenario );
+		final List<Id<Person>> streamed = new ArrayList<>();
+		reader.addAlgorithm( person -> {
+			Assert.assertEquals( 3, person.getSelectedPlan().getPlanElements().size() );
+			streamed.add( person.getId() );
+		} );
+		reader.readFile( file );
+
+		Assert.assertEquals( new ArrayList<>( population.getPersons().keySet() ), streamed );
+		Assert.assertTrue( readScenario.getPopulation().getPersons().isEmpty() );
+	}
+
+	private static Population createPopulationWithRoutes( final int numberOfPersons ) {
+		final Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig() );
+		final PopulationFactory factory = population.getFactory();
+		for ( int i = 0; i < numberOfPersons; i++ ) {
+			final Person person = factory.createPerson( Id.createPersonId( "person" + i ) );
+			person.getAttributes().putAttribute( "index" , i );
+			population.addPerson( person );
+
+			final Plan plan = factory.createPlan();
+			person.addPlan( plan );
+			plan.addActivity( factory.createActivityFromLinkId( "home" , Id.createLinkId( i ) ) );
+			final Leg leg = factory.createLeg( "car" );
+			final List<Id<Link>> linkIds = Arrays.asList( Id.createLinkId( i + 1 ), Id.createLinkId( i + 2 ) );
+			final NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl( Id.createLinkId( i ), linkIds, Id.createLinkId( i + 3 ) );
+			leg.setRoute( route );
+			plan.addLeg( leg );
+			plan.addActivity( factory.createActivityFromLinkId( "work" , Id.createLinkId( i + 3 ) ) );
+		}
+		return population;
+	}
 }
@@ -0,0 +1,126 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.network.NetworkUtils;
+
+public class PackedNetworkRouteTest extends AbstractNetworkRouteTest {
+
+	@Override
+	public NetworkRoute getNetworkRouteInstance(final Id<Link> fromLinkId, final Id<Link> toLinkId, final Network network) {
+		return (NetworkRoute) new PackedNetworkRouteFactory(network).createRoute(fromLinkId, toLinkId);
+	}
+
+	@Test
+	public void testLargeIndexDifferences() {
+		List<Id<Link>> linkIds = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			linkIds.add(Id.create("packed-" + (i * 7919 % 100), Link.class));
+		}
+		for (int i = 0; i < 20000; i++) {
+			Id.create("packed-filler-" + i, Link.class);
+		}
+		linkIds.add(Id.create("packed-filler-19999", Link.class));
+		linkIds.add(Id.create("packed-3", Link.class));
+
+		NetworkRoute route = getNetworkRouteInstance(linkIds.get(0), linkIds.get(1), null);
+		route.setLinkIds(linkIds.get(0), linkIds, linkIds.get(1));
+		List<Id<Link>> routeLinkIds = route.getLinkIds();
+		Assert.assertEquals(linkIds.size(), routeLinkIds.size());
+		Iterator<Id<Link>> iter = routeLinkIds.iterator();
+		for (Id<Link> linkId : linkIds) {
+			Assert.assertSame(linkId, iter.next());
+		}
+		Assert.assertFalse(iter.hasNext());
+		// random access, also backwards
+		for (int i = linkIds.size() - 1; i >= 0; i -= 3) {
+			Assert.assertSame(linkIds.get(i), routeLinkIds.get(i));
+		}
+		Assert.assertEquals(linkIds, routeLinkIds);
+	}
+
+	@Test
+	public void testEqualsAndClone() {
+		Network network = createTestNetwork();
+		Id<Link> link1 = Id.create("1", Link.class);
+		Id<Link> link4 = Id.create("4", Link.class);
+		NetworkRoute route1 = getNetworkRouteInstance(link1, link4, network);
+		route1.setLinkIds(link1, NetworkUtils.getLinkIds("22 12 -23 3"), link4);
+		NetworkRoute route2 = getNetworkRouteInstance(link1, link4, network);
+		route2.setLinkIds(link1, NetworkUtils.getLinkIds("22 12 -23 3"), link4);
+		Assert.assertEquals(route1, route2);
+		Assert.assertEquals(route1.hashCode(), route2.hashCode());
+
+		NetworkRoute clone = route1.clone();
+		Assert.assertEquals(route1, clone);
+		clone.setLinkIds(link1, NetworkUtils.getLinkIds("2 3"), link4);
+		Assert.assertNotEquals(route1, clone);
+		Assert.assertEquals(4, route1.getLinkIds().size());
+		Assert.assertEquals(2, clone.getLinkIds().size());
+	}
+
+	@Test
+	public void testLinkIdsAreKeptWithRoute() {
+		Network network = createTestNetwork();
+		Id<Link> link1 = Id.create("1", Link.class);
+		Id<Link> link4 = Id.create("4", Link.class);
+		List<Id<Link>> linkIds = NetworkUtils.getLinkIds("22 12 -23 3");
+		NetworkRoute route = getNetworkRouteInstance(link1, link4, network);
+		route.setLinkIds(link1, linkIds, link4);
+
+		// like the mobsim agents: fetch the list for every step, interleaved with iterations over it
+		List<Id<Link>> view = route.getLinkIds();
+		for (int i = 0; i < linkIds.size(); i++) {
+			Assert.assertSame(view, route.getLinkIds());
+			Assert.assertSame(linkIds.get(i), route.getLinkIds().get(i));
+			Assert.assertEquals(linkIds, new ArrayList<>(route.getLinkIds()));
+		}
+
+		route.setLinkIds(link1, NetworkUtils.getLinkIds("2 3"), link4);
+		Assert.assertNotSame(view, route.getLinkIds());
+		Assert.assertEquals(NetworkUtils.getLinkIds("2 3"), route.getLinkIds());
+		Assert.assertEquals(linkIds, view);
+	}
+
+	@Test
+	public void testCalcDistance() {
+		Network network = createTestNetwork();
+		Id<Link> link1 = Id.create("1", Link.class);
+		Id<Link> link4 = Id.create("4", Link.class);
+		NetworkRoute route = getNetworkRouteInstance(link1, link4, network);
+		route.setLinkIds(link1, NetworkUtils.getLinkIds("22 12 -23 3"), link4);
+		Assert.assertEquals(4000.0, RouteUtils.calcDistanceExcludingStartEndLink(route, network), 1e-8);
+
+		// without a network, the distance is calculated the usual way
+		NetworkRoute route2 = getNetworkRouteInstance(link1, link4, null);
+		route2.setLinkIds(link1, NetworkUtils.getLinkIds("22 12 -23 3"), link4);
+		Assert.assertEquals(4000.0, RouteUtils.calcDistanceExcludingStartEndLink(route2, network), 1e-8);
+	}
+
+}
@@ -20,12 +20,20 @@
 
 package org.matsim.core.replanning.modules;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.GlobalConfigGroup.ReplanningScheduling;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 
 /**
@@ -60,6 +68,45 @@ public class AbstractMultithreadedModuleTest {
 
 	}
 
+	@Test
+	public void testDynamicScheduling() {
+		Config config = new Config();
+		config.addCoreModules();
+		config.global().setNumberOfThreads(3);
+		config.global().setReplanningScheduling(ReplanningScheduling.dynamic);
+		Map<Plan, AtomicInteger> handled = new ConcurrentHashMap<>();
+		CountingModule testee = new CountingModule(config.global(), handled);
+
+		List<Plan> plans = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			plans.add(PopulationUtils.createPlan());
+		}
+		for (int iteration = 0; iteration < 2; iteration++) {
+			testee.prepareReplanning(null);
+			for (Plan plan : plans) {
+				testee.handlePlan(plan);
+			}
+			testee.finishReplanning();
+		}
+
+		Assert.assertEquals(plans.size(), handled.size());
+		for (Plan plan : plans) {
+			Assert.assertEquals("every plan must be handled exactly once per iteration", 2, handled.get(plan).get());
+		}
+	}
+
+	private static class CountingModule extends AbstractMultithreadedModule {
+		private final Map<Plan, AtomicInteger> handled;
+		public CountingModule(GlobalConfigGroup globalConfigGroup, Map<Plan, AtomicInteger> handled) {
+			super(globalConfigGroup);
+			this.handled = handled;
+		}
+		@Override
+		public PlanAlgorithm getPlanAlgoInstance() {
+			return plan -> this.handled.computeIfAbsent(plan, p -> new AtomicInteger()).incrementAndGet();
+		}
+	}
+
 	private static class DummyAbstractMultithreadedModule extends AbstractMultithreadedModule {
 		public DummyAbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
 			super(globalConfigGroup);
@@ -0,0 +1,282 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+public class ContractionHierarchiesRouterTest extends AbstractLeastCostPathCalculatorTest {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(final Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		return new ContractionHierarchiesFactory(900, 30 * 3600).createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	public void testCalcLeastCostPath_SameCostAsDijkstra() {
+		Network network = createGridNetwork(20, new Random(4711));
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		LeastCostPathCalculator dijkstra = new Dijkstra(network, travelTimeCostCalculator, travelTimeCostCalculator);
+		LeastCostPathCalculator ch = getLeastCostPathCalculator(network);
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Random random = new Random(42);
+		for (int i = 0; i < 200; i++) {
+			Node from = nodes.get(random.nextInt(nodes.size()));
+			Node to = nodes.get(random.nextInt(nodes.size()));
+			Path expected = dijkstra.calcLeastCostPath(from, to, 8 * 3600, null, null);
+			Path path = ch.calcLeastCostPath(from, to, 8 * 3600, null, null);
+
+			assertEquals(expected.travelCost, path.travelCost, 1e-5 * expected.travelCost);
+			assertEquals(expected.travelTime, path.travelTime, 1e-5 * expected.travelTime);
+			assertEquals(from, path.getFromNode());
+			assertEquals(to, path.getToNode());
+			assertEquals(path.links.size() + 1, path.nodes.size());
+			for (int l = 0; l < path.links.size(); l++) {
+				assertEquals(path.nodes.get(l), path.links.get(l).getFromNode());
+				assertEquals(path.nodes.get(l + 1), path.links.get(l).getToNode());
+			}
+		}
+	}
+
+	public void testCalcLeastCostMatrix() {
+		Network network = createGridNetwork(20, new Random(4711));
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		LeastCostPathCalculator dijkstra = new Dijkstra(network, travelTimeCostCalculator, travelTimeCostCalculator);
+		LeastCostPathCalculator ch = getLeastCostPathCalculator(network);
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Random random = new Random(42);
+		List<Node> fromNodes = new ArrayList<>();
+		List<Node> toNodes = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			fromNodes.add(nodes.get(random.nextInt(nodes.size())));
+			toNodes.add(nodes.get(random.nextInt(nodes.size())));
+		}
+		toNodes.add(fromNodes.get(0));
+
+		// twice, to see that the buckets of the first call are emptied
+		for (int k = 0; k < 2; k++) {
+			double[][] costs = ch.calcLeastCostMatrix(fromNodes, toNodes, 8 * 3600, null, null);
+			for (int i = 0; i < fromNodes.size(); i++) {
+				for (int j = 0; j < toNodes.size(); j++) {
+					Path expected = dijkstra.calcLeastCostPath(fromNodes.get(i), toNodes.get(j), 8 * 3600, null, null);
+					// the weights of the hierarchy are stored as floats
+					assertEquals(expected.travelCost, costs[i][j], 1e-5 * expected.travelCost);
+				}
+			}
+		}
+		assertEquals(0.0, ch.calcLeastCostMatrix(fromNodes, toNodes, 8 * 3600, null, null)[0][toNodes.size() - 1], 0.0);
+	}
+
+	public void testCalcLeastCostPath_TimeDependent() {
+		Network network = NetworkUtils.createNetwork();
+		NetworkFactory factory = network.getFactory();
+		Node n1 = factory.createNode(Id.create("1", Node.class), new Coord(0, 0));
+		Node n2 = factory.createNode(Id.create("2", Node.class), new Coord(1000, 1000));
+		Node n3 = factory.createNode(Id.create("3", Node.class), new Coord(1000, -1000));
+		Node n4 = factory.createNode(Id.create("4", Node.class), new Coord(2000, 0));
+		for (Node node : new Node[] { n1, n2, n3, n4 }) {
+			network.addNode(node);
+		}
+		final Link l12 = factory.createLink(Id.create("12", Link.class), n1, n2);
+		final Link l24 = factory.createLink(Id.create("24", Link.class), n2, n4);
+		Link l13 = factory.createLink(Id.create("13", Link.class), n1, n3);
+		Link l34 = factory.createLink(Id.create("34", Link.class), n3, n4);
+		for (Link link : new Link[] { l12, l24, l13, l34 }) {
+			network.addLink(link);
+		}
+
+		// the northern route is congested from 8:00 on
+		class CongestedTravelTime implements TravelTime, TravelDisutility {
+			@Override
+			public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+				boolean congested = time >= 8 * 3600 && (link == l12 || link == l24);
+				return congested ? 300 : (link == l12 || link == l24) ? 60 : 100;
+			}
+
+			@Override
+			public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+				return getLinkTravelTime(link, time, person, vehicle);
+			}
+
+			@Override
+			public double getLinkMinimumTravelDisutility(Link link) {
+				return 60;
+			}
+		}
+		CongestedTravelTime travelTime = new CongestedTravelTime();
+		ContractionHierarchiesFactory chFactory = new ContractionHierarchiesFactory(3600, 30 * 3600);
+		LeastCostPathCalculator ch = chFactory.createPathCalculator(network, travelTime, travelTime);
+
+		Path path = ch.calcLeastCostPath(n1, n4, 7 * 3600, null, null);
+		assertEquals(2, path.links.size());
+		assertEquals(l12, path.links.get(0));
+		assertEquals(l24, path.links.get(1));
+		assertEquals(120.0, path.travelTime, 1e-8);
+
+		path = ch.calcLeastCostPath(n1, n4, 9 * 3600, null, null);
+		assertEquals(l13, path.links.get(0));
+		assertEquals(l34, path.links.get(1));
+		assertEquals(200.0, path.travelCost, 1e-8);
+
+		// no way back
+		assertNull(ch.calcLeastCostPath(n4, n1, 7 * 3600, null, null));
+	}
+
+	public void testCreatePathCalculator_DifferentDisutilityInstances() {
+		Network network = createDiamondNetwork();
+		Node n1 = network.getNodes().get(Id.create("1", Node.class));
+		Node n4 = network.getNodes().get(Id.create("4", Node.class));
+
+		// two instances of the same class, with different parameters
+		PreferringTravelDisutility north = new PreferringTravelDisutility(network.getNodes().get(Id.create("2", Node.class)));
+		PreferringTravelDisutility south = new PreferringTravelDisutility(network.getNodes().get(Id.create("3", Node.class)));
+		ContractionHierarchiesFactory chFactory = new ContractionHierarchiesFactory(3600, 30 * 3600);
+
+		Path path = chFactory.createPathCalculator(network, north, north).calcLeastCostPath(n1, n4, 7 * 3600, null, null);
+		assertEquals(Id.create("12", Link.class), path.links.get(0).getId());
+		assertEquals(Id.create("24", Link.class), path.links.get(1).getId());
+
+		path = chFactory.createPathCalculator(network, south, south).calcLeastCostPath(n1, n4, 7 * 3600, null, null);
+		assertEquals(Id.create("13", Link.class), path.links.get(0).getId());
+		assertEquals(Id.create("34", Link.class), path.links.get(1).getId());
+		assertEquals(120.0, path.travelCost, 1e-8);
+	}
+
+	public void testCreatePathCalculator_RoutingModes() {
+		Network network = createDiamondNetwork();
+		Node n1 = network.getNodes().get(Id.create("1", Node.class));
+		Node n2 = network.getNodes().get(Id.create("2", Node.class));
+		Node n3 = network.getNodes().get(Id.create("3", Node.class));
+		Node n4 = network.getNodes().get(Id.create("4", Node.class));
+		ContractionHierarchiesFactory chFactory = new ContractionHierarchiesFactory(3600, 30 * 3600);
+
+		// like the network routers of two threads, each with its own instances
+		PreferringTravelDisutility car1 = new PreferringTravelDisutility(n2);
+		PreferringTravelDisutility car2 = new PreferringTravelDisutility(n2);
+		PreferringTravelDisutility bike = new PreferringTravelDisutility(n3);
+		ContractionHierarchiesRouter carRouter1 = (ContractionHierarchiesRouter) chFactory.createPathCalculator(network, car1, car1, "car");
+		ContractionHierarchiesRouter carRouter2 = (ContractionHierarchiesRouter) chFactory.createPathCalculator(network, car2, car2, "car");
+		ContractionHierarchiesRouter bikeRouter = (ContractionHierarchiesRouter) chFactory.createPathCalculator(network, bike, bike, "bike");
+		assertSame(carRouter1.getCustomization(), carRouter2.getCustomization());
+		assertNotSame(carRouter1.getCustomization(), bikeRouter.getCustomization());
+		assertEquals(Id.create("12", Link.class), carRouter2.calcLeastCostPath(n1, n4, 7 * 3600, null, null).links.get(0).getId());
+		assertEquals(Id.create("13", Link.class), bikeRouter.calcLeastCostPath(n1, n4, 7 * 3600, null, null).links.get(0).getId());
+
+		// next iteration
+		chFactory.clearCustomizations();
+		ContractionHierarchiesRouter carRouter3 = (ContractionHierarchiesRouter) chFactory.createPathCalculator(network, car1, car1, "car");
+		assertNotSame(carRouter1.getCustomization(), carRouter3.getCustomization());
+	}
+
+	/**
+	 * Two paths from node 1 to node 4, one via node 2 and one via node 3.
+	 */
+	private static Network createDiamondNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		NetworkFactory factory = network.getFactory();
+		Node n1 = factory.createNode(Id.create("1", Node.class), new Coord(0, 0));
+		Node n2 = factory.createNode(Id.create("2", Node.class), new Coord(1000, 1000));
+		Node n3 = factory.createNode(Id.create("3", Node.class), new Coord(1000, -1000));
+		Node n4 = factory.createNode(Id.create("4", Node.class), new Coord(2000, 0));
+		for (Node node : new Node[] { n1, n2, n3, n4 }) {
+			network.addNode(node);
+		}
+		network.addLink(factory.createLink(Id.create("12", Link.class), n1, n2));
+		network.addLink(factory.createLink(Id.create("24", Link.class), n2, n4));
+		network.addLink(factory.createLink(Id.create("13", Link.class), n1, n3));
+		network.addLink(factory.createLink(Id.create("34", Link.class), n3, n4));
+		return network;
+	}
+
+	private static class PreferringTravelDisutility implements TravelTime, TravelDisutility {
+		private final Node preferredNode;
+
+		PreferringTravelDisutility(final Node preferredNode) {
+			this.preferredNode = preferredNode;
+		}
+
+		@Override
+		public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+			return 100;
+		}
+
+		@Override
+		public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+			return (link.getFromNode() == this.preferredNode || link.getToNode() == this.preferredNode) ? 60 : 100;
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(Link link) {
+			return 60;
+		}
+	}
+
+	private static Network createGridNetwork(final int size, final Random random) {
+		Network network = NetworkUtils.createNetwork();
+		NetworkFactory factory = network.getFactory();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = factory.createNode(Id.create(x + "_" + y, Node.class), new Coord(x * 100, y * 100));
+				network.addNode(nodes[x][y]);
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x + 1][y], random);
+					addLink(network, nodes[x + 1][y], nodes[x][y], random);
+				}
+				if (y + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x][y + 1], random);
+					addLink(network, nodes[x][y + 1], nodes[x][y], random);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLink(final Network network, final Node from, final Node to, final Random random) {
+		Link link = network.getFactory().createLink(Id.create(from.getId() + "-" + to.getId(), Link.class), from, to);
+		link.setLength(100);
+		link.setFreespeed(5 + 20 * random.nextDouble());
+		network.addLink(link);
+	}
+
+}
@@ -27,10 +27,15 @@ import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
 import org.matsim.core.router.costcalculators.RandomizingTimeDistanceTravelDisutilityFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculator.Path;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
@@ -39,6 +44,7 @@ import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Some more tests - but all of them assuming that there is only
@@ -311,6 +317,103 @@ public class FastMultiNodeTest {
 	 *                     |
 	 *                     n5
 	 */
+	@Test
+	public void testFastMultiNodeDijkstra_Bidirectional() {
+		Network network = createGridNetwork(20, new Random(4711));
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		LeastCostPathCalculator dijkstra = new DijkstraFactory().createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+		FastMultiNodeDijkstra multiNodeDijkstra = (FastMultiNodeDijkstra) new FastMultiNodeDijkstraFactory().
+				createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Random random = new Random(42);
+		for (int i = 0; i < 200; i++) {
+			Node from = nodes.get(random.nextInt(nodes.size()));
+			Node to = nodes.get(random.nextInt(nodes.size()));
+			Path expected = dijkstra.calcLeastCostPath(from, to, 8 * 3600, null, null);
+			Path path = multiNodeDijkstra.calcLeastCostPathBidirectional(from, to, 8 * 3600, null, null);
+
+			Assert.assertEquals(expected.travelCost, path.travelCost, 1e-5 * expected.travelCost);
+			Assert.assertEquals(expected.travelTime, path.travelTime, 1e-5 * expected.travelTime);
+			Assert.assertSame(from, path.getFromNode());
+			Assert.assertSame(to, path.getToNode());
+			Assert.assertEquals(path.links.size() + 1, path.nodes.size());
+			for (int l = 0; l < path.links.size(); l++) {
+				Assert.assertSame(path.nodes.get(l), path.links.get(l).getFromNode());
+				Assert.assertSame(path.nodes.get(l + 1), path.links.get(l).getToNode());
+			}
+		}
+	}
+
+	@Test
+	public void testFastMultiNodeDijkstra_ManyToMany() {
+		Network network = createGridNetwork(20, new Random(4711));
+		// a node which cannot be reached
+		Node island = network.getFactory().createNode(Id.create("island", Node.class), new Coord(-1000, -1000));
+		network.addNode(island);
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		LeastCostPathCalculator dijkstra = new DijkstraFactory().createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+		FastMultiNodeDijkstra multiNodeDijkstra = (FastMultiNodeDijkstra) new FastMultiNodeDijkstraFactory().
+				createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Random random = new Random(42);
+		List<Node> fromNodes = new ArrayList<>();
+		List<Node> toNodes = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			fromNodes.add(nodes.get(random.nextInt(nodes.size())));
+			toNodes.add(nodes.get(random.nextInt(nodes.size())));
+		}
+		// the same node twice
+		toNodes.add(toNodes.get(0));
+		toNodes.add(island);
+
+		// twice, to see that the data of the first call is reset
+		for (int k = 0; k < 2; k++) {
+			double[][] costs = multiNodeDijkstra.calcLeastCostMatrix(fromNodes, toNodes, 8 * 3600, null, null);
+			Assert.assertEquals(fromNodes.size(), costs.length);
+			for (int i = 0; i < fromNodes.size(); i++) {
+				Assert.assertEquals(toNodes.size(), costs[i].length);
+				for (int j = 0; j < toNodes.size() - 1; j++) {
+					Path expected = dijkstra.calcLeastCostPath(fromNodes.get(i), toNodes.get(j), 8 * 3600, null, null);
+					Assert.assertEquals(expected.travelCost, costs[i][j], 1e-8);
+				}
+				Assert.assertEquals(Double.POSITIVE_INFINITY, costs[i][toNodes.size() - 1], 0.0);
+			}
+		}
+	}
+
+	private static Network createGridNetwork(final int size, final Random random) {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = network.getFactory().createNode(Id.create(x + "_" + y, Node.class), new Coord(x * 100, y * 100));
+				network.addNode(nodes[x][y]);
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x + 1][y], random);
+					addLink(network, nodes[x + 1][y], nodes[x][y], random);
+				}
+				if (y + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x][y + 1], random);
+					addLink(network, nodes[x][y + 1], nodes[x][y], random);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLink(final Network network, final Node from, final Node to, final Random random) {
+		Link link = network.getFactory().createLink(Id.create(from.getId() + "-" + to.getId(), Link.class), from, to);
+		link.setLength(100);
+		link.setFreespeed(5 + 20 * random.nextDouble());
+		network.addLink(link);
+	}
+
 	private void createNetwork(Scenario scenario) {
 
 		/*
@@ -0,0 +1,256 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+public class LandmarksTimeSlicesTest extends AbstractLeastCostPathCalculatorTest {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(final Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		FastAStarLandmarksFactory factory = new FastAStarLandmarksFactory(2);
+		factory.setTimeSlices(3600, Double.POSITIVE_INFINITY, 900, 30 * 3600);
+		return factory.createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	public void testCalcLeastCostPath_SameCostAsDijkstra() {
+		Network network = createGridNetwork(20, new Random(4711));
+		CongestedTravelTime travelTime = new CongestedTravelTime(4.0);
+
+		AStarLandmarksFactory aStarFactory = new AStarLandmarksFactory(2);
+		aStarFactory.setTimeSlices(3600, Double.POSITIVE_INFINITY, 900, 30 * 3600);
+		FastAStarLandmarksFactory fastAStarFactory = new FastAStarLandmarksFactory(2);
+		fastAStarFactory.setTimeSlices(3600, Double.POSITIVE_INFINITY, 900, 30 * 3600);
+
+		assertSameCostAsDijkstra(network, travelTime, aStarFactory);
+		assertSameCostAsDijkstra(network, travelTime, fastAStarFactory);
+
+		// the travel times change, e.g. in the next iteration
+		travelTime.factor = 10.0;
+		fastAStarFactory.clearTimeSlices();
+		assertSameCostAsDijkstra(network, travelTime, fastAStarFactory);
+	}
+
+	public void testCalcLeastCostPath_DifferentDisutilityInstances() {
+		Network network = createGridNetwork(20, new Random(4711));
+		// the same class with other parameters, e.g. for another mode, must not use the landmark distances of the first
+		CongestedTravelTime congested = new CongestedTravelTime(10.0);
+		CongestedTravelTime freeSpeed = new CongestedTravelTime(1.0);
+
+		AStarLandmarksFactory aStarFactory = new AStarLandmarksFactory(2);
+		aStarFactory.setTimeSlices(3600, 0, 900, 30 * 3600);
+		FastAStarLandmarksFactory fastAStarFactory = new FastAStarLandmarksFactory(2);
+		fastAStarFactory.setTimeSlices(3600, 0, 900, 30 * 3600);
+		for (LeastCostPathCalculatorFactory factory : new LeastCostPathCalculatorFactory[] { aStarFactory, fastAStarFactory }) {
+			factory.createPathCalculator(network, congested, congested);
+			LeastCostPathCalculator freeSpeedRouter = factory.createPathCalculator(network, freeSpeed, freeSpeed);
+			LeastCostPathCalculator dijkstra = new Dijkstra(network, freeSpeed, freeSpeed);
+
+			List<Node> nodes = new ArrayList<>(network.getNodes().values());
+			Random random = new Random(42);
+			for (int i = 0; i < 100; i++) {
+				Node from = nodes.get(random.nextInt(nodes.size()));
+				Node to = nodes.get(random.nextInt(nodes.size()));
+				// all routes end within the time slice, so the estimates are admissible even without horizon
+				Path expected = dijkstra.calcLeastCostPath(from, to, 8 * 3600, null, null);
+				Path path = freeSpeedRouter.calcLeastCostPath(from, to, 8 * 3600, null, null);
+				assertEquals(expected.travelCost, path.travelCost, 1e-5 * expected.travelCost);
+			}
+		}
+	}
+
+	public void testCreatePathCalculator_RoutingModes() {
+		Network network = createGridNetwork(20, new Random(4711));
+		// like the network routers of two threads, each with its own instances
+		CongestedTravelTime car1 = new CongestedTravelTime(10.0);
+		CongestedTravelTime car2 = new CongestedTravelTime(10.0);
+		CongestedTravelTime bike = new CongestedTravelTime(1.0);
+
+		AStarLandmarksFactory aStarFactory = new AStarLandmarksFactory(2);
+		aStarFactory.setTimeSlices(3600, 0, 900, 30 * 3600);
+		FastAStarLandmarksFactory fastAStarFactory = new FastAStarLandmarksFactory(2);
+		fastAStarFactory.setTimeSlices(3600, 0, 900, 30 * 3600);
+		for (LeastCostPathCalculatorFactory factory : new LeastCostPathCalculatorFactory[] { aStarFactory, fastAStarFactory }) {
+			car1.factor = 10.0;
+			car2.factor = 10.0;
+			AStarLandmarks carRouter1 = (AStarLandmarks) factory.createPathCalculator(network, car1, car1, "car");
+			AStarLandmarks carRouter2 = (AStarLandmarks) factory.createPathCalculator(network, car2, car2, "car");
+			AStarLandmarks bikeRouter = (AStarLandmarks) factory.createPathCalculator(network, bike, bike, "bike");
+			assertSame(carRouter1.getTimeSlices(), carRouter2.getTimeSlices());
+			assertNotSame(carRouter1.getTimeSlices(), bikeRouter.getTimeSlices());
+
+			// the travel times change, and the next iteration starts
+			car1.factor = 1.0;
+			car2.factor = 1.0;
+			if (factory == aStarFactory) {
+				aStarFactory.refreshTimeSlices();
+			} else {
+				fastAStarFactory.refreshTimeSlices();
+			}
+			AStarLandmarks carRouter3 = (AStarLandmarks) factory.createPathCalculator(network, car2, car2, "car");
+			assertNotSame(carRouter1.getTimeSlices(), carRouter3.getTimeSlices());
+			LeastCostPathCalculator dijkstra = new Dijkstra(network, car2, car2);
+
+			List<Node> nodes = new ArrayList<>(network.getNodes().values());
+			Random random = new Random(42);
+			for (int i = 0; i < 100; i++) {
+				Node from = nodes.get(random.nextInt(nodes.size()));
+				Node to = nodes.get(random.nextInt(nodes.size()));
+				// the distances computed with the congested travel times would overestimate the remaining costs
+				Path expected = dijkstra.calcLeastCostPath(from, to, 8 * 3600, null, null);
+				Path path = carRouter3.calcLeastCostPath(from, to, 8 * 3600, null, null);
+				assertEquals(expected.travelCost, path.travelCost, 1e-5 * expected.travelCost);
+			}
+		}
+	}
+
+	public void testExploredNodes() {
+		Network network = createGridNetwork(20, new Random(4711));
+		CongestedTravelTime travelTime = new CongestedTravelTime(4.0);
+
+		FastAStarLandmarksFactory staticFactory = new FastAStarLandmarksFactory(2);
+		FastAStarLandmarksFactory timeSlicesFactory = new FastAStarLandmarksFactory(2);
+		timeSlicesFactory.setTimeSlices(3600, 0, 900, 30 * 3600);
+		AStarLandmarks staticRouter = (AStarLandmarks) staticFactory.createPathCalculator(network, travelTime, travelTime);
+		AStarLandmarks timeSlicesRouter = (AStarLandmarks) timeSlicesFactory.createPathCalculator(network, travelTime, travelTime);
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Random random = new Random(42);
+		long staticExploredNodes = 0;
+		long timeSlicesExploredNodes = 0;
+		for (int i = 0; i < 100; i++) {
+			Node from = nodes.get(random.nextInt(nodes.size()));
+			Node to = nodes.get(random.nextInt(nodes.size()));
+			Path staticPath = staticRouter.calcLeastCostPath(from, to, 8 * 3600, null, null);
+			staticExploredNodes += staticRouter.getNumberOfExploredNodes();
+			Path path = timeSlicesRouter.calcLeastCostPath(from, to, 8 * 3600, null, null);
+			timeSlicesExploredNodes += timeSlicesRouter.getNumberOfExploredNodes();
+			// all routes end within the time slice, so the estimates are admissible even without horizon
+			assertEquals(staticPath.travelCost, path.travelCost, 1e-5 * staticPath.travelCost);
+		}
+		assertTrue("time dependent landmarks should explore fewer nodes, explored " + timeSlicesExploredNodes
+				+ " instead of " + staticExploredNodes, timeSlicesExploredNodes < staticExploredNodes);
+	}
+
+	private static void assertSameCostAsDijkstra(final Network network, final CongestedTravelTime travelTime,
+			final LeastCostPathCalculatorFactory factory) {
+		LeastCostPathCalculator dijkstra = new Dijkstra(network, travelTime, travelTime);
+		LeastCostPathCalculator router = factory.createPathCalculator(network, travelTime, travelTime);
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Random random = new Random(42);
+		for (int i = 0; i < 200; i++) {
+			Node from = nodes.get(random.nextInt(nodes.size()));
+			Node to = nodes.get(random.nextInt(nodes.size()));
+			double departureTime = random.nextInt(24 * 3600);
+			Path expected = dijkstra.calcLeastCostPath(from, to, departureTime, null, null);
+			Path path = router.calcLeastCostPath(from, to, departureTime, null, null);
+
+			assertEquals(expected.travelCost, path.travelCost, 1e-5 * expected.travelCost);
+			assertEquals(from, path.getFromNode());
+			assertEquals(to, path.getToNode());
+		}
+	}
+
+	/**
+	 * The links in the center of the grid are congested between 7:00 and 10:00.
+	 */
+	private static class CongestedTravelTime implements TravelTime, TravelDisutility {
+		double factor;
+
+		CongestedTravelTime(final double factor) {
+			this.factor = factor;
+		}
+
+		@Override
+		public double getLinkTravelTime(final Link link, final double time, final Person person, final Vehicle vehicle) {
+			double freeSpeedTravelTime = link.getLength() / link.getFreespeed();
+			Coord coord = link.getFromNode().getCoord();
+			boolean center = coord.getX() >= 500 && coord.getX() < 1500 && coord.getY() >= 500 && coord.getY() < 1500;
+			if (center && time >= 7 * 3600 && time < 10 * 3600) {
+				return freeSpeedTravelTime * this.factor;
+			}
+			return freeSpeedTravelTime;
+		}
+
+		@Override
+		public double getLinkTravelDisutility(final Link link, final double time, final Person person, final Vehicle vehicle) {
+			return getLinkTravelTime(link, time, person, vehicle);
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(final Link link) {
+			return link.getLength() / link.getFreespeed();
+		}
+	}
+
+	private static Network createGridNetwork(final int size, final Random random) {
+		Network network = NetworkUtils.createNetwork();
+		NetworkFactory factory = network.getFactory();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = factory.createNode(Id.create(x + "_" + y, Node.class), new Coord(x * 100, y * 100));
+				network.addNode(nodes[x][y]);
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x + 1][y], random);
+					addLink(network, nodes[x + 1][y], nodes[x][y], random);
+				}
+				if (y + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x][y + 1], random);
+					addLink(network, nodes[x][y + 1], nodes[x][y], random);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLink(final Network network, final Node from, final Node to, final Random random) {
+		Link link = network.getFactory().createLink(Id.create(from.getId() + "-" + to.getId(), Link.class), from, to);
+		link.setLength(100);
+		link.setFreespeed(5 + 20 * random.nextDouble());
+		network.addLink(link);
+	}
+
+}
@@ -0,0 +1,212 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutilityFactory;
+import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.VehicleType;
+import org.matsim.vehicles.VehicleUtils;
+
+public class NetworkRouteCacheTest {
+
+	@Test
+	public void testHitsAndTimeBins() {
+		Network network = createNetwork();
+		CountingRouter router = new CountingRouter(network);
+		NetworkRouteCache cache = new NetworkRouteCache(100, 900);
+		LeastCostPathCalculator cachingRouter = cache.createPathCalculator("car/car", router);
+		Node n1 = network.getNodes().get(Id.create("1", Node.class));
+		Node n3 = network.getNodes().get(Id.create("3", Node.class));
+
+		Path path = cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600, null, null);
+		Assert.assertEquals(2, path.links.size());
+		Assert.assertSame(path, cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600 + 899, null, null));
+		Assert.assertEquals(1, router.calls);
+
+		// next time bin, other direction, other router
+		cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600 + 900, null, null);
+		cachingRouter.calcLeastCostPath(n3, n1, 7 * 3600, null, null);
+		cache.createPathCalculator("bike/bike", router).calcLeastCostPath(n1, n3, 7 * 3600, null, null);
+		Assert.assertEquals(4, router.calls);
+		Assert.assertEquals(1, cache.getNumberOfHits());
+		Assert.assertEquals(4, cache.getNumberOfMisses());
+
+		// paths which do not exist are not cached
+		Node n4 = network.getNodes().get(Id.create("4", Node.class));
+		Assert.assertNull(cachingRouter.calcLeastCostPath(n1, n4, 7 * 3600, null, null));
+		Assert.assertNull(cachingRouter.calcLeastCostPath(n1, n4, 7 * 3600, null, null));
+		Assert.assertEquals(6, router.calls);
+	}
+
+	@Test
+	public void testMobsim() {
+		Network network = createNetwork();
+		CountingRouter router = new CountingRouter(network);
+		NetworkRouteCache cache = new NetworkRouteCache(100, 900);
+		LeastCostPathCalculator cachingRouter = cache.createPathCalculator("car/car", router);
+		Node n1 = network.getNodes().get(Id.create("1", Node.class));
+		Node n3 = network.getNodes().get(Id.create("3", Node.class));
+
+		cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600, null, null);
+		cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600, null, null);
+		Assert.assertEquals(1, router.calls);
+
+		// not used during the mobsim, as the travel times change
+		cache.notifyBeforeMobsim(null);
+		Assert.assertEquals(0, cache.getNumberOfHits());
+		cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600, null, null);
+		cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600, null, null);
+		Assert.assertEquals(3, router.calls);
+
+		// afterwards, it starts empty
+		cache.notifyAfterMobsim(null);
+		cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600, null, null);
+		cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600, null, null);
+		Assert.assertEquals(4, router.calls);
+		Assert.assertEquals(1, cache.getNumberOfHits());
+	}
+
+	@Test
+	public void testEviction() {
+		Network network = createNetwork();
+		CountingRouter router = new CountingRouter(network);
+		NetworkRouteCache cache = new NetworkRouteCache(1, 900);
+		LeastCostPathCalculator cachingRouter = cache.createPathCalculator("car/car", router);
+		Node n1 = network.getNodes().get(Id.create("1", Node.class));
+		Node n2 = network.getNodes().get(Id.create("2", Node.class));
+		Node n3 = network.getNodes().get(Id.create("3", Node.class));
+
+		cachingRouter.calcLeastCostPath(n1, n3, 0, null, null);
+		cachingRouter.calcLeastCostPath(n1, n2, 0, null, null);
+		cachingRouter.calcLeastCostPath(n1, n2, 0, null, null);
+		Assert.assertEquals(2, router.calls);
+		cachingRouter.calcLeastCostPath(n1, n3, 0, null, null);
+		Assert.assertEquals(3, router.calls);
+
+		// disabled
+		Assert.assertSame(router, new NetworkRouteCache(0, 900).createPathCalculator("car/car", router));
+	}
+
+	@Test
+	public void testVehicleTypes() {
+		Network network = createNetwork();
+		CountingRouter router = new CountingRouter(network);
+		NetworkRouteCache cache = new NetworkRouteCache(100, 900);
+		LeastCostPathCalculator cachingRouter = cache.createPathCalculator("car/car", router);
+		Node n1 = network.getNodes().get(Id.create("1", Node.class));
+		Node n3 = network.getNodes().get(Id.create("3", Node.class));
+		VehicleType carType = VehicleUtils.getFactory().createVehicleType(Id.create("car", VehicleType.class));
+		VehicleType truckType = VehicleUtils.getFactory().createVehicleType(Id.create("truck", VehicleType.class));
+		Vehicle car1 = VehicleUtils.getFactory().createVehicle(Id.create("car1", Vehicle.class), carType);
+		Vehicle car2 = VehicleUtils.getFactory().createVehicle(Id.create("car2", Vehicle.class), carType);
+		Vehicle truck = VehicleUtils.getFactory().createVehicle(Id.create("truck", Vehicle.class), truckType);
+
+		cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600, null, car1);
+		cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600, null, car2);
+		Assert.assertEquals(1, router.calls);
+		// the travel times could depend on the vehicle type
+		cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600, null, truck);
+		cachingRouter.calcLeastCostPath(n1, n3, 7 * 3600, null, null);
+		Assert.assertEquals(3, router.calls);
+	}
+
+	@Test
+	public void testOnlyDefaultTravelDisutilities() {
+		Network network = createNetwork();
+		CountingRouter router = new CountingRouter(network);
+		NetworkRouteCache cache = new NetworkRouteCache(100, 900);
+		Assert.assertNotSame(router, cache.createPathCalculator("car/car", new OnlyTimeDependentTravelDisutilityFactory(), router));
+		// might depend on the person
+		TravelDisutilityFactory personalFactory = travelTime -> new FreeSpeed();
+		Assert.assertSame(router, cache.createPathCalculator("car/car", personalFactory, router));
+	}
+
+	private static class CountingRouter implements LeastCostPathCalculator {
+		private final LeastCostPathCalculator dijkstra;
+		int calls = 0;
+
+		CountingRouter(final Network network) {
+			FreeSpeed freeSpeed = new FreeSpeed();
+			this.dijkstra = new DijkstraFactory().createPathCalculator(network, freeSpeed, freeSpeed);
+		}
+
+		@Override
+		public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double starttime, final Person person, final Vehicle vehicle) {
+			this.calls++;
+			return this.dijkstra.calcLeastCostPath(fromNode, toNode, starttime, person, vehicle);
+		}
+	}
+
+	private static class FreeSpeed implements TravelTime, TravelDisutility {
+		@Override
+		public double getLinkTravelTime(final Link link, final double time, final Person person, final Vehicle vehicle) {
+			return link.getLength() / link.getFreespeed();
+		}
+
+		@Override
+		public double getLinkTravelDisutility(final Link link, final double time, final Person person, final Vehicle vehicle) {
+			return link.getLength() / link.getFreespeed();
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(final Link link) {
+			return link.getLength() / link.getFreespeed();
+		}
+	}
+
+	private static Network createNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		Node n1 = network.getFactory().createNode(Id.create("1", Node.class), new Coord(0, 0));
+		Node n2 = network.getFactory().createNode(Id.create("2", Node.class), new Coord(1000, 0));
+		Node n3 = network.getFactory().createNode(Id.create("3", Node.class), new Coord(2000, 0));
+		Node n4 = network.getFactory().createNode(Id.create("4", Node.class), new Coord(3000, 0));
+		network.addNode(n1);
+		network.addNode(n2);
+		network.addNode(n3);
+		network.addNode(n4);
+		addLink(network, "12", n1, n2);
+		addLink(network, "21", n2, n1);
+		addLink(network, "23", n2, n3);
+		addLink(network, "32", n3, n2);
+		return network;
+	}
+
+	private static void addLink(final Network network, final String id, final Node from, final Node to) {
+		Link link = network.getFactory().createLink(Id.create(id, Link.class), from, to);
+		link.setLength(1000);
+		link.setFreespeed(10);
+		network.addLink(link);
+	}
+
+}
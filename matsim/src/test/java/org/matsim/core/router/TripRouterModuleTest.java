@@ -46,6 +46,10 @@ public class TripRouterModuleTest {
         for (ControlerConfigGroup.RoutingAlgorithmType routingAlgorithmType : ControlerConfigGroup.RoutingAlgorithmType.values()) {
             Config config = ConfigUtils.createConfig();
             config.controler().setRoutingAlgorithmType(routingAlgorithmType);
+            if (routingAlgorithmType == ControlerConfigGroup.RoutingAlgorithmType.ContractionHierarchies) {
+                // contraction hierarchies do not support person specific travel disutilities
+                config.plansCalcRoute().setRoutingRandomness(0.);
+            }
             Scenario scenario = ScenarioUtils.createScenario(config);
             LeastCostPathCalculatorFactory defaultLeastCostPathCalculatorFactory = TripRouterFactoryBuilderWithDefaults.createDefaultLeastCostPathCalculatorFactory(scenario);
             LeastCostPathCalculator pathCalculator = defaultLeastCostPathCalculatorFactory.createPathCalculator(
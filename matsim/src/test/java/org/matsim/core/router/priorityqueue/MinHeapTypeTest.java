@@ -0,0 +1,179 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.priorityqueue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.FastDijkstraFactory;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+
+public class MinHeapTypeTest {
+
+	private static final int MAX_ELEMENTS = 200;
+
+	/**
+	 * Applies the same random operations to all heaps, with monotone priorities as in Dijkstra's algorithm and with
+	 * arbitrary ones, and compares them with the {@link BinaryMinHeap}.
+	 */
+	@Test
+	public void testSameOrderAsBinaryMinHeap() {
+		for (MinHeapType type : MinHeapType.values()) {
+			for (boolean monotone : new boolean[] { true, false }) {
+				Random random = new Random(4711);
+				MinHeap<Entry> expected = new BinaryMinHeap<>(MAX_ELEMENTS);
+				MinHeap<Entry> heap = type.createMinHeap(MAX_ELEMENTS);
+				Entry[] entries = new Entry[MAX_ELEMENTS];
+				for (int i = 0; i < MAX_ELEMENTS; i++) {
+					entries[i] = new Entry(i);
+				}
+
+				for (int run = 0; run < 3; run++) {
+					double lastPolled = 0.0;
+					for (int i = 0; i < 5000; i++) {
+						Entry entry = entries[random.nextInt(MAX_ELEMENTS)];
+						// integer costs, such that there are many ties
+						double cost = (monotone ? lastPolled : 0.0) + random.nextInt(50);
+						int operation = random.nextInt(10);
+						if (operation < 4) {
+							Assert.assertEquals(type.toString(), expected.add(entry, cost), heap.add(entry, cost));
+						} else if (operation < 7) {
+							Assert.assertEquals(type.toString(), expected.decreaseKey(entry, cost), heap.decreaseKey(entry, cost));
+						} else if (operation < 8) {
+							Assert.assertEquals(type.toString(), expected.remove(entry), heap.remove(entry));
+						} else {
+							Assert.assertSame(type.toString(), expected.peek(), heap.peek());
+							Entry polled = expected.poll();
+							Assert.assertSame(type.toString(), polled, heap.poll());
+							if (polled != null) {
+								lastPolled += random.nextInt(3);
+							}
+						}
+						Assert.assertEquals(type.toString(), expected.size(), heap.size());
+					}
+					Assert.assertEquals(type.toString(), getElements(expected.iterator()), getElements(heap.iterator()));
+					if (run == 1) {
+						while (!expected.isEmpty()) {
+							Assert.assertSame(type.toString(), expected.poll(), heap.poll());
+						}
+						Assert.assertNull(heap.poll());
+					}
+					expected.reset();
+					heap.reset();
+					Assert.assertTrue(heap.isEmpty());
+					Assert.assertNull(heap.peek());
+					Assert.assertFalse(heap.iterator().hasNext());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testFastDijkstra() {
+		Network network = createGridNetwork(15, new Random(4711));
+		FreespeedTravelTimeAndDisutility travelTime = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		LeastCostPathCalculator expected = new FastDijkstraFactory().createPathCalculator(network, travelTime, travelTime);
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+
+		for (MinHeapType type : MinHeapType.values()) {
+			FastDijkstraFactory factory = new FastDijkstraFactory();
+			factory.setMinHeapType(type);
+			LeastCostPathCalculator router = factory.createPathCalculator(network, travelTime, travelTime);
+			Random random = new Random(42);
+			for (int i = 0; i < 100; i++) {
+				Node from = nodes.get(random.nextInt(nodes.size()));
+				Node to = nodes.get(random.nextInt(nodes.size()));
+				Path expectedPath = expected.calcLeastCostPath(from, to, 8 * 3600, null, null);
+				Path path = router.calcLeastCostPath(from, to, 8 * 3600, null, null);
+				Assert.assertEquals(type.toString(), expectedPath.links, path.links);
+				Assert.assertEquals(type.toString(), expectedPath.travelCost, path.travelCost, 0.0);
+			}
+		}
+	}
+
+	private static Set<Entry> getElements(final Iterator<Entry> iterator) {
+		Set<Entry> elements = new HashSet<>();
+		while (iterator.hasNext()) {
+			elements.add(iterator.next());
+		}
+		return elements;
+	}
+
+	private static Network createGridNetwork(final int size, final Random random) {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = network.getFactory().createNode(Id.create(x + "_" + y, Node.class), new Coord(x * 100, y * 100));
+				network.addNode(nodes[x][y]);
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x + 1][y], random);
+					addLink(network, nodes[x + 1][y], nodes[x][y], random);
+				}
+				if (y + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x][y + 1], random);
+					addLink(network, nodes[x][y + 1], nodes[x][y], random);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLink(final Network network, final Node from, final Node to, final Random random) {
+		Link link = network.getFactory().createLink(Id.create(from.getId() + "-" + to.getId(), Link.class), from, to);
+		link.setLength(100);
+		// only a few different speeds, such that there are paths with the same costs
+		link.setFreespeed(5 + 5 * random.nextInt(3));
+		network.addLink(link);
+	}
+
+	private static class Entry implements HasIndex {
+		private final int index;
+
+		Entry(final int index) {
+			this.index = index;
+		}
+
+		@Override
+		public int getArrayIndex() {
+			return this.index;
+		}
+	}
+
+}
@@ -0,0 +1,338 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scenario;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.utils.io.MatsimFileTypeGuesser;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacilitiesFactory;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.facilities.ActivityOption;
+import org.matsim.facilities.FacilitiesUtils;
+import org.matsim.facilities.OpeningTime;
+import org.matsim.facilities.OpeningTimeImpl;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.EngineInformation;
+import org.matsim.vehicles.EngineInformationImpl;
+import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.VehicleCapacity;
+import org.matsim.vehicles.VehicleType;
+import org.matsim.vehicles.VehicleUtils;
+import org.matsim.vehicles.Vehicles;
+import org.matsim.vehicles.VehiclesFactory;
+
+public class ScenarioBinaryWriterReaderTest {
+
+	@Rule
+	public final MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testNetwork() {
+		Network network = createNetwork();
+		String filename = this.utils.getOutputDirectory() + "network.bin";
+		new ScenarioBinaryWriter().writeNetwork(network, filename);
+
+		MatsimFileTypeGuesser guesser = new MatsimFileTypeGuesser(filename);
+		Assert.assertTrue(guesser.isBinary());
+		Assert.assertEquals(MatsimFileTypeGuesser.FileType.Network, guesser.getGuessedFileType());
+
+		Network network2 = NetworkUtils.createNetwork();
+		new ScenarioBinaryReader().readNetwork(filename, network2);
+
+		Assert.assertEquals("test network", network2.getName());
+		Assert.assertEquals(1800, network2.getCapacityPeriod(), 0);
+		Assert.assertEquals("world", network2.getAttributes().getAttribute("hello"));
+		Assert.assertEquals(network.getNodes().keySet(), network2.getNodes().keySet());
+		Assert.assertEquals(network.getLinks().keySet(), network2.getLinks().keySet());
+
+		Node n3 = network2.getNodes().get(Id.createNodeId("3"));
+		Assert.assertEquals(new Coord(2000, 0, 42), n3.getCoord());
+		Assert.assertEquals("junction", NetworkUtils.getType(n3));
+		Assert.assertEquals(17, n3.getAttributes().getAttribute("count"));
+		Assert.assertFalse(network2.getNodes().get(Id.createNodeId("1")).getCoord().hasZ());
+
+		for (Link link : network.getLinks().values()) {
+			Link link2 = network2.getLinks().get(link.getId());
+			Assert.assertEquals(link.getFromNode().getId(), link2.getFromNode().getId());
+			Assert.assertEquals(link.getToNode().getId(), link2.getToNode().getId());
+			Assert.assertEquals(link.getLength(), link2.getLength(), 0);
+			Assert.assertEquals(link.getFreespeed(), link2.getFreespeed(), 0);
+			Assert.assertEquals(link.getCapacity(), link2.getCapacity(), 0);
+			Assert.assertEquals(link.getNumberOfLanes(), link2.getNumberOfLanes(), 0);
+			Assert.assertEquals(link.getAllowedModes(), link2.getAllowedModes());
+		}
+		Assert.assertEquals(true, network2.getLinks().get(Id.createLinkId("2")).getAttributes().getAttribute("toll"));
+	}
+
+	@Test
+	public void testTransitSchedule() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		createTransitSchedule(scenario.getTransitSchedule());
+		String filename = this.utils.getOutputDirectory() + "schedule.bin";
+		new ScenarioBinaryWriter().writeTransitSchedule(scenario.getTransitSchedule(), filename);
+
+		Assert.assertEquals(MatsimFileTypeGuesser.FileType.TransitSchedule, new MatsimFileTypeGuesser(filename).getGuessedFileType());
+
+		Scenario scenario2 = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		new ScenarioBinaryReader().readTransitSchedule(filename, scenario2);
+		TransitSchedule schedule = scenario2.getTransitSchedule();
+
+		Assert.assertEquals(2, schedule.getFacilities().size());
+		TransitStopFacility stopB = schedule.getFacilities().get(Id.create("B", TransitStopFacility.class));
+		Assert.assertEquals(new Coord(2000, 0), stopB.getCoord());
+		Assert.assertEquals(Id.createLinkId("2"), stopB.getLinkId());
+		Assert.assertEquals("Stop B", stopB.getName());
+		Assert.assertTrue(stopB.getIsBlockingLane());
+		Assert.assertEquals("yes", stopB.getAttributes().getAttribute("shelter"));
+		Assert.assertEquals(120, schedule.getMinimalTransferTimes().get(stopB.getId(), Id.create("A", TransitStopFacility.class)), 0);
+
+		TransitLine line = schedule.getTransitLines().get(Id.create("blue", TransitLine.class));
+		Assert.assertEquals("Blue Line", line.getName());
+		TransitRoute route = line.getRoutes().get(Id.create("blue1", TransitRoute.class));
+		Assert.assertEquals("bus", route.getTransportMode());
+		Assert.assertEquals("to B", route.getDescription());
+		Assert.assertEquals(2, route.getStops().size());
+		Assert.assertSame(stopB, route.getStops().get(1).getStopFacility());
+		Assert.assertEquals(300, route.getStops().get(1).getArrivalOffset(), 0);
+		Assert.assertTrue(route.getStops().get(1).isAwaitDepartureTime());
+		Assert.assertEquals(Id.createLinkId("1"), route.getRoute().getStartLinkId());
+		Assert.assertEquals(Id.createLinkId("2"), route.getRoute().getEndLinkId());
+		Assert.assertEquals(0, route.getRoute().getLinkIds().size());
+
+		Assert.assertEquals(2, route.getDepartures().size());
+		Departure departure = route.getDepartures().get(Id.create("d2", Departure.class));
+		Assert.assertEquals(8 * 3600 + 600, departure.getDepartureTime(), 0);
+		Assert.assertEquals(Id.create("bus2", Vehicle.class), departure.getVehicleId());
+		Assert.assertEquals(1.5, departure.getAttributes().getAttribute("factor"));
+	}
+
+	@Test
+	public void testFacilities() {
+		ActivityFacilities facilities = createFacilities();
+		String filename = this.utils.getOutputDirectory() + "facilities.bin";
+		new ScenarioBinaryWriter().writeFacilities(facilities, filename);
+
+		ActivityFacilities facilities2 = FacilitiesUtils.createActivityFacilities();
+		new ScenarioBinaryReader().readFacilities(filename, facilities2);
+
+		Assert.assertEquals(2, facilities2.getFacilities().size());
+		ActivityFacility home = facilities2.getFacilities().get(Id.create("home", ActivityFacility.class));
+		Assert.assertEquals(new Coord(100, 200), home.getCoord());
+		Assert.assertNull(home.getLinkId());
+		Assert.assertEquals("blue", home.getAttributes().getAttribute("color"));
+
+		ActivityFacility work = facilities2.getFacilities().get(Id.create("work", ActivityFacility.class));
+		Assert.assertNull(work.getCoord());
+		Assert.assertEquals(Id.createLinkId("2"), work.getLinkId());
+		ActivityOption option = work.getActivityOptions().get("work");
+		Assert.assertEquals(50, option.getCapacity(), 0);
+		Assert.assertEquals(1, option.getOpeningTimes().size());
+		OpeningTime openingTime = option.getOpeningTimes().first();
+		Assert.assertEquals(8 * 3600, openingTime.getStartTime(), 0);
+		Assert.assertEquals(17 * 3600, openingTime.getEndTime(), 0);
+	}
+
+	@Test
+	public void testVehicles() {
+		Vehicles vehicles = createVehicles();
+		String filename = this.utils.getOutputDirectory() + "vehicles.bin";
+		new ScenarioBinaryWriter().writeVehicles(vehicles, filename);
+
+		Vehicles vehicles2 = VehicleUtils.createVehiclesContainer();
+		new ScenarioBinaryReader().readVehicles(filename, vehicles2);
+
+		Assert.assertEquals(2, vehicles2.getVehicleTypes().size());
+		Assert.assertEquals(2, vehicles2.getVehicles().size());
+		VehicleType bus = vehicles2.getVehicleTypes().get(Id.create("bus", VehicleType.class));
+		Assert.assertEquals("a bus", bus.getDescription());
+		Assert.assertEquals(Integer.valueOf(40), bus.getCapacity().getSeats());
+		Assert.assertEquals(Integer.valueOf(60), bus.getCapacity().getStandingRoom());
+		Assert.assertEquals(18, bus.getLength(), 0);
+		Assert.assertEquals(EngineInformation.FuelType.diesel, bus.getEngineInformation().getFuelType());
+		Assert.assertEquals(VehicleType.DoorOperationMode.parallel, bus.getDoorOperationMode());
+		Assert.assertEquals(2.5, bus.getPcuEquivalents(), 0);
+		Assert.assertNull(vehicles2.getVehicleTypes().get(Id.create("car", VehicleType.class)).getCapacity());
+		Assert.assertSame(bus, vehicles2.getVehicles().get(Id.create("bus2", Vehicle.class)).getType());
+	}
+
+	@Test
+	public void testWrongContainer() {
+		String filename = this.utils.getOutputDirectory() + "vehicles.bin";
+		new ScenarioBinaryWriter().writeVehicles(createVehicles(), filename);
+		try {
+			new ScenarioBinaryReader().readNetwork(filename, NetworkUtils.createNetwork());
+			Assert.fail("expected exception");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testLoadScenario() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		createTransitSchedule(scenario.getTransitSchedule());
+		String outputDirectory = this.utils.getOutputDirectory();
+		ScenarioBinaryWriter writer = new ScenarioBinaryWriter();
+		writer.writeNetwork(createNetwork(), outputDirectory + "network.bin");
+		writer.writeTransitSchedule(scenario.getTransitSchedule(), outputDirectory + "schedule.bin");
+		writer.writeFacilities(createFacilities(), outputDirectory + "facilities.bin");
+		writer.writeVehicles(createVehicles(), outputDirectory + "vehicles.bin");
+
+		Config config = ConfigUtils.createConfig();
+		config.network().setInputFile(outputDirectory + "network.bin");
+		config.facilities().setInputFile(outputDirectory + "facilities.bin");
+		config.transit().setTransitScheduleFile(outputDirectory + "schedule.bin");
+		config.transit().setVehiclesFile(outputDirectory + "vehicles.bin");
+		Scenario scenario2 = ScenarioUtils.loadScenario(config);
+
+		Assert.assertEquals(3, scenario2.getNetwork().getNodes().size());
+		Assert.assertEquals(2, scenario2.getActivityFacilities().getFacilities().size());
+		Assert.assertEquals(1, scenario2.getTransitSchedule().getTransitLines().size());
+		Assert.assertEquals(2, scenario2.getTransitVehicles().getVehicles().size());
+	}
+
+	private static Network createNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		network.setName("test network");
+		network.setCapacityPeriod(1800);
+		network.getAttributes().putAttribute("hello", "world");
+		NetworkFactory factory = network.getFactory();
+		Node n1 = factory.createNode(Id.createNodeId("1"), new Coord(0, 0));
+		Node n2 = factory.createNode(Id.createNodeId("2"), new Coord(1000, 0));
+		Node n3 = factory.createNode(Id.createNodeId("3"), new Coord(2000, 0, 42));
+		NetworkUtils.setType(n3, "junction");
+		n3.getAttributes().putAttribute("count", 17);
+		network.addNode(n1);
+		network.addNode(n2);
+		network.addNode(n3);
+		Link l1 = factory.createLink(Id.createLinkId("1"), n1, n2);
+		l1.setFreespeed(10);
+		l1.setCapacity(2000);
+		l1.setAllowedModes(new HashSet<>(Arrays.asList("car", "bus")));
+		Link l2 = factory.createLink(Id.createLinkId("2"), n2, n3);
+		l2.setLength(1234.5);
+		l2.setNumberOfLanes(2);
+		l2.setAllowedModes(new HashSet<>());
+		l2.getAttributes().putAttribute("toll", true);
+		Link l3 = factory.createLink(Id.createLinkId("3"), n3, n1);
+		l3.setAllowedModes(new HashSet<>(Arrays.asList("car", "bus")));
+		network.addLink(l1);
+		network.addLink(l2);
+		network.addLink(l3);
+		return network;
+	}
+
+	private static void createTransitSchedule(final TransitSchedule schedule) {
+		TransitScheduleFactory factory = schedule.getFactory();
+		TransitStopFacility stopA = factory.createTransitStopFacility(Id.create("A", TransitStopFacility.class), new Coord(1000, 0), false);
+		stopA.setLinkId(Id.createLinkId("1"));
+		TransitStopFacility stopB = factory.createTransitStopFacility(Id.create("B", TransitStopFacility.class), new Coord(2000, 0), true);
+		stopB.setLinkId(Id.createLinkId("2"));
+		stopB.setName("Stop B");
+		stopB.getAttributes().putAttribute("shelter", "yes");
+		schedule.addStopFacility(stopA);
+		schedule.addStopFacility(stopB);
+		schedule.getMinimalTransferTimes().set(stopB.getId(), stopA.getId(), 120);
+
+		TransitLine line = factory.createTransitLine(Id.create("blue", TransitLine.class));
+		line.setName("Blue Line");
+		List<TransitRouteStop> stops = new ArrayList<>();
+		stops.add(factory.createTransitRouteStop(stopA, 0, 30));
+		TransitRouteStop stop = factory.createTransitRouteStop(stopB, 300, 300);
+		stop.setAwaitDepartureTime(true);
+		stops.add(stop);
+		NetworkRoute networkRoute = RouteUtils.createLinkNetworkRouteImpl(Id.createLinkId("1"), Id.createLinkId("2"));
+		TransitRoute route = factory.createTransitRoute(Id.create("blue1", TransitRoute.class), networkRoute, stops, "bus");
+		route.setDescription("to B");
+		Departure d1 = factory.createDeparture(Id.create("d1", Departure.class), 8 * 3600);
+		d1.setVehicleId(Id.create("bus1", Vehicle.class));
+		Departure d2 = factory.createDeparture(Id.create("d2", Departure.class), 8 * 3600 + 600);
+		d2.setVehicleId(Id.create("bus2", Vehicle.class));
+		d2.getAttributes().putAttribute("factor", 1.5);
+		route.addDeparture(d1);
+		route.addDeparture(d2);
+		line.addRoute(route);
+		schedule.addTransitLine(line);
+	}
+
+	private static ActivityFacilities createFacilities() {
+		ActivityFacilities facilities = FacilitiesUtils.createActivityFacilities();
+		ActivityFacilitiesFactory factory = facilities.getFactory();
+		ActivityFacility home = factory.createActivityFacility(Id.create("home", ActivityFacility.class), new Coord(100, 200));
+		home.addActivityOption(factory.createActivityOption("home"));
+		home.getAttributes().putAttribute("color", "blue");
+		ActivityFacility work = factory.createActivityFacility(Id.create("work", ActivityFacility.class), Id.createLinkId("2"));
+		ActivityOption option = factory.createActivityOption("work");
+		option.setCapacity(50);
+		option.addOpeningTime(new OpeningTimeImpl(8 * 3600, 17 * 3600));
+		work.addActivityOption(option);
+		facilities.addActivityFacility(home);
+		facilities.addActivityFacility(work);
+		return facilities;
+	}
+
+	private static Vehicles createVehicles() {
+		Vehicles vehicles = VehicleUtils.createVehiclesContainer();
+		VehiclesFactory factory = vehicles.getFactory();
+		VehicleType bus = factory.createVehicleType(Id.create("bus", VehicleType.class));
+		bus.setDescription("a bus");
+		VehicleCapacity capacity = factory.createVehicleCapacity();
+		capacity.setSeats(40);
+		capacity.setStandingRoom(60);
+		bus.setCapacity(capacity);
+		bus.setLength(18);
+		bus.setEngineInformation(new EngineInformationImpl(EngineInformation.FuelType.diesel, 0.0003));
+		bus.setDoorOperationMode(VehicleType.DoorOperationMode.parallel);
+		bus.setPcuEquivalents(2.5);
+		VehicleType car = factory.createVehicleType(Id.create("car", VehicleType.class));
+		vehicles.addVehicleType(bus);
+		vehicles.addVehicleType(car);
+		vehicles.addVehicle(factory.createVehicle(Id.create("bus1", Vehicle.class), bus));
+		vehicles.addVehicle(factory.createVehicle(Id.create("bus2", Vehicle.class), bus));
+		return vehicles;
+	}
+
+}
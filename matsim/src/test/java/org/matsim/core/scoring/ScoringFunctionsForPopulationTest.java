@@ -6,6 +6,7 @@ import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
 import org.matsim.api.core.v01.population.Activity;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
@@ -18,6 +19,8 @@ import org.matsim.core.events.EventsUtils;
 import org.matsim.core.router.TripStructureUtils;
 import org.matsim.core.scenario.ScenarioUtils;
 
+import java.util.Random;
+
 /**
  * @author mrieser / Simunto GmbH
  */
@@ -69,6 +72,117 @@ public class ScoringFunctionsForPopulationTest {
 		Assert.assertEquals("transit_walk", ((Leg) rs.lastTrip.getTripElements().get(4)).getMode());
 	}
 
+	@Test
+	public void testPartitionedScoring() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Population population = scenario.getPopulation();
+		for (int i = 0; i < 1000; i++) {
+			population.addPerson(population.getFactory().createPerson(Id.create(i, Person.class)));
+		}
+
+		ScoringFunctionsForPopulation serial = scoreRandomEvents(population, 0);
+		ScoringFunctionsForPopulation partitioned = scoreRandomEvents(population, 4);
+
+		for (Person person : population.getPersons().values()) {
+			OrderSensitiveScoringFunction expected = (OrderSensitiveScoringFunction) serial.getScoringFunctionForAgent(person.getId());
+			OrderSensitiveScoringFunction actual = (OrderSensitiveScoringFunction) partitioned.getScoringFunctionForAgent(person.getId());
+			Assert.assertTrue(expected.finished);
+			Assert.assertTrue(actual.finished);
+			Assert.assertFalse("scoring function was called by more than one thread", actual.calledByOtherThread);
+			Assert.assertEquals(expected.getScore(), actual.getScore(), 0.0);
+		}
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			Assert.assertFalse("scoring thread is still running after scoring", thread.getName().startsWith("ScoringShard-"));
+		}
+	}
+
+	private static ScoringFunctionsForPopulation scoreRandomEvents(Population population, int numberOfThreadsForScoring) {
+		ControlerListenerManagerImpl controlerListenerManager = new ControlerListenerManagerImpl();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		PopulationFactory pf = population.getFactory();
+		ScoringFunctionsForPopulation sf = new ScoringFunctionsForPopulation(controlerListenerManager, eventsManager, new EventsToActivities(),
+				new EventsToLegs(ScenarioUtils.createScenario(ConfigUtils.createConfig())), population, agentId -> new OrderSensitiveScoringFunction(),
+				numberOfThreadsForScoring);
+		controlerListenerManager.fireControlerIterationStartsEvent(0);
+
+		// every trip record has to start with an activity
+		for (Person person : population.getPersons().values()) {
+			sf.handleActivity(new PersonExperiencedActivity(person.getId(), pf.createActivityFromCoord("home", new Coord(0, 0))));
+		}
+		Random random = new Random(4711);
+		for (int i = 0; i < 100000; i++) {
+			Id<Person> personId = Id.create(random.nextInt(1000), Person.class);
+			int type = random.nextInt(3);
+			if (type == 0) {
+				sf.handleEvent(new PersonMoneyEvent(i, personId, random.nextInt(100)));
+			} else if (type == 1) {
+				sf.handleLeg(new PersonExperiencedLeg(personId, pf.createLeg("walk")));
+			} else {
+				sf.handleActivity(new PersonExperiencedActivity(personId, pf.createActivityFromCoord("home", new Coord(0, 0))));
+			}
+		}
+		sf.finishScoringFunctions();
+		return sf;
+	}
+
+	private static class OrderSensitiveScoringFunction implements ScoringFunction {
+
+		double score = 0;
+		boolean finished = false;
+		boolean calledByOtherThread = false;
+		private Thread thread = null;
+
+		private void update(double value) {
+			if (this.thread == null) {
+				this.thread = Thread.currentThread();
+			} else if (this.thread != Thread.currentThread()) {
+				this.calledByOtherThread = true;
+			}
+			this.score = (this.score * 31 + value) % 1000003;
+		}
+
+		@Override
+		public void handleActivity(Activity activity) {
+			update(1);
+		}
+
+		@Override
+		public void handleLeg(Leg leg) {
+			update(2);
+		}
+
+		@Override
+		public void handleTrip(TripStructureUtils.Trip trip) {
+			update(3);
+		}
+
+		@Override
+		public void agentStuck(double time) {
+			update(4);
+		}
+
+		@Override
+		public void addMoney(double amount) {
+			update(amount);
+		}
+
+		@Override
+		public void finish() {
+			update(5);
+			this.finished = true;
+		}
+
+		@Override
+		public double getScore() {
+			return this.score;
+		}
+
+		@Override
+		public void handleEvent(Event event) {
+			update(6);
+		}
+	}
+
 	private static class RecordingScoringFunction implements ScoringFunction {
 
 		int tripCounter = 0;
@@ -2,6 +2,7 @@ package org.matsim.core.trafficmonitoring;
 
 import com.google.inject.Key;
 import com.google.inject.name.Names;
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.matsim.api.core.v01.Coord;
@@ -16,7 +17,8 @@ import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
-import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.controler.Injector;
 import org.matsim.core.events.EventsManagerModule;
 import org.matsim.core.scenario.ScenarioByInstanceModule;
@@ -98,4 +100,17 @@ public class TravelTimeCalculatorModuleTest {
 		assertThat(bike.getLinkTravelTimes().getLinkTravelTime(link, 0.0, null, null ), is(8.0));
 	}
 
+	@Test
+	public void testRecordTravelTimesInQSimRequiresQSim() {
+		Config config = ConfigUtils.createConfig();
+		config.controler().setMobsim(ControlerConfigGroup.MobsimType.JDEQSim.toString());
+		config.travelTimeCalculator().setRecordTravelTimesInQSim(true);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		try {
+			Injector.createInjector(config, new TravelTimeCalculatorModule(), new EventsManagerModule(), new ScenarioByInstanceModule(scenario));
+			Assert.fail("expected an exception, nobody would record the travel times.");
+		} catch (RuntimeException expected) {
+		}
+	}
+
 }
@@ -24,6 +24,9 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -48,6 +51,9 @@ import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.mobsim.framework.events.MobsimAfterSimStepEvent;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeCleanupEvent;
+import org.matsim.core.mobsim.framework.events.MobsimInitializedEvent;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.network.io.MatsimNetworkReader;
 import org.matsim.core.scenario.MutableScenario;
@@ -276,6 +282,83 @@ public class TravelTimeCalculatorTest extends MatsimTestCase {
 		assertEquals(freeSpeedTT, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + 5*timeBinSize + offset, null, null), EPSILON);
 	}
 	
+	/**
+	 * Tests that the off-heap travel time data gives the same travel times, and that they can be read from the
+	 * memory mapped file by another travel time calculator.
+	 */
+	public void testOffHeapTravelTimes_SharedFile() throws IOException {
+		Config config = ConfigUtils.createConfig();
+		int timeBinSize = 15*60;
+		config.travelTimeCalculator().setTraveltimeBinSize(timeBinSize);
+		config.travelTimeCalculator().setMaxTime(12*3600);
+		config.travelTimeCalculator().setTravelTimeCalculatorType(TravelTimeCalculatorConfigGroup.TravelTimeCalculatorType.TravelTimeCalculatorOffHeap.name());
+		String file = getOutputDirectory() + "traveltimes.bin";
+		config.travelTimeCalculator().setTravelTimeDataFile(file);
+
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Network network = scenario.getNetwork();
+		network.setCapacityPeriod(3600.0);
+		final Node fromNode = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		final Node toNode = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network,Id.create("1", Link.class), fromNode, toNode, 1000.0, 100.0, 3600.0, 1.0 );
+		NetworkUtils.createAndAddLink(network,Id.create("2", Link.class), toNode, fromNode, 1000.0, 100.0, 3600.0, 1.0 );
+		double freeSpeedTT = NetworkUtils.getFreespeedTravelTime(link1);
+		Id<Vehicle> vehId = Id.create("1", Vehicle.class);
+
+		TravelTimeCalculator ttcalc = TravelTimeCalculator.create(network, config.travelTimeCalculator());
+		double firstTimeBinStart = 7.0 * 3600;
+		double linkTravelTime1 = 50.0 * 60;
+		double linkTravelTime2 = 10.0 * 60;
+		ttcalc.handleEvent(new LinkEnterEvent(firstTimeBinStart, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(firstTimeBinStart + linkTravelTime1, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkEnterEvent(firstTimeBinStart + 3*timeBinSize, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(firstTimeBinStart + 3*timeBinSize + linkTravelTime2, vehId, link1.getId()));
+
+		TravelTimeCalculator.Builder builder = new TravelTimeCalculator.Builder(network);
+		builder.setTimeslice(timeBinSize);
+		builder.setMaxTime(12*3600);
+		builder.setSharedTravelTimeDataFile(file);
+		TravelTimeCalculator reader = builder.build();
+
+		double offset = 5*60;
+		for (TravelTimeCalculator calculator : new TravelTimeCalculator[] { ttcalc, reader }) {
+			assertEquals(linkTravelTime1, calculator.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + offset, null, null), EPSILON);
+			assertEquals(linkTravelTime1-timeBinSize, calculator.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + 1*timeBinSize + offset, null, null), EPSILON);
+			assertEquals(linkTravelTime2, calculator.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + 3*timeBinSize + offset, null, null), EPSILON);
+			assertEquals(freeSpeedTT, calculator.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + 4*timeBinSize + offset, null, null), EPSILON);
+		}
+
+		// the reader sees the travel times of the next iteration without copying them, and does not write to the file
+		ttcalc.reset(1);
+		ttcalc.handleEvent(new LinkEnterEvent(firstTimeBinStart + 4*timeBinSize, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(firstTimeBinStart + 4*timeBinSize + linkTravelTime2, vehId, link1.getId()));
+		byte[] fileContent = Files.readAllBytes(Paths.get(file));
+		assertEquals(freeSpeedTT, reader.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + offset, null, null), EPSILON);
+		assertEquals(linkTravelTime2, reader.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + 4*timeBinSize + offset, null, null), EPSILON);
+		reader.reset(2);
+		assertTrue(Arrays.equals(fileContent, Files.readAllBytes(Paths.get(file))));
+		assertEquals(linkTravelTime2, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + 4*timeBinSize + offset, null, null), EPSILON);
+		try {
+			reader.handleEvent(new LinkEnterEvent(firstTimeBinStart, vehId, link1.getId()));
+			reader.handleEvent(new LinkLeaveEvent(firstTimeBinStart + linkTravelTime1, vehId, link1.getId()));
+			fail("expected exception, the travel times of the reader cannot be changed.");
+		} catch (IllegalStateException e) {
+			log.info("catched expected exception.", e);
+		}
+
+		// the file is checked against the network
+		TravelTimeCalculator.Builder wrongBuilder = new TravelTimeCalculator.Builder(network);
+		wrongBuilder.setTimeslice(timeBinSize / 3);
+		wrongBuilder.setMaxTime(12*3600);
+		wrongBuilder.setSharedTravelTimeDataFile(file);
+		try {
+			wrongBuilder.build();
+			fail("expected exception, the number of time slots does not match.");
+		} catch (RuntimeException e) {
+			log.info("catched expected exception.", e);
+		}
+	}
+
 	/**
 	 * Test linear interpolation of aggregated travel times at different positions of a time bin. (Previous tests only test the midpoint of each time bin.)
 	 * 
@@ -385,6 +468,51 @@ public class TravelTimeCalculatorTest extends MatsimTestCase {
 		Assert.assertEquals("The time of transit vehicles at stop should not be counted", 100.0, ttc.getLinkTravelTimes().getLinkTravelTime(link1, 200, null, null), 1e-8);
 	}
 
+	/**
+	 * Tests that travel times recorded by the mobsim are only used after the end of the time bin in which they
+	 * were recorded, and are then the same as if they were computed from events.
+	 */
+	public void testRecordTravelTimesInQSim() {
+		Network network = NetworkUtils.createNetwork();
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTraveltimeBinSize(900);
+		config.setCalculateLinkToLinkTravelTimes(true);
+		TravelTimeCalculator ttc = new TravelTimeCalculator(network, config);
+
+		Node n1 = network.getFactory().createNode(Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = network.getFactory().createNode(Id.create(2, Node.class), new Coord(1000, 0));
+		Node n3 = network.getFactory().createNode(Id.create(3, Node.class), new Coord(2000, 0));
+		network.addNode(n1);
+		network.addNode(n2);
+		network.addNode(n3);
+		Link link1 = network.getFactory().createLink(Id.create(1, Link.class), n1, n2);
+		Link link2 = network.getFactory().createLink(Id.create(2, Link.class), n2, n3);
+		link1.setLength(1000);
+		link1.setFreespeed(10);
+		network.addLink(link1);
+		network.addLink(link2);
+
+		ttc.notifyMobsimInitialized(new MobsimInitializedEvent<>(null));
+		ttc.recordLinkTravelTime(link1.getId(), link2.getId(), TransportMode.car, 100, 400);
+		ttc.notifyMobsimAfterSimStep(new MobsimAfterSimStepEvent<>(null, 0));
+		ttc.recordLinkTravelTime(link1.getId(), null, TransportMode.car, 200, 300);
+		ttc.notifyMobsimAfterSimStep(new MobsimAfterSimStepEvent<>(null, 899));
+		Assert.assertEquals("The travel times should not be merged before the end of the time bin", 300.0, ttc.getLinkTravelTimes().getLinkTravelTime(link1, 200, null, null), 1e-8);
+		Assert.assertEquals(300.0, ttc.getLinkToLinkTravelTimes().getLinkToLinkTravelTime(link1, link2, 200), 1e-8);
+
+		ttc.notifyMobsimAfterSimStep(new MobsimAfterSimStepEvent<>(null, 900));
+		Assert.assertEquals(200.0, ttc.getLinkTravelTimes().getLinkTravelTime(link1, 200, null, null), 1e-8);
+		Assert.assertEquals("A vehicle without next link should not count for link to link travel times", 300.0, ttc.getLinkToLinkTravelTimes().getLinkToLinkTravelTime(link1, link2, 200), 1e-8);
+
+		ttc.recordLinkTravelTime(link1.getId(), link2.getId(), TransportMode.car, 1000, 1300);
+		ttc.notifyMobsimBeforeCleanup(new MobsimBeforeCleanupEvent<>(null));
+		Assert.assertEquals(300.0, ttc.getLinkTravelTimes().getLinkTravelTime(link1, 1000, null, null), 1e-8);
+
+		// the next mobsim starts from scratch
+		ttc.notifyMobsimInitialized(new MobsimInitializedEvent<>(null));
+		Assert.assertEquals(100.0, ttc.getLinkTravelTimes().getLinkTravelTime(link1, 200, null, null), 1e-8);
+	}
+
 	/**
 	 * @author mrieser / senozon
 	 */
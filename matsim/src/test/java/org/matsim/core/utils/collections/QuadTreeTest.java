@@ -34,6 +34,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
@@ -521,6 +522,39 @@ public class QuadTreeTest {
 		valuesTester(size + 1, values);
 	}
 
+	/**
+	 * Tests that the bulk constructor creates the same tree as putting the values one by one.
+	 */
+	@Test
+	public void testBulkConstructor() {
+		Random r = new Random(4711);
+		List<Coord> coords = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			// many duplicate locations, and a few points on the bounds
+			coords.add(new Coord(r.nextInt(200) * 5.0, r.nextInt(200) * 5.0));
+		}
+		coords.add(coords.get(17));
+		QuadTree<Coord> expected = new QuadTree<>(0, 0, 1000, 1000);
+		for (Coord coord : coords) {
+			expected.put(coord.getX(), coord.getY(), coord);
+		}
+		QuadTree<Coord> actual = new QuadTree<>(0, 0, 1000, 1000, coords, Coord::getX, Coord::getY);
+
+		assertEquals(expected.size(), actual.size());
+		assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(actual.values()));
+		for (int i = 0; i < 1000; i++) {
+			double x = r.nextDouble() * 1000;
+			double y = r.nextDouble() * 1000;
+			assertTrue(expected.getClosest(x, y) == actual.getClosest(x, y));
+			assertEquals(new ArrayList<>(expected.getDisk(x, y, 30)), new ArrayList<>(actual.getDisk(x, y, 30)));
+		}
+
+		try {
+			new QuadTree<>(0, 0, 1000, 1000, Collections.singletonList(new Coord(1001, 0)), Coord::getX, Coord::getY);
+			fail("expected IllegalArgumentException, got none.");
+		} catch (IllegalArgumentException e) {}
+	}
+
 	@Test
 	public void testValuesIterator_ConcurrentModification() {
 		QuadTree<String> qt = getTestTree();
@@ -0,0 +1,100 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class AsyncOutputServiceTest {
+
+	@Rule
+	public final MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testSynchronous() {
+		AsyncOutputService outputService = new AsyncOutputService(0);
+		Assert.assertFalse(outputService.isAsynchronous());
+		Thread caller = Thread.currentThread();
+		AtomicInteger runs = new AtomicInteger();
+		outputService.submit("test", () -> {
+			Assert.assertSame(caller, Thread.currentThread());
+			runs.incrementAndGet();
+		});
+		Assert.assertEquals(1, runs.get());
+	}
+
+	@Test
+	public void testOrderedOutput() throws IOException {
+		AsyncOutputService outputService = new AsyncOutputService(3);
+		for (String ending : new String[] { ".txt", ".txt.gz", ".txt.lz4" }) {
+			String filename = this.utils.getOutputDirectory() + "parts" + ending;
+			AsyncOutputService.OrderedOutput output = outputService.openOrderedOutput(filename);
+			for (int i = 0; i < 100; i++) {
+				final int part = i;
+				output.write(() -> {
+					if (part % 7 == 0) {
+						// let later parts finish first
+						try {
+							Thread.sleep(5);
+						} catch (InterruptedException e) {
+							throw new RuntimeException(e);
+						}
+					}
+					return ("part " + part + "\n").getBytes(StandardCharsets.UTF_8);
+				});
+			}
+			output.close();
+			outputService.flush();
+
+			try (BufferedReader reader = IOUtils.getBufferedReader(filename)) {
+				for (int i = 0; i < 100; i++) {
+					Assert.assertEquals(ending, "part " + i, reader.readLine());
+				}
+				Assert.assertNull(ending, reader.readLine());
+			}
+		}
+	}
+
+	@Test
+	public void testFailure() {
+		AsyncOutputService outputService = new AsyncOutputService(2);
+		IllegalStateException failure = new IllegalStateException("disk full");
+		outputService.submit("test.txt", () -> {
+			throw failure;
+		});
+		try {
+			outputService.flush();
+			Assert.fail("expected exception");
+		} catch (RuntimeException e) {
+			Assert.assertSame(failure, e.getCause());
+			Assert.assertTrue(e.getMessage().contains("test.txt"));
+		}
+		// the failure is only thrown once
+		outputService.flush();
+	}
+
+}
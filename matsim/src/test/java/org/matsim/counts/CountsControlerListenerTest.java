@@ -64,7 +64,7 @@ public class CountsControlerListenerTest {
 	public void testUseVolumesOfIteration() {
 		Config config = ConfigUtils.createConfig();
 		Scenario scenario = ScenarioUtils.createScenario(config);
-		CountsControlerListener ccl = new CountsControlerListener(config.global(), scenario.getNetwork(), config.controler(), config.counts(), null, null, null);
+		CountsControlerListener ccl = new CountsControlerListener(config.global(), scenario.getNetwork(), config.controler(), config.counts(), null, null, null, null);
 		
 		// test defaults
 		Assert.assertEquals(10, config.counts().getWriteCountsInterval());
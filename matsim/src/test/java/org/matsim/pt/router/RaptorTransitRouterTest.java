@@ -0,0 +1,161 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.pt.routes.ExperimentalTransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.testcases.MatsimTestCase;
+
+/**
+ * The single-journey queries are tested together with {@link TransitRouterImpl} in {@link TransitRouterImplTest}.
+ */
+public class RaptorTransitRouterTest {
+
+	@Test
+	public void testCalcRoutes_departureWindow() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig trConfig = new TransitRouterConfig(f.scenario.getConfig());
+		RaptorTransitRouter router = new RaptorTransitRouter(trConfig, f.schedule);
+		Coord fromCoord = new Coord(3800, 5100);
+		Coord toCoord = new Coord(16100, 5050);
+		List<List<Leg>> journeys = router.calcRoutes(new FakeFacility(fromCoord), new FakeFacility(toCoord), 5.0*3600, 6.0*3600, null);
+
+		// the blue line departs in A at 5:06, 5:26 and 5:46 and needs 23 minutes to D
+		double[] expectedDepartures = { 5.0*3600 + 6.0*60, 5.0*3600 + 26.0*60, 5.0*3600 + 46.0*60 };
+		Assert.assertEquals(expectedDepartures.length, journeys.size());
+		double accessTime = CoordUtils.calcEuclideanDistance(fromCoord,
+				f.schedule.getFacilities().get(Id.create("0", TransitStopFacility.class)).getCoord()) / trConfig.getBeelineWalkSpeed();
+		double egressTime = CoordUtils.calcEuclideanDistance(
+				f.schedule.getFacilities().get(Id.create("6", TransitStopFacility.class)).getCoord(), toCoord) / trConfig.getBeelineWalkSpeed();
+		for (int i = 0; i < expectedDepartures.length; i++) {
+			List<Leg> legs = journeys.get(i);
+			Assert.assertEquals(3, legs.size());
+			Assert.assertEquals(TransportMode.transit_walk, legs.get(0).getMode());
+			Assert.assertEquals(TransportMode.pt, legs.get(1).getMode());
+			Assert.assertEquals(TransportMode.transit_walk, legs.get(2).getMode());
+			ExperimentalTransitRoute ptRoute = (ExperimentalTransitRoute) legs.get(1).getRoute();
+			Assert.assertEquals(Id.create("0", TransitStopFacility.class), ptRoute.getAccessStopId());
+			Assert.assertEquals(Id.create("6", TransitStopFacility.class), ptRoute.getEgressStopId());
+			Assert.assertEquals(Id.create("blue A > I", TransitRoute.class), ptRoute.getRouteId());
+
+			Assert.assertEquals(expectedDepartures[i] - accessTime, legs.get(0).getDepartureTime(), MatsimTestCase.EPSILON);
+			Assert.assertEquals(expectedDepartures[i], legs.get(1).getDepartureTime(), MatsimTestCase.EPSILON);
+			Leg egressLeg = legs.get(2);
+			Assert.assertEquals(expectedDepartures[i] + 23.0*60, egressLeg.getDepartureTime(), MatsimTestCase.EPSILON);
+			Assert.assertEquals(egressTime, egressLeg.getTravelTime(), MatsimTestCase.EPSILON);
+		}
+	}
+
+	@Test
+	public void testCalcRoutes_noDepartures() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig trConfig = new TransitRouterConfig(f.scenario.getConfig());
+		RaptorTransitRouter router = new RaptorTransitRouter(trConfig, f.schedule);
+		List<List<Leg>> journeys = router.calcRoutes(new FakeFacility(new Coord(3800, 5100)), new FakeFacility(new Coord(16100, 5050)),
+				3.0*3600, 4.0*3600, null);
+		Assert.assertTrue(journeys.isEmpty());
+	}
+
+	@Test
+	public void testSharedData() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig trConfig = new TransitRouterConfig(f.scenario.getConfig());
+		RaptorTransitRouterData data = RaptorTransitRouterData.createFromSchedule(f.schedule, trConfig.getBeelineWalkConnectionDistance());
+		TransitRouterNetworkTravelTimeAndDisutility disutility = new TransitRouterNetworkTravelTimeAndDisutility(trConfig, new PreparedTransitSchedule());
+		RaptorTransitRouter router1 = new RaptorTransitRouter(trConfig, data, disutility);
+		RaptorTransitRouter router2 = new RaptorTransitRouter(trConfig, data, disutility);
+
+		FakeFacility fromFacility = new FakeFacility(new Coord(3800, 5100));
+		FakeFacility toFacility = new FakeFacility(new Coord(28100, 4950));
+		// use the first router for another query first, so its labels are not fresh anymore
+		Assert.assertFalse(router1.calcRoutes(fromFacility, new FakeFacility(new Coord(16100, 5050)), 5.0*3600, 7.0*3600, null).isEmpty());
+		List<Leg> legs1 = router1.calcRoute(fromFacility, toFacility, 5.0*3600 + 40.0*60, null);
+		List<Leg> legs2 = router2.calcRoute(fromFacility, toFacility, 5.0*3600 + 40.0*60, null);
+		Assert.assertEquals(4, legs1.size());
+		Assert.assertEquals(legs2.size(), legs1.size());
+		for (int i = 0; i < legs1.size(); i++) {
+			Assert.assertEquals(legs2.get(i).getMode(), legs1.get(i).getMode());
+			Assert.assertEquals(legs2.get(i).getTravelTime(), legs1.get(i).getTravelTime(), MatsimTestCase.EPSILON);
+		}
+	}
+
+	@Test
+	public void testFactory_sharedData() throws Exception {
+		Fixture f = new Fixture();
+		f.init();
+		RaptorTransitRouterFactory factory = new RaptorTransitRouterFactory(f.schedule, new TransitRouterConfig(f.scenario.getConfig()));
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<TransitRouter>> futures = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			futures.add(executor.submit(factory::get));
+		}
+		List<RaptorTransitRouter> routers = new ArrayList<>();
+		for (Future<TransitRouter> future : futures) {
+			routers.add((RaptorTransitRouter) future.get());
+		}
+		executor.shutdown();
+
+		for (RaptorTransitRouter router : routers) {
+			Assert.assertSame(routers.get(0).getData(), router.getData());
+			Assert.assertSame(getPreparedTransitSchedule(routers.get(0)), getPreparedTransitSchedule(router));
+		}
+	}
+
+	@Test
+	public void testFactory_scheduleChanged() {
+		Fixture f = new Fixture();
+		f.init();
+		EventsManager events = EventsUtils.createEventsManager();
+		RaptorTransitRouterFactory factory = new RaptorTransitRouterFactory(f.schedule, events, f.scenario.getConfig());
+		RaptorTransitRouter router1 = (RaptorTransitRouter) factory.get();
+		RaptorTransitRouter router2 = (RaptorTransitRouter) factory.get();
+		Assert.assertSame(getPreparedTransitSchedule(router1), getPreparedTransitSchedule(router2));
+
+		events.processEvent(new TransitScheduleChangedEvent(0.0));
+		RaptorTransitRouter router3 = (RaptorTransitRouter) factory.get();
+		Assert.assertNotSame(router1.getData(), router3.getData());
+		Assert.assertNotSame(getPreparedTransitSchedule(router1), getPreparedTransitSchedule(router3));
+	}
+
+	private static PreparedTransitSchedule getPreparedTransitSchedule(final RaptorTransitRouter router) {
+		return ((TransitRouterNetworkTravelTimeAndDisutility) router.getTravelDisutility()).getPreparedTransitSchedule();
+	}
+
+}
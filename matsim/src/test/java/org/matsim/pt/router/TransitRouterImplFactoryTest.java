@@ -0,0 +1,59 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TransitRouterImplFactoryTest {
+
+	@Test
+	public void testSharedData() throws Exception {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterImplFactory factory = new TransitRouterImplFactory(f.schedule, new TransitRouterConfig(f.scenario.getConfig()));
+
+		// request the routers for several threads at the same time, like the trip routers of the replanning threads
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<TransitRouter>> futures = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			futures.add(executor.submit(factory::get));
+		}
+		List<TransitRouterImpl> routers = new ArrayList<>();
+		for (Future<TransitRouter> future : futures) {
+			routers.add((TransitRouterImpl) future.get());
+		}
+		executor.shutdown();
+
+		TransitRouterImpl first = routers.get(0);
+		for (TransitRouterImpl router : routers) {
+			Assert.assertSame(first.getTransitRouterNetwork(), router.getTransitRouterNetwork());
+			Assert.assertSame(first.getPreparedTransitSchedule(), router.getPreparedTransitSchedule());
+		}
+		Assert.assertNotSame(first.getTravelTime(), routers.get(1).getTravelTime());
+	}
+
+}